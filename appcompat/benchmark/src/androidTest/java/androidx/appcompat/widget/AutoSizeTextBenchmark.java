@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appcompat.widget;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.util.Log;
+import android.util.TypedValue;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Simulates binding auto-sized text while scrolling a list: every frame rebinds the text of an
+ * item and lays it out. Besides the time per frame, reports the number of StaticLayouts built per
+ * frame to measure the text, as {@code <test>_layoutsPerFrame}.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class AutoSizeTextBenchmark {
+    private static final String TAG = "AutoSizeTextBenchmark";
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 100;
+
+    // Labels repeat in lists, e.g. the same category or status on many items
+    private static final String[] REPEATED_TEXTS = {
+            "Inbox", "Sent", "Drafts", "Archive", "Spam", "Trash",
+            "Important announcement for everyone", "Weekly summary"
+    };
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private TextView mTextView;
+    private CountingAutoSizeHelper mHelper;
+
+    @Before
+    public void setUp() {
+        mTextView = new TextView(InstrumentationRegistry.getTargetContext());
+        mHelper = new CountingAutoSizeHelper(mTextView);
+        mHelper.setAutoSizeTextTypeUniformWithConfiguration(12, 112, 1,
+                TypedValue.COMPLEX_UNIT_SP);
+    }
+
+    @UiThreadTest
+    @Test
+    public void rebindRepeatedTexts() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        int frames = 0;
+        while (state.keepRunning()) {
+            bindFrame(REPEATED_TEXTS[frames % REPEATED_TEXTS.length]);
+            frames++;
+        }
+        reportLayoutsPerFrame("rebindRepeatedTexts", frames);
+    }
+
+    @UiThreadTest
+    @Test
+    public void rebindSameText() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        int frames = 0;
+        while (state.keepRunning()) {
+            // e.g. the item is re-laid out while an animation runs
+            bindFrame(REPEATED_TEXTS[0]);
+            frames++;
+        }
+        reportLayoutsPerFrame("rebindSameText", frames);
+    }
+
+    @UiThreadTest
+    @Test
+    public void rebindUniqueTexts() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        int frames = 0;
+        while (state.keepRunning()) {
+            // Nothing can be reused, the cost of measuring without the cache
+            bindFrame("Item " + frames);
+            frames++;
+        }
+        reportLayoutsPerFrame("rebindUniqueTexts", frames);
+    }
+
+    private void bindFrame(String text) {
+        mTextView.setText(text);
+        mTextView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mTextView.layout(0, 0, WIDTH, HEIGHT);
+        mHelper.autoSizeText();
+    }
+
+    private void reportLayoutsPerFrame(String key, int frames) {
+        final double layoutsPerFrame = (double) mHelper.mLayoutCount / frames;
+        Log.i(TAG, key + " layoutsPerFrame=" + layoutsPerFrame);
+        final Bundle status = new Bundle();
+        status.putDouble(key + "_layoutsPerFrame", layoutsPerFrame);
+        InstrumentationRegistry.getInstrumentation().sendStatus(Activity.RESULT_OK, status);
+    }
+
+    private static class CountingAutoSizeHelper extends AppCompatTextViewAutoSizeHelper {
+        int mLayoutCount;
+
+        CountingAutoSizeHelper(TextView textView) {
+            super(textView);
+        }
+
+        @Override
+        StaticLayout createLayout(CharSequence text, Layout.Alignment alignment,
+                int availableWidth, int maxLines) {
+            mLayoutCount++;
+            return super.createLayout(text, alignment, availableWidth, maxLines);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appcompat.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.util.Xml;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.Space;
+
+import androidx.appcompat.test.R;
+import androidx.appcompat.widget.Toolbar;
+import androidx.core.widget.NestedScrollView;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.xmlpull.v1.XmlPullParser;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PrecompiledViewFactoryTest {
+    private Context mContext;
+    private AttributeSet mAttrs;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = new ContextThemeWrapper(
+                InstrumentationRegistry.getTargetContext(), R.style.Theme_AppCompat_Light);
+        XmlPullParser parser = mContext.getResources().getLayout(R.layout.layout_children);
+        while (parser.next() != XmlPullParser.START_TAG) {
+            // Move to the root element
+        }
+        mAttrs = Xml.asAttributeSet(parser);
+    }
+
+    @UiThreadTest
+    @Test
+    public void testKnownTags() {
+        assertEquals(View.class, createView("View").getClass());
+        assertEquals(LinearLayout.class, createView("LinearLayout").getClass());
+        assertEquals(Space.class, createView("Space").getClass());
+        assertEquals(Space.class, createView("android.widget.Space").getClass());
+        assertEquals(Toolbar.class,
+                createView("androidx.appcompat.widget.Toolbar").getClass());
+        assertEquals(NestedScrollView.class,
+                createView("androidx.core.widget.NestedScrollView").getClass());
+    }
+
+    @UiThreadTest
+    @Test
+    public void testUnknownTags() {
+        assertNull(createView("SurfaceView"));
+        assertNull(createView("com.example.CustomView"));
+    }
+
+    private View createView(String name) {
+        return PrecompiledViewFactory.createView(name, mContext, mAttrs);
+    }
+}
@@ -18,21 +18,33 @@ package androidx.appcompat.res.content;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.content.res.AppCompatResources;
+import androidx.appcompat.view.ContextThemeWrapper;
 import androidx.appcompat.test.R;
+import androidx.test.filters.SdkSuppress;
 import androidx.test.filters.SmallTest;
 import androidx.test.rule.ActivityTestRule;
 import androidx.test.runner.AndroidJUnit4;
 
+import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Locale;
+
 @SmallTest
 @RunWith(AndroidJUnit4.class)
 public class AppCompatResourcesTestCase {
@@ -43,6 +55,11 @@ public class AppCompatResourcesTestCase {
         mActivityTestRule = new ActivityTestRule<>(AppCompatActivity.class);
     }
 
+    @After
+    public void tearDown() {
+        AppCompatResources.setRasterizedDrawableCacheSize(0);
+    }
+
     @Test
     public void testColorStateListCaching() {
         final Activity context = mActivityTestRule.getActivity();
@@ -67,4 +84,64 @@ public class AppCompatResourcesTestCase {
         assertNotNull(AppCompatResources.getDrawable(context, R.drawable.asl_heart));
     }
 
+    @Test
+    public void testGetRasterizedDrawable() {
+        final Activity context = mActivityTestRule.getActivity();
+        final BitmapDrawable drawable = (BitmapDrawable) AppCompatResources.getRasterizedDrawable(
+                context, R.drawable.black_rect, 20, 10, Color.RED);
+        assertNotNull(drawable);
+        final Bitmap bitmap = drawable.getBitmap();
+        assertEquals(20, bitmap.getWidth());
+        assertEquals(10, bitmap.getHeight());
+        assertEquals(Color.RED, bitmap.getPixel(10, 5));
+    }
+
+    @Test
+    public void testRasterizedDrawableCaching() {
+        final Activity context = mActivityTestRule.getActivity();
+
+        // Disabled by default
+        assertNotSame(getRasterizedBitmap(context, 16, Color.RED),
+                getRasterizedBitmap(context, 16, Color.RED));
+
+        AppCompatResources.setRasterizedDrawableCacheSize(1024 * 1024);
+        final Bitmap bitmap = getRasterizedBitmap(context, 16, Color.RED);
+        assertSame(bitmap, getRasterizedBitmap(context, 16, Color.RED));
+        assertNotSame(bitmap, getRasterizedBitmap(context, 16, Color.BLUE));
+        assertNotSame(bitmap, getRasterizedBitmap(context, 32, Color.RED));
+
+        // Only room for one 16x16 bitmap, evicts the least recently used one
+        AppCompatResources.setRasterizedDrawableCacheSize(16 * 16 * 4);
+        final Bitmap other = getRasterizedBitmap(context, 16, Color.GREEN);
+        assertSame(other, getRasterizedBitmap(context, 16, Color.GREEN));
+        assertNotSame(bitmap, getRasterizedBitmap(context, 16, Color.RED));
+    }
+
+    @Test
+    public void testRasterizedDrawableCachingPerTheme() {
+        final Activity context = mActivityTestRule.getActivity();
+        AppCompatResources.setRasterizedDrawableCacheSize(1024 * 1024);
+        final Bitmap bitmap = getRasterizedBitmap(context, 16, Color.RED);
+        final Context themedContext = new ContextThemeWrapper(context, R.style.MagentaThemeOverlay);
+        assertNotSame(bitmap, getRasterizedBitmap(themedContext, 16, Color.RED));
+        assertSame(bitmap, getRasterizedBitmap(context, 16, Color.RED));
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 17)
+    public void testRasterizedDrawableCachingPerLayoutDirection() {
+        final Activity context = mActivityTestRule.getActivity();
+        AppCompatResources.setRasterizedDrawableCacheSize(1024 * 1024);
+        final Configuration configuration =
+                new Configuration(context.getResources().getConfiguration());
+        configuration.setLayoutDirection(new Locale("ar"));
+        final Context rtlContext = context.createConfigurationContext(configuration);
+        final Bitmap bitmap = getRasterizedBitmap(context, 16, Color.RED);
+        assertNotSame(bitmap, getRasterizedBitmap(rtlContext, 16, Color.RED));
+    }
+
+    private static Bitmap getRasterizedBitmap(Context context, int size, int tintColor) {
+        return ((BitmapDrawable) AppCompatResources.getRasterizedDrawable(context,
+                R.drawable.black_rect, size, size, tintColor)).getBitmap();
+    }
 }
@@ -22,15 +22,22 @@ import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
 import android.os.Build;
+import android.text.Layout;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.SpannedString;
 import android.text.StaticLayout;
 import android.text.method.SingleLineTransformationMethod;
 import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.test.R;
 import androidx.core.widget.TextViewCompat;
+import androidx.test.annotation.UiThreadTest;
 import androidx.test.filters.MediumTest;
 import androidx.test.filters.SdkSuppress;
 import androidx.test.runner.AndroidJUnit4;
@@ -141,6 +148,93 @@ public class AppCompatTextViewAutoSizeTest extends
         assertEquals(textView.getLineSpacingExtra(), staticLayout.getSpacingAdd(), 0f);
     }
 
+    @Test
+    @UiThreadTest
+    public void testAutoSizeIsMemoized() {
+        final String text = "Memoized " + System.nanoTime();
+        final CountingAutoSizeHelper helper = createMeasuredHelper(text);
+        helper.autoSizeText();
+        assertTrue(helper.mLayoutCount > 0);
+
+        // Same text and bounds, no layouts needed
+        helper.mLayoutCount = 0;
+        helper.autoSizeText();
+        assertEquals(0, helper.mLayoutCount);
+
+        // Shared between helpers
+        final CountingAutoSizeHelper otherHelper = createMeasuredHelper(text);
+        otherHelper.autoSizeText();
+        assertEquals(0, otherHelper.mLayoutCount);
+        assertEquals(helper.mTextView.getTextSize(), otherHelper.mTextView.getTextSize(), 0f);
+
+        // New text needs to be measured
+        helper.mTextView.setText(text + "!");
+        helper.autoSizeText();
+        assertTrue(helper.mLayoutCount > 0);
+    }
+
+    @Test
+    @UiThreadTest
+    public void testAutoSizeOfSpannableIsNotMemoized() {
+        final CountingAutoSizeHelper helper = createMeasuredHelper("Spannable");
+        final SpannableString text = new SpannableString("Spannable " + System.nanoTime());
+        helper.mTextView.setText(text, TextView.BufferType.SPANNABLE);
+        helper.autoSizeText();
+        assertTrue(helper.mLayoutCount > 0);
+
+        // The spans can change without the text changing, so it is measured again
+        helper.mLayoutCount = 0;
+        helper.autoSizeText();
+        assertTrue(helper.mLayoutCount > 0);
+    }
+
+    @Test
+    @UiThreadTest
+    public void testAutoSizeOfSpannedTextIsMemoizedByIdentity() {
+        final Spanned text = new SpannedString("Spanned " + System.nanoTime());
+        final CountingAutoSizeHelper helper = createMeasuredHelper(text);
+        helper.autoSizeText();
+        assertTrue(helper.mLayoutCount > 0);
+
+        helper.mLayoutCount = 0;
+        helper.autoSizeText();
+        assertEquals(0, helper.mLayoutCount);
+
+        // Spanned text isn't shared between helpers
+        final CountingAutoSizeHelper otherHelper = createMeasuredHelper(text);
+        otherHelper.autoSizeText();
+        assertTrue(otherHelper.mLayoutCount > 0);
+    }
+
+    private CountingAutoSizeHelper createMeasuredHelper(CharSequence text) {
+        final TextView textView = new TextView(mActivity);
+        textView.setText(text);
+        textView.measure(View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY));
+        textView.layout(0, 0, 200, 100);
+        final CountingAutoSizeHelper helper = new CountingAutoSizeHelper(textView);
+        helper.setAutoSizeTextTypeUniformWithConfiguration(10, 100, 1,
+                TypedValue.COMPLEX_UNIT_PX);
+        return helper;
+    }
+
+    private static class CountingAutoSizeHelper extends AppCompatTextViewAutoSizeHelper {
+        final TextView mTextView;
+        int mLayoutCount;
+
+        CountingAutoSizeHelper(TextView textView) {
+            super(textView);
+            mTextView = textView;
+        }
+
+        @Override
+        StaticLayout createLayout(CharSequence text, Layout.Alignment alignment,
+                int availableWidth, int maxLines) {
+            mLayoutCount++;
+            return super.createLayout(text, alignment, availableWidth, maxLines);
+        }
+    }
+
     public static class CustomTextViewWithTransformationMethod extends AppCompatTextView {
         public CustomTextViewWithTransformationMethod(Context context) {
             super(context);
@@ -45,12 +45,14 @@ import androidx.appcompat.widget.AppCompatTextView;
 import androidx.appcompat.widget.AppCompatToggleButton;
 import androidx.appcompat.widget.TintContextWrapper;
 import androidx.collection.ArrayMap;
+import androidx.collection.ArraySet;
 import androidx.core.view.ViewCompat;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class is responsible for manually inflating our tinted widgets.
@@ -75,6 +77,10 @@ public class AppCompatViewInflater {
     private static final Map<String, Constructor<? extends View>> sConstructorMap
             = new ArrayMap<>();
 
+    // Class names which the class loader couldn't find, so that the failed lookups of the
+    // package prefixes aren't repeated for every inflated view
+    private static final Set<String> sMissingClassNames = new ArraySet<>();
+
     private final Object[] mConstructorArgs = new Object[2];
 
     final View createView(View parent, final String name, @NonNull Context context,
@@ -161,6 +167,10 @@ public class AppCompatViewInflater {
                 // That allows the custom inflater path to fall back on the default one
                 // later in this method.
                 view = createView(context, name, attrs);
+                if (view == null) {
+                    // Common tags can be created without looking up their class
+                    view = PrecompiledViewFactory.createView(name, context, attrs);
+                }
         }
 
         if (view == null && originalContext != context) {
@@ -319,18 +329,25 @@ public class AppCompatViewInflater {
     private View createViewByPrefix(Context context, String name, String prefix)
             throws ClassNotFoundException, InflateException {
         Constructor<? extends View> constructor = sConstructorMap.get(name);
+        final String className = prefix != null ? (prefix + name) : name;
 
         try {
             if (constructor == null) {
+                if (sMissingClassNames.contains(className)) {
+                    return null;
+                }
                 // Class not found in the cache, see if it's real, and try to add it
-                Class<? extends View> clazz = context.getClassLoader().loadClass(
-                        prefix != null ? (prefix + name) : name).asSubclass(View.class);
+                Class<? extends View> clazz = context.getClassLoader().loadClass(className)
+                        .asSubclass(View.class);
 
                 constructor = clazz.getConstructor(sConstructorSignature);
                 sConstructorMap.put(name, constructor);
             }
             constructor.setAccessible(true);
             return constructor.newInstance(mConstructorArgs);
+        } catch (ClassNotFoundException e) {
+            sMissingClassNames.add(className);
+            return null;
         } catch (Exception e) {
             // We do not want to catch these, lets return null and let the actual LayoutInflater
             // try
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appcompat.app;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.GridView;
+import android.widget.HorizontalScrollView;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.ProgressBar;
+import android.widget.RelativeLayout;
+import android.widget.ScrollView;
+import android.widget.Space;
+import android.widget.TableLayout;
+import android.widget.TableRow;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.view.menu.ActionMenuItemView;
+import androidx.appcompat.view.menu.ExpandedMenuView;
+import androidx.appcompat.view.menu.ListMenuItemView;
+import androidx.appcompat.widget.ActionBarContainer;
+import androidx.appcompat.widget.ActionBarContextView;
+import androidx.appcompat.widget.ActionBarOverlayLayout;
+import androidx.appcompat.widget.ActionMenuView;
+import androidx.appcompat.widget.AlertDialogLayout;
+import androidx.appcompat.widget.ButtonBarLayout;
+import androidx.appcompat.widget.ContentFrameLayout;
+import androidx.appcompat.widget.DialogTitle;
+import androidx.appcompat.widget.FitWindowsFrameLayout;
+import androidx.appcompat.widget.FitWindowsLinearLayout;
+import androidx.appcompat.widget.LinearLayoutCompat;
+import androidx.appcompat.widget.SwitchCompat;
+import androidx.appcompat.widget.Toolbar;
+import androidx.appcompat.widget.ViewStubCompat;
+import androidx.core.widget.NestedScrollView;
+
+/**
+ * Creates the views of common layout tags with direct constructor calls.
+ * <p>
+ * Without this, {@link android.view.LayoutInflater} or {@link AppCompatViewInflater} look up the
+ * class of every tag through the class loader, trying each package prefix in turn for the short
+ * framework names, and construct it through reflection. The tags here are the framework containers
+ * used by most layouts and the widgets used by AppCompat's own decor, menu and dialog layouts.
+ */
+final class PrecompiledViewFactory {
+
+    private PrecompiledViewFactory() {
+    }
+
+    /**
+     * Returns a new view for the given tag, or null if the tag is not known.
+     */
+    @Nullable
+    static View createView(@NonNull String name, @NonNull Context context,
+            @NonNull AttributeSet attrs) {
+        switch (name) {
+            // Framework views, written with their short name in layouts
+            case "View":
+                return new View(context, attrs);
+            case "FrameLayout":
+                return new FrameLayout(context, attrs);
+            case "LinearLayout":
+                return new LinearLayout(context, attrs);
+            case "RelativeLayout":
+                return new RelativeLayout(context, attrs);
+            case "TableLayout":
+                return new TableLayout(context, attrs);
+            case "TableRow":
+                return new TableRow(context, attrs);
+            case "ScrollView":
+                return new ScrollView(context, attrs);
+            case "HorizontalScrollView":
+                return new HorizontalScrollView(context, attrs);
+            case "ListView":
+                return new ListView(context, attrs);
+            case "GridView":
+                return new GridView(context, attrs);
+            case "ProgressBar":
+                return new ProgressBar(context, attrs);
+            case "Space":
+            case "android.widget.Space":
+                return new Space(context, attrs);
+
+            // Widgets of AppCompat's own layouts
+            case "androidx.appcompat.widget.ActionBarOverlayLayout":
+                return new ActionBarOverlayLayout(context, attrs);
+            case "androidx.appcompat.widget.ActionBarContainer":
+                return new ActionBarContainer(context, attrs);
+            case "androidx.appcompat.widget.ActionBarContextView":
+                return new ActionBarContextView(context, attrs);
+            case "androidx.appcompat.widget.ActionMenuView":
+                return new ActionMenuView(context, attrs);
+            case "androidx.appcompat.widget.AlertDialogLayout":
+                return new AlertDialogLayout(context, attrs);
+            case "androidx.appcompat.widget.ButtonBarLayout":
+                return new ButtonBarLayout(context, attrs);
+            case "androidx.appcompat.widget.ContentFrameLayout":
+                return new ContentFrameLayout(context, attrs);
+            case "androidx.appcompat.widget.DialogTitle":
+                return new DialogTitle(context, attrs);
+            case "androidx.appcompat.widget.FitWindowsFrameLayout":
+                return new FitWindowsFrameLayout(context, attrs);
+            case "androidx.appcompat.widget.FitWindowsLinearLayout":
+                return new FitWindowsLinearLayout(context, attrs);
+            case "androidx.appcompat.widget.LinearLayoutCompat":
+                return new LinearLayoutCompat(context, attrs);
+            case "androidx.appcompat.widget.SwitchCompat":
+                return new SwitchCompat(context, attrs);
+            case "androidx.appcompat.widget.Toolbar":
+                return new Toolbar(context, attrs);
+            case "androidx.appcompat.widget.ViewStubCompat":
+                return new ViewStubCompat(context, attrs);
+            case "androidx.appcompat.view.menu.ActionMenuItemView":
+                return new ActionMenuItemView(context, attrs);
+            case "androidx.appcompat.view.menu.ExpandedMenuView":
+                return new ExpandedMenuView(context, attrs);
+            case "androidx.appcompat.view.menu.ListMenuItemView":
+                return new ListMenuItemView(context, attrs);
+            case "androidx.core.widget.NestedScrollView":
+                return new NestedScrollView(context, attrs);
+            default:
+                return null;
+        }
+    }
+}
@@ -26,10 +26,13 @@ import android.util.Log;
 import android.util.SparseArray;
 import android.util.TypedValue;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.ColorRes;
 import androidx.annotation.DrawableRes;
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.Px;
 import androidx.appcompat.widget.AppCompatDrawableManager;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.res.ColorStateListInflaterCompat;
@@ -102,6 +105,66 @@ public final class AppCompatResources {
         return AppCompatDrawableManager.get().getDrawable(context, resId);
     }
 
+    /**
+     * Return a drawable object associated with a particular resource ID, rendered into a bitmap
+     * of the given size.
+     * <p>
+     * If a cache has been set up with {@link #setRasterizedDrawableCacheSize(int)}, the bitmaps
+     * are reused for the same resource, size, density, night mode, layout direction and theme, so
+     * that lists showing the same vector icons don't render them again for each item. Themes are
+     * compared by instance, so bitmaps aren't shared between activities. The returned drawables
+     * may share their bitmap, which must not be modified or recycled.
+     *
+     * @param context context to inflate against
+     * @param resId   The desired resource identifier, as generated by the aapt
+     *                tool. This integer encodes the package, type, and resource
+     *                entry. The value 0 is an invalid identifier.
+     * @param width   the width of the bitmap in pixels
+     * @param height  the height of the bitmap in pixels
+     * @return A {@link android.graphics.drawable.BitmapDrawable} drawing the resource.
+     * @see #getDrawable(Context, int)
+     */
+    @Nullable
+    public static Drawable getRasterizedDrawable(@NonNull Context context,
+            @DrawableRes int resId, @Px int width, @Px int height) {
+        return AppCompatDrawableManager.get().getRasterizedDrawable(context, resId, width,
+                height, false, 0);
+    }
+
+    /**
+     * Same as {@link #getRasterizedDrawable(Context, int, int, int)}, with the resource tinted
+     * with the given color using {@link android.graphics.PorterDuff.Mode#SRC_IN}. Each tint
+     * color is cached separately.
+     *
+     * @param context   context to inflate against
+     * @param resId     The desired resource identifier, as generated by the aapt
+     *                  tool. This integer encodes the package, type, and resource
+     *                  entry. The value 0 is an invalid identifier.
+     * @param width     the width of the bitmap in pixels
+     * @param height    the height of the bitmap in pixels
+     * @param tintColor the color to tint the resource with
+     * @return A {@link android.graphics.drawable.BitmapDrawable} drawing the tinted resource.
+     */
+    @Nullable
+    public static Drawable getRasterizedDrawable(@NonNull Context context,
+            @DrawableRes int resId, @Px int width, @Px int height, @ColorInt int tintColor) {
+        return AppCompatDrawableManager.get().getRasterizedDrawable(context, resId, width,
+                height, true, tintColor);
+    }
+
+    /**
+     * Sets the maximum total size of the bitmaps cached by {@code getRasterizedDrawable}. The
+     * least recently used bitmaps are evicted first. The cache is disabled by default.
+     *
+     * @param maxBytes the maximum size in bytes, or 0 to disable the cache
+     */
+    public static void setRasterizedDrawableCacheSize(@IntRange(from = 0) int maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+        AppCompatDrawableManager.setRasterizedDrawableCacheSize(maxBytes);
+    }
+
     /**
      * Inflates a {@link ColorStateList} from resources, honouring theme attributes.
      */
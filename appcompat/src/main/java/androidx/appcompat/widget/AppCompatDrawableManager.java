@@ -26,10 +26,14 @@ import static androidx.core.graphics.ColorUtils.compositeColors;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.PorterDuff;
 import android.graphics.PorterDuffColorFilter;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.Drawable.ConstantState;
 import android.graphics.drawable.LayerDrawable;
@@ -53,6 +57,7 @@ import androidx.collection.LruCache;
 import androidx.collection.SparseArrayCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.graphics.drawable.DrawableCompat;
+import androidx.core.view.ViewCompat;
 import androidx.vectordrawable.graphics.drawable.AnimatedVectorDrawableCompat;
 import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
 
@@ -106,6 +111,9 @@ public final class AppCompatDrawableManager {
 
     private static final ColorFilterLruCache COLOR_FILTER_CACHE = new ColorFilterLruCache(6);
 
+    // Disabled until the app sets a size
+    private static final RasterizedDrawableCache RASTERIZED_CACHE = new RasterizedDrawableCache(0);
+
     /**
      * Drawables which should be tinted with the value of {@code R.attr.colorControlNormal},
      * using the default mode using a raw color filter.
@@ -222,6 +230,62 @@ public final class AppCompatDrawableManager {
             // Crude, but we'll just clear the cache when the configuration changes
             cache.clear();
         }
+        RASTERIZED_CACHE.evictAll();
+    }
+
+    /**
+     * Sets the maximum total size, in bytes, of the bitmaps kept by
+     * {@link #getRasterizedDrawable}. 0, the default, disables the cache.
+     */
+    public static void setRasterizedDrawableCacheSize(int maxBytes) {
+        RASTERIZED_CACHE.setMaxSize(maxBytes);
+    }
+
+    /**
+     * Returns the drawable rendered into a bitmap of the given size, optionally tinted with a
+     * single color using {@link PorterDuff.Mode#SRC_IN}.
+     * <p>
+     * Bitmaps are cached by resource, size, tint, density, UI mode, layout direction and theme,
+     * so that lists showing the same icons don't render the same vectors again. Cache hits don't
+     * lock this manager.
+     * <p>
+     * Themes are compared by identity, as {@link Resources.Theme} has no value equality. A bitmap
+     * is only reused for the same theme instance, e.g. for the views of one activity, and is
+     * rendered again for another activity or {@link android.view.ContextThemeWrapper} with the
+     * same theme.
+     */
+    @Nullable
+    public Drawable getRasterizedDrawable(@NonNull Context context, @DrawableRes int resId,
+            int width, int height, boolean tinted, @ColorInt int tintColor) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be positive");
+        }
+        final Resources res = context.getResources();
+        final int layoutDirection = Build.VERSION.SDK_INT >= 17
+                ? res.getConfiguration().getLayoutDirection() : ViewCompat.LAYOUT_DIRECTION_LTR;
+        final RasterizedDrawableCache.Key key = new RasterizedDrawableCache.Key(resId, width,
+                height, tinted, tintColor, res.getDisplayMetrics().densityDpi,
+                res.getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK,
+                layoutDirection, context.getTheme());
+
+        Bitmap bitmap = RASTERIZED_CACHE.get(key);
+        if (bitmap == null) {
+            Drawable drawable = getDrawable(context, resId);
+            if (drawable == null) {
+                return null;
+            }
+            if (tinted) {
+                drawable = DrawableCompat.wrap(drawable.mutate());
+                DrawableCompat.setTint(drawable, tintColor);
+                DrawableCompat.setTintMode(drawable, DEFAULT_MODE);
+            }
+            DrawableCompat.setLayoutDirection(drawable, layoutDirection);
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            drawable.setBounds(0, 0, width, height);
+            drawable.draw(new Canvas(bitmap));
+            RASTERIZED_CACHE.put(key, bitmap);
+        }
+        return new BitmapDrawable(res, bitmap);
     }
 
     private static long createCacheKey(TypedValue tv) {
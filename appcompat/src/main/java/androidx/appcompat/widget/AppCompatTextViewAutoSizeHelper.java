@@ -22,12 +22,15 @@ import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.RectF;
+import android.graphics.Typeface;
 import android.os.Build;
 import android.text.Layout;
+import android.text.Spannable;
 import android.text.StaticLayout;
 import android.text.TextDirectionHeuristic;
 import android.text.TextDirectionHeuristics;
 import android.text.TextPaint;
+import android.text.TextUtils;
 import android.text.method.TransformationMethod;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
@@ -41,6 +44,8 @@ import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.appcompat.R;
+import androidx.collection.LruCache;
+import androidx.core.util.ObjectsCompat;
 import androidx.core.widget.TextViewCompat;
 
 import java.lang.reflect.Field;
@@ -80,6 +85,9 @@ class AppCompatTextViewAutoSizeHelper {
     // Ported from TextView#VERY_WIDE. Represents a maximum width in pixels the TextView takes when
     // horizontal scrolling is activated.
     private static final int VERY_WIDE = 1024 * 1024;
+    // Text sizes chosen by all helpers, so that e.g. list items showing the same text in the same
+    // style don't measure it again.
+    private static final LruCache<MeasureKey, Integer> sMeasureCache = new LruCache<>(64);
     // Auto-size text type.
     private int mAutoSizeTextType = TextViewCompat.AUTO_SIZE_TEXT_TYPE_NONE;
     // Specify if auto-size text is needed.
@@ -98,6 +106,9 @@ class AppCompatTextViewAutoSizeHelper {
     // mAutoSizeStepGranularityInPx.
     private boolean mHasPresetAutoSizeValues = false;
     private TextPaint mTempTextPaint;
+    // The inputs and result of the last auto-size computation of this helper.
+    private MeasureKey mLastMeasureKey;
+    private int mLastMeasuredTextSize;
 
     private final TextView mTextView;
     private final Context mContext;
@@ -565,14 +576,31 @@ class AppCompatTextViewAutoSizeHelper {
                 return;
             }
 
-            synchronized (TEMP_RECTF) {
-                TEMP_RECTF.setEmpty();
-                TEMP_RECTF.right = availableWidth;
-                TEMP_RECTF.bottom = availableHeight;
-                final float optimalTextSize = findLargestTextSizeWhichFits(TEMP_RECTF);
-                if (optimalTextSize != mTextView.getTextSize()) {
-                    setTextSizeInternal(TypedValue.COMPLEX_UNIT_PX, optimalTextSize);
+            final MeasureKey key = createMeasureKey(availableWidth, availableHeight);
+            final int optimalTextSize;
+            if (key != null && key.equals(mLastMeasureKey)) {
+                optimalTextSize = mLastMeasuredTextSize;
+            } else {
+                final boolean shared = key != null && key.isShareable();
+                final Integer cachedTextSize = shared ? sMeasureCache.get(key) : null;
+                if (cachedTextSize != null) {
+                    optimalTextSize = cachedTextSize;
+                } else {
+                    synchronized (TEMP_RECTF) {
+                        TEMP_RECTF.setEmpty();
+                        TEMP_RECTF.right = availableWidth;
+                        TEMP_RECTF.bottom = availableHeight;
+                        optimalTextSize = findLargestTextSizeWhichFits(TEMP_RECTF);
+                    }
+                    if (shared) {
+                        sMeasureCache.put(key, optimalTextSize);
+                    }
                 }
+                mLastMeasureKey = key;
+                mLastMeasuredTextSize = optimalTextSize;
+            }
+            if (optimalTextSize != mTextView.getTextSize()) {
+                setTextSizeInternal(TypedValue.COMPLEX_UNIT_PX, optimalTextSize);
             }
         }
         // Always try to auto-size if enabled. Functions that do not want to trigger auto-sizing
@@ -580,6 +608,70 @@ class AppCompatTextViewAutoSizeHelper {
         mNeedsAutoSizeText = true;
     }
 
+    /**
+     * Collects everything the text size chosen by {@link #findLargestTextSizeWhichFits} depends
+     * on, apart from the text size itself.
+     *
+     * @return the key, or null if the text is {@link Spannable}, as its content and spans can
+     * change without the text object changing.
+     */
+    @Nullable
+    private MeasureKey createMeasureKey(int availableWidth, int availableHeight) {
+        final CharSequence text = mTextView.getText();
+        if (text instanceof Spannable) {
+            return null;
+        }
+
+        final float lineSpacingMultiplier;
+        final float lineSpacingExtra;
+        final boolean includePad;
+        final int maxLines;
+        if (Build.VERSION.SDK_INT >= 16) {
+            lineSpacingMultiplier = mTextView.getLineSpacingMultiplier();
+            lineSpacingExtra = mTextView.getLineSpacingExtra();
+            includePad = mTextView.getIncludeFontPadding();
+            maxLines = mTextView.getMaxLines();
+        } else {
+            lineSpacingMultiplier = accessAndReturnWithDefault(mTextView, "mSpacingMult", 1.0f);
+            lineSpacingExtra = accessAndReturnWithDefault(mTextView, "mSpacingAdd", 0.0f);
+            includePad = accessAndReturnWithDefault(mTextView, "mIncludePad", true);
+            maxLines = -1;
+        }
+        // The layout alignment and text direction heuristic are picked from these, so they stand
+        // in for the values we would otherwise have to get through reflection.
+        int textAlignment = 0;
+        int textDirection = 0;
+        int layoutDirection = 0;
+        if (Build.VERSION.SDK_INT >= 17) {
+            textAlignment = mTextView.getTextAlignment();
+            textDirection = mTextView.getTextDirection();
+            layoutDirection = mTextView.getLayoutDirection();
+        }
+        int breakStrategy = 0;
+        int hyphenationFrequency = 0;
+        if (Build.VERSION.SDK_INT >= 23) {
+            breakStrategy = mTextView.getBreakStrategy();
+            hyphenationFrequency = mTextView.getHyphenationFrequency();
+        }
+
+        return new MeasureKey(text, mTextView.getTransformationMethod(), mTextView.getPaint(),
+                availableWidth, availableHeight, mAutoSizeTextSizesInPx, mTextView.getGravity(),
+                textAlignment, textDirection, layoutDirection, maxLines, lineSpacingMultiplier,
+                lineSpacingExtra, includePad, breakStrategy, hyphenationFrequency);
+    }
+
+    private CharSequence getTransformedText() {
+        CharSequence text = mTextView.getText();
+        TransformationMethod transformationMethod = mTextView.getTransformationMethod();
+        if (transformationMethod != null) {
+            CharSequence transformedText = transformationMethod.getTransformation(text, mTextView);
+            if (transformedText != null) {
+                text = transformedText;
+            }
+        }
+        return text;
+    }
+
     private void clearAutoSizeConfiguration() {
         mAutoSizeTextType = TextViewCompat.AUTO_SIZE_TEXT_TYPE_NONE;
         mAutoSizeMinTextSizeInPx = UNSET_AUTO_SIZE_UNIFORM_CONFIGURATION_VALUE;
@@ -685,14 +777,7 @@ class AppCompatTextViewAutoSizeHelper {
     }
 
     private boolean suggestedSizeFitsInSpace(int suggestedSizeInPx, RectF availableSpace) {
-        CharSequence text = mTextView.getText();
-        TransformationMethod transformationMethod = mTextView.getTransformationMethod();
-        if (transformationMethod != null) {
-            CharSequence transformedText = transformationMethod.getTransformation(text, mTextView);
-            if (transformedText != null) {
-                text = transformedText;
-            }
-        }
+        final CharSequence text = getTransformedText();
 
         final int maxLines = Build.VERSION.SDK_INT >= 16 ? mTextView.getMaxLines() : -1;
         initTempTextPaint(suggestedSizeInPx);
@@ -868,4 +953,156 @@ class AppCompatTextViewAutoSizeHelper {
         // Auto-size only supports TextView and all siblings but EditText.
         return !(mTextView instanceof AppCompatEditText);
     }
+
+    /**
+     * The inputs of an auto-size computation. The text is compared by identity, apart from
+     * Strings which are compared by value, so that views showing equal strings share a result.
+     * The paint is copied field by field, leaving out the text size, which is the output.
+     */
+    private static final class MeasureKey {
+        private final CharSequence mText;
+        private final int mTextLength;
+        private final TransformationMethod mTransformationMethod;
+        private final int mAvailableWidth;
+        private final int mAvailableHeight;
+        private final int[] mTextSizes;
+        private final int mGravity;
+        private final int mTextAlignment;
+        private final int mTextDirection;
+        private final int mLayoutDirection;
+        private final int mMaxLines;
+        private final float mLineSpacingMultiplier;
+        private final float mLineSpacingExtra;
+        private final boolean mIncludePad;
+        private final int mBreakStrategy;
+        private final int mHyphenationFrequency;
+
+        private final Typeface mTypeface;
+        private final float mTextScaleX;
+        private final float mTextSkewX;
+        private final int mFlags;
+        private final float mLetterSpacing;
+        private final boolean mElegantTextHeight;
+        private final String mFontFeatureSettings;
+        private final String mFontVariationSettings;
+        private final Object mTextLocales;
+
+        private final int mHashCode;
+
+        MeasureKey(CharSequence text, TransformationMethod transformationMethod, TextPaint paint,
+                int availableWidth, int availableHeight, int[] textSizes, int gravity,
+                int textAlignment, int textDirection, int layoutDirection, int maxLines,
+                float lineSpacingMultiplier, float lineSpacingExtra, boolean includePad,
+                int breakStrategy, int hyphenationFrequency) {
+            mText = text;
+            mTextLength = text.length();
+            mTransformationMethod = transformationMethod;
+            mAvailableWidth = availableWidth;
+            mAvailableHeight = availableHeight;
+            mTextSizes = textSizes;
+            mGravity = gravity;
+            mTextAlignment = textAlignment;
+            mTextDirection = textDirection;
+            mLayoutDirection = layoutDirection;
+            mMaxLines = maxLines;
+            mLineSpacingMultiplier = lineSpacingMultiplier;
+            mLineSpacingExtra = lineSpacingExtra;
+            mIncludePad = includePad;
+            mBreakStrategy = breakStrategy;
+            mHyphenationFrequency = hyphenationFrequency;
+
+            mTypeface = paint.getTypeface();
+            mTextScaleX = paint.getTextScaleX();
+            mTextSkewX = paint.getTextSkewX();
+            mFlags = paint.getFlags();
+            if (Build.VERSION.SDK_INT >= 21) {
+                mLetterSpacing = paint.getLetterSpacing();
+                mElegantTextHeight = paint.isElegantTextHeight();
+                mFontFeatureSettings = paint.getFontFeatureSettings();
+            } else {
+                mLetterSpacing = 0;
+                mElegantTextHeight = false;
+                mFontFeatureSettings = null;
+            }
+            mFontVariationSettings = Build.VERSION.SDK_INT >= 26
+                    ? paint.getFontVariationSettings() : null;
+            if (Build.VERSION.SDK_INT >= 24) {
+                mTextLocales = paint.getTextLocales();
+            } else if (Build.VERSION.SDK_INT >= 17) {
+                mTextLocales = paint.getTextLocale();
+            } else {
+                mTextLocales = null;
+            }
+
+            // Only the cheap fields are hashed, equals tells the rest apart.
+            int hash = text instanceof String ? text.hashCode() : System.identityHashCode(text);
+            hash = 31 * hash + mTextLength;
+            hash = 31 * hash + mAvailableWidth;
+            hash = 31 * hash + mAvailableHeight;
+            hash = 31 * hash + mGravity;
+            hash = 31 * hash + mMaxLines;
+            hash = 31 * hash + Float.floatToIntBits(mLineSpacingMultiplier);
+            hash = 31 * hash + Float.floatToIntBits(mLineSpacingExtra);
+            hash = 31 * hash + mFlags;
+            hash = 31 * hash + System.identityHashCode(mTypeface);
+            mHashCode = hash;
+        }
+
+        /**
+         * Returns whether the key can go in the cache shared by all helpers. Only plain strings
+         * are shared, as spans may retain views.
+         */
+        boolean isShareable() {
+            return mText instanceof String;
+        }
+
+        private boolean hasSameText(MeasureKey other) {
+            if (mText == other.mText) {
+                return true;
+            }
+            return mText instanceof String && mText.equals(other.mText);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MeasureKey)) {
+                return false;
+            }
+            final MeasureKey other = (MeasureKey) o;
+            return mHashCode == other.mHashCode
+                    && mTextLength == other.mTextLength
+                    && mAvailableWidth == other.mAvailableWidth
+                    && mAvailableHeight == other.mAvailableHeight
+                    && mGravity == other.mGravity
+                    && mTextAlignment == other.mTextAlignment
+                    && mTextDirection == other.mTextDirection
+                    && mLayoutDirection == other.mLayoutDirection
+                    && mMaxLines == other.mMaxLines
+                    && mLineSpacingMultiplier == other.mLineSpacingMultiplier
+                    && mLineSpacingExtra == other.mLineSpacingExtra
+                    && mIncludePad == other.mIncludePad
+                    && mBreakStrategy == other.mBreakStrategy
+                    && mHyphenationFrequency == other.mHyphenationFrequency
+                    && mTextScaleX == other.mTextScaleX
+                    && mTextSkewX == other.mTextSkewX
+                    && mFlags == other.mFlags
+                    && mLetterSpacing == other.mLetterSpacing
+                    && mElegantTextHeight == other.mElegantTextHeight
+                    && mTransformationMethod == other.mTransformationMethod
+                    && mTypeface == other.mTypeface
+                    && TextUtils.equals(mFontFeatureSettings, other.mFontFeatureSettings)
+                    && TextUtils.equals(mFontVariationSettings, other.mFontVariationSettings)
+                    && ObjectsCompat.equals(mTextLocales, other.mTextLocales)
+                    && Arrays.equals(mTextSizes, other.mTextSizes)
+                    && hasSameText(other);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appcompat.widget;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.ObjectsCompat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of drawables rendered into bitmaps, bounded by the total number of bytes of the
+ * bitmaps.
+ * <p>
+ * Lookups only read a {@link ConcurrentHashMap} and stamp the entry with the time it was used, so
+ * threads looking up bitmaps don't block each other. Insertions and evictions take a lock, and
+ * evict the entries with the oldest stamps, sorting them once per eviction.
+ */
+final class RasterizedDrawableCache {
+
+    /**
+     * Identifies a rendering of a drawable resource.
+     * <p>
+     * The theme and layout direction are part of the key, as drawables can resolve theme
+     * attributes and be mirrored in right-to-left layouts.
+     */
+    static final class Key {
+        final int mResId;
+        final int mWidth;
+        final int mHeight;
+        final boolean mTinted;
+        final int mTintColor;
+        final int mDensityDpi;
+        final int mUiMode;
+        final int mLayoutDirection;
+        @Nullable
+        final Resources.Theme mTheme;
+
+        Key(int resId, int width, int height, boolean tinted, int tintColor, int densityDpi,
+                int uiMode, int layoutDirection, @Nullable Resources.Theme theme) {
+            mResId = resId;
+            mWidth = width;
+            mHeight = height;
+            mTinted = tinted;
+            mTintColor = tinted ? tintColor : 0;
+            mDensityDpi = densityDpi;
+            mUiMode = uiMode;
+            mLayoutDirection = layoutDirection;
+            mTheme = theme;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mResId == other.mResId && mWidth == other.mWidth
+                    && mHeight == other.mHeight && mTinted == other.mTinted
+                    && mTintColor == other.mTintColor && mDensityDpi == other.mDensityDpi
+                    && mUiMode == other.mUiMode && mLayoutDirection == other.mLayoutDirection
+                    && ObjectsCompat.equals(mTheme, other.mTheme);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mResId;
+            result = 31 * result + mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + (mTinted ? 1 : 0);
+            result = 31 * result + mTintColor;
+            result = 31 * result + mDensityDpi;
+            result = 31 * result + mUiMode;
+            result = 31 * result + mLayoutDirection;
+            result = 31 * result + (mTheme != null ? mTheme.hashCode() : 0);
+            return result;
+        }
+    }
+
+    /**
+     * A cached bitmap and the time it was last used, from {@link #mClock}.
+     */
+    private static final class Entry {
+        final Bitmap mBitmap;
+        final int mSize;
+        volatile long mLastAccess;
+
+        Entry(Bitmap bitmap, int size, long lastAccess) {
+            mBitmap = bitmap;
+            mSize = size;
+            mLastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * An entry with the time it was last used when the eviction started.
+     */
+    private static final class EvictionCandidate implements Comparable<EvictionCandidate> {
+        final Key mKey;
+        final Entry mEntry;
+        final long mLastAccess;
+
+        EvictionCandidate(Key key, Entry entry) {
+            mKey = key;
+            mEntry = entry;
+            mLastAccess = entry.mLastAccess;
+        }
+
+        @Override
+        public int compareTo(@NonNull EvictionCandidate other) {
+            if (mLastAccess == other.mLastAccess) {
+                return 0;
+            }
+            return mLastAccess < other.mLastAccess ? -1 : 1;
+        }
+    }
+
+    private final ConcurrentHashMap<Key, Entry> mEntries = new ConcurrentHashMap<>();
+    private final AtomicLong mClock = new AtomicLong();
+
+    // Guards the changes to the entries, not the lookups
+    private final Object mLock = new Object();
+    @GuardedBy("mLock")
+    private int mSize;
+    @GuardedBy("mLock")
+    private int mMaxSize;
+
+    RasterizedDrawableCache(int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Sets the maximum total size of the cached bitmaps in bytes, evicting entries if needed.
+     */
+    void setMaxSize(int maxSize) {
+        synchronized (mLock) {
+            mMaxSize = maxSize;
+            trimToSize(maxSize);
+        }
+    }
+
+    @Nullable
+    Bitmap get(@NonNull Key key) {
+        final Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.mLastAccess = mClock.incrementAndGet();
+        return entry.mBitmap;
+    }
+
+    /**
+     * Adds the bitmap, unless it's larger than the whole cache.
+     */
+    void put(@NonNull Key key, @NonNull Bitmap bitmap) {
+        final int size = bitmap.getRowBytes() * bitmap.getHeight();
+        synchronized (mLock) {
+            if (size > mMaxSize) {
+                return;
+            }
+            final Entry previous = mEntries.put(key,
+                    new Entry(bitmap, size, mClock.incrementAndGet()));
+            if (previous != null) {
+                mSize -= previous.mSize;
+            }
+            mSize += size;
+            trimToSize(mMaxSize);
+        }
+    }
+
+    void evictAll() {
+        synchronized (mLock) {
+            trimToSize(0);
+        }
+    }
+
+    @GuardedBy("mLock")
+    private void trimToSize(int maxSize) {
+        if (mSize <= maxSize) {
+            return;
+        }
+        if (maxSize == 0) {
+            mEntries.clear();
+            mSize = 0;
+            return;
+        }
+        // Lookups keep stamping the entries, so they're sorted by the stamps read here
+        final List<EvictionCandidate> candidates = new ArrayList<>(mEntries.size());
+        for (Map.Entry<Key, Entry> entry : mEntries.entrySet()) {
+            candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue()));
+        }
+        Collections.sort(candidates);
+        for (int i = 0; i < candidates.size() && mSize > maxSize; i++) {
+            final EvictionCandidate candidate = candidates.get(i);
+            // Only put() and trimToSize() change the entries, under the lock
+            mEntries.remove(candidate.mKey);
+            mSize -= candidate.mEntry.mSize;
+        }
+    }
+}
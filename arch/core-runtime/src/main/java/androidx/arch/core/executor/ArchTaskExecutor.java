@@ -20,6 +20,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.concurrent.Executor;
 
 /**
@@ -54,6 +56,31 @@ public class ArchTaskExecutor extends TaskExecutor {
         }
     };
 
+    @NonNull
+    private static final Executor sBackgroundIOThreadExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            getInstance().executeOnDiskIO(command, PRIORITY_BACKGROUND);
+        }
+    };
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final Object mBatchLock = new Object();
+
+    /**
+     * The batch that {@link #postToMainThreadBatched(Runnable)} adds to, or null if the next
+     * batched task has to start a new one.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    @Nullable
+    Batch mOpenBatch;
+
+    /**
+     * Batches posted to the main thread which haven't run yet, in the order they were posted.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final ArrayDeque<Batch> mPostedBatches = new ArrayDeque<>();
+
     private ArchTaskExecutor() {
         mDefaultTaskExecutor = new DefaultTaskExecutor();
         mDelegate = mDefaultTaskExecutor;
@@ -89,6 +116,17 @@ public class ArchTaskExecutor extends TaskExecutor {
      */
     public void setDelegate(@Nullable TaskExecutor taskExecutor) {
         mDelegate = taskExecutor == null ? mDefaultTaskExecutor : taskExecutor;
+        // The previous delegate may never run the batches it was handed (e.g. a test executor
+        // that was shut down), so hand them over to the new one. A batch runs only once, even
+        // if both delegates get to it.
+        ArrayList<Batch> batches;
+        synchronized (mBatchLock) {
+            mOpenBatch = null;
+            batches = new ArrayList<>(mPostedBatches);
+        }
+        for (Batch batch : batches) {
+            mDelegate.postToMainThread(batch);
+        }
     }
 
     @Override
@@ -96,11 +134,83 @@ public class ArchTaskExecutor extends TaskExecutor {
         mDelegate.executeOnDiskIO(runnable);
     }
 
+    @Override
+    public void executeOnDiskIO(@NonNull Runnable runnable, @IOPriority int priority) {
+        mDelegate.executeOnDiskIO(runnable, priority);
+    }
+
     @Override
     public void postToMainThread(Runnable runnable) {
+        // Tasks batched from now on must run after this one, so they start a new batch.
+        synchronized (mBatchLock) {
+            mOpenBatch = null;
+        }
         mDelegate.postToMainThread(runnable);
     }
 
+    /**
+     * Posts the given task to the main thread, batched with the other tasks passed to this
+     * method before the main thread gets to run them.
+     * <p>
+     * All batched tasks are run in order, in a single main thread message. This is meant for
+     * high frequency producers such as {@code LiveData#postValue}, where posting a separate
+     * message per task floods the main looper.
+     * <p>
+     * A task posted with {@link #postToMainThread(Runnable)} closes the current batch, so tasks
+     * posted through this executor still run in the order they were posted. Tasks posted to the
+     * main thread by other means, such as a {@link android.os.Handler}, may run after a batched
+     * task that was posted after them.
+     *
+     * @param runnable The runnable to run on the main thread.
+     */
+    public void postToMainThreadBatched(@NonNull Runnable runnable) {
+        Batch batch;
+        synchronized (mBatchLock) {
+            if (mOpenBatch != null) {
+                mOpenBatch.mTasks.add(runnable);
+                return;
+            }
+            batch = new Batch();
+            batch.mTasks.add(runnable);
+            mOpenBatch = batch;
+            mPostedBatches.add(batch);
+        }
+        mDelegate.postToMainThread(batch);
+    }
+
+    /**
+     * Tasks passed to {@link #postToMainThreadBatched(Runnable)} that run in one main thread
+     * message.
+     */
+    private final class Batch implements Runnable {
+        @Nullable
+        ArrayList<Runnable> mTasks = new ArrayList<>();
+
+        Batch() {
+        }
+
+        @Override
+        public void run() {
+            ArrayList<Runnable> tasks;
+            synchronized (mBatchLock) {
+                // Tasks batched while this one runs go to the next batch.
+                if (mOpenBatch == this) {
+                    mOpenBatch = null;
+                }
+                mPostedBatches.remove(this);
+                tasks = mTasks;
+                mTasks = null;
+            }
+            if (tasks == null) {
+                // already run by the delegate it was handed over to
+                return;
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.get(i).run();
+            }
+        }
+    }
+
     @NonNull
     public static Executor getMainThreadExecutor() {
         return sMainThreadExecutor;
@@ -111,6 +221,15 @@ public class ArchTaskExecutor extends TaskExecutor {
         return sIOThreadExecutor;
     }
 
+    /**
+     * Returns an Executor running tasks on disk IO threads with
+     * {@link TaskExecutor#PRIORITY_BACKGROUND}.
+     */
+    @NonNull
+    public static Executor getBackgroundIOThreadExecutor() {
+        return sBackgroundIOThreadExecutor;
+    }
+
     @Override
     public boolean isMainThread() {
         return mDelegate.isMainThread();
@@ -19,6 +19,7 @@ package androidx.arch.core.executor;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -38,25 +39,51 @@ public class DefaultTaskExecutor extends TaskExecutor {
 
     private final Object mLock = new Object();
 
-    private final ExecutorService mDiskIO = Executors.newFixedThreadPool(2, new ThreadFactory() {
-        private static final String THREAD_NAME_STEM = "arch_disk_io_%d";
+    private final ExecutorService mDiskIO;
 
-        private final AtomicInteger mThreadId = new AtomicInteger(0);
+    private final ExecutorService mBackgroundDiskIO;
 
-        @Override
-        public Thread newThread(Runnable r) {
-            Thread t = new Thread(r);
-            t.setName(String.format(THREAD_NAME_STEM, mThreadId.getAndIncrement()));
-            return t;
-        }
-    });
+    @Nullable
+    private final DiskIOConfig.TaskMetricsListener mMetricsListener;
 
     @Nullable
     private volatile Handler mMainHandler;
 
+    public DefaultTaskExecutor() {
+        this(new DiskIOConfig.Builder().build());
+    }
+
+    /**
+     * Creates a DefaultTaskExecutor whose disk IO thread pools are sized by the given config.
+     *
+     * @param config The disk IO configuration.
+     */
+    public DefaultTaskExecutor(@NonNull DiskIOConfig config) {
+        mDiskIO = Executors.newFixedThreadPool(config.getInteractiveThreadCount(),
+                new DiskIOThreadFactory("arch_disk_io_%d", Process.THREAD_PRIORITY_DEFAULT));
+        mBackgroundDiskIO = Executors.newFixedThreadPool(config.getBackgroundThreadCount(),
+                new DiskIOThreadFactory("arch_disk_io_bg_%d",
+                        Process.THREAD_PRIORITY_BACKGROUND));
+        mMetricsListener = config.getMetricsListener();
+    }
+
     @Override
     public void executeOnDiskIO(Runnable runnable) {
-        mDiskIO.execute(runnable);
+        executeOnDiskIOInternal(runnable, PRIORITY_INTERACTIVE);
+    }
+
+    @Override
+    public void executeOnDiskIO(@NonNull Runnable runnable, @IOPriority int priority) {
+        executeOnDiskIOInternal(runnable, priority);
+    }
+
+    private void executeOnDiskIOInternal(@NonNull Runnable runnable, @IOPriority int priority) {
+        ExecutorService executor = priority == PRIORITY_BACKGROUND ? mBackgroundDiskIO : mDiskIO;
+        if (mMetricsListener == null) {
+            executor.execute(runnable);
+        } else {
+            executor.execute(new MeasuredTask(runnable, priority, mMetricsListener));
+        }
     }
 
     @Override
@@ -77,6 +104,58 @@ public class DefaultTaskExecutor extends TaskExecutor {
         return Looper.getMainLooper().getThread() == Thread.currentThread();
     }
 
+    private static final class DiskIOThreadFactory implements ThreadFactory {
+        private final String mNameStem;
+        private final int mThreadPriority;
+        private final AtomicInteger mThreadId = new AtomicInteger(0);
+
+        DiskIOThreadFactory(String nameStem, int threadPriority) {
+            mNameStem = nameStem;
+            mThreadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(mThreadPriority);
+                    r.run();
+                }
+            });
+            t.setName(String.format(mNameStem, mThreadId.getAndIncrement()));
+            return t;
+        }
+    }
+
+    /**
+     * Wraps a disk IO task to report how long it waited in the queue and how long it ran.
+     */
+    private static final class MeasuredTask implements Runnable {
+        private final Runnable mTask;
+        private final int mPriority;
+        private final DiskIOConfig.TaskMetricsListener mListener;
+        private final long mEnqueueTimeNanos = System.nanoTime();
+
+        MeasuredTask(Runnable task, int priority, DiskIOConfig.TaskMetricsListener listener) {
+            mTask = task;
+            mPriority = priority;
+            mListener = listener;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            try {
+                mTask.run();
+            } finally {
+                long endNanos = System.nanoTime();
+                mListener.onTaskCompleted(mTask, mPriority, startNanos - mEnqueueTimeNanos,
+                        endNanos - startNanos);
+            }
+        }
+    }
+
     private static Handler createAsync(@NonNull Looper looper) {
         if (Build.VERSION.SDK_INT >= 28) {
             return Handler.createAsync(looper);
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.arch.core.executor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Configures the disk IO thread pools of a {@link DefaultTaskExecutor}.
+ * <p>
+ * Disk IO is split into two lanes, each with its own threads, so that long running
+ * {@link TaskExecutor#PRIORITY_BACKGROUND background} work can never hold up
+ * {@link TaskExecutor#PRIORITY_INTERACTIVE interactive} work such as observer refreshes.
+ *
+ * @hide This API is not final.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public final class DiskIOConfig {
+
+    /**
+     * Receives the timing of every task run on the disk IO thread pools.
+     * <p>
+     * Called on the IO thread which ran the task, right after it completes, so implementations
+     * should be cheap and thread safe.
+     */
+    public interface TaskMetricsListener {
+        /**
+         * Called after a disk IO task completes.
+         *
+         * @param task The task that was run.
+         * @param priority The lane the task was run on.
+         * @param queueWaitNanos Time between the task being submitted and it starting to run.
+         * @param runNanos Time the task took to run.
+         */
+        void onTaskCompleted(@NonNull Runnable task, @TaskExecutor.IOPriority int priority,
+                long queueWaitNanos, long runNanos);
+    }
+
+    private final int mInteractiveThreadCount;
+    private final int mBackgroundThreadCount;
+    @Nullable
+    private final TaskMetricsListener mMetricsListener;
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    DiskIOConfig(int interactiveThreadCount, int backgroundThreadCount,
+            @Nullable TaskMetricsListener metricsListener) {
+        mInteractiveThreadCount = interactiveThreadCount;
+        mBackgroundThreadCount = backgroundThreadCount;
+        mMetricsListener = metricsListener;
+    }
+
+    /**
+     * @return The number of threads running {@link TaskExecutor#PRIORITY_INTERACTIVE} tasks.
+     */
+    public int getInteractiveThreadCount() {
+        return mInteractiveThreadCount;
+    }
+
+    /**
+     * @return The number of threads running {@link TaskExecutor#PRIORITY_BACKGROUND} tasks.
+     */
+    public int getBackgroundThreadCount() {
+        return mBackgroundThreadCount;
+    }
+
+    /**
+     * @return The listener notified of task timings, if any.
+     */
+    @Nullable
+    public TaskMetricsListener getMetricsListener() {
+        return mMetricsListener;
+    }
+
+    /**
+     * Builder class for {@link DiskIOConfig}.
+     * <p>
+     * By default, the interactive lane gets one thread per core, between 2 and 4 threads, and the
+     * background lane gets half as many, at least 1.
+     */
+    public static final class Builder {
+        private static final int MIN_INTERACTIVE_THREADS = 2;
+        private static final int MAX_INTERACTIVE_THREADS = 4;
+
+        private int mInteractiveThreadCount = 0;
+        private int mBackgroundThreadCount = 0;
+        @Nullable
+        private TaskMetricsListener mMetricsListener;
+
+        /**
+         * Sets the number of threads running {@link TaskExecutor#PRIORITY_INTERACTIVE} tasks.
+         *
+         * @param threadCount Number of threads, must be positive.
+         * @return this
+         */
+        @NonNull
+        public Builder setInteractiveThreadCount(int threadCount) {
+            if (threadCount <= 0) {
+                throw new IllegalArgumentException("Thread count must be positive");
+            }
+            mInteractiveThreadCount = threadCount;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads running {@link TaskExecutor#PRIORITY_BACKGROUND} tasks.
+         *
+         * @param threadCount Number of threads, must be positive.
+         * @return this
+         */
+        @NonNull
+        public Builder setBackgroundThreadCount(int threadCount) {
+            if (threadCount <= 0) {
+                throw new IllegalArgumentException("Thread count must be positive");
+            }
+            mBackgroundThreadCount = threadCount;
+            return this;
+        }
+
+        /**
+         * Sets a listener notified of the queue wait and run time of every disk IO task.
+         *
+         * @param listener The listener, or null to stop collecting metrics.
+         * @return this
+         */
+        @NonNull
+        public Builder setMetricsListener(@Nullable TaskMetricsListener listener) {
+            mMetricsListener = listener;
+            return this;
+        }
+
+        /**
+         * Creates a {@link DiskIOConfig} with the given parameters.
+         *
+         * @return A new DiskIOConfig.
+         */
+        @NonNull
+        public DiskIOConfig build() {
+            int interactive = mInteractiveThreadCount;
+            if (interactive == 0) {
+                int cores = Runtime.getRuntime().availableProcessors();
+                interactive = Math.max(MIN_INTERACTIVE_THREADS,
+                        Math.min(cores, MAX_INTERACTIVE_THREADS));
+            }
+            int background = mBackgroundThreadCount;
+            if (background == 0) {
+                background = Math.max(1, interactive / 2);
+            }
+            return new DiskIOConfig(interactive, background, mMetricsListener);
+        }
+    }
+}
@@ -16,9 +16,13 @@
 
 package androidx.arch.core.executor;
 
+import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
 /**
  * A task executor that can divide tasks into logical groups.
  * <p>
@@ -29,6 +33,23 @@ import androidx.annotation.RestrictTo;
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public abstract class TaskExecutor {
+    /**
+     * Priority for disk IO work a user is waiting on, such as refreshing observed data. This is
+     * the priority of {@link #executeOnDiskIO(Runnable)}.
+     */
+    public static final int PRIORITY_INTERACTIVE = 0;
+
+    /**
+     * Priority for disk IO work nobody is waiting on, such as prefetching or cleanup.
+     */
+    public static final int PRIORITY_BACKGROUND = 1;
+
+    /** @hide */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @IntDef({PRIORITY_INTERACTIVE, PRIORITY_BACKGROUND})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface IOPriority {}
+
     /**
      * Executes the given task in the disk IO thread pool.
      *
@@ -36,6 +57,19 @@ public abstract class TaskExecutor {
      */
     public abstract void executeOnDiskIO(@NonNull Runnable runnable);
 
+    /**
+     * Executes the given task in the disk IO thread pool, with the given priority.
+     * <p>
+     * The default implementation ignores the priority and calls
+     * {@link #executeOnDiskIO(Runnable)}.
+     *
+     * @param runnable The runnable to run in the disk IO thread pool.
+     * @param priority Either {@link #PRIORITY_INTERACTIVE} or {@link #PRIORITY_BACKGROUND}.
+     */
+    public void executeOnDiskIO(@NonNull Runnable runnable, @IOPriority int priority) {
+        executeOnDiskIO(runnable);
+    }
+
     /**
      * Posts the given task to the main thread.
      *
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.arch.core.executor;
+
+import static androidx.arch.core.executor.TaskExecutor.PRIORITY_BACKGROUND;
+import static androidx.arch.core.executor.TaskExecutor.PRIORITY_INTERACTIVE;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.test.filters.MediumTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class DefaultTaskExecutorTest {
+    private static final long SLEEP_MS = 100;
+
+    @Test
+    public void interactiveThreads() throws InterruptedException {
+        DefaultTaskExecutor executor = createExecutor(3, 1, null);
+        ThreadInfo info = runAndGetThreadInfo(executor, PRIORITY_INTERACTIVE);
+        assertThat(info.mName, startsWith("arch_disk_io_"));
+        assertThat(info.mPriority, is(Process.THREAD_PRIORITY_DEFAULT));
+        // the single argument overload runs on the interactive lane as well
+        assertThat(runAndGetThreadInfo(executor, -1).mName, startsWith("arch_disk_io_"));
+    }
+
+    @Test
+    public void backgroundThreads() throws InterruptedException {
+        DefaultTaskExecutor executor = createExecutor(3, 1, null);
+        ThreadInfo info = runAndGetThreadInfo(executor, PRIORITY_BACKGROUND);
+        assertThat(info.mName, startsWith("arch_disk_io_bg_"));
+        assertThat(info.mPriority, is(Process.THREAD_PRIORITY_BACKGROUND));
+    }
+
+    @Test
+    public void poolSize() throws InterruptedException {
+        DefaultTaskExecutor executor = createExecutor(3, 2, null);
+        assertThat(maxConcurrentTasks(executor, PRIORITY_INTERACTIVE), is(3));
+        assertThat(maxConcurrentTasks(executor, PRIORITY_BACKGROUND), is(2));
+    }
+
+    @Test
+    public void blockedBackgroundDoesNotBlockInteractive() throws InterruptedException {
+        DefaultTaskExecutor executor = createExecutor(1, 1, null);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.executeOnDiskIO(new BlockingRunnable(release), PRIORITY_BACKGROUND);
+        try {
+            CountDownLatch ran = new CountDownLatch(1);
+            executor.executeOnDiskIO(new CountDownRunnable(ran), PRIORITY_INTERACTIVE);
+            assertThat(ran.await(1, TimeUnit.SECONDS), is(true));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void blockedInteractiveDoesNotBlockBackground() throws InterruptedException {
+        DefaultTaskExecutor executor = createExecutor(1, 1, null);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.executeOnDiskIO(new BlockingRunnable(release));
+        try {
+            CountDownLatch ran = new CountDownLatch(1);
+            executor.executeOnDiskIO(new CountDownRunnable(ran), PRIORITY_BACKGROUND);
+            assertThat(ran.await(1, TimeUnit.SECONDS), is(true));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void metrics() throws InterruptedException {
+        final LinkedBlockingQueue<TaskMetrics> metrics = new LinkedBlockingQueue<>();
+        DefaultTaskExecutor executor = createExecutor(1, 1,
+                new DiskIOConfig.TaskMetricsListener() {
+                    @Override
+                    public void onTaskCompleted(@NonNull Runnable task, int priority,
+                            long queueWaitNanos, long runNanos) {
+                        metrics.add(new TaskMetrics(task, priority, queueWaitNanos, runNanos));
+                    }
+                });
+        // the second task waits in the queue while the first one sleeps
+        Runnable first = new SleepRunnable();
+        Runnable second = new SleepRunnable();
+        executor.executeOnDiskIO(first);
+        executor.executeOnDiskIO(second);
+        Runnable background = new SleepRunnable();
+        executor.executeOnDiskIO(background, PRIORITY_BACKGROUND);
+
+        long sleepNanos = TimeUnit.MILLISECONDS.toNanos(SLEEP_MS);
+        TaskMetrics firstMetrics = pollMetrics(metrics, first, background);
+        assertThat(firstMetrics.mPriority, is(PRIORITY_INTERACTIVE));
+        assertThat(firstMetrics.mQueueWaitNanos, greaterThanOrEqualTo(0L));
+        assertThat(firstMetrics.mRunNanos, greaterThanOrEqualTo(sleepNanos));
+
+        TaskMetrics secondMetrics = pollMetrics(metrics, second, background);
+        assertThat(secondMetrics.mPriority, is(PRIORITY_INTERACTIVE));
+        // the second task may be submitted a little after the first one started
+        assertThat(secondMetrics.mQueueWaitNanos, greaterThanOrEqualTo(sleepNanos / 2));
+        assertThat(secondMetrics.mRunNanos, greaterThanOrEqualTo(sleepNanos));
+    }
+
+    @Test
+    public void metricsOfBackgroundTask() throws InterruptedException {
+        final LinkedBlockingQueue<TaskMetrics> metrics = new LinkedBlockingQueue<>();
+        DefaultTaskExecutor executor = createExecutor(1, 1,
+                new DiskIOConfig.TaskMetricsListener() {
+                    @Override
+                    public void onTaskCompleted(@NonNull Runnable task, int priority,
+                            long queueWaitNanos, long runNanos) {
+                        metrics.add(new TaskMetrics(task, priority, queueWaitNanos, runNanos));
+                    }
+                });
+        Runnable task = new SleepRunnable();
+        executor.executeOnDiskIO(task, PRIORITY_BACKGROUND);
+        TaskMetrics taskMetrics = metrics.poll(1, TimeUnit.SECONDS);
+        assertThat(taskMetrics.mTask, sameInstance(task));
+        assertThat(taskMetrics.mPriority, is(PRIORITY_BACKGROUND));
+        assertThat(taskMetrics.mRunNanos,
+                greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(SLEEP_MS)));
+    }
+
+    private static DefaultTaskExecutor createExecutor(int interactiveThreads,
+            int backgroundThreads, DiskIOConfig.TaskMetricsListener listener) {
+        return new DefaultTaskExecutor(new DiskIOConfig.Builder()
+                .setInteractiveThreadCount(interactiveThreads)
+                .setBackgroundThreadCount(backgroundThreads)
+                .setMetricsListener(listener)
+                .build());
+    }
+
+    /**
+     * Runs a task on the given lane, or through the single argument overload when the priority is
+     * negative, and returns the thread it ran on.
+     */
+    private static ThreadInfo runAndGetThreadInfo(DefaultTaskExecutor executor, int priority)
+            throws InterruptedException {
+        final AtomicReference<ThreadInfo> info = new AtomicReference<>();
+        final CountDownLatch ran = new CountDownLatch(1);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                info.set(new ThreadInfo(Thread.currentThread().getName(),
+                        Process.getThreadPriority(Process.myTid())));
+                ran.countDown();
+            }
+        };
+        if (priority < 0) {
+            executor.executeOnDiskIO(task);
+        } else {
+            executor.executeOnDiskIO(task, priority);
+        }
+        assertThat(ran.await(1, TimeUnit.SECONDS), is(true));
+        return info.get();
+    }
+
+    /**
+     * Submits more blocking tasks than the lane can have threads and returns how many of them run
+     * at the same time.
+     */
+    private static int maxConcurrentTasks(DefaultTaskExecutor executor, int priority)
+            throws InterruptedException {
+        final int taskCount = 8;
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(taskCount);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < taskCount; i++) {
+            executor.executeOnDiskIO(new Runnable() {
+                @Override
+                public void run() {
+                    int count = running.incrementAndGet();
+                    int max;
+                    do {
+                        max = maxRunning.get();
+                    } while (count > max && !maxRunning.compareAndSet(max, count));
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            }, priority);
+        }
+        // give every thread of the lane the time to pick up a task
+        Thread.sleep(SLEEP_MS * 3);
+        release.countDown();
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        return maxRunning.get();
+    }
+
+    private static TaskMetrics pollMetrics(LinkedBlockingQueue<TaskMetrics> metrics,
+            Runnable task, Runnable ignored) throws InterruptedException {
+        while (true) {
+            TaskMetrics next = metrics.poll(1, TimeUnit.SECONDS);
+            if (next == null) {
+                throw new AssertionError("no metrics for " + task);
+            }
+            if (next.mTask != ignored) {
+                assertThat(next.mTask, sameInstance(task));
+                return next;
+            }
+        }
+    }
+
+    private static class ThreadInfo {
+        final String mName;
+        final int mPriority;
+
+        ThreadInfo(String name, int priority) {
+            mName = name;
+            mPriority = priority;
+        }
+    }
+
+    private static class TaskMetrics {
+        final Runnable mTask;
+        final int mPriority;
+        final long mQueueWaitNanos;
+        final long mRunNanos;
+
+        TaskMetrics(Runnable task, int priority, long queueWaitNanos, long runNanos) {
+            mTask = task;
+            mPriority = priority;
+            mQueueWaitNanos = queueWaitNanos;
+            mRunNanos = runNanos;
+        }
+    }
+
+    private static class SleepRunnable implements Runnable {
+        @Override
+        public void run() {
+            try {
+                Thread.sleep(SLEEP_MS);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static class BlockingRunnable implements Runnable {
+        private final CountDownLatch mRelease;
+
+        BlockingRunnable(CountDownLatch release) {
+            mRelease = release;
+        }
+
+        @Override
+        public void run() {
+            try {
+                mRelease.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static class CountDownRunnable implements Runnable {
+        private final CountDownLatch mLatch;
+
+        CountDownRunnable(CountDownLatch latch) {
+            mLatch = latch;
+        }
+
+        @Override
+        public void run() {
+            mLatch.countDown();
+        }
+    }
+}
@@ -60,6 +60,13 @@ public class CountingTaskExecutorRuleTest {
         singleTaskTest(task);
     }
 
+    @Test
+    public void busyBackgroundIO() throws InterruptedException {
+        LatchRunnable task = new LatchRunnable();
+        ArchTaskExecutor.getBackgroundIOThreadExecutor().execute(task);
+        singleTaskTest(task);
+    }
+
     @Test
     public void busyMain() throws InterruptedException {
         LatchRunnable task = runOnMain();
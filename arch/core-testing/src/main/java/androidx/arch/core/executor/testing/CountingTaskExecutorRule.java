@@ -18,6 +18,7 @@ package androidx.arch.core.executor.testing;
 
 import android.os.SystemClock;
 
+import androidx.annotation.NonNull;
 import androidx.arch.core.executor.ArchTaskExecutor;
 import androidx.arch.core.executor.DefaultTaskExecutor;
 
@@ -46,6 +47,11 @@ public class CountingTaskExecutorRule extends TestWatcher {
                 super.executeOnDiskIO(new CountingRunnable(runnable));
             }
 
+            @Override
+            public void executeOnDiskIO(@NonNull Runnable runnable, @IOPriority int priority) {
+                super.executeOnDiskIO(new CountingRunnable(runnable), priority);
+            }
+
             @Override
             public void postToMainThread(Runnable runnable) {
                 super.postToMainThread(new CountingRunnable(runnable));
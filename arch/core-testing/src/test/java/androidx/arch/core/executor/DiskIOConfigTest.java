@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.arch.core.executor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DiskIOConfigTest {
+    @Test
+    public void defaultThreadCounts() {
+        DiskIOConfig config = new DiskIOConfig.Builder().build();
+        int cores = Runtime.getRuntime().availableProcessors();
+        int interactive = Math.max(2, Math.min(cores, 4));
+        assertThat(config.getInteractiveThreadCount(), is(interactive));
+        assertThat(config.getBackgroundThreadCount(), is(Math.max(1, interactive / 2)));
+        assertThat(config.getMetricsListener(), nullValue());
+    }
+
+    @Test
+    public void defaultBackgroundThreadCountFollowsInteractive() {
+        assertThat(new DiskIOConfig.Builder().setInteractiveThreadCount(1).build()
+                .getBackgroundThreadCount(), is(1));
+        assertThat(new DiskIOConfig.Builder().setInteractiveThreadCount(3).build()
+                .getBackgroundThreadCount(), is(1));
+        assertThat(new DiskIOConfig.Builder().setInteractiveThreadCount(8).build()
+                .getBackgroundThreadCount(), is(4));
+    }
+
+    @Test
+    public void explicitThreadCounts() {
+        DiskIOConfig config = new DiskIOConfig.Builder()
+                .setInteractiveThreadCount(6)
+                .setBackgroundThreadCount(5)
+                .build();
+        assertThat(config.getInteractiveThreadCount(), is(6));
+        assertThat(config.getBackgroundThreadCount(), is(5));
+    }
+
+    @Test
+    public void metricsListener() {
+        DiskIOConfig.TaskMetricsListener listener = new DiskIOConfig.TaskMetricsListener() {
+            @Override
+            public void onTaskCompleted(@NonNull Runnable task, int priority, long queueWaitNanos,
+                    long runNanos) {
+            }
+        };
+        DiskIOConfig config = new DiskIOConfig.Builder().setMetricsListener(listener).build();
+        assertThat(config.getMetricsListener(), sameInstance(listener));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroInteractiveThreads() {
+        new DiskIOConfig.Builder().setInteractiveThreadCount(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeBackgroundThreads() {
+        new DiskIOConfig.Builder().setBackgroundThreadCount(-1);
+    }
+}
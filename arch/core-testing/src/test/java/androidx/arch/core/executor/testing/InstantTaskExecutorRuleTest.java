@@ -63,4 +63,19 @@ public class InstantTaskExecutorRuleTest {
         ArchTaskExecutor.getInstance().executeOnDiskIO(check);
         check.get(1, TimeUnit.SECONDS);
     }
+
+    @Test
+    public void executeOnBackgroundIO()
+            throws ExecutionException, InterruptedException, TimeoutException {
+        final Thread current = Thread.currentThread();
+        FutureTask<Void> check = new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                assertTrue(Thread.currentThread() == current);
+                return null;
+            }
+        });
+        ArchTaskExecutor.getBackgroundIOThreadExecutor().execute(check);
+        check.get(1, TimeUnit.SECONDS);
+    }
 }
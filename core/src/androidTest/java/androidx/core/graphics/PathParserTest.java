@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.graphics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+
+@SmallTest
+public final class PathParserTest {
+    private static final String PATH_DATA =
+            "M12,2C6.48,2 2,6.48 2,12s4.48,10 10,10 10,-4.48 10,-10S17.52,2 12,2z"
+                    + "M-1.5e1.25.5-.5L3 4 5 6z";
+
+    @Test
+    public void packedPathDataMatchesNodes() {
+        PathParser.PathDataNode[] nodes = PathParser.createNodesFromPathData(PATH_DATA);
+        PathParser.PathDataNode[] packedNodes =
+                PathParser.parsePackedPathData(PATH_DATA).toNodes();
+
+        assertEquals(nodes.length, packedNodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals(nodes[i].mType, packedNodes[i].mType);
+            assertArrayEquals(nodes[i].mParams, packedNodes[i].mParams, 0f);
+        }
+        assertEquals(-15f, packedNodes[5].mParams[0], 0f);
+        assertEquals(.25f, packedNodes[5].mParams[1], 0f);
+        assertEquals(.5f, packedNodes[5].mParams[2], 0f);
+        assertEquals(-.5f, packedNodes[5].mParams[3], 0f);
+    }
+
+    @Test
+    public void packedPathDataToPath() {
+        Path fromNodes = new Path();
+        PathParser.PathDataNode.nodesToPath(
+                PathParser.createNodesFromPathData(PATH_DATA), fromNodes);
+        Path fromPacked = new Path();
+        PathParser.parsePackedPathData(PATH_DATA).toPath(fromPacked);
+
+        RectF expected = new RectF();
+        fromNodes.computeBounds(expected, true);
+        RectF actual = new RectF();
+        fromPacked.computeBounds(actual, true);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void getPackedPathDataIsCached() {
+        String pathData = "M0,0L" + System.nanoTime() + ",1z";
+        PathParser.PackedPathData packed = PathParser.getPackedPathData(pathData);
+        assertSame(packed, PathParser.getPackedPathData(new String(pathData)));
+
+        // Nodes are mutable, so every call needs its own copy
+        assertNotSame(packed.toNodes()[1].mParams, packed.toNodes()[1].mParams);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void incompleteParametersThrow() {
+        PathParser.createPathFromPathData("M0,0L1,2,3L4,5");
+    }
+}
@@ -43,6 +43,7 @@ import android.graphics.Typeface;
 import android.util.Base64;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.res.FontResourcesParserCompat;
 import androidx.core.content.res.ResourcesCompat;
 import androidx.core.provider.FontsContractCompat.FontFamilyResult;
 import androidx.core.provider.FontsContractCompat.FontInfo;
@@ -55,12 +56,14 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Unit tests for {@link FontsContractCompat}.
@@ -410,6 +413,131 @@ public class FontsContractCompatTest {
         assertNull(callback.mTypeface);
     }
 
+    @Test
+    public void diskCache_storesFontFiles() {
+        FontRequest request = new FontRequest(
+                AUTHORITY, PACKAGE, MockFontProvider.SINGLE_FONT_FAMILY2_QUERY, SIGNATURE);
+        FontDiskCache cache = new FontDiskCache(mContext, 4);
+        cache.clear();
+        try {
+            assertNull(cache.get(mContext, request));
+
+            cache.put(mContext, request,
+                    FontsContractCompat.getFontFromProvider(mContext, request, AUTHORITY, null));
+            FontInfo[] cached = cache.get(mContext, request);
+            assertNotNull(cached);
+            assertEquals(1, cached.length);
+            assertEquals("file", cached[0].getUri().getScheme());
+            assertEquals(700, cached[0].getWeight());
+            assertTrue(cached[0].isItalic());
+            assertNotNull(FontsContractCompat.buildTypeface(mContext, null, cached));
+        } finally {
+            cache.clear();
+        }
+    }
+
+    @Test
+    public void diskCache_putKeepsValidEntry() {
+        FontRequest request = new FontRequest(
+                AUTHORITY, PACKAGE, MockFontProvider.SINGLE_FONT_FAMILY2_QUERY, SIGNATURE);
+        FontDiskCache cache = new FontDiskCache(mContext, 4);
+        cache.clear();
+        try {
+            FontInfo[] fonts =
+                    FontsContractCompat.getFontFromProvider(mContext, request, AUTHORITY, null);
+            cache.put(mContext, request, fonts);
+            File file = new File(cache.get(mContext, request)[0].getUri().getPath());
+            assertTrue(file.setLastModified(0));
+
+            // e.g. from the fonts thread resolving the same request, while the file is in use
+            cache.put(mContext, request, fonts);
+            assertEquals(0, file.lastModified());
+            assertNotNull(cache.get(mContext, request));
+        } finally {
+            cache.clear();
+        }
+    }
+
+    @Test
+    public void diskCache_concurrentAccess() throws InterruptedException {
+        final FontRequest request = new FontRequest(
+                AUTHORITY, PACKAGE, MockFontProvider.SINGLE_FONT_FAMILY2_QUERY, SIGNATURE);
+        final FontDiskCache cache = new FontDiskCache(mContext, 4);
+        cache.clear();
+        try {
+            final FontInfo[] fonts =
+                    FontsContractCompat.getFontFromProvider(mContext, request, AUTHORITY, null);
+            final int threadCount = 4;
+            final CountDownLatch done = new CountDownLatch(threadCount);
+            final AtomicInteger failures = new AtomicInteger();
+            for (int i = 0; i < threadCount; i++) {
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 20; j++) {
+                            FontInfo[] cached = cache.get(mContext, request);
+                            if (cached == null) {
+                                cache.put(mContext, request, fonts);
+                            } else if (!new File(cached[0].getUri().getPath()).exists()) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                        done.countDown();
+                    }
+                }).start();
+            }
+            assertTrue(done.await(10L, TimeUnit.SECONDS));
+            assertEquals(0, failures.get());
+            assertNotNull(cache.get(mContext, request));
+        } finally {
+            cache.clear();
+        }
+    }
+
+    @Test
+    public void diskCache_droppedOnCertificateMismatch() {
+        FontRequest request = new FontRequest(
+                AUTHORITY, PACKAGE, MockFontProvider.SINGLE_FONT_FAMILY_QUERY, SIGNATURE);
+        FontDiskCache cache = new FontDiskCache(mContext, 4);
+        cache.clear();
+        try {
+            cache.put(mContext, request,
+                    FontsContractCompat.getFontFromProvider(mContext, request, AUTHORITY, null));
+            assertNotNull(cache.get(mContext, request));
+
+            // Same identifier, but the provider isn't signed with these certificates.
+            List<List<byte[]>> wrongCerts = Collections.singletonList(
+                    Collections.singletonList(BYTE_ARRAY));
+            FontRequest wrongRequest = new FontRequest(
+                    AUTHORITY, PACKAGE, MockFontProvider.SINGLE_FONT_FAMILY_QUERY, wrongCerts);
+            assertNull(cache.get(mContext, wrongRequest));
+            // and the entry is gone for good
+            assertNull(cache.get(mContext, request));
+        } finally {
+            cache.clear();
+        }
+    }
+
+    @Test
+    public void diskCache_usedByGetFontSync() {
+        FontsContractCompat.resetCache();
+        FontsContractCompat.enableDiskCache(mContext);
+        FontDiskCache cache = FontsContractCompat.sDiskCache;
+        try {
+            FontRequest request = new FontRequest(
+                    AUTHORITY, PACKAGE, MockFontProvider.SINGLE_FONT_FAMILY_QUERY, SIGNATURE);
+            Typeface typeface = FontsContractCompat.getFontSync(mContext, request, null, null,
+                    true /* isBlockingFetch */, FontResourcesParserCompat.INFINITE_TIMEOUT_VALUE,
+                    Typeface.NORMAL);
+            assertNotNull(typeface);
+            assertNotNull(cache.get(mContext, request));
+        } finally {
+            FontsContractCompat.sDiskCache = null;
+            cache.clear();
+            FontsContractCompat.resetCache();
+        }
+    }
+
     public static class FontCallback extends ResourcesCompat.FontCallback {
         private final CountDownLatch mLatch;
         Typeface mTypeface;
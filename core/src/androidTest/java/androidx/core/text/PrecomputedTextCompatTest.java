@@ -22,6 +22,8 @@ import static android.text.TextDirectionHeuristics.RTL;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -40,9 +42,14 @@ import androidx.test.filters.SdkSuppress;
 import androidx.test.filters.SmallTest;
 import androidx.test.runner.AndroidJUnit4;
 
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
 @RunWith(AndroidJUnit4.class)
 @SmallTest
 public class PrecomputedTextCompatTest {
@@ -63,6 +70,12 @@ public class PrecomputedTextCompatTest {
 
     private static final TextPaint PAINT = new TextPaint();
 
+    @After
+    public void tearDown() {
+        PrecomputedTextCompat.setCacheSize(128);
+        PrecomputedTextCompat.clearCache();
+    }
+
     @Test
     public void testParams_create() {
         assertNotNull(new Params.Builder(PAINT).build());
@@ -368,4 +381,83 @@ public class PrecomputedTextCompatTest {
         assertEquals(pm1.length(), pm1.getParagraphEnd(1));
     }
 
+    @Test
+    public void testGetTextFutures() throws Exception {
+        final Params param = new Params.Builder(PAINT).build();
+        final List<Future<PrecomputedTextCompat>> futures = PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(STRING, MULTIPARA_STRING), param, null);
+        assertEquals(2, futures.size());
+        assertEquals(STRING, futures.get(0).get().toString());
+        assertEquals(MULTIPARA_STRING, futures.get(1).get().toString());
+        assertEquals(2, futures.get(1).get().getParagraphCount());
+    }
+
+    @Test
+    public void testGetTextFutures_cached() throws Exception {
+        final Params param = new Params.Builder(PAINT).build();
+        final PrecomputedTextCompat first = PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(STRING), param, null).get(0).get();
+        assertSame(first, PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(new String(STRING)), param, null).get(0).get());
+
+        final Params rtlParam = new Params.Builder(PAINT).setTextDirection(RTL).build();
+        assertNotSame(first, PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(STRING), rtlParam, null).get(0).get());
+
+        PrecomputedTextCompat.clearCache();
+        assertNotSame(first, PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(STRING), param, null).get(0).get());
+    }
+
+    @Test
+    public void testGetTextFutures_cachedSpannedText() throws Exception {
+        final Params param = new Params.Builder(PAINT).build();
+        final BackgroundColorSpan span = new BackgroundColorSpan(Color.RED);
+        final SpannableStringBuilder text = new SpannableStringBuilder(STRING);
+        text.setSpan(span, 0, 5, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        final PrecomputedTextCompat first = PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(text), param, null).get(0).get();
+
+        // Another text with the same characters and span
+        final SpannableStringBuilder copy = new SpannableStringBuilder(STRING);
+        copy.setSpan(span, 0, 5, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        assertSame(first, PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(copy), param, null).get(0).get());
+
+        // The cache kept a copy, so changing the text doesn't change the cached entry
+        text.append("!");
+        final PrecomputedTextCompat changed = PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(text), param, null).get(0).get();
+        assertNotSame(first, changed);
+        assertEquals(STRING + "!", changed.toString());
+        assertSame(first, PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(copy), param, null).get(0).get());
+
+        // The same characters with another span
+        copy.setSpan(new BackgroundColorSpan(Color.RED), 0, 5, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        assertNotSame(first, PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(copy), param, null).get(0).get());
+    }
+
+    @Test
+    public void testGetTextFutures_cacheDisabled() throws Exception {
+        PrecomputedTextCompat.setCacheSize(0);
+        final Params param = new Params.Builder(PAINT).build();
+        final PrecomputedTextCompat first = PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(STRING), param, null).get(0).get();
+        assertNotSame(first, PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(STRING), param, null).get(0).get());
+    }
+
+    @Test
+    public void testGetTextFutures_lruEviction() throws Exception {
+        PrecomputedTextCompat.setCacheSize(1);
+        final Params param = new Params.Builder(PAINT).build();
+        final PrecomputedTextCompat first = PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(STRING), param, null).get(0).get();
+        PrecomputedTextCompat.getTextFutures(Arrays.asList(MULTIPARA_STRING), param, null)
+                .get(0).get();
+        assertNotSame(first, PrecomputedTextCompat.getTextFutures(
+                Arrays.asList(STRING), param, null).get(0).get());
+    }
 }
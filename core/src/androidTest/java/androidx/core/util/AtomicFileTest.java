@@ -0,0 +1,229 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import androidx.annotation.NonNull;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class AtomicFileTest {
+    @Rule
+    public final TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mBaseFile;
+    private AtomicFile mAtomicFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mBaseFile = new File(mTemporaryFolder.getRoot(), "file");
+        mAtomicFile = new AtomicFile(mBaseFile);
+    }
+
+    @Test
+    public void replace() throws IOException {
+        writeWithBackup(new byte[] {0, 1, 2});
+
+        FileOutputStream str = mAtomicFile.startReplace();
+        str.write(new byte[] {3, 4});
+        // the previous data stays readable until the replace is finished
+        assertArrayEquals(new byte[] {0, 1, 2}, readBaseFile());
+        mAtomicFile.finishReplace(str);
+
+        assertArrayEquals(new byte[] {3, 4}, mAtomicFile.readFully());
+        assertFalse(new File(mBaseFile.getPath() + ".new").exists());
+    }
+
+    @Test
+    public void failReplace() throws IOException {
+        writeWithBackup(new byte[] {0, 1, 2});
+
+        FileOutputStream str = mAtomicFile.startReplace();
+        str.write(new byte[] {3, 4});
+        mAtomicFile.failReplace(str);
+
+        assertArrayEquals(new byte[] {0, 1, 2}, mAtomicFile.readFully());
+        assertFalse(new File(mBaseFile.getPath() + ".new").exists());
+    }
+
+    @Test
+    public void openReadKeepsReplaceInProgress() throws IOException {
+        writeWithBackup(new byte[] {0, 1, 2});
+
+        FileOutputStream str = mAtomicFile.startReplace();
+        str.write(new byte[] {3, 4});
+        // reading in the middle of a replace sees the previous data
+        assertArrayEquals(new byte[] {0, 1, 2}, mAtomicFile.readFully());
+        mAtomicFile.finishReplace(str);
+
+        assertArrayEquals(new byte[] {3, 4}, mAtomicFile.readFully());
+    }
+
+    @Test
+    public void openReadDropsIncompleteReplaceWithoutBase() throws IOException {
+        // as if the process died in the middle of the first replace
+        FileOutputStream str = mAtomicFile.startReplace();
+        str.write(new byte[] {3, 4});
+        str.close();
+
+        try {
+            mAtomicFile.openRead();
+            fail();
+        } catch (FileNotFoundException expected) {
+        }
+        assertFalse(new File(mBaseFile.getPath() + ".new").exists());
+    }
+
+    @Test
+    public void replaceAfterIncompleteReplace() throws IOException {
+        writeWithBackup(new byte[] {0, 1, 2});
+        // as if the process died in the middle of a replace
+        FileOutputStream str = mAtomicFile.startReplace();
+        str.write(new byte[] {3, 4, 5, 6});
+        str.close();
+        assertArrayEquals(new byte[] {0, 1, 2}, mAtomicFile.readFully());
+
+        str = mAtomicFile.startReplace();
+        str.write(new byte[] {7});
+        mAtomicFile.finishReplace(str);
+
+        assertArrayEquals(new byte[] {7}, mAtomicFile.readFully());
+    }
+
+    @Test
+    public void write() throws IOException {
+        final byte[] data = new byte[100 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        mAtomicFile.write(new AtomicFile.StreamWriter() {
+            @Override
+            public void writeTo(@NonNull OutputStream out) throws IOException {
+                for (int i = 0; i < data.length; i += 1000) {
+                    out.write(data, i, Math.min(1000, data.length - i));
+                }
+            }
+        }, 4096);
+
+        assertArrayEquals(data, mAtomicFile.readFully());
+    }
+
+    @Test
+    public void writeFailure() throws IOException {
+        writeWithBackup(new byte[] {0, 1, 2});
+
+        final IOException failure = new IOException("Broken!");
+        try {
+            mAtomicFile.write(new AtomicFile.StreamWriter() {
+                @Override
+                public void writeTo(@NonNull OutputStream out) throws IOException {
+                    out.write(new byte[] {3, 4, 5});
+                    throw failure;
+                }
+            });
+            fail("The writer's exception should be rethrown");
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+
+        assertArrayEquals(new byte[] {0, 1, 2}, mAtomicFile.readFully());
+    }
+
+    @Test
+    public void replaceDiscardsBackup() throws IOException {
+        writeWithBackup(new byte[] {0, 1, 2});
+        // a write which never finished leaves its backup behind
+        FileOutputStream unfinished = mAtomicFile.startWrite();
+        unfinished.write(new byte[] {9});
+        unfinished.close();
+
+        FileOutputStream str = mAtomicFile.startReplace();
+        str.write(new byte[] {3, 4});
+        mAtomicFile.finishReplace(str);
+
+        assertArrayEquals(new byte[] {3, 4}, mAtomicFile.readFully());
+    }
+
+    @Test
+    public void mapRead() throws IOException {
+        writeWithBackup(new byte[] {0, 1, 2});
+
+        ByteBuffer buffer = mAtomicFile.mapRead();
+        assertEquals(3, buffer.remaining());
+        assertEquals(2, buffer.get(2));
+    }
+
+    @Test
+    public void openReadChannel() throws IOException {
+        writeWithBackup(new byte[] {0, 1, 2});
+
+        FileChannel channel = mAtomicFile.openReadChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(2);
+            assertEquals(2, channel.read(buffer, 1));
+            assertArrayEquals(new byte[] {1, 2}, buffer.array());
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test
+    public void readFullyEmptyFile() throws IOException {
+        writeWithBackup(new byte[0]);
+        assertEquals(0, mAtomicFile.readFully().length);
+    }
+
+    private void writeWithBackup(byte[] data) throws IOException {
+        FileOutputStream str = mAtomicFile.startWrite();
+        str.write(data);
+        mAtomicFile.finishWrite(str);
+    }
+
+    private byte[] readBaseFile() throws IOException {
+        // not through AtomicFile, which would consider the ongoing replace to be incomplete
+        FileInputStream stream = new FileInputStream(mBaseFile);
+        try {
+            byte[] data = new byte[(int) mBaseFile.length()];
+            assertEquals(data.length, stream.read(data));
+            return data;
+        } finally {
+            stream.close();
+        }
+    }
+}
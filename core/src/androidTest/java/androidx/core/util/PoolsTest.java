@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class PoolsTest {
+
+    @Test
+    public void concurrentPool_acquireReleased() {
+        Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(2);
+        assertNull(pool.acquire());
+
+        Object instance = new Object();
+        assertTrue(pool.release(instance));
+        assertEquals(1, pool.getPoolSize());
+        assertSame(instance, pool.acquire());
+        assertEquals(0, pool.getPoolSize());
+        assertNull(pool.acquire());
+    }
+
+    @Test
+    public void concurrentPool_dropsWhenFull() {
+        Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(2, true);
+        assertTrue(pool.release(new Object()));
+        assertTrue(pool.release(new Object()));
+        assertFalse(pool.release(new Object()));
+        assertEquals(2, pool.getPoolSize());
+
+        assertNotNull(pool.acquire());
+        assertNotNull(pool.acquire());
+        assertNull(pool.acquire());
+
+        assertEquals(2, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(1, pool.getDropCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void concurrentPool_releaseTwice() {
+        Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(2);
+        Object instance = new Object();
+        pool.release(instance);
+        pool.release(instance);
+    }
+
+    @Test
+    public void concurrentPool_statsOffByDefault() {
+        Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(1);
+        pool.acquire();
+        pool.release(new Object());
+        pool.release(new Object());
+        pool.acquire();
+        assertEquals(0, pool.getHitCount());
+        assertEquals(0, pool.getMissCount());
+        assertEquals(0, pool.getDropCount());
+    }
+
+    @Test
+    public void concurrentPool_softCapacity() {
+        Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(4, true);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(pool.release(new Object()));
+        }
+
+        pool.setSoftCapacity(1);
+        assertEquals(1, pool.getSoftCapacity());
+        assertEquals(1, pool.getPoolSize());
+        assertEquals(3, pool.getDropCount());
+        assertFalse(pool.release(new Object()));
+
+        pool.setSoftCapacity(4);
+        assertTrue(pool.release(new Object()));
+        assertEquals(2, pool.getPoolSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void concurrentPool_softCapacityAboveMax() {
+        new Pools.ConcurrentPool<>(2).setSoftCapacity(3);
+    }
+
+    @Test
+    public void concurrentPool_neverHandsOutAnInstanceTwice() throws Throwable {
+        final int threadCount = 4;
+        final int iterations = 10000;
+        final Pools.ConcurrentPool<Object> pool = new Pools.ConcurrentPool<>(8, true);
+        final Set<Object> inUse = Collections.synchronizedSet(
+                Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < iterations; i++) {
+                            Object instance = pool.acquire();
+                            if (instance == null) {
+                                instance = new Object();
+                            }
+                            assertTrue(inUse.add(instance));
+                            assertTrue(inUse.remove(instance));
+                            pool.release(instance);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        assertEquals(threadCount * iterations, pool.getHitCount() + pool.getMissCount());
+        assertTrue(pool.getPoolSize() <= 8);
+    }
+}
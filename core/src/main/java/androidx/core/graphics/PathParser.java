@@ -20,9 +20,9 @@ package androidx.core.graphics;
 import android.graphics.Path;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-
-import java.util.ArrayList;
+import androidx.collection.LruCache;
 
 /**
  * This class is a duplicate from the PathParser.java of frameworks/base, with slight
@@ -34,6 +34,17 @@ import java.util.ArrayList;
 public class PathParser {
     private static final String LOGTAG = "PathParser";
 
+    // Roughly 256KB worth of commands and parameters.
+    private static final int PACKED_PATH_DATA_CACHE_SIZE = 64 * 1024;
+
+    private static final LruCache<String, PackedPathData> sPackedPathDataCache =
+            new LruCache<String, PackedPathData>(PACKED_PATH_DATA_CACHE_SIZE) {
+                @Override
+                protected int sizeOf(@NonNull String key, @NonNull PackedPathData value) {
+                    return value.mCommands.length + value.mParams.length;
+                }
+            };
+
     // Copy from Arrays.copyOfRange() which is only available from API level 9.
 
     /**
@@ -71,10 +82,10 @@ public class PathParser {
      */
     public static Path createPathFromPathData(String pathData) {
         Path path = new Path();
-        PathDataNode[] nodes = createNodesFromPathData(pathData);
-        if (nodes != null) {
+        PackedPathData packed = pathData == null ? null : parsePackedPathData(pathData);
+        if (packed != null) {
             try {
-                PathDataNode.nodesToPath(nodes, path);
+                packed.toPath(path);
             } catch (RuntimeException e) {
                 throw new RuntimeException("Error in parsing " + pathData, e);
             }
@@ -91,25 +102,89 @@ public class PathParser {
         if (pathData == null) {
             return null;
         }
+        return parsePackedPathData(pathData).toNodes();
+    }
+
+    /**
+     * Returns the parsed form of the given path data, from a process wide cache if the same
+     * path data has been parsed before. The result is immutable, so it can be shared between
+     * all drawables using the same path data.
+     *
+     * @param pathData The string representing a path, the same as "d" string in svg file.
+     * @return the parsed path, or null if pathData is null.
+     */
+    @Nullable
+    public static PackedPathData getPackedPathData(@Nullable String pathData) {
+        if (pathData == null) {
+            return null;
+        }
+        PackedPathData packed = sPackedPathDataCache.get(pathData);
+        if (packed == null) {
+            packed = parsePackedPathData(pathData);
+            sPackedPathDataCache.put(pathData, packed);
+        }
+        return packed;
+    }
+
+    /**
+     * Parses the given path data into a single command array and a single parameter array,
+     * without creating a node, array or substring per command.
+     *
+     * @param pathData The string representing a path, the same as "d" string in svg file.
+     * @return the parsed path.
+     */
+    @NonNull
+    public static PackedPathData parsePackedPathData(@NonNull String pathData) {
+        final int length = pathData.length();
+        // Every command and every number takes at least one character, so neither array can
+        // be longer than the string.
+        char[] commands = new char[length];
+        int[] offsets = new int[length + 1];
+        float[] params = new float[length];
+        int commandCount = 0;
+        int paramCount = 0;
+
+        ExtractFloatResult result = new ExtractFloatResult();
         int start = 0;
         int end = 1;
-
-        ArrayList<PathDataNode> list = new ArrayList<PathDataNode>();
-        while (end < pathData.length()) {
+        while (end < length) {
             end = nextStart(pathData, end);
-            String s = pathData.substring(start, end).trim();
-            if (s.length() > 0) {
-                float[] val = getFloats(s);
-                addNode(list, s.charAt(0), val);
+            // Same as trim() on the substring between start and end
+            int segmentStart = start;
+            int segmentEnd = end;
+            while (segmentStart < segmentEnd && pathData.charAt(segmentStart) <= ' ') {
+                segmentStart++;
+            }
+            while (segmentEnd > segmentStart && pathData.charAt(segmentEnd - 1) <= ' ') {
+                segmentEnd--;
+            }
+            if (segmentStart < segmentEnd) {
+                char cmd = pathData.charAt(segmentStart);
+                commands[commandCount] = cmd;
+                offsets[commandCount] = paramCount;
+                commandCount++;
+                if (cmd != 'z' && cmd != 'Z') {
+                    paramCount = getFloats(pathData, segmentStart, segmentEnd, params,
+                            paramCount, result);
+                }
             }
 
             start = end;
             end++;
         }
-        if ((end - start) == 1 && start < pathData.length()) {
-            addNode(list, pathData.charAt(start), new float[0]);
+        if ((end - start) == 1 && start < length) {
+            commands[commandCount] = pathData.charAt(start);
+            offsets[commandCount] = paramCount;
+            commandCount++;
         }
-        return list.toArray(new PathDataNode[list.size()]);
+        offsets[commandCount] = paramCount;
+
+        char[] packedCommands = new char[commandCount];
+        System.arraycopy(commands, 0, packedCommands, 0, commandCount);
+        int[] packedOffsets = new int[commandCount + 1];
+        System.arraycopy(offsets, 0, packedOffsets, 0, commandCount + 1);
+        return new PackedPathData(packedCommands, packedOffsets,
+                copyOfRange(params, 0, paramCount));
     }
 
     /**
@@ -186,10 +261,6 @@ public class PathParser {
         return end;
     }
 
-    private static void addNode(ArrayList<PathDataNode> list, char cmd, float[] val) {
-        list.add(new PathDataNode(cmd, val));
-    }
-
     private static class ExtractFloatResult {
         // We need to return the position of the next separator and whether the
         // next float starts with a '-' or a '.'.
@@ -201,35 +272,31 @@ public class PathParser {
     }
 
     /**
-     * Parse the floats in the string.
-     * This is an optimized version of parseFloat(s.split(",|\\s"));
+     * Parse the floats of the command between start and end into params.
+     * This is an optimized version of parseFloat(s.substring(start + 1, end).split(",|\\s"));
      *
-     * @param s the string containing a command and list of floats
-     * @return array of floats
+     * @param s the string containing the command
+     * @param start the position of the command character
+     * @param end the end of the command's list of floats, exclusive
+     * @param params the array to write the floats to
+     * @param count the position in params to write the first float to
+     * @param result scratch space for {@link #extract}
+     * @return the position in params after the last float
      */
-    private static float[] getFloats(String s) {
-        if (s.charAt(0) == 'z' || s.charAt(0) == 'Z') {
-            return new float[0];
-        }
+    private static int getFloats(String s, int start, int end, float[] params, int count,
+            ExtractFloatResult result) {
+        int startPosition = start + 1;
+        int endPosition;
         try {
-            float[] results = new float[s.length()];
-            int count = 0;
-            int startPosition = 1;
-            int endPosition = 0;
-
-            ExtractFloatResult result = new ExtractFloatResult();
-            int totalLength = s.length();
-
             // The startPosition should always be the first character of the
             // current number, and endPosition is the character after the current
             // number.
-            while (startPosition < totalLength) {
-                extract(s, startPosition, result);
+            while (startPosition < end) {
+                extract(s, startPosition, end, result);
                 endPosition = result.mEndPosition;
 
                 if (startPosition < endPosition) {
-                    results[count++] = Float.parseFloat(
-                            s.substring(startPosition, endPosition));
+                    params[count++] = parseFloat(s, startPosition, endPosition);
                 }
 
                 if (result.mEndWithNegOrDot) {
@@ -239,28 +306,79 @@ public class PathParser {
                     startPosition = endPosition + 1;
                 }
             }
-            return copyOfRange(results, 0, count);
+            return count;
         } catch (NumberFormatException e) {
-            throw new RuntimeException("error in parsing \"" + s + "\"", e);
+            throw new RuntimeException("error in parsing \"" + s.substring(start, end) + "\"", e);
         }
     }
 
+    // Powers of ten which are exactly representable as a float.
+    private static final float[] POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    private static final int MAX_EXACT_MANTISSA = 1 << 24;
+
+    /**
+     * Same as Float.parseFloat(s.substring(start, end)), without the substring for the plain
+     * decimal numbers path data is usually made of.
+     * <p>
+     * When the digits fit in a float's mantissa and the number of decimals has an exactly
+     * representable power of ten, a single float multiplication or division is correctly
+     * rounded, so the result is the same as parseFloat's. Anything else, e.g. exponents or long
+     * numbers, goes through parseFloat.
+     */
+    private static float parseFloat(String s, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (s.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        int mantissa = 0;
+        int digits = 0;
+        int decimals = 0;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenDot) {
+                    decimals++;
+                }
+                if (mantissa > MAX_EXACT_MANTISSA || decimals >= POWERS_OF_TEN.length) {
+                    return Float.parseFloat(s.substring(start, end));
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                return Float.parseFloat(s.substring(start, end));
+            }
+        }
+        if (digits == 0) {
+            return Float.parseFloat(s.substring(start, end));
+        }
+        float value = decimals == 0 ? mantissa : mantissa / POWERS_OF_TEN[decimals];
+        return negative ? -value : value;
+    }
+
     /**
      * Calculate the position of the next comma or space or negative sign
      *
      * @param s      the string to search
      * @param start  the position to start searching
+     * @param end    the position to stop searching at
      * @param result the result of the extraction, including the position of the
      *               the starting position of next number, whether it is ending with a '-'.
      */
-    private static void extract(String s, int start, ExtractFloatResult result) {
+    private static void extract(String s, int start, int end, ExtractFloatResult result) {
         // Now looking for ' ', ',', '.' or '-' from the start.
         int currentIndex = start;
         boolean foundSeparator = false;
         result.mEndWithNegOrDot = false;
         boolean secondDot = false;
         boolean isExponential = false;
-        for (; currentIndex < s.length(); currentIndex++) {
+        for (; currentIndex < end; currentIndex++) {
             boolean isPrevExponential = isExponential;
             isExponential = false;
             char currentChar = s.charAt(currentIndex);
@@ -332,6 +450,60 @@ public class PathParser {
         return true;
     }
 
+    /**
+     * An immutable, parsed form of the "d" attribute of the svg file. All the commands share a
+     * single parameter array, so turning it into a {@link Path} does not allocate, and a single
+     * instance can be shared by every drawable using the same path data.
+     */
+    public static final class PackedPathData {
+        final char[] mCommands;
+        // The parameters of command i are mParams[mOffsets[i]] to mParams[mOffsets[i + 1]]
+        final int[] mOffsets;
+        final float[] mParams;
+
+        PackedPathData(char[] commands, int[] offsets, float[] params) {
+            mCommands = commands;
+            mOffsets = offsets;
+            mParams = params;
+        }
+
+        /**
+         * @return the number of commands, i.e. the length of the array returned by
+         * {@link #toNodes()}.
+         */
+        public int getNodeCount() {
+            return mCommands.length;
+        }
+
+        /**
+         * Adds the commands to the given Path.
+         *
+         * @param path The target Path object.
+         */
+        public void toPath(@NonNull Path path) {
+            float[] current = new float[6];
+            char previousCommand = 'm';
+            for (int i = 0; i < mCommands.length; i++) {
+                PathDataNode.addCommand(path, current, previousCommand, mCommands[i], mParams,
+                        mOffsets[i], mOffsets[i + 1] - mOffsets[i]);
+                previousCommand = mCommands[i];
+            }
+        }
+
+        /**
+         * @return a new, mutable array of PathDataNode with the same commands.
+         */
+        @NonNull
+        public PathDataNode[] toNodes() {
+            PathDataNode[] nodes = new PathDataNode[mCommands.length];
+            for (int i = 0; i < mCommands.length; i++) {
+                nodes[i] = new PathDataNode(mCommands[i],
+                        copyOfRange(mParams, mOffsets[i], mOffsets[i + 1]));
+            }
+            return nodes;
+        }
+    }
+
     /**
      * Each PathDataNode represents one command in the "d" attribute of the svg
      * file.
@@ -369,7 +541,8 @@ public class PathParser {
             float[] current = new float[6];
             char previousCommand = 'm';
             for (int i = 0; i < node.length; i++) {
-                addCommand(path, current, previousCommand, node[i].mType, node[i].mParams);
+                addCommand(path, current, previousCommand, node[i].mType, node[i].mParams, 0,
+                        node[i].mParams.length);
                 previousCommand = node[i].mType;
             }
         }
@@ -392,8 +565,9 @@ public class PathParser {
             }
         }
 
-        private static void addCommand(Path path, float[] current,
-                char previousCmd, char cmd, float[] val) {
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        static void addCommand(Path path, float[] current,
+                char previousCmd, char cmd, float[] val, int offset, int length) {
 
             int incr = 2;
             float currentX = current[0];
@@ -448,12 +622,18 @@ public class PathParser {
                     break;
             }
 
-            for (int k = 0; k < val.length; k += incr) {
+            final int end = offset + length;
+            for (int k = offset; k < end; k += incr) {
+                if (k + incr > end) {
+                    // Incomplete set of parameters. val may hold the parameters of the next
+                    // command, so don't read past the end of this one.
+                    throw new ArrayIndexOutOfBoundsException(k + incr - offset);
+                }
                 switch (cmd) {
                     case 'm': // moveto - Start a new sub-path (relative)
                         currentX += val[k + 0];
                         currentY += val[k + 1];
-                        if (k > 0) {
+                        if (k > offset) {
                             // According to the spec, if a moveto is followed by multiple
                             // pairs of coordinates, the subsequent pairs are treated as
                             // implicit lineto commands.
@@ -467,7 +647,7 @@ public class PathParser {
                     case 'M': // moveto - Start a new sub-path
                         currentX = val[k + 0];
                         currentY = val[k + 1];
-                        if (k > 0) {
+                        if (k > offset) {
                             // According to the spec, if a moveto is followed by multiple
                             // pairs of coordinates, the subsequent pairs are treated as
                             // implicit lineto commands.
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.core.provider;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.core.graphics.TypefaceCompatUtil;
+import androidx.core.provider.FontsContractCompat.FontInfo;
+import androidx.collection.SimpleArrayMap;
+import androidx.core.util.AtomicFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Keeps the font files of resolved {@link FontRequest}s in the app's cache directory, so that
+ * later processes can load them without querying the font provider again.
+ * <p>
+ * Each request gets a directory named after a hash of its identifier, holding the font files
+ * and an index file describing them. The index is written last, so an entry without one is
+ * incomplete and ignored. Before an entry is used, the provider is checked against the request's
+ * certificates, and the entry is dropped if the provider package has been updated since the
+ * fonts were stored.
+ * <p>
+ * Cached fonts are handed out as {@link FontInfo}s with file Uris, which go through the same
+ * memory mapped loading as fonts from the provider. All methods do disk IO.
+ * <p>
+ * Each entry is only read or changed while holding its lock, which is shared by all the caches
+ * of the process, as the same request may be resolved on the calling thread and on the fonts
+ * thread at the same time.
+ */
+final class FontDiskCache {
+    private static final String TAG = "FontDiskCache";
+
+    private static final String CACHE_DIR = "androidx.core.fonts";
+    private static final String INDEX_FILE = "index";
+    private static final String FONT_FILE_PREFIX = "font";
+    private static final int VERSION = 1;
+
+    // The locks of the entries by directory name, guarded by itself
+    @GuardedBy("sEntryLocks")
+    private static final SimpleArrayMap<String, Object> sEntryLocks = new SimpleArrayMap<>();
+
+    private final File mDir;
+    private final int mMaxEntries;
+
+    FontDiskCache(@NonNull Context context, int maxEntries) {
+        mDir = new File(context.getCacheDir(), CACHE_DIR);
+        mMaxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached fonts for the request, or null if there are none or they are no longer
+     * valid.
+     */
+    @WorkerThread
+    @Nullable
+    FontInfo[] get(@NonNull Context context, @NonNull FontRequest request) {
+        File entryDir = getEntryDir(request);
+        synchronized (getEntryLock(entryDir)) {
+            if (!new File(entryDir, INDEX_FILE).exists()) {
+                return null;
+            }
+            long providerUpdateTime = getProviderUpdateTime(context, request);
+            if (providerUpdateTime == -1) {
+                // Provider is gone or its certificates don't match any more, don't trust the files.
+                deleteRecursively(entryDir);
+                return null;
+            }
+            FontInfo[] fonts = readEntry(entryDir, request, providerUpdateTime);
+            if (fonts == null) {
+                deleteRecursively(entryDir);
+                return null;
+            }
+            // Used for picking the entries to evict.
+            entryDir.setLastModified(System.currentTimeMillis());
+            return fonts;
+        }
+    }
+
+    /**
+     * Returns the fonts of the entry if it is complete and was stored for the request and the
+     * current version of its provider, or null otherwise.
+     */
+    @Nullable
+    private static FontInfo[] readEntry(@NonNull File entryDir, @NonNull FontRequest request,
+            long providerUpdateTime) {
+        AtomicFile index = new AtomicFile(new File(entryDir, INDEX_FILE));
+        if (!index.getBaseFile().exists()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(index.openRead());
+            if (in.readInt() != VERSION
+                    || !request.getIdentifier().equals(in.readUTF())
+                    || in.readLong() != providerUpdateTime) {
+                return null;
+            }
+            int count = in.readInt();
+            FontInfo[] fonts = new FontInfo[count];
+            for (int i = 0; i < count; i++) {
+                int ttcIndex = in.readInt();
+                int weight = in.readInt();
+                boolean italic = in.readBoolean();
+                File file = new File(entryDir, FONT_FILE_PREFIX + i);
+                if (!file.exists()) {
+                    return null;
+                }
+                fonts[i] = new FontInfo(Uri.fromFile(file), ttcIndex, weight, italic,
+                        FontsContractCompat.Columns.RESULT_CODE_OK);
+            }
+            return fonts;
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't read cached fonts for " + request.getIdentifier(), e);
+            return null;
+        } finally {
+            TypefaceCompatUtil.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Copies the given fonts from the provider into the cache. Fonts which the provider did not
+     * return successfully are not stored.
+     */
+    @WorkerThread
+    void put(@NonNull Context context, @NonNull FontRequest request, @NonNull FontInfo[] fonts) {
+        final long providerUpdateTime = getProviderUpdateTime(context, request);
+        if (providerUpdateTime == -1) {
+            return;
+        }
+        File entryDir = getEntryDir(request);
+        synchronized (getEntryLock(entryDir)) {
+            if (readEntry(entryDir, request, providerUpdateTime) != null) {
+                // Stored by another thread which resolved the same request, and maybe in use.
+                return;
+            }
+            deleteRecursively(entryDir);
+            if (!write(context, request, fonts, entryDir, providerUpdateTime)) {
+                deleteRecursively(entryDir);
+                return;
+            }
+        }
+        // Outside of the lock of this entry, as trimming takes the locks of the others.
+        trim();
+    }
+
+    private static boolean write(@NonNull Context context, @NonNull final FontRequest request,
+            @NonNull FontInfo[] fonts, @NonNull File entryDir, final long providerUpdateTime) {
+        if (!entryDir.mkdirs()) {
+            return false;
+        }
+        int count = 0;
+        final FontInfo[] stored = new FontInfo[fonts.length];
+        for (FontInfo font : fonts) {
+            if (font.getResultCode() != FontsContractCompat.Columns.RESULT_CODE_OK) {
+                continue;
+            }
+            if (!copyFont(context, font.getUri(), new File(entryDir, FONT_FILE_PREFIX + count))) {
+                return false;
+            }
+            stored[count++] = font;
+        }
+        final int storedCount = count;
+        try {
+            new AtomicFile(new File(entryDir, INDEX_FILE)).write(new AtomicFile.StreamWriter() {
+                @Override
+                public void writeTo(@NonNull OutputStream stream) throws IOException {
+                    DataOutputStream out = new DataOutputStream(stream);
+                    out.writeInt(VERSION);
+                    out.writeUTF(request.getIdentifier());
+                    out.writeLong(providerUpdateTime);
+                    out.writeInt(storedCount);
+                    for (int i = 0; i < storedCount; i++) {
+                        out.writeInt(stored[i].getTtcIndex());
+                        out.writeInt(stored[i].getWeight());
+                        out.writeBoolean(stored[i].isItalic());
+                    }
+                    out.flush();
+                }
+            }, 1024);
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't cache fonts for " + request.getIdentifier(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Drops the cached fonts of the given request.
+     */
+    @WorkerThread
+    void remove(@NonNull FontRequest request) {
+        deleteEntry(getEntryDir(request));
+    }
+
+    /**
+     * Drops all cached fonts.
+     */
+    @WorkerThread
+    void clear() {
+        File[] entries = mDir.listFiles();
+        if (entries != null) {
+            for (File entry : entries) {
+                deleteEntry(entry);
+            }
+        }
+        mDir.delete();
+    }
+
+    private void trim() {
+        File[] entries = mDir.listFiles();
+        if (entries == null || entries.length <= mMaxEntries) {
+            return;
+        }
+        Arrays.sort(entries, new Comparator<File>() {
+            @Override
+            public int compare(File l, File r) {
+                long diff = l.lastModified() - r.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        for (int i = 0; i < entries.length - mMaxEntries; i++) {
+            deleteEntry(entries[i]);
+        }
+    }
+
+    private File getEntryDir(@NonNull FontRequest request) {
+        return new File(mDir, hash(request.getIdentifier()));
+    }
+
+    private static Object getEntryLock(@NonNull File entryDir) {
+        synchronized (sEntryLocks) {
+            Object lock = sEntryLocks.get(entryDir.getName());
+            if (lock == null) {
+                lock = new Object();
+                sEntryLocks.put(entryDir.getName(), lock);
+            }
+            return lock;
+        }
+    }
+
+    private static void deleteEntry(@NonNull File entryDir) {
+        synchronized (getEntryLock(entryDir)) {
+            deleteRecursively(entryDir);
+        }
+    }
+
+    /**
+     * Returns the last update time of the provider package, or -1 if the provider can't be found
+     * or isn't signed with the request's certificates.
+     */
+    private static long getProviderUpdateTime(@NonNull Context context,
+            @NonNull FontRequest request) {
+        PackageManager packageManager = context.getPackageManager();
+        try {
+            if (FontsContractCompat.getProvider(
+                    packageManager, request, context.getResources()) == null) {
+                return -1;
+            }
+            PackageInfo info = packageManager.getPackageInfo(request.getProviderPackage(), 0);
+            return info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return -1;
+        }
+    }
+
+    private static boolean copyFont(@NonNull Context context, @NonNull Uri uri,
+            @NonNull File file) {
+        InputStream is = null;
+        try {
+            is = context.getContentResolver().openInputStream(uri);
+            return is != null && TypefaceCompatUtil.copyToFile(file, is);
+        } catch (IOException | SecurityException e) {
+            Log.w(TAG, "Couldn't copy font " + uri, e);
+            return false;
+        } finally {
+            TypefaceCompatUtil.closeQuietly(is);
+        }
+    }
+
+    private static void deleteRecursively(@NonNull File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static String hash(@NonNull String identifier) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+                    identifier.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            // Both SHA-256 and UTF-8 are always available, fall back to something usable.
+            return Integer.toHexString(identifier.hashCode());
+        }
+    }
+}
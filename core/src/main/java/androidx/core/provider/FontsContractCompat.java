@@ -27,6 +27,8 @@ import android.content.pm.PackageManager;
 import android.content.pm.ProviderInfo;
 import android.content.pm.Signature;
 import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.content.res.XmlResourceParser;
 import android.database.Cursor;
 import android.graphics.Typeface;
 import android.net.Uri;
@@ -36,7 +38,9 @@ import android.os.Handler;
 import android.os.ParcelFileDescriptor;
 import android.os.Process;
 import android.provider.BaseColumns;
+import android.util.Log;
 
+import androidx.annotation.ArrayRes;
 import androidx.annotation.GuardedBy;
 import androidx.annotation.IntDef;
 import androidx.annotation.IntRange;
@@ -45,6 +49,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 import androidx.collection.LruCache;
 import androidx.collection.SimpleArrayMap;
 import androidx.core.content.res.FontResourcesParserCompat;
@@ -54,6 +59,9 @@ import androidx.core.graphics.TypefaceCompatUtil;
 import androidx.core.provider.SelfDestructiveThread.ReplyCallback;
 import androidx.core.util.Preconditions;
 
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
@@ -70,6 +78,8 @@ import java.util.concurrent.Callable;
  * Utility class to deal with Font ContentProviders.
  */
 public class FontsContractCompat {
+    private static final String TAG = "FontsContractCompat";
+
     private FontsContractCompat() { }
 
     /**
@@ -176,9 +186,27 @@ public class FontsContractCompat {
             new SelfDestructiveThread("fonts", Process.THREAD_PRIORITY_BACKGROUND,
                     BACKGROUND_THREAD_KEEP_ALIVE_DURATION_MS);
 
+    private static final int DISK_CACHE_MAX_ENTRIES = 32;
+    @Nullable
+    static volatile FontDiskCache sDiskCache = null;
+
     @NonNull
     static TypefaceResult getFontInternal(final Context context, final FontRequest request,
             int style) {
+        final FontDiskCache diskCache = sDiskCache;
+        if (diskCache != null) {
+            FontInfo[] cachedFonts = diskCache.get(context, request);
+            if (cachedFonts != null) {
+                final Typeface typeface = TypefaceCompat.createFromFontInfo(
+                        context, null /* CancellationSignal */, cachedFonts, style);
+                if (typeface != null) {
+                    return new TypefaceResult(typeface, FontRequestCallback.RESULT_OK);
+                }
+                // Unusable files, fall back to the provider and store them again.
+                diskCache.remove(request);
+            }
+        }
+
         FontFamilyResult result;
         try {
             result = fetchFonts(context, null /* CancellationSignal */, request);
@@ -188,6 +216,9 @@ public class FontsContractCompat {
         if (result.getStatusCode() == FontFamilyResult.STATUS_OK) {
             final Typeface typeface = TypefaceCompat.createFromFontInfo(
                     context, null /* CancellationSignal */, result.getFonts(), style);
+            if (typeface != null && diskCache != null) {
+                diskCache.put(context, request, result.getFonts());
+            }
             return new TypefaceResult(typeface, typeface != null
                     ? FontRequestCallback.RESULT_OK
                     : FontRequestCallback.FAIL_REASON_FONT_LOAD_ERROR);
@@ -223,6 +254,133 @@ public class FontsContractCompat {
         sTypefaceCache.evictAll();
     }
 
+    /**
+     * Enables keeping the fonts downloaded from font providers in the app's cache directory.
+     * <p>
+     * Once enabled, fonts requested through {@link #requestFont} or downloadable font resources
+     * are loaded from the cache in later processes, instead of querying the font provider again.
+     * Cached fonts are only used while the provider still matches the request's certificates, and
+     * are dropped when the provider package is updated.
+     * <p>
+     * This is usually called once, from {@link android.app.Application#onCreate()}.
+     *
+     * @param context A {@link Context} used to locate the cache directory.
+     */
+    public static synchronized void enableDiskCache(@NonNull Context context) {
+        if (sDiskCache == null) {
+            sDiskCache = new FontDiskCache(context.getApplicationContext(),
+                    DISK_CACHE_MAX_ENTRIES);
+        }
+    }
+
+    /**
+     * Stops using the font cache enabled by {@link #enableDiskCache(Context)}, and deletes the
+     * cached fonts in the background.
+     *
+     * @param context A {@link Context} used to locate the cache directory.
+     */
+    public static synchronized void disableDiskCache(@NonNull Context context) {
+        sDiskCache = null;
+        final FontDiskCache diskCache = new FontDiskCache(context.getApplicationContext(),
+                DISK_CACHE_MAX_ENTRIES);
+        sBackgroundThread.post(new Runnable() {
+            @Override
+            public void run() {
+                diskCache.clear();
+            }
+        });
+    }
+
+    /**
+     * Starts loading the fonts for the given requests in the background, so that they are ready
+     * by the time the UI needs them. If the disk cache is enabled, this loads them from the cache
+     * when possible and stores them otherwise.
+     *
+     * @param context A {@link Context} that will be used to fetch the fonts.
+     * @param requests The fonts to load.
+     */
+    public static void prefetch(@NonNull Context context, @NonNull final FontRequest... requests) {
+        final Context appContext = context.getApplicationContext();
+        sBackgroundThread.post(new Runnable() {
+            @Override
+            public void run() {
+                for (FontRequest request : requests) {
+                    prefetchInternal(appContext, request);
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts loading the downloadable font resources listed in the given array resource in the
+     * background, like {@link #prefetch(Context, FontRequest...)}. The array has the same format
+     * as the {@code preloaded_fonts} array of the platform: a list of font resources.
+     * <p>
+     * Font resources which are not downloadable fonts are skipped.
+     *
+     * @param context A {@link Context} that will be used to read the resources and fetch the
+     *                fonts.
+     * @param fontsArrayResId The array of font resources to load.
+     */
+    public static void prefetchDeclaredFonts(@NonNull Context context,
+            @ArrayRes final int fontsArrayResId) {
+        final Context appContext = context.getApplicationContext();
+        sBackgroundThread.post(new Runnable() {
+            @Override
+            public void run() {
+                Resources resources = appContext.getResources();
+                TypedArray fonts = resources.obtainTypedArray(fontsArrayResId);
+                try {
+                    for (int i = 0; i < fonts.length(); i++) {
+                        int fontResId = fonts.getResourceId(i, 0);
+                        if (fontResId == 0) {
+                            continue;
+                        }
+                        FontRequest request = readFontRequest(resources, fontResId);
+                        if (request != null) {
+                            prefetchInternal(appContext, request);
+                        }
+                    }
+                } finally {
+                    fonts.recycle();
+                }
+            }
+        });
+    }
+
+    @Nullable
+    static FontRequest readFontRequest(@NonNull Resources resources, int fontResId) {
+        XmlResourceParser parser = null;
+        try {
+            parser = resources.getXml(fontResId);
+            FontResourcesParserCompat.FamilyResourceEntry entry =
+                    FontResourcesParserCompat.parse(parser, resources);
+            if (entry instanceof FontResourcesParserCompat.ProviderResourceEntry) {
+                return ((FontResourcesParserCompat.ProviderResourceEntry) entry).getRequest();
+            }
+        } catch (Resources.NotFoundException | XmlPullParserException | IOException e) {
+            Log.w(TAG, "Couldn't read font resource " + fontResId, e);
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
+        return null;
+    }
+
+    @WorkerThread
+    static void prefetchInternal(@NonNull Context context, @NonNull FontRequest request) {
+        // Fonts resources are loaded with the normal style, so that is what we warm up.
+        final String id = request.getIdentifier() + "-" + Typeface.NORMAL;
+        if (sTypefaceCache.get(id) != null) {
+            return;
+        }
+        TypefaceResult result = getFontInternal(context, request, Typeface.NORMAL);
+        if (result.mTypeface != null) {
+            sTypefaceCache.put(id, result.mTypeface);
+        }
+    }
+
     /** @hide */
     @RestrictTo(LIBRARY_GROUP)
     public static Typeface getFontSync(final Context context, final FontRequest request,
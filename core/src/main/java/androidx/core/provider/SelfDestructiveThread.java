@@ -103,7 +103,7 @@ public class SelfDestructiveThread {
         }
     }
 
-    private void post(Runnable runnable) {
+    void post(Runnable runnable) {
         synchronized (mLock) {
             if (mThread == null) {
                 mThread = new HandlerThread(mThreadName, mPriority);
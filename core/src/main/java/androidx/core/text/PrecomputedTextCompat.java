@@ -19,10 +19,13 @@ package androidx.core.text;
 import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP;
 
 import android.os.Build;
+import android.os.Process;
 import android.text.Layout;
 import android.text.PrecomputedText;
 import android.text.Spannable;
 import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.SpannedString;
 import android.text.StaticLayout;
 import android.text.TextDirectionHeuristic;
 import android.text.TextDirectionHeuristics;
@@ -37,16 +40,21 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.UiThread;
+import androidx.collection.LruCache;
 import androidx.core.os.TraceCompat;
 import androidx.core.util.ObjectsCompat;
 import androidx.core.util.Preconditions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A text which has the character metrics data.
@@ -71,6 +79,15 @@ public class PrecomputedTextCompat implements Spannable {
 
     private static final Object sLock = new Object();
     @GuardedBy("sLock") private static @NonNull Executor sExecutor = null;
+    @GuardedBy("sLock") private static @NonNull Executor sBatchExecutor = null;
+
+    private static final int DEFAULT_CACHE_SIZE = 128;
+
+    // Holds both finished and in-flight computations, so that the same text requested twice
+    // while it is being computed is only computed once.
+    private static final LruCache<CacheKey, Future<PrecomputedTextCompat>> sCache =
+            new LruCache<>(DEFAULT_CACHE_SIZE);
+    private static volatile boolean sCacheEnabled = true;
 
     /**
      * The information required for building {@link PrecomputedTextCompat}.
@@ -637,6 +654,229 @@ public class PrecomputedTextCompat implements Spannable {
         return task;
     }
 
+    /**
+     * Batch version of {@link #getTextFuture}, for precomputing many texts that share the same
+     * Params, e.g. the items RecyclerView is about to bind while scrolling.
+     * <p>
+     * Each text is computed as a separate task, so a multi-threaded executor computes the batch
+     * in parallel. If null is passed, a shared pool with one thread per spare CPU core, running
+     * at background priority, is used.
+     * <p>
+     * Results are kept in a process wide LRU cache keyed by text and params, see
+     * {@link #setCacheSize}. A text which is cached, or already being computed, is not computed
+     * again, and the returned future gives the same PrecomputedTextCompat instance as before. As
+     * such instances are shared, only spans which don't affect the text's appearance in other
+     * views should be set on them.
+     * <p>
+     * The cache keeps a copy of each text, so texts may be changed after this returns. A text
+     * matches a cached one if it has the same characters and the same spans, compared with
+     * {@link Object#equals}, over the same ranges with the same flags. As most spans don't
+     * override {@code equals}, a text built again with new span objects isn't found in the
+     * cache. Plain texts, e.g. a {@link String} or a {@link StringBuilder}, match by their
+     * characters alone.
+     *
+     * @param texts the texts to be displayed
+     * @param params the parameters to be used for displaying all of the texts
+     * @param executor the executor to process the text layout with. If null is passed, the
+     *                 default batch pool will be used.
+     * @return the futures of the precomputed texts, in the same order as {@code texts}
+     *
+     * @see #getTextFuture
+     */
+    @NonNull
+    public static List<Future<PrecomputedTextCompat>> getTextFutures(
+            @NonNull List<? extends CharSequence> texts,
+            @NonNull PrecomputedTextCompat.Params params, @Nullable Executor executor) {
+        Preconditions.checkNotNull(texts);
+        Preconditions.checkNotNull(params);
+        if (executor == null) {
+            executor = getBatchExecutor();
+        }
+        final int size = texts.size();
+        final List<Future<PrecomputedTextCompat>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final CharSequence text = Preconditions.checkNotNull(texts.get(i));
+            if (!sCacheEnabled) {
+                final PrecomputedTextFutureTask task = new PrecomputedTextFutureTask(params, text);
+                executor.execute(task);
+                futures.add(task);
+                continue;
+            }
+            final CacheKey key = new CacheKey(text, params);
+            Future<PrecomputedTextCompat> future;
+            CachingFutureTask task = null;
+            synchronized (sCache) {
+                future = sCache.get(key);
+                if (future == null || future.isCancelled()) {
+                    task = new CachingFutureTask(key, key.copyText(text));
+                    sCache.put(key, task);
+                    future = task;
+                }
+            }
+            if (task != null) {
+                executor.execute(task);
+            }
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    /**
+     * Sets the maximum number of texts kept by {@link #getTextFutures}. The default is 128.
+     *
+     * @param maxSize the maximum number of cached texts, or 0 to disable the cache.
+     */
+    public static void setCacheSize(@IntRange(from = 0) int maxSize) {
+        Preconditions.checkArgumentNonnegative(maxSize);
+        if (maxSize == 0) {
+            // LruCache doesn't allow a size of 0
+            sCacheEnabled = false;
+            sCache.evictAll();
+        } else {
+            sCache.resize(maxSize);
+            sCacheEnabled = true;
+        }
+    }
+
+    /**
+     * Removes all the texts cached by {@link #getTextFutures}.
+     */
+    public static void clearCache() {
+        sCache.evictAll();
+    }
+
+    private static Executor getBatchExecutor() {
+        synchronized (sLock) {
+            if (sBatchExecutor == null) {
+                final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+                sBatchExecutor = Executors.newFixedThreadPool(threads,
+                        new BackgroundThreadFactory());
+            }
+            return sBatchExecutor;
+        }
+    }
+
+    private static class BackgroundThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        BackgroundThreadFactory() {
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, "PrecomputedTextCompat #" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * The characters and spans of a text when it was looked up, so that the cache isn't affected
+     * by changes to a mutable text.
+     */
+    private static final class CacheKey {
+        private static final Object[] NO_SPANS = new Object[0];
+        private static final int[] NO_SPAN_RANGES = new int[0];
+
+        final @NonNull String mString;
+        // The spans in the order returned by getSpans, and their start, end and flags
+        final @NonNull Object[] mSpans;
+        final @NonNull int[] mSpanRanges;
+        final @NonNull Params mParams;
+        private final int mHashCode;
+
+        CacheKey(@NonNull CharSequence text, @NonNull Params params) {
+            mString = text.toString();
+            if (text instanceof Spanned) {
+                final Spanned spanned = (Spanned) text;
+                mSpans = spanned.getSpans(0, text.length(), Object.class);
+                mSpanRanges = new int[mSpans.length * 3];
+                for (int i = 0; i < mSpans.length; i++) {
+                    mSpanRanges[3 * i] = spanned.getSpanStart(mSpans[i]);
+                    mSpanRanges[3 * i + 1] = spanned.getSpanEnd(mSpans[i]);
+                    mSpanRanges[3 * i + 2] = spanned.getSpanFlags(mSpans[i]);
+                }
+            } else {
+                mSpans = NO_SPANS;
+                mSpanRanges = NO_SPAN_RANGES;
+            }
+            mParams = params;
+            // The spans themselves are left out, as they may not implement hashCode
+            mHashCode = 31 * (31 * mString.hashCode() + Arrays.hashCode(mSpanRanges))
+                    + params.hashCode();
+        }
+
+        /**
+         * Returns an immutable copy of the text this key was created from, to be computed.
+         */
+        @NonNull
+        CharSequence copyText(@NonNull CharSequence text) {
+            return mSpans.length == 0 ? mString : new SpannedString(text);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            // Deliberately not TextUtils.equals, which ignores spans that may affect metrics
+            return mHashCode == other.mHashCode && mString.equals(other.mString)
+                    && Arrays.equals(mSpanRanges, other.mSpanRanges)
+                    && Arrays.equals(mSpans, other.mSpans)
+                    && mParams.equals(other.mParams);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+
+    /**
+     * A task which removes itself from the cache if the computation fails or is cancelled.
+     */
+    private static class CachingFutureTask extends FutureTask<PrecomputedTextCompat> {
+        private final CacheKey mKey;
+
+        CachingFutureTask(@NonNull final CacheKey key, @NonNull final CharSequence text) {
+            super(new PrecomputedTextFutureTask.PrecomputedTextCallback(key.mParams, text));
+            mKey = key;
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            removeFromCache();
+            super.setException(t);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                removeFromCache();
+            }
+            return cancelled;
+        }
+
+        private void removeFromCache() {
+            synchronized (sCache) {
+                if (sCache.get(mKey) == this) {
+                    sCache.remove(mKey);
+                }
+            }
+        }
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // Spannable overrides
@@ -16,16 +16,26 @@
 
 package androidx.core.util;
 
+import android.os.Build;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * Static library support version of the framework's {@link android.util.AtomicFile},
@@ -37,6 +47,10 @@ import java.io.IOException;
  * As long as the backup file exists, the original file is considered
  * to be invalid (left over from a previous attempt to write the file).
  * </p><p>
+ * Alternatively, {@link #startReplace()} and {@link #write(StreamWriter)} write the new data
+ * to a separate file and rename it over the base file once it is on disk, which saves renaming
+ * the base file to a backup first. Until the rename, readers keep seeing the previous data.
+ * </p><p>
  * Atomic file does not confer any file locking semantics.
  * Do not use this class when the file may be accessed or modified concurrently
  * by multiple threads or processes.  The caller is responsible for ensuring
@@ -44,16 +58,21 @@ import java.io.IOException;
  * </p>
  */
 public class AtomicFile {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
     private final File mBaseName;
     private final File mBackupName;
+    private final File mNewName;
 
     /**
      * Create a new AtomicFile for a file located at the given File path.
-     * The secondary backup file will be the same file path with ".bak" appended.
+     * The secondary backup file will be the same file path with ".bak" appended, and new data
+     * written with {@link #startReplace()} goes to the same file path with ".new" appended.
      */
     public AtomicFile(@NonNull File baseName) {
         mBaseName = baseName;
         mBackupName = new File(baseName.getPath() + ".bak");
+        mNewName = new File(baseName.getPath() + ".new");
     }
 
     /**
@@ -66,11 +85,13 @@ public class AtomicFile {
     }
 
     /**
-     * Delete the atomic file.  This deletes both the base and backup files.
+     * Delete the atomic file.  This deletes the base and backup files, as well as
+     * any new data which has not been committed yet.
      */
     public void delete() {
         mBaseName.delete();
         mBackupName.delete();
+        mNewName.delete();
     }
 
     /**
@@ -100,21 +121,7 @@ public class AtomicFile {
                 mBaseName.delete();
             }
         }
-        FileOutputStream str;
-        try {
-            str = new FileOutputStream(mBaseName);
-        } catch (FileNotFoundException e) {
-            File parent = mBaseName.getParentFile();
-            if (!parent.mkdirs()) {
-                throw new IOException("Couldn't create directory " + mBaseName);
-            }
-            try {
-                str = new FileOutputStream(mBaseName);
-            } catch (FileNotFoundException e2) {
-                throw new IOException("Couldn't create " + mBaseName);
-            }
-        }
-        return str;
+        return openOutputStream(mBaseName);
     }
 
     /**
@@ -153,11 +160,106 @@ public class AtomicFile {
         }
     }
 
+    /**
+     * Start a new write operation which replaces the file with the new data once it
+     * is complete.  This returns a FileOutputStream to a separate file, to which you
+     * can write the new file data.  You <em>must not</em> directly close the given
+     * FileOutputStream; instead call either {@link #finishReplace(FileOutputStream)}
+     * or {@link #failReplace(FileOutputStream)}.
+     *
+     * <p>Unlike {@link #startWrite()}, the base file is left alone until the new data
+     * has been forced to disk, so there is no backup to create or restore.  The same
+     * threading caveats apply.
+     */
+    @NonNull
+    public FileOutputStream startReplace() throws IOException {
+        return openOutputStream(mNewName);
+    }
+
+    /**
+     * Call when you have successfully finished writing to the stream
+     * returned by {@link #startReplace()}.  This forces the new data and its
+     * metadata to disk, closes the stream, and renames the new data over
+     * the base file.  On API 21 and above, the directory holding the file is
+     * then synced as well, so that the rename survives a crash.
+     *
+     * @throws IOException If the data could not be forced to disk or the rename
+     * failed.  The previous data is left in place in that case.
+     */
+    public void finishReplace(@NonNull FileOutputStream str) throws IOException {
+        try {
+            str.getChannel().force(true);
+        } catch (IOException e) {
+            failReplace(str);
+            throw e;
+        }
+        str.close();
+        // A left over backup would win over the new data on the next read.
+        mBackupName.delete();
+        if (!mNewName.renameTo(mBaseName)) {
+            mNewName.delete();
+            throw new IOException("Couldn't rename " + mNewName + " to " + mBaseName);
+        }
+        // The rename itself only reaches the disk with the directory entry.
+        syncDirectory(mBaseName.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Call when you have failed for some reason at writing to the stream
+     * returned by {@link #startReplace()}.  This closes the stream and drops
+     * the new data, leaving the previous data in place.
+     */
+    public void failReplace(@NonNull FileOutputStream str) {
+        try {
+            str.close();
+        } catch (IOException e) {
+            Log.w("AtomicFile", "failReplace: Got exception:", e);
+        }
+        mNewName.delete();
+    }
+
+    /**
+     * Replaces the file with the data written by the given writer, through a
+     * 64 KiB buffer.
+     *
+     * @see #write(StreamWriter, int)
+     */
+    public void write(@NonNull StreamWriter writer) throws IOException {
+        write(writer, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Replaces the file with the data written by the given writer.  This is a
+     * convenience for {@link #startReplace()} that buffers the writes, and either
+     * finishes or fails the write depending on whether the writer succeeds.
+     *
+     * <p>Large data can be streamed to the file this way without ever holding
+     * all of it in memory.
+     *
+     * @param writer Writes the new data.
+     * @param bufferSize The size of the write buffer, in bytes.
+     * @throws IOException If the writer failed, or if the data could not be
+     * committed.  The previous data is left in place in either case.
+     */
+    public void write(@NonNull StreamWriter writer, int bufferSize) throws IOException {
+        FileOutputStream str = startReplace();
+        try {
+            BufferedOutputStream out = new BufferedOutputStream(str, bufferSize);
+            writer.writeTo(out);
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            failReplace(str);
+            throw e;
+        }
+        finishReplace(str);
+    }
+
     /**
      * Open the atomic file for reading.  If there previously was an
      * incomplete write, this will roll back to the last good data before
-     * opening for read.  You should call close() on the FileInputStream when
-     * you are done reading from it.
+     * opening for read.  New data from an unfinished {@link #startReplace()}
+     * is only dropped when there is no base file left to read.  You should call
+     * close() on the FileInputStream when you are done reading from it.
      *
      * <p>Note that if another thread is currently performing
      * a write, this will incorrectly consider it to be in the state of a bad
@@ -171,9 +273,45 @@ public class AtomicFile {
             mBaseName.delete();
             mBackupName.renameTo(mBaseName);
         }
+        if (!mBaseName.exists()) {
+            // New data which was never renamed over the base file is from an incomplete replace.
+            // While the base file exists, the new data may still be in the middle of a replace,
+            // and is truncated by the next startReplace() anyway.
+            mNewName.delete();
+        }
         return new FileInputStream(mBaseName);
     }
 
+    /**
+     * A convenience for {@link #openRead()} that returns the FileChannel of the
+     * stream, for positional or bulk reads.  You should call close() on the
+     * channel when you are done reading from it.
+     */
+    @NonNull
+    public FileChannel openReadChannel() throws FileNotFoundException {
+        return openRead().getChannel();
+    }
+
+    /**
+     * A convenience for {@link #openRead()} that maps all of the file contents
+     * into memory, read-only.  The file is closed before this returns, the
+     * mapping stays valid until the buffer is garbage collected.
+     *
+     * <p>Mapping avoids copying the data into the Java heap, which makes it a
+     * better fit than {@link #readFully()} for large files.  The mapping reflects
+     * the file at the time of the call; do not modify the file while you still
+     * read from the buffer.
+     */
+    @NonNull
+    public MappedByteBuffer mapRead() throws IOException {
+        FileChannel channel = openReadChannel();
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+    }
+
     /**
      * A convenience for {@link #openRead()} that also reads all of the
      * file contents into a byte array which is returned.
@@ -182,31 +320,74 @@ public class AtomicFile {
     public byte[] readFully() throws IOException {
         FileInputStream stream = openRead();
         try {
-            int pos = 0;
-            int avail = stream.available();
-            byte[] data = new byte[avail];
+            // Size the array for the whole file up front, and only grow it if the
+            // file grew while we were reading.
+            FileChannel channel = stream.getChannel();
+            byte[] data = new byte[(int) channel.size()];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
             while (true) {
-                int amt = stream.read(data, pos, data.length-pos);
-                //Log.i("foo", "Read " + amt + " bytes at " + pos
-                //        + " of avail " + data.length);
-                if (amt <= 0) {
-                    //Log.i("foo", "**** FINISHED READING: pos=" + pos
-                    //        + " len=" + data.length);
-                    return data;
+                int amt = channel.read(buffer);
+                if (amt < 0) {
+                    break;
                 }
-                pos += amt;
-                avail = stream.available();
-                if (avail > data.length-pos) {
-                    byte[] newData = new byte[pos+avail];
-                    System.arraycopy(data, 0, newData, 0, pos);
+                if (!buffer.hasRemaining()) {
+                    long size = channel.size();
+                    if (size <= data.length) {
+                        break;
+                    }
+                    byte[] newData = new byte[(int) size];
+                    System.arraycopy(data, 0, newData, 0, data.length);
+                    buffer = ByteBuffer.wrap(newData, data.length, newData.length - data.length);
                     data = newData;
                 }
             }
+            if (buffer.position() < data.length) {
+                // the file shrank while we were reading
+                byte[] newData = new byte[buffer.position()];
+                System.arraycopy(data, 0, newData, 0, newData.length);
+                data = newData;
+            }
+            return data;
         } finally {
             stream.close();
         }
     }
 
+    private static FileOutputStream openOutputStream(@NonNull File file) throws IOException {
+        FileOutputStream str;
+        try {
+            str = new FileOutputStream(file);
+        } catch (FileNotFoundException e) {
+            File parent = file.getParentFile();
+            if (!parent.mkdirs()) {
+                throw new IOException("Couldn't create directory " + file);
+            }
+            try {
+                str = new FileOutputStream(file);
+            } catch (FileNotFoundException e2) {
+                throw new IOException("Couldn't create " + file);
+            }
+        }
+        return str;
+    }
+
+    private static void syncDirectory(@Nullable File dir) {
+        if (dir == null || Build.VERSION.SDK_INT < 21) {
+            return;
+        }
+        try {
+            FileDescriptor fd = Os.open(dir.getPath(), OsConstants.O_RDONLY, 0);
+            try {
+                Os.fsync(fd);
+            } finally {
+                Os.close(fd);
+            }
+        } catch (ErrnoException e) {
+            // Some file systems can't sync directories, the rename is still atomic there.
+            Log.w("AtomicFile", "syncDirectory: Got exception:", e);
+        }
+    }
+
     private static boolean sync(@NonNull FileOutputStream stream) {
         try {
             stream.getFD().sync();
@@ -215,4 +396,19 @@ public class AtomicFile {
         }
         return false;
     }
+
+    /**
+     * Writes the new contents of an {@link AtomicFile}.
+     *
+     * @see #write(StreamWriter, int)
+     */
+    public interface StreamWriter {
+        /**
+         * Writes the new data to the given stream.  Do not close the stream.
+         *
+         * @param out The stream to write to.
+         * @throws IOException If writing failed, in which case the write is rolled back.
+         */
+        void writeTo(@NonNull OutputStream out) throws IOException;
+    }
 }
@@ -21,6 +21,10 @@ package androidx.core.util;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * Helper class for creating pools of objects. An example use looks like this:
  * <pre>
@@ -42,7 +46,9 @@ import androidx.annotation.Nullable;
  *     . . .
  * }
  * </pre>
- *
+ * <p>
+ * Pools which are used from many threads at once should use a {@link ConcurrentPool} instead of a
+ * {@link SynchronizedPool}, so that the threads don't have to wait for each other.
  */
 public final class Pools {
 
@@ -167,4 +173,211 @@ public final class Pools {
             }
         }
     }
+
+    /**
+     * Lock-free pool of objects, for pools which are acquired from and released to by many threads
+     * at once.
+     * <p>
+     * Instead of a single stack guarded by a lock, pooled instances sit in an array of slots, and
+     * each thread starts looking for an instance (or a free slot) at a different position, so that
+     * threads rarely compete for the same slot. Like the other pools, it does not guarantee
+     * which instance is returned by {@link #acquire()}.
+     * <p>
+     * The pool can hold at most its soft capacity, which starts out at the max pool size and can
+     * be lowered later, e.g. to let go of instances when the app is trimming memory. Optionally,
+     * the pool can also count how often it could and couldn't serve a request.
+     *
+     * @param <T> The pooled type.
+     */
+    public static class ConcurrentPool<T> implements Pool<T> {
+        private final AtomicReferenceArray<T> mSlots;
+        // Number of instances in, or about to be put in, the slots. Never smaller than the number
+        // of occupied slots, which lets release() reserve a slot before looking for it.
+        private final AtomicInteger mPoolSize = new AtomicInteger();
+        private volatile int mSoftCapacity;
+
+        private final boolean mRecordStats;
+        private final AtomicLong mHitCount = new AtomicLong();
+        private final AtomicLong mMissCount = new AtomicLong();
+        private final AtomicLong mDropCount = new AtomicLong();
+
+        /**
+         * Creates a new instance which doesn't record stats.
+         *
+         * @param maxPoolSize The max pool size.
+         *
+         * @throws IllegalArgumentException If the max pool size is less than zero.
+         */
+        public ConcurrentPool(int maxPoolSize) {
+            this(maxPoolSize, false);
+        }
+
+        /**
+         * Creates a new instance.
+         *
+         * @param maxPoolSize The max pool size.
+         * @param recordStats Whether to count hits, misses and drops. Counting costs a shared
+         *                    write on every call, so it is best left off in production.
+         *
+         * @throws IllegalArgumentException If the max pool size is less than zero.
+         */
+        public ConcurrentPool(int maxPoolSize, boolean recordStats) {
+            if (maxPoolSize <= 0) {
+                throw new IllegalArgumentException("The max pool size must be > 0");
+            }
+            mSlots = new AtomicReferenceArray<>(maxPoolSize);
+            mSoftCapacity = maxPoolSize;
+            mRecordStats = recordStats;
+        }
+
+        @Override
+        @Nullable
+        public T acquire() {
+            if (mPoolSize.get() > 0) {
+                final int length = mSlots.length();
+                final int start = startIndex(length);
+                for (int i = 0; i < length; i++) {
+                    final int index = (start + i) % length;
+                    if (mSlots.get(index) == null) {
+                        continue;
+                    }
+                    T instance = mSlots.getAndSet(index, null);
+                    if (instance != null) {
+                        mPoolSize.decrementAndGet();
+                        if (mRecordStats) {
+                            mHitCount.incrementAndGet();
+                        }
+                        return instance;
+                    }
+                }
+            }
+            // Either empty, or other threads took the remaining instances while we were looking.
+            if (mRecordStats) {
+                mMissCount.incrementAndGet();
+            }
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The check for an instance which is already in the pool is best effort, it may miss an
+         * instance which another thread is acquiring or releasing at the same time.
+         */
+        @Override
+        public boolean release(@NonNull T instance) {
+            if (isInPool(instance)) {
+                throw new IllegalStateException("Already in the pool!");
+            }
+            if (!reserveSlot()) {
+                if (mRecordStats) {
+                    mDropCount.incrementAndGet();
+                }
+                return false;
+            }
+            // The reservation guarantees that a slot is free, but other threads may keep moving it
+            // while we look, so keep going round until we get one.
+            final int length = mSlots.length();
+            int index = startIndex(length);
+            while (true) {
+                if (mSlots.get(index) == null && mSlots.compareAndSet(index, null, instance)) {
+                    return true;
+                }
+                index = (index + 1) % length;
+            }
+        }
+
+        private boolean reserveSlot() {
+            while (true) {
+                int size = mPoolSize.get();
+                if (size >= mSoftCapacity) {
+                    return false;
+                }
+                if (mPoolSize.compareAndSet(size, size + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean isInPool(@NonNull T instance) {
+            for (int i = 0; i < mSlots.length(); i++) {
+                if (mSlots.get(i) == instance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Spreads threads over the slots, so that each thread mostly works on its own stretch of
+         * the pool.
+         */
+        private static int startIndex(int length) {
+            int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+            return (hash >>> 1) % length;
+        }
+
+        /**
+         * Sets how many instances the pool may hold at most. Instances above the new capacity
+         * are dropped from the pool right away.
+         *
+         * @param softCapacity The new capacity, between zero and the max pool size.
+         *
+         * @throws IllegalArgumentException If the capacity is negative or larger than the max
+         *                                  pool size.
+         */
+        public void setSoftCapacity(int softCapacity) {
+            if (softCapacity < 0 || softCapacity > mSlots.length()) {
+                throw new IllegalArgumentException("The soft capacity must be between 0 and "
+                        + mSlots.length());
+            }
+            mSoftCapacity = softCapacity;
+            for (int i = 0; i < mSlots.length() && mPoolSize.get() > softCapacity; i++) {
+                if (mSlots.get(i) != null && mSlots.getAndSet(i, null) != null) {
+                    mPoolSize.decrementAndGet();
+                    if (mRecordStats) {
+                        mDropCount.incrementAndGet();
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return The number of instances the pool may hold at most.
+         */
+        public int getSoftCapacity() {
+            return mSoftCapacity;
+        }
+
+        /**
+         * @return The number of instances currently in the pool.
+         */
+        public int getPoolSize() {
+            return mPoolSize.get();
+        }
+
+        /**
+         * @return The number of times {@link #acquire()} returned an instance, or 0 if the pool
+         * doesn't record stats.
+         */
+        public long getHitCount() {
+            return mHitCount.get();
+        }
+
+        /**
+         * @return The number of times {@link #acquire()} returned null, or 0 if the pool doesn't
+         * record stats.
+         */
+        public long getMissCount() {
+            return mMissCount.get();
+        }
+
+        /**
+         * @return The number of instances which were not kept because the pool was at capacity,
+         * or 0 if the pool doesn't record stats.
+         */
+        public long getDropCount() {
+            return mDropCount.get();
+        }
+    }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.documentfile.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.annotation.NonNull;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class DocumentTreeWalkerTest {
+    private static final int DIRECTORY_COUNT = 4;
+    private static final int FILE_COUNT = 3;
+
+    private File mRootFile;
+    private DocumentFile mRoot;
+    private ExecutorService mExecutor;
+    // The paths of the visited documents relative to the root, directories ending with a slash
+    private final List<String> mVisited = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() throws IOException {
+        mRootFile = new File(InstrumentationRegistry.getTargetContext().getCacheDir(),
+                "DocumentTreeWalkerTest");
+        deleteRecursively(mRootFile);
+        // root/d0/f0 ... root/d3/d3/f2
+        for (int i = 0; i < DIRECTORY_COUNT; i++) {
+            File directory = new File(mRootFile, "d" + i);
+            File nested = new File(directory, "d" + i);
+            assertTrue(nested.mkdirs());
+            for (int j = 0; j < FILE_COUNT; j++) {
+                assertTrue(new File(directory, "f" + j).createNewFile());
+                assertTrue(new File(nested, "f" + j).createNewFile());
+            }
+        }
+        mRoot = DocumentFile.fromFile(mRootFile);
+        mExecutor = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+        deleteRecursively(mRootFile);
+    }
+
+    @Test
+    public void walk_visitsAllDocuments() {
+        new DocumentTreeWalker(mExecutor, 4).walk(mRoot, new RecordingVisitor());
+        assertEquals(expectedPaths(true), sortedVisited());
+    }
+
+    @Test
+    public void walk_onCallingThreadOnly() {
+        new DocumentTreeWalker(mExecutor, 1).walk(mRoot, new RecordingVisitor());
+        assertEquals(expectedPaths(true), sortedVisited());
+    }
+
+    @Test
+    public void walk_withBusyExecutor() {
+        // the executor never runs the walk, so the calling thread lists every directory
+        new DocumentTreeWalker(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+            }
+        }, 4).walk(mRoot, new RecordingVisitor());
+        assertEquals(expectedPaths(true), sortedVisited());
+    }
+
+    @Test
+    public void walk_withRejectingExecutor() {
+        new DocumentTreeWalker(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }, 4).walk(mRoot, new RecordingVisitor());
+        assertEquals(expectedPaths(true), sortedVisited());
+    }
+
+    @Test
+    public void walk_skipsDirectoriesNotToVisit() {
+        new DocumentTreeWalker(mExecutor, 4).walk(mRoot, new RecordingVisitor() {
+            @Override
+            public boolean visit(@NonNull DocumentFile document) {
+                super.visit(document);
+                // visit the first level only
+                return document.getParentFile() == mRoot;
+            }
+        });
+        assertEquals(expectedPaths(false), sortedVisited());
+    }
+
+    @Test
+    public void walk_rethrowsVisitorException() {
+        final RuntimeException failure = new IllegalStateException();
+        try {
+            new DocumentTreeWalker(mExecutor, 4).walk(mRoot, new RecordingVisitor() {
+                @Override
+                public boolean visit(@NonNull DocumentFile document) {
+                    super.visit(document);
+                    if (document.isFile()) {
+                        throw failure;
+                    }
+                    return true;
+                }
+            });
+            fail("The visitor exception was not thrown");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        // the directories listed by the failed listings are not walked
+        assertTrue(mVisited.size() < expectedPaths(true).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroParallelism() {
+        new DocumentTreeWalker(mExecutor, 0);
+    }
+
+    private List<String> expectedPaths(boolean nested) {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < DIRECTORY_COUNT; i++) {
+            String directory = "d" + i + "/";
+            paths.add(directory);
+            paths.add(directory + directory);
+            for (int j = 0; j < FILE_COUNT; j++) {
+                paths.add(directory + "f" + j);
+                if (nested) {
+                    paths.add(directory + directory + "f" + j);
+                }
+            }
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private List<String> sortedVisited() {
+        List<String> visited = new ArrayList<>(mVisited);
+        Collections.sort(visited);
+        return visited;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private class RecordingVisitor implements DocumentTreeWalker.Visitor {
+        @Override
+        public boolean visit(@NonNull DocumentFile document) {
+            String path = document.getName() + (document.isDirectory() ? "/" : "");
+            for (DocumentFile parent = document.getParentFile(); parent != mRoot;
+                    parent = parent.getParentFile()) {
+                path = parent.getName() + "/" + path;
+            }
+            mVisited.add(path);
+            return true;
+        }
+    }
+}
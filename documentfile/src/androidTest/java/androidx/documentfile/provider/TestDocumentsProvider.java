@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.documentfile.provider;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.os.CancellationSignal;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract.Document;
+import android.provider.DocumentsContract.Root;
+import android.provider.DocumentsProvider;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.io.FileNotFoundException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-memory documents provider, which counts the queries of single documents.
+ * <p>
+ * Its documents are:
+ * <pre>
+ * root/
+ *     a.txt
+ *     dir/
+ *         b.txt
+ * </pre>
+ */
+@RequiresApi(19)
+public final class TestDocumentsProvider extends DocumentsProvider {
+    static final String AUTHORITY = "androidx.documentfile.test.documents";
+    static final String ROOT_ID = "root";
+    static final String FILE_ID = "a.txt";
+    static final String DIRECTORY_ID = "dir";
+    static final String NESTED_FILE_ID = "dir/b.txt";
+    static final long LAST_MODIFIED = 1000;
+
+    private static final String[] DEFAULT_ROOT_PROJECTION = new String[] {
+            Root.COLUMN_ROOT_ID, Root.COLUMN_DOCUMENT_ID, Root.COLUMN_TITLE, Root.COLUMN_FLAGS };
+    private static final String[] DEFAULT_DOCUMENT_PROJECTION = new String[] {
+            Document.COLUMN_DOCUMENT_ID, Document.COLUMN_DISPLAY_NAME, Document.COLUMN_MIME_TYPE,
+            Document.COLUMN_LAST_MODIFIED, Document.COLUMN_SIZE, Document.COLUMN_FLAGS };
+
+    // The documents by ID, guarded by the class
+    private static final LinkedHashMap<String, TestDocument> sDocuments = new LinkedHashMap<>();
+    private static final AtomicInteger sDocumentQueryCount = new AtomicInteger();
+
+    /**
+     * Restores the initial documents and resets the query count.
+     */
+    static synchronized void reset() {
+        sDocuments.clear();
+        addDocument(ROOT_ID, null, "root", Document.MIME_TYPE_DIR, 0);
+        addDocument(FILE_ID, ROOT_ID, "a.txt", "text/plain", 3);
+        addDocument(DIRECTORY_ID, ROOT_ID, "dir", Document.MIME_TYPE_DIR, 0);
+        addDocument(NESTED_FILE_ID, DIRECTORY_ID, "b.txt", "text/plain", 5);
+        sDocumentQueryCount.set(0);
+    }
+
+    /**
+     * Changes the display name of a document, without notifying anyone.
+     */
+    static synchronized void setDisplayName(String documentId, String displayName) {
+        sDocuments.get(documentId).mDisplayName = displayName;
+    }
+
+    /**
+     * Returns the number of calls to {@link #queryDocument(String, String[])} since the last
+     * {@link #reset()}.
+     */
+    static int getDocumentQueryCount() {
+        return sDocumentQueryCount.get();
+    }
+
+    private static void addDocument(String documentId, @Nullable String parentId,
+            String displayName, String mimeType, long size) {
+        sDocuments.put(documentId, new TestDocument(parentId, displayName, mimeType, size));
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Override
+    public Cursor queryRoots(String[] projection) {
+        final MatrixCursor result = new MatrixCursor(
+                projection != null ? projection : DEFAULT_ROOT_PROJECTION);
+        result.newRow()
+                .add(Root.COLUMN_ROOT_ID, ROOT_ID)
+                .add(Root.COLUMN_DOCUMENT_ID, ROOT_ID)
+                .add(Root.COLUMN_TITLE, "root")
+                .add(Root.COLUMN_FLAGS, 0);
+        return result;
+    }
+
+    @Override
+    public Cursor queryDocument(String documentId, String[] projection)
+            throws FileNotFoundException {
+        sDocumentQueryCount.incrementAndGet();
+        final MatrixCursor result = new MatrixCursor(
+                projection != null ? projection : DEFAULT_DOCUMENT_PROJECTION);
+        synchronized (TestDocumentsProvider.class) {
+            final TestDocument document = sDocuments.get(documentId);
+            if (document == null) {
+                throw new FileNotFoundException(documentId);
+            }
+            addRow(result, documentId, document);
+        }
+        return result;
+    }
+
+    @Override
+    public Cursor queryChildDocuments(String parentDocumentId, String[] projection,
+            String sortOrder) {
+        final MatrixCursor result = new MatrixCursor(
+                projection != null ? projection : DEFAULT_DOCUMENT_PROJECTION);
+        synchronized (TestDocumentsProvider.class) {
+            for (Map.Entry<String, TestDocument> entry : sDocuments.entrySet()) {
+                if (parentDocumentId.equals(entry.getValue().mParentId)) {
+                    addRow(result, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isChildDocument(String parentDocumentId, String documentId) {
+        synchronized (TestDocumentsProvider.class) {
+            TestDocument document = sDocuments.get(documentId);
+            while (document != null && document.mParentId != null) {
+                if (document.mParentId.equals(parentDocumentId)) {
+                    return true;
+                }
+                document = sDocuments.get(document.mParentId);
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public ParcelFileDescriptor openDocument(String documentId, String mode,
+            CancellationSignal signal) throws FileNotFoundException {
+        throw new FileNotFoundException("The test documents have no content");
+    }
+
+    private static void addRow(MatrixCursor cursor, String documentId, TestDocument document) {
+        cursor.newRow()
+                .add(Document.COLUMN_DOCUMENT_ID, documentId)
+                .add(Document.COLUMN_DISPLAY_NAME, document.mDisplayName)
+                .add(Document.COLUMN_MIME_TYPE, document.mMimeType)
+                .add(Document.COLUMN_LAST_MODIFIED, LAST_MODIFIED)
+                .add(Document.COLUMN_SIZE, document.mSize)
+                .add(Document.COLUMN_FLAGS, 0);
+    }
+
+    private static class TestDocument {
+        @Nullable
+        final String mParentId;
+        String mDisplayName;
+        final String mMimeType;
+        final long mSize;
+
+        TestDocument(@Nullable String parentId, String displayName, String mimeType, long size) {
+            mParentId = parentId;
+            mDisplayName = displayName;
+            mMimeType = mimeType;
+            mSize = size;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.documentfile.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.provider.DocumentsContract;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@SmallTest
+@SdkSuppress(minSdkVersion = 21)
+@RunWith(AndroidJUnit4.class)
+public class TreeDocumentFileTest {
+    private DocumentFile mRoot;
+
+    @Before
+    public void setUp() {
+        TestDocumentsProvider.reset();
+        mRoot = DocumentFile.fromTreeUri(InstrumentationRegistry.getContext(),
+                DocumentsContract.buildTreeDocumentUri(TestDocumentsProvider.AUTHORITY,
+                        TestDocumentsProvider.ROOT_ID));
+    }
+
+    @Test
+    public void listFilesWithMetadata_keepsMetadata() {
+        DocumentFile[] files = mRoot.listFilesWithMetadata();
+        assertEquals(2, files.length);
+
+        DocumentFile file = files[0];
+        assertEquals("a.txt", file.getName());
+        assertEquals("text/plain", file.getType());
+        assertTrue(file.isFile());
+        assertFalse(file.isDirectory());
+        assertFalse(file.isVirtual());
+        assertEquals(3, file.length());
+        assertEquals(TestDocumentsProvider.LAST_MODIFIED, file.lastModified());
+
+        DocumentFile directory = files[1];
+        assertEquals("dir", directory.getName());
+        assertTrue(directory.isDirectory());
+        assertFalse(directory.isFile());
+        assertEquals(mRoot, directory.getParentFile());
+
+        assertEquals(0, TestDocumentsProvider.getDocumentQueryCount());
+    }
+
+    @Test
+    public void listFilesWithMetadata_sameDocumentsAsListFiles() {
+        DocumentFile[] files = mRoot.listFiles();
+        DocumentFile[] filesWithMetadata = mRoot.listFilesWithMetadata();
+        assertEquals(files.length, filesWithMetadata.length);
+        for (int i = 0; i < files.length; i++) {
+            assertEquals(files[i].getUri(), filesWithMetadata[i].getUri());
+            assertEquals(files[i].getName(), filesWithMetadata[i].getName());
+            assertEquals(files[i].getType(), filesWithMetadata[i].getType());
+            assertEquals(files[i].length(), filesWithMetadata[i].length());
+        }
+    }
+
+    @Test
+    public void listFiles_queriesMetadata() {
+        DocumentFile file = mRoot.listFiles()[0];
+        assertEquals("a.txt", file.getName());
+        assertEquals(1, TestDocumentsProvider.getDocumentQueryCount());
+
+        TestDocumentsProvider.setDisplayName(TestDocumentsProvider.FILE_ID, "c.txt");
+        assertEquals("c.txt", file.getName());
+    }
+
+    @Test
+    public void refresh() {
+        DocumentFile file = mRoot.listFilesWithMetadata()[0];
+        TestDocumentsProvider.setDisplayName(TestDocumentsProvider.FILE_ID, "c.txt");
+        // the name kept by the listing
+        assertEquals("a.txt", file.getName());
+
+        file.refresh();
+        assertEquals(1, TestDocumentsProvider.getDocumentQueryCount());
+        assertEquals("c.txt", file.getName());
+        assertEquals(3, file.length());
+        assertEquals(1, TestDocumentsProvider.getDocumentQueryCount());
+    }
+
+    @Test
+    public void refresh_ignoredByListedFile() {
+        DocumentFile file = mRoot.listFiles()[0];
+        file.refresh();
+        assertEquals(0, TestDocumentsProvider.getDocumentQueryCount());
+
+        // still queries each value when needed
+        TestDocumentsProvider.setDisplayName(TestDocumentsProvider.FILE_ID, "c.txt");
+        assertEquals("c.txt", file.getName());
+        assertEquals(1, TestDocumentsProvider.getDocumentQueryCount());
+    }
+
+    @Test
+    public void walk_readsListedMetadata() {
+        final List<String> names = Collections.synchronizedList(new ArrayList<String>());
+        new DocumentTreeWalker(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                new Thread(command).start();
+            }
+        }, 2).walk(mRoot, new DocumentTreeWalker.Visitor() {
+            @Override
+            public boolean visit(DocumentFile document) {
+                names.add(document.getName() + (document.isDirectory() ? "/" : ""));
+                return true;
+            }
+        });
+
+        Collections.sort(names);
+        assertEquals(Arrays.asList("a.txt", "b.txt", "dir/"), names);
+        assertEquals(0, TestDocumentsProvider.getDocumentQueryCount());
+    }
+}
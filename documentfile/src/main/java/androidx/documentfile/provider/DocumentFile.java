@@ -325,6 +325,40 @@ public abstract class DocumentFile {
     @NonNull
     public abstract DocumentFile[] listFiles();
 
+    /**
+     * Returns an array of files contained in the directory represented by this
+     * file, like {@link #listFiles()}, along with their metadata.
+     * <p>
+     * For documents backed by a {@link android.provider.DocumentsProvider},
+     * the display name, MIME type, size, last modified time and flags of all
+     * the children are fetched by the same query that lists them, and are kept
+     * by the returned files. Their {@link #getName()}, {@link #getType()},
+     * {@link #isDirectory()}, {@link #isFile()}, {@link #isVirtual()},
+     * {@link #lastModified()}, {@link #length()}, {@link #canRead()} and
+     * {@link #canWrite()} then return those values without querying the
+     * provider again, until {@link #refresh()} is called.
+     *
+     * @return an array of files.
+     * @throws UnsupportedOperationException when working with a single document
+     *             created from {@link #fromSingleUri(Context, Uri)}.
+     * @see #refresh()
+     */
+    @NonNull
+    public DocumentFile[] listFilesWithMetadata() {
+        return listFiles();
+    }
+
+    /**
+     * Fetches the metadata of this file again, replacing the values kept since
+     * it was returned by {@link #listFilesWithMetadata()} or since the last
+     * refresh. Files whose metadata is always read from the underlying storage
+     * ignore this call.
+     *
+     * @see #listFilesWithMetadata()
+     */
+    public void refresh() {
+    }
+
     /**
      * Search through {@link #listFiles()} for the first document matching the
      * given display name. Returns {@code null} when no matching document is
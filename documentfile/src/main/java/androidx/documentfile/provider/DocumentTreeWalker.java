@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.documentfile.provider;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Visits all the documents below a directory, listing up to a given number of directories at the
+ * same time.
+ * <p>
+ * Directories are listed with {@link DocumentFile#listFilesWithMetadata()}, so reading the name,
+ * type, size or last modified time of the visited documents doesn't query their provider again.
+ * <pre>
+ * DocumentTreeWalker walker = new DocumentTreeWalker(executor, 4);
+ * walker.walk(DocumentFile.fromTreeUri(context, treeUri), new DocumentTreeWalker.Visitor() {
+ *     public boolean visit(DocumentFile document) {
+ *         ...
+ *         return true;
+ *     }
+ * });
+ * </pre>
+ */
+public final class DocumentTreeWalker {
+
+    /**
+     * Receives the documents found by a {@link DocumentTreeWalker}.
+     */
+    public interface Visitor {
+        /**
+         * Called for each document below the directory being walked. This is called on the thread
+         * calling {@link #walk(DocumentFile, Visitor)} and on threads of the executor, possibly
+         * on several threads at the same time.
+         *
+         * @param document the document found, with its metadata.
+         * @return whether to visit the documents inside {@code document} if it is a directory.
+         */
+        boolean visit(@NonNull DocumentFile document);
+    }
+
+    private final Executor mExecutor;
+    private final int mParallelism;
+
+    /**
+     * Creates a walker which lists directories on up to {@code parallelism} threads at a time:
+     * the thread calling {@link #walk(DocumentFile, Visitor)} and threads of the given executor.
+     *
+     * @param executor the executor that runs the additional threads.
+     * @param parallelism the maximum number of directories listed at the same time.
+     */
+    public DocumentTreeWalker(@NonNull Executor executor, @IntRange(from = 1) int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        mExecutor = executor;
+        mParallelism = parallelism;
+    }
+
+    /**
+     * Visits all the documents below the given directory, and returns once they have all been
+     * visited. The directory itself isn't visited.
+     * <p>
+     * If the visitor throws an exception, no more directories are listed and this method throws
+     * that exception once the directories being listed have been visited.
+     *
+     * @param directory the directory to walk.
+     * @param visitor the visitor called for each document.
+     * @throws UnsupportedOperationException when working with a single document created from
+     *             {@link DocumentFile#fromSingleUri(android.content.Context, android.net.Uri)}.
+     */
+    public void walk(@NonNull DocumentFile directory, @NonNull Visitor visitor) {
+        final Walk walk = new Walk(directory, visitor);
+        // The calling thread returns from the walk once no directory is left or being listed
+        ParallelWorkers.runWorkers(mExecutor, mParallelism, walk);
+
+        final RuntimeException failure = walk.getFailure();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static final class Walk implements Runnable {
+        private final Visitor mVisitor;
+        // Directories left to list, guarded by this.
+        private final ArrayDeque<DocumentFile> mDirectories = new ArrayDeque<>();
+        // The number of directories being listed, whose subdirectories may still be added.
+        private int mListing;
+        @Nullable
+        private RuntimeException mFailure;
+
+        Walk(DocumentFile directory, Visitor visitor) {
+            mVisitor = visitor;
+            mDirectories.add(directory);
+        }
+
+        @Override
+        public void run() {
+            boolean interrupted = false;
+            final ArrayList<DocumentFile> subdirectories = new ArrayList<>();
+            while (true) {
+                final DocumentFile directory;
+                synchronized (this) {
+                    while (mDirectories.isEmpty() && mListing > 0) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    directory = mDirectories.poll();
+                    if (directory == null) {
+                        break;
+                    }
+                    mListing++;
+                }
+
+                RuntimeException failure = null;
+                try {
+                    for (DocumentFile document : directory.listFilesWithMetadata()) {
+                        if (mVisitor.visit(document) && document.isDirectory()) {
+                            subdirectories.add(document);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    failure = e;
+                } finally {
+                    synchronized (this) {
+                        if (failure != null && mFailure == null) {
+                            mFailure = failure;
+                        }
+                        if (mFailure != null) {
+                            mDirectories.clear();
+                        } else {
+                            mDirectories.addAll(subdirectories);
+                        }
+                        mListing--;
+                        notifyAll();
+                    }
+                    subdirectories.clear();
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Nullable
+        synchronized RuntimeException getFailure() {
+            return mFailure;
+        }
+    }
+}
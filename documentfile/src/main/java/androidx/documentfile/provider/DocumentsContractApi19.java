@@ -41,7 +41,11 @@ class DocumentsContractApi19 {
             return false;
         }
 
-        return (getFlags(context, self) & FLAG_VIRTUAL_DOCUMENT) != 0;
+        return isVirtual(getFlags(context, self));
+    }
+
+    static boolean isVirtual(long flags) {
+        return (flags & FLAG_VIRTUAL_DOCUMENT) != 0;
     }
 
     @Nullable
@@ -56,7 +60,11 @@ class DocumentsContractApi19 {
 
     @Nullable
     public static String getType(Context context, Uri self) {
-        final String rawType = getRawType(context, self);
+        return getType(getRawType(context, self));
+    }
+
+    @Nullable
+    static String getType(@Nullable String rawType) {
         if (DocumentsContract.Document.MIME_TYPE_DIR.equals(rawType)) {
             return null;
         } else {
@@ -69,11 +77,18 @@ class DocumentsContractApi19 {
     }
 
     public static boolean isDirectory(Context context, Uri self) {
-        return DocumentsContract.Document.MIME_TYPE_DIR.equals(getRawType(context, self));
+        return isDirectory(getRawType(context, self));
+    }
+
+    static boolean isDirectory(@Nullable String rawType) {
+        return DocumentsContract.Document.MIME_TYPE_DIR.equals(rawType);
     }
 
     public static boolean isFile(Context context, Uri self) {
-        final String type = getRawType(context, self);
+        return isFile(getRawType(context, self));
+    }
+
+    static boolean isFile(@Nullable String type) {
         if (DocumentsContract.Document.MIME_TYPE_DIR.equals(type) || TextUtils.isEmpty(type)) {
             return false;
         } else {
@@ -91,8 +106,7 @@ class DocumentsContractApi19 {
 
     public static boolean canRead(Context context, Uri self) {
         // Ignore if grant doesn't allow read
-        if (context.checkCallingOrSelfUriPermission(self, Intent.FLAG_GRANT_READ_URI_PERMISSION)
-                != PackageManager.PERMISSION_GRANTED) {
+        if (!canReadUri(context, self)) {
             return false;
         }
 
@@ -104,16 +118,28 @@ class DocumentsContractApi19 {
         return true;
     }
 
+    static boolean canReadUri(Context context, Uri self) {
+        return context.checkCallingOrSelfUriPermission(self, Intent.FLAG_GRANT_READ_URI_PERMISSION)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
     public static boolean canWrite(Context context, Uri self) {
         // Ignore if grant doesn't allow write
-        if (context.checkCallingOrSelfUriPermission(self, Intent.FLAG_GRANT_WRITE_URI_PERMISSION)
-                != PackageManager.PERMISSION_GRANTED) {
+        if (!canWriteUri(context, self)) {
             return false;
         }
 
         final String type = getRawType(context, self);
         final int flags = queryForInt(context, self, DocumentsContract.Document.COLUMN_FLAGS, 0);
+        return isWritable(type, flags);
+    }
+
+    static boolean canWriteUri(Context context, Uri self) {
+        return context.checkCallingOrSelfUriPermission(self, Intent.FLAG_GRANT_WRITE_URI_PERMISSION)
+                == PackageManager.PERMISSION_GRANTED;
+    }
 
+    static boolean isWritable(@Nullable String type, long flags) {
         // Ignore documents without MIME
         if (TextUtils.isEmpty(type)) {
             return false;
@@ -153,6 +179,30 @@ class DocumentsContractApi19 {
         }
     }
 
+    /**
+     * Queries all the metadata kept by {@link Metadata} in a single query, or returns null if the
+     * query fails.
+     */
+    @Nullable
+    static Metadata queryMetadata(Context context, Uri self) {
+        final ContentResolver resolver = context.getContentResolver();
+
+        Cursor c = null;
+        try {
+            c = resolver.query(self, Metadata.COLUMNS, null, null, null);
+            if (c.moveToFirst()) {
+                return Metadata.fromCursor(c);
+            } else {
+                return null;
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Failed query: " + e);
+            return null;
+        } finally {
+            closeQuietly(c);
+        }
+    }
+
     @Nullable
     private static String queryForString(Context context, Uri self, String column,
             @Nullable String defaultValue) {
@@ -212,4 +262,58 @@ class DocumentsContractApi19 {
 
     private DocumentsContractApi19() {
     }
+
+    /**
+     * The metadata of a document, read in the same query as its ID. Missing values are read as
+     * the same defaults as when they are queried one at a time.
+     */
+    static final class Metadata {
+        static final String[] COLUMNS = new String[] {
+                DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+                DocumentsContract.Document.COLUMN_DISPLAY_NAME,
+                DocumentsContract.Document.COLUMN_MIME_TYPE,
+                DocumentsContract.Document.COLUMN_LAST_MODIFIED,
+                DocumentsContract.Document.COLUMN_SIZE,
+                DocumentsContract.Document.COLUMN_FLAGS };
+
+        @Nullable
+        final String mName;
+        @Nullable
+        final String mRawType;
+        final long mLastModified;
+        final long mLength;
+        final long mFlags;
+
+        private Metadata(@Nullable String name, @Nullable String rawType, long lastModified,
+                long length, long flags) {
+            mName = name;
+            mRawType = rawType;
+            mLastModified = lastModified;
+            mLength = length;
+            mFlags = flags;
+        }
+
+        /**
+         * Reads the metadata from the current row of a cursor queried with {@link #COLUMNS}.
+         */
+        static Metadata fromCursor(Cursor c) {
+            return new Metadata(
+                    getString(c, DocumentsContract.Document.COLUMN_DISPLAY_NAME),
+                    getString(c, DocumentsContract.Document.COLUMN_MIME_TYPE),
+                    getLong(c, DocumentsContract.Document.COLUMN_LAST_MODIFIED),
+                    getLong(c, DocumentsContract.Document.COLUMN_SIZE),
+                    getLong(c, DocumentsContract.Document.COLUMN_FLAGS));
+        }
+
+        @Nullable
+        private static String getString(Cursor c, String column) {
+            final int index = c.getColumnIndex(column);
+            return index >= 0 && !c.isNull(index) ? c.getString(index) : null;
+        }
+
+        private static long getLong(Cursor c, String column) {
+            final int index = c.getColumnIndex(column);
+            return index >= 0 && !c.isNull(index) ? c.getLong(index) : 0;
+        }
+    }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.documentfile.provider;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs work on the calling thread and on threads of an executor.
+ * <p>
+ * The calling thread takes part in the work, so the work not claimed by the executor's threads,
+ * e.g. while the executor is busy or if it runs its tasks on the calling thread, is done on the
+ * calling thread and never waited for. Work rejected by the executor is done on the calling thread
+ * too.
+ */
+final class ParallelWorkers {
+
+    /**
+     * Runs {@code worker} on the calling thread and on {@code parallelism - 1} threads of the
+     * executor. The worker claims the work left each time it runs, and returns once none is left.
+     */
+    static void runWorkers(@NonNull Executor executor, int parallelism, @NonNull Runnable worker) {
+        for (int i = 1; i < parallelism; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // The calling thread claims the work the rejected workers would have done
+                break;
+            }
+        }
+        worker.run();
+    }
+
+    private ParallelWorkers() {
+    }
+}
@@ -21,10 +21,12 @@ import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
 import android.provider.DocumentsContract;
+import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
+import androidx.documentfile.provider.DocumentsContractApi19.Metadata;
 
 import java.util.ArrayList;
 
@@ -32,11 +34,20 @@ import java.util.ArrayList;
 class TreeDocumentFile extends DocumentFile {
     private Context mContext;
     private Uri mUri;
+    // Metadata kept since the last listing or refresh, or null to query each value when needed.
+    @Nullable
+    private volatile Metadata mMetadata;
 
     TreeDocumentFile(@Nullable DocumentFile parent, Context context, Uri uri) {
+        this(parent, context, uri, null);
+    }
+
+    TreeDocumentFile(@Nullable DocumentFile parent, Context context, Uri uri,
+            @Nullable Metadata metadata) {
         super(parent);
         mContext = context;
         mUri = uri;
+        mMetadata = metadata;
     }
 
     @Override
@@ -73,54 +84,98 @@ class TreeDocumentFile extends DocumentFile {
     @Override
     @Nullable
     public String getName() {
+        final Metadata metadata = mMetadata;
+        if (metadata != null) {
+            return metadata.mName;
+        }
         return DocumentsContractApi19.getName(mContext, mUri);
     }
 
     @Override
     @Nullable
     public String getType() {
+        final Metadata metadata = mMetadata;
+        if (metadata != null) {
+            return DocumentsContractApi19.getType(metadata.mRawType);
+        }
         return DocumentsContractApi19.getType(mContext, mUri);
     }
 
     @Override
     public boolean isDirectory() {
+        final Metadata metadata = mMetadata;
+        if (metadata != null) {
+            return DocumentsContractApi19.isDirectory(metadata.mRawType);
+        }
         return DocumentsContractApi19.isDirectory(mContext, mUri);
     }
 
     @Override
     public boolean isFile() {
+        final Metadata metadata = mMetadata;
+        if (metadata != null) {
+            return DocumentsContractApi19.isFile(metadata.mRawType);
+        }
         return DocumentsContractApi19.isFile(mContext, mUri);
     }
 
     @Override
     public boolean isVirtual() {
+        final Metadata metadata = mMetadata;
+        if (metadata != null) {
+            return DocumentsContract.isDocumentUri(mContext, mUri)
+                    && DocumentsContractApi19.isVirtual(metadata.mFlags);
+        }
         return DocumentsContractApi19.isVirtual(mContext, mUri);
     }
 
     @Override
     public long lastModified() {
+        final Metadata metadata = mMetadata;
+        if (metadata != null) {
+            return metadata.mLastModified;
+        }
         return DocumentsContractApi19.lastModified(mContext, mUri);
     }
 
     @Override
     public long length() {
+        final Metadata metadata = mMetadata;
+        if (metadata != null) {
+            return metadata.mLength;
+        }
         return DocumentsContractApi19.length(mContext, mUri);
     }
 
     @Override
     public boolean canRead() {
+        final Metadata metadata = mMetadata;
+        if (metadata != null) {
+            return DocumentsContractApi19.canReadUri(mContext, mUri)
+                    && !TextUtils.isEmpty(metadata.mRawType);
+        }
         return DocumentsContractApi19.canRead(mContext, mUri);
     }
 
     @Override
     public boolean canWrite() {
+        final Metadata metadata = mMetadata;
+        if (metadata != null) {
+            return DocumentsContractApi19.canWriteUri(mContext, mUri)
+                    && DocumentsContractApi19.isWritable(metadata.mRawType, metadata.mFlags);
+        }
         return DocumentsContractApi19.canWrite(mContext, mUri);
     }
 
     @Override
     public boolean delete() {
         try {
-            return DocumentsContract.deleteDocument(mContext.getContentResolver(), mUri);
+            final boolean deleted =
+                    DocumentsContract.deleteDocument(mContext.getContentResolver(), mUri);
+            if (deleted) {
+                mMetadata = null;
+            }
+            return deleted;
         } catch (Exception e) {
             return false;
         }
@@ -133,20 +188,39 @@ class TreeDocumentFile extends DocumentFile {
 
     @Override
     public DocumentFile[] listFiles() {
+        return listFiles(false);
+    }
+
+    @Override
+    public DocumentFile[] listFilesWithMetadata() {
+        return listFiles(true);
+    }
+
+    @Override
+    public void refresh() {
+        // Files which query each value when needed have nothing to refresh
+        if (mMetadata != null) {
+            mMetadata = DocumentsContractApi19.queryMetadata(mContext, mUri);
+        }
+    }
+
+    private DocumentFile[] listFiles(boolean withMetadata) {
         final ContentResolver resolver = mContext.getContentResolver();
         final Uri childrenUri = DocumentsContract.buildChildDocumentsUriUsingTree(mUri,
                 DocumentsContract.getDocumentId(mUri));
-        final ArrayList<Uri> results = new ArrayList<>();
+        final ArrayList<DocumentFile> results = new ArrayList<>();
 
         Cursor c = null;
         try {
-            c = resolver.query(childrenUri, new String[] {
+            // The document ID is the first of the metadata columns
+            c = resolver.query(childrenUri, withMetadata ? Metadata.COLUMNS : new String[] {
                     DocumentsContract.Document.COLUMN_DOCUMENT_ID }, null, null, null);
             while (c.moveToNext()) {
                 final String documentId = c.getString(0);
                 final Uri documentUri = DocumentsContract.buildDocumentUriUsingTree(mUri,
                         documentId);
-                results.add(documentUri);
+                results.add(new TreeDocumentFile(this, mContext, documentUri,
+                        withMetadata ? Metadata.fromCursor(c) : null));
             }
         } catch (Exception e) {
             Log.w(TAG, "Failed query: " + e);
@@ -154,12 +228,7 @@ class TreeDocumentFile extends DocumentFile {
             closeQuietly(c);
         }
 
-        final Uri[] result = results.toArray(new Uri[results.size()]);
-        final DocumentFile[] resultFiles = new DocumentFile[result.length];
-        for (int i = 0; i < result.length; i++) {
-            resultFiles[i] = new TreeDocumentFile(this, mContext, result[i]);
-        }
-        return resultFiles;
+        return results.toArray(new DocumentFile[results.size()]);
     }
 
     private static void closeQuietly(@Nullable AutoCloseable closeable) {
@@ -180,6 +249,7 @@ class TreeDocumentFile extends DocumentFile {
                     mContext.getContentResolver(), mUri, displayName);
             if (result != null) {
                 mUri = result;
+                mMetadata = null;
                 return true;
             } else {
                 return false;
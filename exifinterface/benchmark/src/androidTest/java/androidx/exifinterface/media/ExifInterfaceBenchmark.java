@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.exifinterface.media;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.exifinterface.benchmark.test.R;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares reading the date and orientation of a corpus of JPEG and RAW files, like a gallery
+ * does to sort and display photos, with {@link ExifInterface} and with {@link ExifTagExtractor},
+ * one file at a time and in parallel.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class ExifInterfaceBenchmark {
+    private static final int[] IMAGE_RESOURCES = new int[] {
+            R.raw.image_exif_byte_order_ii, R.raw.image_exif_byte_order_mm, R.raw.lg_g4_iso_800};
+    private static final String[] IMAGE_EXTENSIONS = new String[] {".jpg", ".jpg", ".dng"};
+    // Copies of each sample, so the corpus doesn't fit in the caches of a single file
+    private static final int COPIES = 20;
+    private static final String[] TAGS = new String[] {
+            ExifInterface.TAG_DATETIME, ExifInterface.TAG_ORIENTATION};
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final List<String> mFiles = new ArrayList<>();
+    private File mDirectory;
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() throws IOException {
+        final Context context = InstrumentationRegistry.getContext();
+        mDirectory = new File(InstrumentationRegistry.getTargetContext().getCacheDir(),
+                "exif_corpus");
+        mDirectory.mkdirs();
+        final byte[] buffer = new byte[8192];
+        for (int copy = 0; copy < COPIES; copy++) {
+            for (int i = 0; i < IMAGE_RESOURCES.length; i++) {
+                final File file = new File(mDirectory, "image_" + copy + "_" + i
+                        + IMAGE_EXTENSIONS[i]);
+                final InputStream in = context.getResources().openRawResource(
+                        IMAGE_RESOURCES[i]);
+                final OutputStream out = new FileOutputStream(file);
+                try {
+                    int count;
+                    while ((count = in.read(buffer)) > 0) {
+                        out.write(buffer, 0, count);
+                    }
+                } finally {
+                    in.close();
+                    out.close();
+                }
+                mFiles.add(file.getAbsolutePath());
+            }
+        }
+        mExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdown();
+        for (String file : mFiles) {
+            new File(file).delete();
+        }
+        mDirectory.delete();
+    }
+
+    @Test
+    public void exifInterface() throws IOException {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (String file : mFiles) {
+                final ExifInterface exifInterface = new ExifInterface(file);
+                for (String tag : TAGS) {
+                    exifInterface.getAttribute(tag);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void extractor() throws IOException {
+        final ExifTagExtractor extractor = new ExifTagExtractor(TAGS);
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (String file : mFiles) {
+                extractor.extract(file);
+            }
+        }
+    }
+
+    @Test
+    public void extractorParallel() {
+        final ExifTagExtractor extractor = new ExifTagExtractor(TAGS);
+        final int parallelism = Runtime.getRuntime().availableProcessors();
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            extractor.extractAll(mFiles, mExecutor, parallelism);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package androidx.exifinterface.media;
 
 import static androidx.test.InstrumentationRegistry.getContext;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -49,9 +50,16 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -557,6 +565,114 @@ public class ExifInterfaceTest {
         assertEquals(currentTimeStamp, exif.getDateTime());
     }
 
+    @Test
+    @SmallTest
+    public void testReadFromMappedFile() throws Exception {
+        for (String fileName : IMAGE_FILENAMES) {
+            final File imageFile = new File(Environment.getExternalStorageDirectory(), fileName);
+            final ExifInterface streamExif;
+            InputStream in = null;
+            try {
+                in = new FileInputStream(imageFile);
+                streamExif = new ExifInterface(in);
+            } finally {
+                closeQuietly(in);
+            }
+            // Files are mapped, streams are read through
+            final ExifInterface fileExif = new ExifInterface(imageFile.getAbsolutePath());
+            final byte[] thumbnail = fileExif.getThumbnailBytes();
+
+            // The values are decoded lazily, but don't depend on the file any more
+            final File copy = new File(imageFile.getPath() + ".copy");
+            OutputStream out = null;
+            try {
+                in = new FileInputStream(imageFile);
+                out = new FileOutputStream(copy);
+                copy(in, out);
+            } finally {
+                closeQuietly(in);
+                closeQuietly(out);
+            }
+            final ExifInterface copyExif = new ExifInterface(copy.getAbsolutePath());
+            new FileOutputStream(copy).close();
+            copy.delete();
+
+            for (Field field : ExifInterface.class.getFields()) {
+                if (!field.getName().startsWith("TAG_") || field.getType() != String.class) {
+                    continue;
+                }
+                final String tag = (String) field.get(null);
+                assertEquals(tag, streamExif.getAttribute(tag), fileExif.getAttribute(tag));
+                assertEquals(tag, streamExif.getAttribute(tag), copyExif.getAttribute(tag));
+                assertEquals(tag, streamExif.getAttributeDouble(tag, -1),
+                        copyExif.getAttributeDouble(tag, -1), DELTA);
+            }
+            assertEquals(streamExif.hasThumbnail(), fileExif.hasThumbnail());
+            if (streamExif.hasThumbnail()) {
+                assertArrayEquals(streamExif.getThumbnailBytes(), thumbnail);
+            }
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testSaveAttributes_inPlace() throws IOException {
+        File imageFile = new File(
+                Environment.getExternalStorageDirectory(), EXIF_BYTE_ORDER_II_JPEG);
+        final long length = imageFile.length();
+        ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
+        final byte[] thumbnail = exif.getThumbnailBytes();
+
+        // Both values fit in the space of the old ones, so the file keeps its layout
+        exif.setAttribute(ExifInterface.TAG_MAKE, "Maker");
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION,
+                Integer.toString(ExifInterface.ORIENTATION_ROTATE_180));
+        exif.saveAttributes();
+        assertEquals(length, imageFile.length());
+        assertArrayEquals(thumbnail, exif.getThumbnailBytes());
+
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        assertEquals("Maker", exif.getAttribute(ExifInterface.TAG_MAKE));
+        assertIntTag(exif, ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_ROTATE_180);
+        assertArrayEquals(thumbnail, exif.getThumbnailBytes());
+
+        // A longer value doesn't fit, so the file is rewritten
+        final String make = "A much longer name of the maker of the camera";
+        exif.setAttribute(ExifInterface.TAG_MAKE, make);
+        exif.saveAttributes();
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        assertEquals(make, exif.getAttribute(ExifInterface.TAG_MAKE));
+        assertIntTag(exif, ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_ROTATE_180);
+        assertArrayEquals(thumbnail, exif.getThumbnailBytes());
+    }
+
+    @Test
+    @SmallTest
+    public void testSaveAttributes_inPlaceAfterRewrite() throws IOException {
+        File imageFile = new File(
+                Environment.getExternalStorageDirectory(), EXIF_BYTE_ORDER_II_JPEG);
+        ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
+        final byte[] thumbnail = exif.getThumbnailBytes();
+
+        // The longer value doesn't fit, so the file is rewritten
+        exif.setAttribute(ExifInterface.TAG_MAKE, "A much longer name of the maker of the camera");
+        exif.saveAttributes();
+        final long length = imageFile.length();
+        assertArrayEquals(thumbnail, exif.getThumbnailBytes());
+
+        // The second save of the same instance writes over the values of the rewritten file
+        exif.setAttribute(ExifInterface.TAG_MAKE, "Maker");
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION,
+                Integer.toString(ExifInterface.ORIENTATION_ROTATE_90));
+        exif.saveAttributes();
+        assertEquals(length, imageFile.length());
+
+        exif = new ExifInterface(imageFile.getAbsolutePath());
+        assertEquals("Maker", exif.getAttribute(ExifInterface.TAG_MAKE));
+        assertIntTag(exif, ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_ROTATE_90);
+        assertArrayEquals(thumbnail, exif.getThumbnailBytes());
+    }
+
     @Test
     @LargeTest
     public void testRotation() throws IOException {
@@ -648,6 +764,120 @@ public class ExifInterfaceTest {
         assertEquals(isoValue, exif.getAttribute(newTag));
     }
 
+    @Test
+    @SmallTest
+    public void testExtractTags() throws IOException {
+        final String[] tags = new String[] {
+                ExifInterface.TAG_ORIENTATION, ExifInterface.TAG_DATETIME,
+                ExifInterface.TAG_IMAGE_WIDTH, ExifInterface.TAG_IMAGE_LENGTH,
+                ExifInterface.TAG_ISO_SPEED_RATINGS, ExifInterface.TAG_GPS_LATITUDE,
+                ExifInterface.TAG_F_NUMBER, ExifInterface.TAG_EXPOSURE_TIME,
+                ExifInterface.TAG_FOCAL_LENGTH, ExifInterface.TAG_GPS_ALTITUDE};
+        final ExifTagExtractor extractor = new ExifTagExtractor(tags);
+        for (String fileName : IMAGE_FILENAMES) {
+            final String imageFilePath =
+                    new File(Environment.getExternalStorageDirectory(), fileName)
+                            .getAbsolutePath();
+            final ExifInterface exif = new ExifInterface(imageFilePath);
+            final ExifTagExtractor.Result result = extractor.extract(imageFilePath);
+            assertEquals(imageFilePath, result.getFilename());
+            for (String tag : tags) {
+                // Reading only some tags gives the same values as reading all of them, with the
+                // same conversions of rationals and strings and the same defaults
+                assertEquals(exif.getAttribute(tag), result.getAttribute(tag));
+                assertEquals(exif.getAttributeInt(tag, -1), result.getAttributeInt(tag, -1));
+                assertEquals(exif.getAttributeDouble(tag, -1),
+                        result.getAttributeDouble(tag, -1), DELTA);
+                assertEquals(exif.getAttributeDouble(tag, Double.NaN),
+                        result.getAttributeDouble(tag, Double.NaN), DELTA);
+            }
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testExtractTags_nestedIfd() throws IOException {
+        // The interoperability IFD is only reachable through the Exif IFD, which holds none of
+        // the requested tags
+        final ExifTagExtractor extractor =
+                new ExifTagExtractor(ExifInterface.TAG_INTEROPERABILITY_INDEX);
+        for (String fileName : IMAGE_FILENAMES) {
+            final String imageFilePath =
+                    new File(Environment.getExternalStorageDirectory(), fileName)
+                            .getAbsolutePath();
+            final ExifInterface exif = new ExifInterface(imageFilePath);
+            assertEquals(exif.getAttribute(ExifInterface.TAG_INTEROPERABILITY_INDEX),
+                    extractor.extract(imageFilePath)
+                            .getAttribute(ExifInterface.TAG_INTEROPERABILITY_INDEX));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SmallTest
+    public void testExtractTags_notRequested() throws IOException {
+        final String imageFilePath = new File(Environment.getExternalStorageDirectory(),
+                EXIF_BYTE_ORDER_II_JPEG).getAbsolutePath();
+        new ExifTagExtractor(ExifInterface.TAG_ORIENTATION).extract(imageFilePath)
+                .getAttribute(ExifInterface.TAG_DATETIME);
+    }
+
+    @Test
+    @SmallTest
+    public void testExtractAll() throws IOException {
+        final List<String> filePaths = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            filePaths.add(new File(Environment.getExternalStorageDirectory(),
+                    IMAGE_FILENAMES[i % IMAGE_FILENAMES.length]).getAbsolutePath());
+        }
+        filePaths.add(new File(Environment.getExternalStorageDirectory(), "nonexistent.jpg")
+                .getAbsolutePath());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final List<ExifTagExtractor.Result> results;
+        try {
+            results = new ExifTagExtractor(ExifInterface.TAG_DATETIME)
+                    .extractAll(filePaths, executor, 3);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(filePaths.size(), results.size());
+        for (int i = 0; i < filePaths.size() - 1; i++) {
+            final ExifTagExtractor.Result result = results.get(i);
+            assertEquals(filePaths.get(i), result.getFilename());
+            assertEquals(new ExifInterface(filePaths.get(i)).getAttribute(
+                    ExifInterface.TAG_DATETIME), result.getAttribute(ExifInterface.TAG_DATETIME));
+        }
+        // Files which can't be opened have no result
+        assertNull(results.get(filePaths.size() - 1));
+    }
+
+    @Test
+    @SmallTest
+    public void testExtractAllWithRejectingExecutor() throws IOException {
+        final List<String> filePaths = new ArrayList<>();
+        for (String filename : IMAGE_FILENAMES) {
+            filePaths.add(new File(Environment.getExternalStorageDirectory(), filename)
+                    .getAbsolutePath());
+        }
+
+        // The files rejected by the executor are read on the calling thread
+        final List<ExifTagExtractor.Result> results = new ExifTagExtractor(
+                ExifInterface.TAG_DATETIME).extractAll(filePaths, new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        throw new RejectedExecutionException();
+                    }
+                }, 3);
+
+        assertEquals(filePaths.size(), results.size());
+        for (int i = 0; i < filePaths.size(); i++) {
+            assertEquals(new ExifInterface(filePaths.get(i)).getAttribute(
+                    ExifInterface.TAG_DATETIME),
+                    results.get(i).getAttribute(ExifInterface.TAG_DATETIME));
+        }
+    }
+
     private void printExifTagsAndValues(String fileName, ExifInterface exifInterface) {
         // Prints thumbnail information.
         if (exifInterface.hasThumbnail()) {
@@ -29,7 +29,6 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.DataInput;
 import java.io.DataInputStream;
@@ -42,13 +41,16 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
@@ -2950,13 +2952,90 @@ public class ExifInterface {
     private static class ExifAttribute {
         public final int format;
         public final int numberOfComponents;
-        public final byte[] bytes;
+        // The value, or null until it's copied out of mSource
+        private byte[] mBytes;
+        // The value in the image data, which is only copied when the raw bytes are needed
+        private ByteBuffer mSource;
+        // Where the value is stored in the Exif segment, relative to the TIFF header, or -1 if it
+        // wasn't read from the file. A value set later keeps the location of the value it
+        // replaces, so that it can be written over it.
+        int mEntryOffset = -1;
+        int mValueOffset = -1;
+        int mValueCapacity;
+        // Whether the value was set after the file was read and hasn't been saved yet
+        boolean mModified;
 
         @SuppressWarnings("WeakerAccess") /* synthetic access */
         ExifAttribute(int format, int numberOfComponents, byte[] bytes) {
             this.format = format;
             this.numberOfComponents = numberOfComponents;
-            this.bytes = bytes;
+            mBytes = bytes;
+        }
+
+        /**
+         * Creates an attribute whose value is read lazily from the remaining bytes of the given
+         * buffer, which must not change afterwards.
+         */
+        @SuppressWarnings("WeakerAccess") /* synthetic access */
+        ExifAttribute(int format, int numberOfComponents, ByteBuffer source) {
+            this.format = format;
+            this.numberOfComponents = numberOfComponents;
+            mSource = source;
+        }
+
+        public byte[] getBytes() {
+            if (mBytes == null) {
+                final ByteBuffer source = mSource.duplicate();
+                final byte[] bytes = new byte[source.remaining()];
+                source.get(bytes);
+                mBytes = bytes;
+                mSource = null;
+            }
+            return mBytes;
+        }
+
+        /**
+         * Marks this value as set in place of the given value, if any.
+         */
+        void replace(@Nullable ExifAttribute previous) {
+            mModified = true;
+            if (previous != null) {
+                mEntryOffset = previous.mEntryOffset;
+                mValueOffset = previous.mValueOffset;
+                mValueCapacity = previous.mValueCapacity;
+            }
+        }
+
+        /**
+         * Returns a new buffer of the value, without copying it.
+         */
+        ByteBuffer getBuffer() {
+            final ByteBuffer source = mSource;
+            return source != null ? source.duplicate() : ByteBuffer.wrap(mBytes);
+        }
+
+        int getByteCount() {
+            final ByteBuffer source = mSource;
+            return source != null ? source.remaining() : mBytes.length;
+        }
+
+        /**
+         * Returns whether the value is still read from outside of the Java heap, e.g. from a
+         * mapped file.
+         */
+        boolean isMapped() {
+            final ByteBuffer source = mSource;
+            return source != null && source.isDirect();
+        }
+
+        /**
+         * Copies the value to the given buffer, and reads it from there from now on.
+         */
+        void moveTo(ByteBuffer destination) {
+            final ByteBuffer value = destination.duplicate();
+            destination.put(mSource.duplicate());
+            value.limit(destination.position());
+            mSource = value.slice();
         }
 
         public static ExifAttribute createUShort(int[] values, ByteOrder byteOrder) {
@@ -3062,18 +3141,19 @@ public class ExifInterface {
 
         @Override
         public String toString() {
-            return "(" + IFD_FORMAT_NAMES[format] + ", data length:" + bytes.length + ")";
+            return "(" + IFD_FORMAT_NAMES[format] + ", data length:" + getByteCount() + ")";
         }
 
         @SuppressWarnings("WeakerAccess") /* synthetic access */
         Object getValue(ByteOrder byteOrder) {
             ByteOrderedDataInputStream inputStream = null;
             try {
-                inputStream = new ByteOrderedDataInputStream(bytes);
+                inputStream = new ByteOrderedDataInputStream(getBuffer());
                 inputStream.setByteOrder(byteOrder);
                 switch (format) {
                     case IFD_FORMAT_BYTE:
                     case IFD_FORMAT_SBYTE: {
+                        final byte[] bytes = getBytes();
                         // Exception for GPSAltitudeRef tag
                         if (bytes.length == 1 && bytes[0] >= 0 && bytes[0] <= 1) {
                             return new String(new char[] { (char) (bytes[0] + '0') });
@@ -3082,6 +3162,7 @@ public class ExifInterface {
                     }
                     case IFD_FORMAT_UNDEFINED:
                     case IFD_FORMAT_STRING: {
+                        final byte[] bytes = getBytes();
                         int index = 0;
                         if (numberOfComponents >= EXIF_ASCII_PREFIX.length) {
                             boolean same = true;
@@ -3700,6 +3781,8 @@ public class ExifInterface {
 
     private final String mFilename;
     private final AssetManager.AssetInputStream mAssetInputStream;
+    // The tags to read, or null to read all of them
+    private final Set<String> mRequestedTags;
     private int mMimeType;
     @SuppressWarnings("unchecked")
     private final HashMap<String, ExifAttribute>[] mAttributes = new HashMap[EXIF_TAGS.length];
@@ -3717,6 +3800,9 @@ public class ExifInterface {
     private int mOrfThumbnailLength;
     private int mRw2JpgFromRawOffset;
     private boolean mIsSupportedFile;
+    // Whether saving the attributes requires rewriting the whole file, e.g. because values read
+    // from it were removed
+    private boolean mRequiresRewrite;
 
     // Pattern to check non zero timestamp
     private static final Pattern sNonZeroTimePattern = Pattern.compile(".*[1-9].*");
@@ -3728,15 +3814,27 @@ public class ExifInterface {
      * Reads Exif tags from the specified image file.
      */
     public ExifInterface(@NonNull String filename) throws IOException {
+        this(filename, null);
+    }
+
+    /**
+     * Reads Exif tags from the specified image file, stopping as soon as the given tags are
+     * found. Only JPEG files are read partially, other formats are always read completely.
+     *
+     * @param requestedTags the names of the tags to read, or null to read all tags.
+     */
+    ExifInterface(@NonNull String filename, @Nullable Set<String> requestedTags)
+            throws IOException {
         if (filename == null) {
             throw new IllegalArgumentException("filename cannot be null");
         }
         FileInputStream in = null;
         mAssetInputStream = null;
         mFilename = filename;
+        mRequestedTags = requestedTags;
         try {
             in = new FileInputStream(filename);
-            loadAttributes(in);
+            loadAttributes(in, mapFile(in));
         } finally {
             closeQuietly(in);
         }
@@ -3753,12 +3851,13 @@ public class ExifInterface {
             throw new IllegalArgumentException("inputStream cannot be null");
         }
         mFilename = null;
+        mRequestedTags = null;
         if (inputStream instanceof AssetManager.AssetInputStream) {
             mAssetInputStream = (AssetManager.AssetInputStream) inputStream;
         } else {
             mAssetInputStream = null;
         }
-        loadAttributes(inputStream);
+        loadAttributes(inputStream, null);
     }
 
     /**
@@ -3868,6 +3967,23 @@ public class ExifInterface {
         }
     }
 
+    /**
+     * Returns the value of the specified tag as {@link #getAttributeInt} does, but with a default
+     * which can be told apart from every int value.
+     */
+    long getAttributeIntOrDefault(@NonNull String tag, long defaultValue) {
+        ExifAttribute exifAttribute = getExifAttribute(tag);
+        if (exifAttribute == null) {
+            return defaultValue;
+        }
+
+        try {
+            return exifAttribute.getIntValue(mExifByteOrder);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     /**
      * Sets the value of the specified tag.
      *
@@ -3910,7 +4026,10 @@ public class ExifInterface {
             final ExifTag exifTag = sExifTagMapsForWriting[i].get(tag);
             if (exifTag != null) {
                 if (value == null) {
-                    mAttributes[i].remove(tag);
+                    final ExifAttribute removed = mAttributes[i].remove(tag);
+                    if (removed != null && removed.mEntryOffset >= 0) {
+                        mRequiresRewrite = true;
+                    }
                     continue;
                 }
                 Pair<Integer, Integer> guess = guessDataFormat(value);
@@ -3935,12 +4054,12 @@ public class ExifInterface {
                 }
                 switch (dataFormat) {
                     case IFD_FORMAT_BYTE: {
-                        mAttributes[i].put(tag, ExifAttribute.createByte(value));
+                        putAttribute(i, tag, ExifAttribute.createByte(value));
                         break;
                     }
                     case IFD_FORMAT_UNDEFINED:
                     case IFD_FORMAT_STRING: {
-                        mAttributes[i].put(tag, ExifAttribute.createString(value));
+                        putAttribute(i, tag, ExifAttribute.createString(value));
                         break;
                     }
                     case IFD_FORMAT_USHORT: {
@@ -3949,7 +4068,7 @@ public class ExifInterface {
                         for (int j = 0; j < values.length; ++j) {
                             intArray[j] = Integer.parseInt(values[j]);
                         }
-                        mAttributes[i].put(tag,
+                        putAttribute(i, tag,
                                 ExifAttribute.createUShort(intArray, mExifByteOrder));
                         break;
                     }
@@ -3959,7 +4078,7 @@ public class ExifInterface {
                         for (int j = 0; j < values.length; ++j) {
                             intArray[j] = Integer.parseInt(values[j]);
                         }
-                        mAttributes[i].put(tag,
+                        putAttribute(i, tag,
                                 ExifAttribute.createSLong(intArray, mExifByteOrder));
                         break;
                     }
@@ -3969,7 +4088,7 @@ public class ExifInterface {
                         for (int j = 0; j < values.length; ++j) {
                             longArray[j] = Long.parseLong(values[j]);
                         }
-                        mAttributes[i].put(tag,
+                        putAttribute(i, tag,
                                 ExifAttribute.createULong(longArray, mExifByteOrder));
                         break;
                     }
@@ -3981,7 +4100,7 @@ public class ExifInterface {
                             rationalArray[j] = new Rational((long) Double.parseDouble(numbers[0]),
                                     (long) Double.parseDouble(numbers[1]));
                         }
-                        mAttributes[i].put(tag,
+                        putAttribute(i, tag,
                                 ExifAttribute.createURational(rationalArray, mExifByteOrder));
                         break;
                     }
@@ -3993,7 +4112,7 @@ public class ExifInterface {
                             rationalArray[j] = new Rational((long) Double.parseDouble(numbers[0]),
                                     (long) Double.parseDouble(numbers[1]));
                         }
-                        mAttributes[i].put(tag,
+                        putAttribute(i, tag,
                                 ExifAttribute.createSRational(rationalArray, mExifByteOrder));
                         break;
                     }
@@ -4003,7 +4122,7 @@ public class ExifInterface {
                         for (int j = 0; j < values.length; ++j) {
                             doubleArray[j] = Double.parseDouble(values[j]);
                         }
-                        mAttributes[i].put(tag,
+                        putAttribute(i, tag,
                                 ExifAttribute.createDouble(doubleArray, mExifByteOrder));
                         break;
                     }
@@ -4015,6 +4134,13 @@ public class ExifInterface {
         }
     }
 
+    /**
+     * Stores a value set by {@link #setAttribute}, in place of the current value if any.
+     */
+    private void putAttribute(@IfdType int ifdType, String tag, ExifAttribute value) {
+        value.replace(mAttributes[ifdType].put(tag, value));
+    }
+
     /**
      * Resets the {@link #TAG_ORIENTATION} of the image to be {@link #ORIENTATION_NORMAL}.
      */
@@ -4213,20 +4339,26 @@ public class ExifInterface {
      * This function decides which parser to read the image data according to the given input stream
      * type and the content of the input stream. In each case, it reads the first three bytes to
      * determine whether the image data format is JPEG or not.
+     *
+     * @param mappedFile the whole file mapped into memory, to read it from instead of {@code in},
+     *                   or null. The mapping is not used any more once this returns.
      */
-    private void loadAttributes(@NonNull InputStream in) throws IOException {
+    private void loadAttributes(@NonNull InputStream in, @Nullable ByteBuffer mappedFile)
+            throws IOException {
         try {
             // Initialize mAttributes.
             for (int i = 0; i < EXIF_TAGS.length; ++i) {
                 mAttributes[i] = new HashMap<>();
             }
 
-            // Check file type
-            in = new BufferedInputStream(in, SIGNATURE_CHECK_SIZE);
-            mMimeType = getMimeType((BufferedInputStream) in);
+            // Create byte-ordered input stream, which can seek directly in a mapped file
+            ByteOrderedDataInputStream inputStream = mappedFile != null
+                    ? new ByteOrderedDataInputStream(mappedFile)
+                    : new ByteOrderedDataInputStream(
+                            new BufferedInputStream(in, SIGNATURE_CHECK_SIZE));
 
-            // Create byte-ordered input stream
-            ByteOrderedDataInputStream inputStream = new ByteOrderedDataInputStream(in);
+            // Check file type
+            mMimeType = getMimeType(inputStream);
 
             switch (mMimeType) {
                 case IMAGE_TYPE_JPEG: {
@@ -4273,6 +4405,9 @@ public class ExifInterface {
                         + "or a corrupted JPEG file to ExifInterface.", e);
             }
         } finally {
+            if (mappedFile != null) {
+                copyValuesOutOfMappedFile();
+            }
             addDefaultValuesForCompatibility();
 
             if (DEBUG) {
@@ -4294,10 +4429,12 @@ public class ExifInterface {
     }
 
     /**
-     * Save the tag data into the original image file. This is expensive because it involves
-     * copying all the data from one file to another and deleting the old file and renaming the
-     * other. It's best to use {@link #setAttribute(String,String)} to set all attributes to write
-     * and make a single call rather than multiple calls for each attribute.
+     * Save the tag data into the original image file. When only existing tags were changed and
+     * their new values fit in the space of the old values, e.g. when updating the orientation or
+     * the date, the new values are written over the old ones. Otherwise this is expensive because
+     * it involves copying all the data from one file to another and deleting the old file and
+     * renaming the other. It's best to use {@link #setAttribute(String,String)} to set all
+     * attributes to write and make a single call rather than multiple calls for each attribute.
      * <p>
      * This method is only supported for JPEG files.
      * </p>
@@ -4311,6 +4448,10 @@ public class ExifInterface {
                     "ExifInterface does not support saving attributes for the current input.");
         }
 
+        if (saveAttributesInPlace()) {
+            return;
+        }
+
         // Keep the thumbnail in memory
         mThumbnailBytes = getThumbnail();
 
@@ -4335,6 +4476,97 @@ public class ExifInterface {
 
         // Discard the thumbnail in memory
         mThumbnailBytes = null;
+
+        // The locations of the values in the new file were recorded while writing it, so the
+        // next save can write over them again
+        for (int i = 0; i < EXIF_TAGS.length; ++i) {
+            for (ExifAttribute attribute : mAttributes[i].values()) {
+                attribute.mModified = false;
+            }
+        }
+        mRequiresRewrite = false;
+    }
+
+    /**
+     * Writes the changed values over the values they replace in the file, if they all fit.
+     *
+     * @return whether the values were saved, false if the whole file needs to be rewritten.
+     */
+    private boolean saveAttributesInPlace() throws IOException {
+        if (mRequiresRewrite) {
+            return false;
+        }
+        final List<ExifAttribute> changedAttributes = new ArrayList<>();
+        for (int i = 0; i < EXIF_TAGS.length; ++i) {
+            for (Map.Entry<String, ExifAttribute> entry : mAttributes[i].entrySet()) {
+                final ExifAttribute attribute = entry.getValue();
+                if (attribute == null || !attribute.mModified) {
+                    continue;
+                }
+                if (attribute.mEntryOffset < 0) {
+                    // A new tag can only be left out if a value read from the file takes
+                    // precedence over it, like setAttribute() adding a tag to every IFD type
+                    if (!isStoredInHigherPriorityGroup(entry.getKey(), i)) {
+                        return false;
+                    }
+                    continue;
+                }
+                final int size = attribute.size();
+                if (size > 4 && size > attribute.mValueCapacity) {
+                    return false;
+                }
+                changedAttributes.add(attribute);
+            }
+        }
+        if (changedAttributes.isEmpty()) {
+            return true;
+        }
+
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(mFilename, "rw");
+            final FileChannel channel = file.getChannel();
+            // The format, number of components and value or value offset of an IFD entry
+            final ByteBuffer entry = ByteBuffer.allocate(10).order(mExifByteOrder);
+            for (ExifAttribute attribute : changedAttributes) {
+                final byte[] bytes = attribute.getBytes();
+                entry.clear();
+                entry.putShort((short) attribute.format);
+                entry.putInt(attribute.numberOfComponents);
+                if (bytes.length > 4) {
+                    writeFully(channel, ByteBuffer.wrap(bytes),
+                            mExifOffset + attribute.mValueOffset);
+                    entry.putInt(attribute.mValueOffset);
+                } else {
+                    entry.put(bytes);
+                    // Fill zero up to 4 bytes
+                    while (entry.hasRemaining()) {
+                        entry.put((byte) 0);
+                    }
+                }
+                entry.flip();
+                // Skip the tag number
+                writeFully(channel, entry, mExifOffset + attribute.mEntryOffset + 2);
+                attribute.mModified = false;
+            }
+        } finally {
+            closeQuietly(file);
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a value of the tag read from the file is in a tag group which has a higher
+     * priority than the given one in {@link #getExifAttribute}.
+     */
+    private boolean isStoredInHigherPriorityGroup(String tag, int ifdType) {
+        for (int i = 0; i < ifdType; ++i) {
+            final ExifAttribute attribute = mAttributes[i].get(tag);
+            if (attribute != null && attribute.mEntryOffset >= 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -4705,11 +4937,10 @@ public class ExifInterface {
     }
 
     // Checks the type of image file
-    private int getMimeType(BufferedInputStream in) throws IOException {
-        in.mark(SIGNATURE_CHECK_SIZE);
+    private int getMimeType(ByteOrderedDataInputStream in) throws IOException {
         byte[] signatureCheckBytes = new byte[SIGNATURE_CHECK_SIZE];
         in.read(signatureCheckBytes);
-        in.reset();
+        in.seek(0);
         if (isJpegFormat(signatureCheckBytes)) {
             return IMAGE_TYPE_JPEG;
         } else if (isRafFormat(signatureCheckBytes)) {
@@ -4823,6 +5054,7 @@ public class ExifInterface {
             throw new IOException("Invalid marker: " + Integer.toHexString(marker & 0xff));
         }
         ++bytesRead;
+        boolean imageSizeRead = false;
         while (true) {
             marker = in.readByte();
             if (marker != MARKER) {
@@ -4874,17 +5106,18 @@ public class ExifInterface {
                     if (DEBUG) {
                         Log.d(TAG, "readExifSegment with a byte array (length: " + length + ")");
                     }
+                    if (mExifOffset != 0 && imageType == IFD_TYPE_PRIMARY) {
+                        // Only the locations of the values of one segment are known
+                        mRequiresRewrite = true;
+                    }
                     // Save offset values for createJpegThumbnailBitmap() function
                     mExifOffset = bytesRead;
 
-                    byte[] bytes = new byte[length];
-                    if (in.read(bytes) != length) {
-                        throw new IOException("Invalid exif");
-                    }
+                    ByteBuffer exifSegment = in.readBuffer(length);
                     bytesRead += length;
                     length = 0;
 
-                    readExifSegment(bytes, imageType);
+                    readExifSegment(exifSegment, imageType);
                     break;
                 }
 
@@ -4922,6 +5155,7 @@ public class ExifInterface {
                     mAttributes[imageType].put(TAG_IMAGE_WIDTH, ExifAttribute.createULong(
                             in.readUnsignedShort(), mExifByteOrder));
                     length -= 5;
+                    imageSizeRead = true;
                     break;
                 }
 
@@ -4936,6 +5170,11 @@ public class ExifInterface {
                 throw new IOException("Invalid JPEG segment");
             }
             bytesRead += length;
+            if (imageType == IFD_TYPE_PRIMARY && hasRequestedAttributes()
+                    && (imageSizeRead || !isImageSizeRequested())) {
+                // The remaining segments can't change the requested values
+                break;
+            }
         }
         // Restore original byte order
         in.setByteOrder(mExifByteOrder);
@@ -4964,7 +5203,7 @@ public class ExifInterface {
             if (makerNoteAttribute != null) {
                 // Create an ordered DataInputStream for MakerNote
                 ByteOrderedDataInputStream makerNoteDataInputStream =
-                        new ByteOrderedDataInputStream(makerNoteAttribute.bytes);
+                        new ByteOrderedDataInputStream(makerNoteAttribute.getBuffer());
                 makerNoteDataInputStream.setByteOrder(mExifByteOrder);
 
                 // Seek to MakerNote data
@@ -5063,7 +5302,7 @@ public class ExifInterface {
         if (makerNoteAttribute != null) {
             // Create an ordered DataInputStream for MakerNote
             ByteOrderedDataInputStream makerNoteDataInputStream =
-                    new ByteOrderedDataInputStream(makerNoteAttribute.bytes);
+                    new ByteOrderedDataInputStream(makerNoteAttribute.getBuffer());
             makerNoteDataInputStream.setByteOrder(mExifByteOrder);
 
             // There are two types of headers for Olympus MakerNotes
@@ -5175,10 +5414,12 @@ public class ExifInterface {
         }
         dataOutputStream.writeByte(MARKER_SOI);
 
-        // Write EXIF APP1 segment
+        // Write EXIF APP1 segment. Its TIFF header follows the markers, the segment length and
+        // the identifier.
         dataOutputStream.writeByte(MARKER);
         dataOutputStream.writeByte(MARKER_APP1);
-        writeExifSegment(dataOutputStream, 6);
+        mExifOffset = 2 + 2 + 2 + IDENTIFIER_EXIF_APP1.length;
+        writeExifSegment(dataOutputStream, mExifOffset);
 
         byte[] bytes = new byte[4096];
 
@@ -5228,7 +5469,15 @@ public class ExifInterface {
                     dataOutputStream.writeByte(MARKER);
                     dataOutputStream.writeByte(marker);
                     // Copy all the remaining data
-                    copy(dataInputStream, dataOutputStream);
+                    if (inputStream instanceof FileInputStream
+                            && outputStream instanceof FileOutputStream) {
+                        // Neither stream is buffered, so the positions of their channels are
+                        // where the data continues
+                        transfer(((FileInputStream) inputStream).getChannel(),
+                                ((FileOutputStream) outputStream).getChannel());
+                    } else {
+                        copy(dataInputStream, dataOutputStream);
+                    }
                     return;
                 }
                 default: {
@@ -5254,17 +5503,38 @@ public class ExifInterface {
     }
 
     // Reads the given EXIF byte area and save its tag data into attributes.
-    private void readExifSegment(byte[] exifBytes, int imageType) throws IOException {
+    private void readExifSegment(ByteBuffer exifSegment, int imageType) throws IOException {
         ByteOrderedDataInputStream dataInputStream =
-                new ByteOrderedDataInputStream(exifBytes);
+                new ByteOrderedDataInputStream(exifSegment);
 
         // Parse TIFF Headers. See JEITA CP-3451C Section 4.5.2. Table 1.
-        parseTiffHeaders(dataInputStream, exifBytes.length);
+        parseTiffHeaders(dataInputStream, dataInputStream.getLength());
 
         // Read TIFF image file directories. See JEITA CP-3451C Section 4.5.2. Figure 6.
         readImageFileDirectory(dataInputStream, imageType);
     }
 
+    private void copyValuesOutOfMappedFile() {
+        // Values which are still in the mapped file would keep all of it mapped as long as they
+        // live, so they are copied into one array, where they are still decoded lazily
+        int byteCount = 0;
+        for (HashMap<String, ExifAttribute> attributes : mAttributes) {
+            for (ExifAttribute attribute : attributes.values()) {
+                if (attribute.isMapped()) {
+                    byteCount += attribute.getByteCount();
+                }
+            }
+        }
+        final ByteBuffer values = ByteBuffer.allocate(byteCount);
+        for (HashMap<String, ExifAttribute> attributes : mAttributes) {
+            for (ExifAttribute attribute : attributes.values()) {
+                if (attribute.isMapped()) {
+                    attribute.moveTo(values);
+                }
+            }
+        }
+    }
+
     private void addDefaultValuesForCompatibility() {
         // If DATETIME tag has no value, then set the value to DATETIME_ORIGINAL tag's.
         String valueOfDateTimeOriginal = getAttribute(TAG_DATETIME_ORIGINAL);
@@ -5361,6 +5631,7 @@ public class ExifInterface {
 
         // See TIFF 6.0 Section 2: TIFF Structure, "Image File Directory".
         for (short i = 0; i < numberOfDirectoryEntry; ++i) {
+            final int entryOffset = dataInputStream.peek();
             int tagNumber = dataInputStream.readUnsignedShort();
             int dataFormat = dataInputStream.readUnsignedShort();
             int numberOfComponents = dataInputStream.readInt();
@@ -5454,6 +5725,10 @@ public class ExifInterface {
             }
 
             if (nextIfdType != null) {
+                if (!mayContainRequestedAttributes(nextIfdType)) {
+                    dataInputStream.seek(nextEntryOffset);
+                    continue;
+                }
                 long offset = -1L;
                 // Get offset from data field
                 switch (dataFormat) {
@@ -5502,9 +5777,13 @@ public class ExifInterface {
                 continue;
             }
 
-            byte[] bytes = new byte[(int) byteCount];
-            dataInputStream.readFully(bytes);
-            ExifAttribute attribute = new ExifAttribute(dataFormat, numberOfComponents, bytes);
+            // The value is only copied or decoded when it's needed
+            final int valueOffset = dataInputStream.peek();
+            ExifAttribute attribute = new ExifAttribute(dataFormat, numberOfComponents,
+                    dataInputStream.readBuffer((int) byteCount));
+            attribute.mEntryOffset = entryOffset;
+            attribute.mValueOffset = valueOffset;
+            attribute.mValueCapacity = (int) byteCount;
             mAttributes[ifdType].put(tag.name, attribute);
 
             // DNG files have a DNG Version tag specifying the version of specifications that the
@@ -5530,7 +5809,8 @@ public class ExifInterface {
             }
         }
 
-        if (dataInputStream.peek() + 4 <= dataInputStream.mLength) {
+        if (dataInputStream.peek() + 4 <= dataInputStream.mLength
+                && !hasRequestedAttributes()) {
             int nextIfdOffset = dataInputStream.readInt();
             if (DEBUG) {
                 Log.d(TAG, String.format("nextIfdOffset: %d", nextIfdOffset));
@@ -5558,6 +5838,75 @@ public class ExifInterface {
         }
     }
 
+    /**
+     * Returns whether only some tags were requested and all of them have been read, so the rest
+     * of the file can be skipped. The image size is not taken into account since it's read from
+     * the SOF segment of JPEG files.
+     */
+    private boolean hasRequestedAttributes() {
+        if (mRequestedTags == null || mMimeType != IMAGE_TYPE_JPEG) {
+            return false;
+        }
+        for (String tag : mRequestedTags) {
+            if (isRequestedAttributeMissing(tag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isImageSizeRequested() {
+        return mRequestedTags.contains(TAG_IMAGE_WIDTH)
+                || mRequestedTags.contains(TAG_IMAGE_LENGTH);
+    }
+
+    private boolean isRequestedAttributeMissing(String tag) {
+        if (TAG_IMAGE_WIDTH.equals(tag) || TAG_IMAGE_LENGTH.equals(tag)) {
+            return false;
+        }
+        if (TAG_DATETIME.equals(tag)) {
+            // Falls back to the original date, see addDefaultValuesForCompatibility()
+            return getExifAttribute(TAG_DATETIME) == null
+                    && getExifAttribute(TAG_DATETIME_ORIGINAL) == null;
+        }
+        return getExifAttribute(tag) == null;
+    }
+
+    /**
+     * Returns whether the given IFD needs to be read, i.e. it or one of the IFDs it points to may
+     * contain a requested tag which hasn't been read yet.
+     */
+    private boolean mayContainRequestedAttributes(@IfdType int ifdType) {
+        if (mRequestedTags == null || mMimeType != IMAGE_TYPE_JPEG) {
+            return true;
+        }
+        final HashMap<String, ExifTag> tags = sExifTagMapsForWriting[ifdType];
+        for (String tag : mRequestedTags) {
+            if (!isRequestedAttributeMissing(tag)) {
+                continue;
+            }
+            if (TAG_ISO_SPEED_RATINGS.equals(tag)) {
+                tag = TAG_PHOTOGRAPHIC_SENSITIVITY;
+            }
+            if (tags.containsKey(tag)
+                    || (TAG_DATETIME.equals(tag) && tags.containsKey(TAG_DATETIME_ORIGINAL))) {
+                return true;
+            }
+        }
+        // The IFD has to be read to reach the IFDs it points to, e.g. the interoperability IFD
+        // through the Exif IFD.
+        for (ExifTag pointerTag : EXIF_POINTER_TAGS) {
+            if (!tags.containsKey(pointerTag.name)) {
+                continue;
+            }
+            final int childIfdType = sExifPointerTagMap.get(pointerTag.number);
+            if (childIfdType != ifdType && mayContainRequestedAttributes(childIfdType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * JPEG compressed images do not contain IMAGE_LENGTH & IMAGE_WIDTH tags.
      * This value uses JpegInterchangeFormat(JPEG data offset) value, and calls getJpegAttributes()
@@ -5996,7 +6345,8 @@ public class ExifInterface {
                 dataOutputStream.writeUnsignedShort(mAttributes[ifdType].size());
 
                 // Write entry info
-                int dataOffset = ifdOffsets[ifdType] + 2 + mAttributes[ifdType].size() * 12 + 4;
+                int entryOffset = ifdOffsets[ifdType] + 2;
+                int dataOffset = entryOffset + mAttributes[ifdType].size() * 12 + 4;
                 for (Map.Entry<String, ExifAttribute> entry : mAttributes[ifdType].entrySet()) {
                     // Convert tag name to tag number.
                     final ExifTag tag = sExifTagMapsForWriting[ifdType].get(entry.getKey());
@@ -6004,6 +6354,12 @@ public class ExifInterface {
                     final ExifAttribute attribute = entry.getValue();
                     final int size = attribute.size();
 
+                    // Keep the location of the value for saving it in place later
+                    attribute.mEntryOffset = entryOffset;
+                    attribute.mValueOffset = size > 4 ? dataOffset : entryOffset + 8;
+                    attribute.mValueCapacity = size;
+                    entryOffset += 12;
+
                     dataOutputStream.writeUnsignedShort(tagNumber);
                     dataOutputStream.writeUnsignedShort(attribute.format);
                     dataOutputStream.writeInt(attribute.numberOfComponents);
@@ -6011,7 +6367,7 @@ public class ExifInterface {
                         dataOutputStream.writeUnsignedInt(dataOffset);
                         dataOffset += size;
                     } else {
-                        dataOutputStream.write(attribute.bytes);
+                        dataOutputStream.write(attribute.getBytes());
                         // Fill zero up to 4 bytes
                         if (size < 4) {
                             for (int i = size; i < 4; ++i) {
@@ -6034,8 +6390,9 @@ public class ExifInterface {
                 for (Map.Entry<String, ExifAttribute> entry : mAttributes[ifdType].entrySet()) {
                     ExifAttribute attribute = entry.getValue();
 
-                    if (attribute.bytes.length > 4) {
-                        dataOutputStream.write(attribute.bytes, 0, attribute.bytes.length);
+                    final byte[] bytes = attribute.getBytes();
+                    if (bytes.length > 4) {
+                        dataOutputStream.write(bytes, 0, bytes.length);
                     }
                 }
             }
@@ -6141,6 +6498,8 @@ public class ExifInterface {
         private static final ByteOrder BIG_ENDIAN = ByteOrder.BIG_ENDIAN;
 
         private DataInputStream mDataInputStream;
+        // The data if it's all in memory, in which case seeking just moves its position
+        private final ByteBuffer mBuffer;
         private ByteOrder mByteOrder = ByteOrder.BIG_ENDIAN;
         @SuppressWarnings("WeakerAccess") /* synthetic access */
         final int mLength;
@@ -6149,20 +6508,58 @@ public class ExifInterface {
 
         public ByteOrderedDataInputStream(InputStream in) throws IOException {
             mDataInputStream = new DataInputStream(in);
+            mBuffer = null;
             mLength = mDataInputStream.available();
             mPosition = 0;
             mDataInputStream.mark(mLength);
         }
 
         public ByteOrderedDataInputStream(byte[] bytes) throws IOException {
-            this(new ByteArrayInputStream(bytes));
+            this(ByteBuffer.wrap(bytes));
+        }
+
+        /**
+         * Reads the remaining bytes of the given buffer, without changing its position.
+         */
+        public ByteOrderedDataInputStream(ByteBuffer buffer) {
+            mBuffer = buffer.slice();
+            mDataInputStream = new DataInputStream(new ByteBufferInputStream(mBuffer));
+            mLength = mBuffer.limit();
+            mPosition = 0;
         }
 
         public void setByteOrder(ByteOrder byteOrder) {
             mByteOrder = byteOrder;
         }
 
+        /**
+         * Reads the given number of bytes into a buffer. In memory data is not copied: the
+         * returned buffer shares it.
+         */
+        public ByteBuffer readBuffer(int length) throws IOException {
+            if (length < 0 || mPosition + length > mLength) {
+                throw new EOFException();
+            }
+            if (mBuffer != null) {
+                final ByteBuffer buffer = mBuffer.duplicate();
+                buffer.limit(mPosition + length);
+                seek(mPosition + length);
+                return buffer.slice();
+            }
+            final byte[] bytes = new byte[length];
+            readFully(bytes);
+            return ByteBuffer.wrap(bytes);
+        }
+
         public void seek(long byteCount) throws IOException {
+            if (mBuffer != null) {
+                if (byteCount < 0 || byteCount > mLength) {
+                    throw new IOException("Couldn't seek up to the byteCount");
+                }
+                mBuffer.position((int) byteCount);
+                mPosition = (int) byteCount;
+                return;
+            }
             if (mPosition > byteCount) {
                 mPosition = 0;
                 mDataInputStream.reset();
@@ -6194,7 +6591,9 @@ public class ExifInterface {
         @Override
         public int read(byte[] b, int off, int len) throws IOException {
             int bytesRead = mDataInputStream.read(b, off, len);
-            mPosition += bytesRead;
+            if (bytesRead > 0) {
+                mPosition += bytesRead;
+            }
             return bytesRead;
         }
 
@@ -6381,6 +6780,45 @@ public class ExifInterface {
         }
     }
 
+    // An input stream over the remaining bytes of a buffer, which shares its position.
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer mBuffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return mBuffer.hasRemaining() ? mBuffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!mBuffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, mBuffer.remaining());
+            mBuffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            final int skipped = (int) Math.max(0, Math.min(n, mBuffer.remaining()));
+            mBuffer.position(mBuffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return mBuffer.remaining();
+        }
+    }
+
     // An output stream to write EXIF data area, which can be written in either little or big endian
     // order.
     private static class ByteOrderedDataOutputStream extends FilterOutputStream {
@@ -6486,6 +6924,27 @@ public class ExifInterface {
         }
     }
 
+    /**
+     * Maps the whole file into memory, so that it can be read at any offset without seeking the
+     * stream, or returns null if it can't be mapped.
+     */
+    @Nullable
+    private static ByteBuffer mapFile(FileInputStream in) {
+        try {
+            final FileChannel channel = in.getChannel();
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            if (DEBUG) {
+                Log.d(TAG, "Couldn't map the file, reading it as a stream", e);
+            }
+            return null;
+        }
+    }
+
     /**
      * Closes 'closeable', ignoring any checked exceptions. Does nothing if 'closeable' is null.
      */
@@ -6500,6 +6959,30 @@ public class ExifInterface {
         }
     }
 
+    /**
+     * Copies the rest of the input file to the output file, letting the kernel move the data
+     * where possible instead of copying it through a buffer.
+     */
+    private static void transfer(FileChannel in, FileChannel out) throws IOException {
+        long position = in.position();
+        final long size = in.size();
+        while (position < size) {
+            final long transferred = in.transferTo(position, size - position, out);
+            if (transferred <= 0) {
+                throw new IOException("Couldn't copy the image data");
+            }
+            position += transferred;
+        }
+        in.position(position);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
     /**
      * Copies all of the bytes from {@code in} to {@code out}. Neither stream is closed.
      * Returns the total number of bytes transferred.
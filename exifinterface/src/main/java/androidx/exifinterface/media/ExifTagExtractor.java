@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.exifinterface.media;
+
+import android.util.Log;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads a fixed set of Exif tags from image files.
+ * <p>
+ * Unlike {@link ExifInterface}, which reads every tag of a file, the extractor skips the parts of
+ * JPEG files which can't contain the requested tags, like the GPS directory when no GPS tag is
+ * requested or the thumbnail, and stops reading once all the tags are found. The values of each
+ * file are kept in a compact {@link Result}, so extracting a few tags from a large number of files,
+ * e.g. to sort a photo gallery by date, doesn't keep every tag of every file in memory.
+ * <pre>
+ * ExifTagExtractor extractor = new ExifTagExtractor(
+ *         ExifInterface.TAG_DATETIME, ExifInterface.TAG_ORIENTATION);
+ * List&lt;ExifTagExtractor.Result&gt; results = extractor.extractAll(files, executor, 4);
+ * </pre>
+ */
+public final class ExifTagExtractor {
+    private static final String TAG = "ExifTagExtractor";
+    // Outside of the range of int, for tags which have no int value
+    static final long NO_INT_VALUE = Long.MIN_VALUE;
+
+    private final String[] mTags;
+    private final Set<String> mTagSet;
+    private final HashMap<String, Integer> mIndices;
+
+    /**
+     * Creates an extractor for the given tags.
+     *
+     * @param tags the names of the tags to read, e.g. {@link ExifInterface#TAG_DATETIME}.
+     */
+    public ExifTagExtractor(@NonNull String... tags) {
+        if (tags == null || tags.length == 0) {
+            throw new IllegalArgumentException("At least one tag must be requested");
+        }
+        mTags = tags.clone();
+        mTagSet = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(mTags)));
+        mIndices = new HashMap<>(mTags.length);
+        for (int i = 0; i < mTags.length; i++) {
+            if (mTags[i] == null) {
+                throw new IllegalArgumentException("tags cannot contain null");
+            }
+            mIndices.put(mTags[i], i);
+        }
+    }
+
+    /**
+     * Reads the requested tags from the specified image file.
+     *
+     * @throws IOException if the file can't be opened.
+     */
+    @NonNull
+    public Result extract(@NonNull String filename) throws IOException {
+        final ExifInterface exifInterface = new ExifInterface(filename, mTagSet);
+        final String[] values = new String[mTags.length];
+        final double[] doubles = new double[mTags.length];
+        final long[] ints = new long[mTags.length];
+        for (int i = 0; i < mTags.length; i++) {
+            values[i] = exifInterface.getAttribute(mTags[i]);
+            // The same conversions as ExifInterface, with defaults which no value can take
+            doubles[i] = exifInterface.getAttributeDouble(mTags[i], Double.NaN);
+            ints[i] = exifInterface.getAttributeIntOrDefault(mTags[i], NO_INT_VALUE);
+        }
+        return new Result(filename, mIndices, values, doubles, ints);
+    }
+
+    /**
+     * Reads the requested tags from all the specified image files, on up to {@code parallelism}
+     * threads at a time: the calling thread and threads of the given executor. This method
+     * returns once all the files have been read.
+     *
+     * @param filenames the image files to read.
+     * @param executor the executor that runs the additional threads.
+     * @param parallelism the maximum number of files read at the same time.
+     * @return the results in the order of {@code filenames}. The result of a file that can't be
+     *         opened is null.
+     */
+    @NonNull
+    public List<Result> extractAll(@NonNull final List<String> filenames,
+            @NonNull Executor executor, @IntRange(from = 1) int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        final Result[] results = new Result[filenames.size()];
+        ParallelWorkers.runIndexed(executor, parallelism, results.length,
+                new ParallelWorkers.IndexedTask() {
+                    @Override
+                    public void run(int index) {
+                        try {
+                            results[index] = extract(filenames.get(index));
+                        } catch (IOException | RuntimeException e) {
+                            Log.w(TAG, "Couldn't read " + filenames.get(index), e);
+                        }
+                    }
+                });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * The values of the requested tags in an image file.
+     */
+    public static final class Result {
+        private final String mFilename;
+        private final HashMap<String, Integer> mIndices;
+        private final String[] mValues;
+        // NaN where ExifInterface has no double value
+        private final double[] mDoubles;
+        // NO_INT_VALUE where ExifInterface has no int value
+        private final long[] mInts;
+
+        Result(String filename, HashMap<String, Integer> indices, String[] values,
+                double[] doubles, long[] ints) {
+            mFilename = filename;
+            mIndices = indices;
+            mValues = values;
+            mDoubles = doubles;
+            mInts = ints;
+        }
+
+        /**
+         * Returns the name of the file the values were read from.
+         */
+        @NonNull
+        public String getFilename() {
+            return mFilename;
+        }
+
+        /**
+         * Returns the value of the specified tag as {@link ExifInterface#getAttribute} does, or
+         * {@code null} if there is no such tag in the image file.
+         *
+         * @throws IllegalArgumentException if the tag was not requested.
+         */
+        @Nullable
+        public String getAttribute(@NonNull String tag) {
+            return mValues[indexOf(tag)];
+        }
+
+        /**
+         * Returns the value of the specified tag as {@link ExifInterface#getAttributeDouble}
+         * does, e.g. rationals are divided out and strings are parsed.
+         *
+         * @throws IllegalArgumentException if the tag was not requested.
+         */
+        public double getAttributeDouble(@NonNull String tag, double defaultValue) {
+            final double value = mDoubles[indexOf(tag)];
+            return Double.isNaN(value) ? defaultValue : value;
+        }
+
+        /**
+         * Returns the value of the specified tag as {@link ExifInterface#getAttributeInt} does.
+         *
+         * @throws IllegalArgumentException if the tag was not requested.
+         */
+        public int getAttributeInt(@NonNull String tag, int defaultValue) {
+            final long value = mInts[indexOf(tag)];
+            return value == NO_INT_VALUE ? defaultValue : (int) value;
+        }
+
+        private int indexOf(String tag) {
+            final Integer index = mIndices.get(tag);
+            if (index == null) {
+                throw new IllegalArgumentException("Tag was not requested: " + tag);
+            }
+            return index;
+        }
+    }
+}
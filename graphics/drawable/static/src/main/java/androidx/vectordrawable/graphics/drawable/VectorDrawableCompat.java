@@ -1685,6 +1685,9 @@ public class VectorDrawableCompat extends VectorDrawableCommon {
     private abstract static class VPath extends VObject {
         private static final int FILL_TYPE_WINDING = 0;
         protected PathParser.PathDataNode[] mNodes = null;
+        // The shared, immutable path data from inflation. Only turned into mNodes when the path
+        // data is animated, which avoids copying it for every instance of the drawable.
+        PathParser.PackedPathData mPackedData = null;
         String mPathName;
         // Default fill rule is winding, or as known as "non-zero".
         int mFillRule = FILL_TYPE_WINDING;
@@ -1700,7 +1703,7 @@ public class VectorDrawableCompat extends VectorDrawableCommon {
                 indent += "    ";
             }
             Log.v(LOGTAG, indent + "current path is :" + mPathName +
-                    " pathData is " + nodesToString(mNodes));
+                    " pathData is " + nodesToString(getPathData()));
 
         }
 
@@ -1720,12 +1723,15 @@ public class VectorDrawableCompat extends VectorDrawableCommon {
             mPathName = copy.mPathName;
             mChangingConfigurations = copy.mChangingConfigurations;
             mNodes = PathParser.deepCopyNodes(copy.mNodes);
+            mPackedData = copy.mPackedData;
         }
 
         public void toPath(Path path) {
             path.reset();
             if (mNodes != null) {
                 PathParser.PathDataNode.nodesToPath(mNodes, path);
+            } else if (mPackedData != null) {
+                mPackedData.toPath(path);
             }
         }
 
@@ -1747,12 +1753,15 @@ public class VectorDrawableCompat extends VectorDrawableCommon {
         /* Setters and Getters, used by animator from AnimatedVectorDrawable. */
         @SuppressWarnings("unused")
         public PathParser.PathDataNode[] getPathData() {
+            if (mNodes == null && mPackedData != null) {
+                mNodes = mPackedData.toNodes();
+            }
             return mNodes;
         }
 
         @SuppressWarnings("unused")
         public void setPathData(PathParser.PathDataNode[] nodes) {
-            if (!PathParser.canMorph(mNodes, nodes)) {
+            if (!PathParser.canMorph(getPathData(), nodes)) {
                 // This should not happen in the middle of animation.
                 mNodes = PathParser.deepCopyNodes(nodes);
             } else {
@@ -1798,7 +1807,8 @@ public class VectorDrawableCompat extends VectorDrawableCommon {
             final String pathData =
                     a.getString(AndroidResources.STYLEABLE_VECTOR_DRAWABLE_CLIP_PATH_PATH_DATA);
             if (pathData != null) {
-                mNodes = PathParser.createNodesFromPathData(pathData);
+                mNodes = null;
+                mPackedData = PathParser.getPackedPathData(pathData);
             }
             mFillRule = a.getInt(AndroidResources.STYLEABLE_VECTOR_DRAWABLE_CLIP_PATH_FILLTYPE,
                     mFillRule);
@@ -1919,7 +1929,8 @@ public class VectorDrawableCompat extends VectorDrawableCommon {
             final String pathData =
                     a.getString(AndroidResources.STYLEABLE_VECTOR_DRAWABLE_PATH_PATH_DATA);
             if (pathData != null) {
-                mNodes = PathParser.createNodesFromPathData(pathData);
+                mNodes = null;
+                mPackedData = PathParser.getPackedPathData(pathData);
             }
 
             mFillColor = TypedArrayUtils.getNamedComplexColor(a, parser, theme, "fillColor",
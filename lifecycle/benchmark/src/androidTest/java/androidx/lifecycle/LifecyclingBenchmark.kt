@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.lifecycle
+
+import androidx.benchmark.BenchmarkRule
+import androidx.test.filters.LargeTest
+import androidx.test.runner.AndroidJUnit4
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures adding observers to a resumed lifecycle and tearing them down again, as every
+ * Activity and Fragment does while starting up.
+ *
+ * Observers declared at the top level of this file get adapters from the generated
+ * BenchmarkAdapterIndex, local classes are invisible to the annotation processor so they always
+ * go through reflection. The `firstLookup` cases clear Lifecycling's process-wide caches before
+ * every observer, to measure the one-off lookup each observer class pays at startup, and the
+ * `byName` cases turn the index off, to look the generated adapters up by name instead.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class LifecyclingBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var registry: LifecycleRegistry
+
+    @Before
+    fun setup() {
+        val owner = object : LifecycleOwner {
+            override fun getLifecycle() = registry
+        }
+        registry = LifecycleRegistry(owner)
+        registry.handleLifecycleEvent(Lifecycle.Event.ON_RESUME)
+    }
+
+    @After
+    fun tearDown() {
+        Lifecycling.resetForTesting(true)
+    }
+
+    @Test
+    fun addObserver_indexedAdapter() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            val observer = IndexedObserver()
+            registry.addObserver(observer)
+            registry.removeObserver(observer)
+        }
+    }
+
+    @Test
+    fun addObserver_indexedAdapterWithParent() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            val observer = DerivedIndexedObserver()
+            registry.addObserver(observer)
+            registry.removeObserver(observer)
+        }
+    }
+
+    @Test
+    fun addObserver_byName() {
+        Lifecycling.resetForTesting(false)
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            val observer = IndexedObserver()
+            registry.addObserver(observer)
+            registry.removeObserver(observer)
+        }
+    }
+
+    @Test
+    fun addObserver_reflective() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            val observer = createReflectiveObserver()
+            registry.addObserver(observer)
+            registry.removeObserver(observer)
+        }
+    }
+
+    @Test
+    fun firstLookup_indexedAdapter() {
+        measureFirstLookup(true) { IndexedObserver() }
+    }
+
+    @Test
+    fun firstLookup_byName() {
+        measureFirstLookup(false) { IndexedObserver() }
+    }
+
+    @Test
+    fun firstLookup_reflective() {
+        measureFirstLookup(true) { createReflectiveObserver() }
+    }
+
+    private inline fun measureFirstLookup(
+        useIndexes: Boolean,
+        createObserver: () -> LifecycleObserver
+    ) {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            state.pauseTiming()
+            Lifecycling.resetForTesting(useIndexes)
+            state.resumeTiming()
+            val observer = createObserver()
+            registry.addObserver(observer)
+            registry.removeObserver(observer)
+        }
+    }
+
+    private fun createReflectiveObserver(): LifecycleObserver {
+        class ReflectiveObserver : LifecycleObserver {
+            var events = 0
+
+            @OnLifecycleEvent(Lifecycle.Event.ON_CREATE)
+            fun onCreate() {
+                events++
+            }
+
+            @OnLifecycleEvent(Lifecycle.Event.ON_START)
+            fun onStart() {
+                events++
+            }
+
+            @OnLifecycleEvent(Lifecycle.Event.ON_RESUME)
+            fun onResume() {
+                events++
+            }
+        }
+        return ReflectiveObserver()
+    }
+
+    @Test
+    fun indexedAdapterIsUsed() {
+        val observer = IndexedObserver()
+        registry.addObserver(observer)
+        assertEquals(3, observer.events)
+        assertTrue(Lifecycling.lifecycleEventObserver(observer)
+                is SingleGeneratedAdapterObserver)
+        registry.removeObserver(observer)
+    }
+}
+
+open class IndexedObserver : LifecycleObserver {
+    var events = 0
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_CREATE)
+    fun onCreate() {
+        events++
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_START)
+    fun onStart() {
+        events++
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_RESUME)
+    fun onResume() {
+        events++
+    }
+}
+
+class DerivedIndexedObserver : IndexedObserver()
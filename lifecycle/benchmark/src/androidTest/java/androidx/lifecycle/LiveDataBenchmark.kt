@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.lifecycle
+
+import androidx.benchmark.BenchmarkRule
+import androidx.test.InstrumentationRegistry
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures the round trip of posting a value from a worker thread to [liveDataCount] LiveData
+ * instances until every observer has received it on the main thread, as a screen updated by a
+ * high frequency producer would.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class LiveDataBenchmark(private val liveDataCount: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val instrumentation = InstrumentationRegistry.getInstrumentation()
+
+    private lateinit var liveDatas: List<MutableLiveData<Int>>
+
+    @Volatile
+    private var latch = CountDownLatch(0)
+
+    private val observer = Observer<Int> { latch.countDown() }
+
+    @Before
+    fun setup() {
+        liveDatas = List(liveDataCount) { MutableLiveData<Int>() }
+        instrumentation.runOnMainSync {
+            liveDatas.forEach { it.observeForever(observer) }
+        }
+    }
+
+    @After
+    fun tearDown() {
+        instrumentation.runOnMainSync {
+            liveDatas.forEach { it.removeObserver(observer) }
+        }
+    }
+
+    @Test
+    fun postValue() {
+        val state = benchmarkRule.state
+        var value = 0
+        while (state.keepRunning()) {
+            state.pauseTiming()
+            val tick = CountDownLatch(liveDataCount)
+            latch = tick
+            value++
+            state.resumeTiming()
+
+            liveDatas.forEach { it.postValue(value) }
+            assertTrue(tick.await(TIMEOUT_SECS, TimeUnit.SECONDS))
+        }
+    }
+
+    @Test
+    fun postValueOverwrite() {
+        // Several values per tick, only the last of which is dispatched.
+        val state = benchmarkRule.state
+        var value = 0
+        while (state.keepRunning()) {
+            state.pauseTiming()
+            val tick = CountDownLatch(liveDataCount)
+            latch = tick
+            state.resumeTiming()
+
+            repeat(POSTS_PER_TICK) {
+                value++
+                liveDatas.forEach { it.postValue(value) }
+            }
+            assertTrue(tick.await(TIMEOUT_SECS, TimeUnit.SECONDS))
+        }
+    }
+
+    companion object {
+        private const val TIMEOUT_SECS = 5L
+        private const val POSTS_PER_TICK = 10
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "liveDataCount={0}")
+        fun params() = listOf(1, 10, 50)
+    }
+}
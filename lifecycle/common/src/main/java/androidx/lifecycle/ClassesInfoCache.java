@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Reflection is expensive, so we cache information about methods
@@ -38,8 +39,10 @@ class ClassesInfoCache {
     private static final int CALL_TYPE_PROVIDER = 1;
     private static final int CALL_TYPE_PROVIDER_WITH_EVENT = 2;
 
-    private final Map<Class, CallbackInfo> mCallbackMap = new HashMap<>();
-    private final Map<Class, Boolean> mHasLifecycleMethods = new HashMap<>();
+    // Observers may be added from any thread, so the maps are concurrent. Creating the same info
+    // twice in a race is harmless, the last one wins.
+    private final Map<Class, CallbackInfo> mCallbackMap = new ConcurrentHashMap<>();
+    private final Map<Class, Boolean> mHasLifecycleMethods = new ConcurrentHashMap<>();
 
     boolean hasLifecycleMethods(Class klass) {
         Boolean hasLifecycleMethods = mHasLifecycleMethods.get(klass);
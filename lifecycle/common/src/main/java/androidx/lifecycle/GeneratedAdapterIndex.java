@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.lifecycle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * A per-module table of observer classes and their {@link GeneratedAdapter}s, generated by the
+ * lifecycle annotation processor when the {@code androidx.lifecycle.adapterIndex} option is set.
+ * <p>
+ * {@link Lifecycling} consults the indexes registered as services before looking for a generated
+ * adapter via reflection.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public interface GeneratedAdapterIndex {
+
+    /**
+     * Returns the observer classes which have a generated adapter in this index. The position of
+     * a class in the returned array is the id to pass to {@link #createAdapter(int, Object)}.
+     *
+     * @return The indexed observer classes
+     */
+    @NonNull
+    Class<?>[] getObserverClasses();
+
+    /**
+     * Creates the generated adapter for the observer class at the given position.
+     *
+     * @param id The position of the observer class in {@link #getObserverClasses()}
+     * @param receiver The observer, an instance of the class at the given position
+     * @return A new adapter wrapping the receiver
+     */
+    @NonNull
+    GeneratedAdapter createAdapter(int id, @NonNull Object receiver);
+}
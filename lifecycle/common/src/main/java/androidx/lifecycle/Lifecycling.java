@@ -19,6 +19,7 @@ package androidx.lifecycle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -27,6 +28,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Internal class to handle lifecycle conversion etc.
@@ -39,9 +43,13 @@ public class Lifecycling {
     private static final int REFLECTIVE_CALLBACK = 1;
     private static final int GENERATED_CALLBACK = 2;
 
-    private static Map<Class, Integer> sCallbackCache = new HashMap<>();
-    private static Map<Class, List<Constructor<? extends GeneratedAdapter>>> sClassToAdapters =
-            new HashMap<>();
+    // Observers may be added from any thread, so both caches must be safe for concurrent access.
+    // Racing threads may resolve the same class twice, which is harmless as the result is the same.
+    private static final Map<Class<?>, Integer> sCallbackCache = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, List<AdapterFactory>> sClassToAdapters =
+            new ConcurrentHashMap<>();
+    // Only turned off by benchmarks, to compare with looking adapters up by name
+    private static volatile boolean sUseIndexes = true;
 
     // Left for binary compatibility when lifecycle-common goes up 2.1 as transitive dep
     // but lifecycle-runtime stays 2.0
@@ -81,36 +89,20 @@ public class Lifecycling {
         final Class<?> klass = object.getClass();
         int type = getObserverConstructorType(klass);
         if (type == GENERATED_CALLBACK) {
-            List<Constructor<? extends GeneratedAdapter>> constructors =
-                    sClassToAdapters.get(klass);
-            if (constructors.size() == 1) {
-                GeneratedAdapter generatedAdapter = createGeneratedAdapter(
-                        constructors.get(0), object);
+            List<AdapterFactory> factories = sClassToAdapters.get(klass);
+            if (factories.size() == 1) {
+                GeneratedAdapter generatedAdapter = factories.get(0).create(object);
                 return new SingleGeneratedAdapterObserver(generatedAdapter);
             }
-            GeneratedAdapter[] adapters = new GeneratedAdapter[constructors.size()];
-            for (int i = 0; i < constructors.size(); i++) {
-                adapters[i] = createGeneratedAdapter(constructors.get(i), object);
+            GeneratedAdapter[] adapters = new GeneratedAdapter[factories.size()];
+            for (int i = 0; i < factories.size(); i++) {
+                adapters[i] = factories.get(i).create(object);
             }
             return new CompositeGeneratedAdaptersObserver(adapters);
         }
         return new ReflectiveGenericLifecycleObserver(object);
     }
 
-    private static GeneratedAdapter createGeneratedAdapter(
-            Constructor<? extends GeneratedAdapter> constructor, Object object) {
-        //noinspection TryWithIdenticalCatches
-        try {
-            return constructor.newInstance(object);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InstantiationException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     @Nullable
     private static Constructor<? extends GeneratedAdapter> generatedConstructor(Class<?> klass) {
         try {
@@ -137,6 +129,28 @@ public class Lifecycling {
         }
     }
 
+    /**
+     * Returns the factory of the indexed adapter for the given class, if any of the
+     * {@link GeneratedAdapterIndex}es shipped with the app know about it.
+     */
+    @Nullable
+    private static AdapterFactory indexedAdapter(Class<?> klass) {
+        return sUseIndexes ? IndexHolder.sIndexedAdapters.get(klass) : null;
+    }
+
+    /**
+     * Forgets the callback types resolved so far, so that benchmarks can measure the first lookup
+     * of a class again, and sets whether the generated adapter indexes are used for the next
+     * lookups.
+     */
+    @VisibleForTesting
+    static void resetForTesting(boolean useIndexes) {
+        sUseIndexes = useIndexes;
+        sCallbackCache.clear();
+        sClassToAdapters.clear();
+        ClassesInfoCache.sInstance = new ClassesInfoCache();
+    }
+
     private static int getObserverConstructorType(Class<?> klass) {
         Integer callbackCache = sCallbackCache.get(klass);
         if (callbackCache != null) {
@@ -153,10 +167,16 @@ public class Lifecycling {
             return REFLECTIVE_CALLBACK;
         }
 
+        AdapterFactory indexed = indexedAdapter(klass);
+        if (indexed != null) {
+            sClassToAdapters.put(klass, Collections.singletonList(indexed));
+            return GENERATED_CALLBACK;
+        }
+
         Constructor<? extends GeneratedAdapter> constructor = generatedConstructor(klass);
         if (constructor != null) {
-            sClassToAdapters.put(klass, Collections
-                    .<Constructor<? extends GeneratedAdapter>>singletonList(constructor));
+            sClassToAdapters.put(klass, Collections.<AdapterFactory>singletonList(
+                    new ConstructorAdapterFactory(constructor)));
             return GENERATED_CALLBACK;
         }
 
@@ -166,12 +186,12 @@ public class Lifecycling {
         }
 
         Class<?> superclass = klass.getSuperclass();
-        List<Constructor<? extends GeneratedAdapter>> adapterConstructors = null;
+        List<AdapterFactory> adapterFactories = null;
         if (isLifecycleParent(superclass)) {
             if (getObserverConstructorType(superclass) == REFLECTIVE_CALLBACK) {
                 return REFLECTIVE_CALLBACK;
             }
-            adapterConstructors = new ArrayList<>(sClassToAdapters.get(superclass));
+            adapterFactories = new ArrayList<>(sClassToAdapters.get(superclass));
         }
 
         for (Class<?> intrface : klass.getInterfaces()) {
@@ -181,13 +201,13 @@ public class Lifecycling {
             if (getObserverConstructorType(intrface) == REFLECTIVE_CALLBACK) {
                 return REFLECTIVE_CALLBACK;
             }
-            if (adapterConstructors == null) {
-                adapterConstructors = new ArrayList<>();
+            if (adapterFactories == null) {
+                adapterFactories = new ArrayList<>();
             }
-            adapterConstructors.addAll(sClassToAdapters.get(intrface));
+            adapterFactories.addAll(sClassToAdapters.get(intrface));
         }
-        if (adapterConstructors != null) {
-            sClassToAdapters.put(klass, adapterConstructors);
+        if (adapterFactories != null) {
+            sClassToAdapters.put(klass, adapterFactories);
             return GENERATED_CALLBACK;
         }
 
@@ -207,4 +227,78 @@ public class Lifecycling {
 
     private Lifecycling() {
     }
+
+    /**
+     * Creates a generated adapter for an observer.
+     */
+    private interface AdapterFactory {
+        GeneratedAdapter create(Object receiver);
+    }
+
+    /**
+     * Creates adapters through the constructor found by looking up the adapter class by name.
+     */
+    private static class ConstructorAdapterFactory implements AdapterFactory {
+        private final Constructor<? extends GeneratedAdapter> mConstructor;
+
+        ConstructorAdapterFactory(Constructor<? extends GeneratedAdapter> constructor) {
+            mConstructor = constructor;
+        }
+
+        @Override
+        public GeneratedAdapter create(Object receiver) {
+            //noinspection TryWithIdenticalCatches
+            try {
+                return mConstructor.newInstance(receiver);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            } catch (InstantiationException e) {
+                throw new RuntimeException(e);
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates adapters through a {@link GeneratedAdapterIndex}, without any reflection.
+     */
+    private static class IndexedAdapterFactory implements AdapterFactory {
+        private final GeneratedAdapterIndex mIndex;
+        private final int mId;
+
+        IndexedAdapterFactory(GeneratedAdapterIndex index, int id) {
+            mIndex = index;
+            mId = id;
+        }
+
+        @Override
+        public GeneratedAdapter create(Object receiver) {
+            return mIndex.createAdapter(mId, receiver);
+        }
+    }
+
+    /**
+     * Loads the {@link GeneratedAdapterIndex}es registered as services the first time an observer
+     * without a cached callback type is added.
+     */
+    private static class IndexHolder {
+        static final Map<Class<?>, AdapterFactory> sIndexedAdapters = loadIndexes();
+
+        private static Map<Class<?>, AdapterFactory> loadIndexes() {
+            Map<Class<?>, AdapterFactory> indexed = new HashMap<>();
+            try {
+                for (GeneratedAdapterIndex index : ServiceLoader.load(GeneratedAdapterIndex.class,
+                        GeneratedAdapterIndex.class.getClassLoader())) {
+                    Class<?>[] observerClasses = index.getObserverClasses();
+                    for (int id = 0; id < observerClasses.length; id++) {
+                        indexed.put(observerClasses[id], new IndexedAdapterFactory(index, id));
+                    }
+                }
+            } catch (ServiceConfigurationError e) {
+                // a broken index only costs us the reflective lookup of the observers it missed
+            }
+            return indexed;
+        }
+    }
 }
@@ -24,11 +24,13 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.observers.DerivedFromIndexedObserver;
 import androidx.lifecycle.observers.DerivedSequence1;
 import androidx.lifecycle.observers.DerivedSequence2;
 import androidx.lifecycle.observers.DerivedWithNewMethods;
 import androidx.lifecycle.observers.DerivedWithNoNewMethods;
 import androidx.lifecycle.observers.DerivedWithOverridenMethodsWithLfAnnotation;
+import androidx.lifecycle.observers.IndexedObserver;
 import androidx.lifecycle.observers.InterfaceImpl1;
 import androidx.lifecycle.observers.InterfaceImpl2;
 import androidx.lifecycle.observers.InterfaceImpl3;
@@ -86,6 +88,24 @@ public class LifecyclingTest {
         assertThat(callback1, instanceOf(SingleGeneratedAdapterObserver.class));
     }
 
+    @Test
+    public void testIndexedAdapter() {
+        IndexedObserver observer = new IndexedObserver();
+        LifecycleEventObserver callback = lifecycleEventObserver(observer);
+        assertThat(callback, instanceOf(SingleGeneratedAdapterObserver.class));
+        callback.onStateChanged(new DefaultLifecycleOwner(), Lifecycle.Event.ON_START);
+        assertThat(observer.mStartCount, is(1));
+    }
+
+    @Test
+    public void testDerivedFromIndexedAdapter() {
+        DerivedFromIndexedObserver observer = new DerivedFromIndexedObserver();
+        LifecycleEventObserver callback = lifecycleEventObserver(observer);
+        assertThat(callback, instanceOf(SingleGeneratedAdapterObserver.class));
+        callback.onStateChanged(new DefaultLifecycleOwner(), Lifecycle.Event.ON_START);
+        assertThat(observer.mStartCount, is(1));
+    }
+
     // MUST BE HERE TILL Lifecycle 3.0.0 release for back-compatibility with other modules
     @Test
     public void testDeprecatedGenericLifecycleObserver() {
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.lifecycle.observers;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.GeneratedAdapter;
+import androidx.lifecycle.GeneratedAdapterIndex;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.MethodCallsLogger;
+
+/**
+ * Stands in for an index generated by the lifecycle compiler, registered in
+ * META-INF/services. Its adapter doesn't follow the adapter naming scheme, so it can only be
+ * found through the index.
+ */
+public class TestAdapterIndex implements GeneratedAdapterIndex {
+
+    @NonNull
+    @Override
+    public Class<?>[] getObserverClasses() {
+        return new Class<?>[] {IndexedObserver.class};
+    }
+
+    @NonNull
+    @Override
+    public GeneratedAdapter createAdapter(int id, @NonNull Object receiver) {
+        switch (id) {
+            case 0: return new IndexedObserverAdapter((IndexedObserver) receiver);
+            default: throw new IllegalArgumentException("Unknown observer id " + id);
+        }
+    }
+
+    static class IndexedObserverAdapter implements GeneratedAdapter {
+        final IndexedObserver mReceiver;
+
+        IndexedObserverAdapter(IndexedObserver receiver) {
+            mReceiver = receiver;
+        }
+
+        @Override
+        public void callMethods(LifecycleOwner source, Lifecycle.Event event, boolean onAny,
+                MethodCallsLogger logger) {
+            if (!onAny && event == Lifecycle.Event.ON_START) {
+                mReceiver.onStart();
+            }
+        }
+    }
+}
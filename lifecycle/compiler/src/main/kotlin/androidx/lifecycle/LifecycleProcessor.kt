@@ -16,21 +16,75 @@
 
 package androidx.lifecycle
 
+import com.squareup.javapoet.ClassName
 import javax.annotation.processing.AbstractProcessor
 import javax.annotation.processing.RoundEnvironment
 import javax.annotation.processing.SupportedAnnotationTypes
+import javax.annotation.processing.SupportedOptions
 import javax.lang.model.SourceVersion
+import javax.lang.model.element.Modifier
+import javax.lang.model.element.PackageElement
 import javax.lang.model.element.TypeElement
 
+/**
+ * Fully qualified name of the [GeneratedAdapterIndex] to generate for this compilation. If it is
+ * not set, no index is generated.
+ */
+const val ADAPTER_INDEX_OPTION = "androidx.lifecycle.adapterIndex"
+
 @SupportedAnnotationTypes("androidx.lifecycle.OnLifecycleEvent")
+@SupportedOptions(ADAPTER_INDEX_OPTION)
 class LifecycleProcessor : AbstractProcessor() {
+    // index classes written in previous rounds, they are all registered in the last round
+    private val indexClasses = mutableListOf<String>()
+
     override fun process(annotations: MutableSet<out TypeElement>,
                          roundEnv: RoundEnvironment): Boolean {
         val input = collectAndVerifyInput(processingEnv, roundEnv)
-        writeModels(transformToOutput(processingEnv, input), processingEnv)
+        val adapters = transformToOutput(processingEnv, input)
+        writeModels(adapters, processingEnv)
+        val indexName = processingEnv.options[ADAPTER_INDEX_OPTION]
+        if (indexName != null) {
+            val indexPackage = indexName.substringBeforeLast('.', "")
+            val observers = adapters.map { it.type }
+                    .filter { isAccessibleFrom(it, indexPackage) }
+                    .map { ClassName.get(it) }
+            // Sources created in the last round aren't compiled, so each round indexes its own
+            // adapters. Observers are usually all found in the first round, later rounds only see
+            // observers generated by other processors.
+            if (observers.isNotEmpty()) {
+                val indexClass = if (indexClasses.isEmpty()) {
+                    indexName
+                } else {
+                    "$indexName${indexClasses.size + 1}"
+                }
+                writeIndex(indexClass, observers, processingEnv)
+                indexClasses.add(indexClass)
+            }
+            if (roundEnv.processingOver() && indexClasses.isNotEmpty()) {
+                writeIndexRegistration(indexClasses, processingEnv)
+            }
+        }
         return true
     }
 
+    private fun isAccessibleFrom(type: TypeElement, packageName: String): Boolean {
+        if (type.getPackageQName() == packageName) {
+            return true
+        }
+        var element = type
+        while (true) {
+            if (!element.modifiers.contains(Modifier.PUBLIC)) {
+                return false
+            }
+            val enclosing = element.enclosingElement
+            if (enclosing is PackageElement) {
+                return true
+            }
+            element = enclosing as TypeElement
+        }
+    }
+
     override fun getSupportedSourceVersion(): SourceVersion {
         return SourceVersion.latest()
     }
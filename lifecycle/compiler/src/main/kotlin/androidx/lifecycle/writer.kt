@@ -20,13 +20,17 @@ import androidx.lifecycle.model.AdapterClass
 import androidx.lifecycle.model.EventMethodCall
 import androidx.lifecycle.model.getAdapterName
 import com.squareup.javapoet.AnnotationSpec
+import com.squareup.javapoet.ArrayTypeName
 import com.squareup.javapoet.ClassName
+import com.squareup.javapoet.CodeBlock
 import com.squareup.javapoet.FieldSpec
 import com.squareup.javapoet.JavaFile
 import com.squareup.javapoet.MethodSpec
 import com.squareup.javapoet.ParameterSpec
+import com.squareup.javapoet.ParameterizedTypeName
 import com.squareup.javapoet.TypeName
 import com.squareup.javapoet.TypeSpec
+import com.squareup.javapoet.WildcardTypeName
 import javax.annotation.processing.ProcessingEnvironment
 import javax.lang.model.element.Modifier
 import javax.lang.model.element.TypeElement
@@ -49,6 +53,9 @@ private val OWNER_PARAM: ParameterSpec = ParameterSpec.builder(
         ClassName.get(LifecycleOwner::class.java), "owner").build()
 private val EVENT_PARAM: ParameterSpec = ParameterSpec.builder(
         ClassName.get(LIFECYCLE_EVENT), "event").build()
+private val CLASS_WILDCARD = ParameterizedTypeName.get(ClassName.get(Class::class.java),
+        WildcardTypeName.subtypeOf(Any::class.java))
+
 private val ON_ANY_PARAM: ParameterSpec = ParameterSpec.builder(TypeName.BOOLEAN, "onAny").build()
 
 private val METHODS_LOGGER: ParameterSpec = ParameterSpec.builder(
@@ -107,7 +114,9 @@ private fun writeAdapter(adapter: AdapterClass, processingEnv: ProcessingEnviron
         method.build()
     }
 
+    // public, so that an adapter index in another package can create it
     val constructor = MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PUBLIC)
             .addParameter(receiverParam)
             .addStatement("this.$N = $N", receiverField, receiverParam)
             .build()
@@ -129,6 +138,82 @@ private fun writeAdapter(adapter: AdapterClass, processingEnv: ProcessingEnviron
     generateKeepRule(adapter.type, processingEnv)
 }
 
+/**
+ * Writes a [GeneratedAdapterIndex] for the given adapters, which Lifecycling discovers as a
+ * service instead of looking adapters up by name, once [writeIndexRegistration] registers it.
+ *
+ * Only observers which the index class can access are included, the other ones keep using the
+ * reflective lookup.
+ */
+fun writeIndex(indexName: String, observers: List<ClassName>, processingEnv: ProcessingEnvironment) {
+    val indexClassName = ClassName.bestGuess(indexName)
+    val sorted = observers.distinct().sortedBy { it.reflectionName() }
+
+    val getObserverClasses = MethodSpec.methodBuilder("getObserverClasses")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override::class.java)
+            .returns(ArrayTypeName.of(CLASS_WILDCARD))
+            .addStatement("return new $T[] {$L}", CLASS_WILDCARD, CodeBlock.builder().apply {
+                sorted.forEachIndexed { id, observer ->
+                    add(if (id == 0) "$T.class" else ", $T.class", observer)
+                }
+            }.build())
+            .build()
+
+    val idParam = ParameterSpec.builder(TypeName.INT, "id").build()
+    val receiverParam = ParameterSpec.builder(TypeName.OBJECT, "receiver").build()
+    val createAdapter = MethodSpec.methodBuilder("createAdapter")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override::class.java)
+            .returns(ClassName.get(GeneratedAdapter::class.java))
+            .addParameter(idParam)
+            .addParameter(receiverParam)
+            .apply {
+                beginControlFlow("switch ($N)", idParam)
+                sorted.forEachIndexed { id, observer ->
+                    val adapter = ClassName.get(observer.packageName(),
+                            Lifecycling.getAdapterName(observer.simpleNames().joinToString(".")))
+                    addStatement("case $L: return new $T(($T) $N)", id, adapter, observer,
+                            receiverParam)
+                }
+                addStatement("default: throw new $T($S + $N)",
+                        IllegalArgumentException::class.java, "Unknown observer id ", idParam)
+                endControlFlow()
+            }
+            .build()
+
+    val indexTypeSpecBuilder = TypeSpec.classBuilder(indexClassName)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addSuperinterface(ClassName.get(GeneratedAdapterIndex::class.java))
+            .addMethod(getObserverClasses)
+            .addMethod(createAdapter)
+
+    addGeneratedAnnotationIfAvailable(indexTypeSpecBuilder, processingEnv)
+
+    JavaFile.builder(indexClassName.packageName(), indexTypeSpecBuilder.build())
+            .build().writeTo(processingEnv.filer)
+}
+
+/**
+ * Registers the given [GeneratedAdapterIndex] classes as services, and keeps them. Unlike sources,
+ * these resources can be written in the last round.
+ */
+fun writeIndexRegistration(indexNames: List<String>, processingEnv: ProcessingEnvironment) {
+    val serviceFile = "META-INF/services/${GeneratedAdapterIndex::class.java.name}"
+    processingEnv.filer.createResource(StandardLocation.CLASS_OUTPUT, "", serviceFile)
+            .openWriter().use { writer -> indexNames.forEach { writer.write("$it\n") } }
+
+    indexNames.forEach { indexName ->
+        val keepRule = """# Generated keep rule for the Lifecycle adapter index.
+            |-keep class $indexName {
+            |    <init>();
+            |}
+            |""".trimMargin()
+        processingEnv.filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+                "META-INF/proguard/$indexName.pro").openWriter().use { it.write(keepRule) }
+    }
+}
+
 private fun addGeneratedAnnotationIfAvailable(adapterTypeSpecBuilder: TypeSpec.Builder,
                                               processingEnv: ProcessingEnvironment) {
     val generatedAnnotationAvailable = processingEnv
@@ -112,6 +112,30 @@ class ValidCasesTest {
                 .and().generatesProGuardRule("bar.DifferentPackagesDerived2.pro")
     }
 
+    @Test
+    fun testAdapterIndex() {
+        JavaSourcesSubject.assertThat(load("foo.InterfaceOk2", ""))
+                .withCompilerOptions("-A$ADAPTER_INDEX_OPTION=foo.LifecycleAdapterIndex")
+                .processedWith(LifecycleProcessor())
+                // no "created in the last round" warning, which breaks builds with -Werror
+                .compilesWithoutWarnings().and().generatesSources(
+                        load("foo.LifecycleAdapterIndex", "expected")
+                )
+                .and().generatesProGuardRule("foo.LifecycleAdapterIndex.pro")
+                .and().generatesFileNamed(StandardLocation.CLASS_OUTPUT, "",
+                        "META-INF/services/androidx.lifecycle.GeneratedAdapterIndex")
+    }
+
+    @Test
+    fun testAdapterIndexSkipsInaccessibleObservers() {
+        // the observers are package private in foo, so an index in bar can't reference them
+        val compileTester = JavaSourcesSubject.assertThat(load("foo.InterfaceOk2", ""))
+                .withCompilerOptions("-A$ADAPTER_INDEX_OPTION=bar.LifecycleAdapterIndex")
+                .processedWith(LifecycleProcessor())
+                .compilesWithoutError()
+        doesntGenerateClass(compileTester, "bar", "LifecycleAdapterIndex")
+    }
+
     private fun <T> CompileTester.GeneratedPredicateClause<T>.generatesProGuardRule(name: String):
             CompileTester.SuccessfulFileClause<T> {
         return generatesFileNamed(StandardLocation.CLASS_OUTPUT, "", "META-INF/proguard/$name")
@@ -28,7 +28,7 @@ import test.library.LibraryBaseObserver_LifecycleAdapter;
 public class DerivedFromJar_LifecycleAdapter implements GeneratedAdapter {
   final DerivedFromJar mReceiver;
 
-  DerivedFromJar_LifecycleAdapter(DerivedFromJar receiver) {
+  public DerivedFromJar_LifecycleAdapter(DerivedFromJar receiver) {
     this.mReceiver = receiver;
   }
 
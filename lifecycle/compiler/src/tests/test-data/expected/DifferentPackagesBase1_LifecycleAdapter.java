@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class DifferentPackagesBase1_LifecycleAdapter implements GeneratedAdapter {
   final DifferentPackagesBase1 mReceiver;
 
-  DifferentPackagesBase1_LifecycleAdapter(DifferentPackagesBase1 receiver) {
+  public DifferentPackagesBase1_LifecycleAdapter(DifferentPackagesBase1 receiver) {
     this.mReceiver = receiver;
   }
 
@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class DifferentPackagesBase2_LifecycleAdapter implements GeneratedAdapter {
   final DifferentPackagesBase2 mReceiver;
 
-  DifferentPackagesBase2_LifecycleAdapter(DifferentPackagesBase2 receiver) {
+  public DifferentPackagesBase2_LifecycleAdapter(DifferentPackagesBase2 receiver) {
     this.mReceiver = receiver;
   }
 
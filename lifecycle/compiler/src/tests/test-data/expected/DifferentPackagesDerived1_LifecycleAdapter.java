@@ -28,7 +28,7 @@ import javax.annotation.Generated;
 public class DifferentPackagesDerived1_LifecycleAdapter implements GeneratedAdapter {
   final DifferentPackagesDerived1 mReceiver;
 
-  DifferentPackagesDerived1_LifecycleAdapter(DifferentPackagesDerived1 receiver) {
+  public DifferentPackagesDerived1_LifecycleAdapter(DifferentPackagesDerived1 receiver) {
     this.mReceiver = receiver;
   }
 
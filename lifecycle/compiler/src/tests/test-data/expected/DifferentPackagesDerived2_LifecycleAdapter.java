@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class DifferentPackagesDerived2_LifecycleAdapter implements GeneratedAdapter {
   final DifferentPackagesDerived2 mReceiver;
 
-  DifferentPackagesDerived2_LifecycleAdapter(DifferentPackagesDerived2 receiver) {
+  public DifferentPackagesDerived2_LifecycleAdapter(DifferentPackagesDerived2 receiver) {
     this.mReceiver = receiver;
   }
 
@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class InheritanceOk2Base_LifecycleAdapter implements GeneratedAdapter {
   final InheritanceOk2Base mReceiver;
 
-  InheritanceOk2Base_LifecycleAdapter(InheritanceOk2Base receiver) {
+  public InheritanceOk2Base_LifecycleAdapter(InheritanceOk2Base receiver) {
     this.mReceiver = receiver;
   }
 
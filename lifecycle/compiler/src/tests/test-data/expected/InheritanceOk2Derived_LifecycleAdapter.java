@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class InheritanceOk2Derived_LifecycleAdapter implements GeneratedAdapter {
   final InheritanceOk2Derived mReceiver;
 
-  InheritanceOk2Derived_LifecycleAdapter(InheritanceOk2Derived receiver) {
+  public InheritanceOk2Derived_LifecycleAdapter(InheritanceOk2Derived receiver) {
     this.mReceiver = receiver;
   }
 
@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class InheritanceOk3Base_LifecycleAdapter implements GeneratedAdapter {
   final InheritanceOk3Base mReceiver;
 
-  InheritanceOk3Base_LifecycleAdapter(InheritanceOk3Base receiver) {
+  public InheritanceOk3Base_LifecycleAdapter(InheritanceOk3Base receiver) {
     this.mReceiver = receiver;
   }
 
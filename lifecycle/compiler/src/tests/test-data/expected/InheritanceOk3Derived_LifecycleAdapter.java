@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class InheritanceOk3Derived_LifecycleAdapter implements GeneratedAdapter {
   final InheritanceOk3Derived mReceiver;
 
-  InheritanceOk3Derived_LifecycleAdapter(InheritanceOk3Derived receiver) {
+  public InheritanceOk3Derived_LifecycleAdapter(InheritanceOk3Derived receiver) {
     this.mReceiver = receiver;
   }
 
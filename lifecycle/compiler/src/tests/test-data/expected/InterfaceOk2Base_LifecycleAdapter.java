@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class InterfaceOk2Base_LifecycleAdapter implements GeneratedAdapter {
   final InterfaceOk2Base mReceiver;
 
-  InterfaceOk2Base_LifecycleAdapter(InterfaceOk2Base receiver) {
+  public InterfaceOk2Base_LifecycleAdapter(InterfaceOk2Base receiver) {
     this.mReceiver = receiver;
   }
 
@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class InterfaceOk2Derived_LifecycleAdapter implements GeneratedAdapter {
   final InterfaceOk2Derived mReceiver;
 
-  InterfaceOk2Derived_LifecycleAdapter(InterfaceOk2Derived receiver) {
+  public InterfaceOk2Derived_LifecycleAdapter(InterfaceOk2Derived receiver) {
     this.mReceiver = receiver;
   }
 
@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class InterfaceOk2Interface_LifecycleAdapter implements GeneratedAdapter {
   final InterfaceOk2Interface mReceiver;
 
-  InterfaceOk2Interface_LifecycleAdapter(InterfaceOk2Interface receiver) {
+  public InterfaceOk2Interface_LifecycleAdapter(InterfaceOk2Interface receiver) {
     this.mReceiver = receiver;
   }
 
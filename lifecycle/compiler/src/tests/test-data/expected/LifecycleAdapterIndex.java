@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package foo;
+
+import androidx.lifecycle.GeneratedAdapter;
+import androidx.lifecycle.GeneratedAdapterIndex;
+import java.lang.Class;
+import java.lang.IllegalArgumentException;
+import java.lang.Object;
+import java.lang.Override;
+import javax.annotation.Generated;
+
+@Generated("androidx.lifecycle.LifecycleProcessor")
+public final class LifecycleAdapterIndex implements GeneratedAdapterIndex {
+  @Override
+  public Class<?>[] getObserverClasses() {
+    return new Class<?>[] {InterfaceOk2Base.class, InterfaceOk2Derived.class, InterfaceOk2Interface.class};
+  }
+
+  @Override
+  public GeneratedAdapter createAdapter(int id, Object receiver) {
+    switch (id) {
+      case 0: return new InterfaceOk2Base_LifecycleAdapter((InterfaceOk2Base) receiver);
+      case 1: return new InterfaceOk2Derived_LifecycleAdapter((InterfaceOk2Derived) receiver);
+      case 2: return new InterfaceOk2Interface_LifecycleAdapter((InterfaceOk2Interface) receiver);
+      default: throw new IllegalArgumentException("Unknown observer id " + id);
+    }
+  }
+}
@@ -27,7 +27,7 @@ import javax.annotation.Generated;
 public class OnAnyMethod_LifecycleAdapter implements GeneratedAdapter {
   final OnAnyMethod mReceiver;
 
-  OnAnyMethod_LifecycleAdapter(OnAnyMethod receiver) {
+  public OnAnyMethod_LifecycleAdapter(OnAnyMethod receiver) {
     this.mReceiver = receiver;
   }
 
@@ -27,6 +27,7 @@ import androidx.arch.core.internal.SafeIterableMap;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * LiveData is a data holder class that can be observed within a given lifecycle.
@@ -57,8 +58,6 @@ import java.util.Map;
  * @see ViewModel
  */
 public abstract class LiveData<T> {
-    @SuppressWarnings("WeakerAccess") /* synthetic access */
-    final Object mDataLock = new Object();
     static final int START_VERSION = -1;
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     static final Object NOT_SET = new Object();
@@ -71,9 +70,9 @@ public abstract class LiveData<T> {
     int mActiveCount = 0;
     private volatile Object mData;
     // when setData is called, we set the pending data and actual data swap happens on the main
-    // thread
+    // thread. Swapped atomically so that postValue never blocks on the main thread.
     @SuppressWarnings("WeakerAccess") /* synthetic access */
-    volatile Object mPendingData = NOT_SET;
+    final AtomicReference<Object> mPendingData = new AtomicReference<>(NOT_SET);
     private int mVersion;
 
     private boolean mDispatchingValue;
@@ -82,11 +81,7 @@ public abstract class LiveData<T> {
     private final Runnable mPostValueRunnable = new Runnable() {
         @Override
         public void run() {
-            Object newValue;
-            synchronized (mDataLock) {
-                newValue = mPendingData;
-                mPendingData = NOT_SET;
-            }
+            Object newValue = mPendingData.getAndSet(NOT_SET);
             //noinspection unchecked
             setValue((T) newValue);
         }
@@ -276,19 +271,20 @@ public abstract class LiveData<T> {
      * <p>
      * If you called this method multiple times before a main thread executed a posted task, only
      * the last value would be dispatched.
+     * <p>
+     * Values posted to different LiveData instances before the main thread gets to them are
+     * dispatched together, in a single main thread message. Tasks posted to the main thread by
+     * other means, such as a {@link android.os.Handler}, are not part of that message: a value
+     * posted after such a task may be dispatched before it runs.
      *
      * @param value The new value
      */
     protected void postValue(T value) {
-        boolean postTask;
-        synchronized (mDataLock) {
-            postTask = mPendingData == NOT_SET;
-            mPendingData = value;
-        }
+        boolean postTask = mPendingData.getAndSet(value) == NOT_SET;
         if (!postTask) {
             return;
         }
-        ArchTaskExecutor.getInstance().postToMainThread(mPostValueRunnable);
+        ArchTaskExecutor.getInstance().postToMainThreadBatched(mPostValueRunnable);
     }
 
     /**
@@ -37,8 +37,10 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
 
 import org.junit.After;
@@ -51,6 +53,10 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 @SuppressWarnings({"unchecked"})
 @RunWith(JUnit4.class)
 public class LiveDataTest {
@@ -811,6 +817,137 @@ public class LiveDataTest {
         verify(observer).onChanged("foo");
     }
 
+    @Test
+    public void postValue_batchedIntoSingleMainThreadMessage() {
+        final List<Runnable> mainThreadQueue = queueMainThreadTasks();
+
+        mRegistry.handleLifecycleEvent(ON_START);
+        List<MutableLiveData<String>> liveDatas = new ArrayList<>();
+        List<Observer<String>> observers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            MutableLiveData<String> liveData = new MutableLiveData<>();
+            Observer<String> observer = (Observer<String>) mock(Observer.class);
+            liveData.observe(mOwner, observer);
+            liveDatas.add(liveData);
+            observers.add(observer);
+        }
+
+        for (MutableLiveData<String> liveData : liveDatas) {
+            liveData.postValue("a");
+            liveData.postValue("b");
+        }
+        assertThat(mainThreadQueue.size(), is(1));
+
+        mainThreadQueue.remove(0).run();
+        for (Observer<String> observer : observers) {
+            verify(observer, only()).onChanged("b");
+        }
+
+        // once drained, the next post schedules a new message
+        liveDatas.get(0).postValue("c");
+        assertThat(mainThreadQueue.size(), is(1));
+        mainThreadQueue.remove(0).run();
+        verify(observers.get(0)).onChanged("c");
+    }
+
+    @Test
+    public void postValue_keepsOrderWithMainThreadPosts() {
+        final List<Runnable> mainThreadQueue = queueMainThreadTasks();
+        final List<String> dispatched = new ArrayList<>();
+        Observer<String> recorder = new Observer<String>() {
+            @Override
+            public void onChanged(@Nullable String value) {
+                dispatched.add(value);
+            }
+        };
+        mRegistry.handleLifecycleEvent(ON_START);
+        MutableLiveData<String> first = new MutableLiveData<>();
+        MutableLiveData<String> second = new MutableLiveData<>();
+        first.observe(mOwner, recorder);
+        second.observe(mOwner, recorder);
+
+        first.postValue("a");
+        ArchTaskExecutor.getInstance().postToMainThread(new Runnable() {
+            @Override
+            public void run() {
+                dispatched.add("task");
+            }
+        });
+        second.postValue("b");
+        first.postValue("c");
+
+        assertThat(mainThreadQueue.size(), is(3));
+        while (!mainThreadQueue.isEmpty()) {
+            mainThreadQueue.remove(0).run();
+        }
+        // "a" was replaced by "c" before being dispatched, so "c" runs in the first batch
+        assertThat(dispatched, is(Arrays.asList("c", "task", "b")));
+    }
+
+    @Test
+    public void postValue_fromObserverGoesToNextBatch() {
+        final List<Runnable> mainThreadQueue = queueMainThreadTasks();
+        mRegistry.handleLifecycleEvent(ON_START);
+        final MutableLiveData<String> other = new MutableLiveData<>();
+        Observer<String> otherObserver = (Observer<String>) mock(Observer.class);
+        other.observe(mOwner, otherObserver);
+        MutableLiveData<String> liveData = new MutableLiveData<>();
+        liveData.observe(mOwner, new Observer<String>() {
+            @Override
+            public void onChanged(@Nullable String value) {
+                other.postValue(value);
+            }
+        });
+
+        liveData.postValue("a");
+        mainThreadQueue.remove(0).run();
+        verify(otherObserver, never()).onChanged(anyString());
+        assertThat(mainThreadQueue.size(), is(1));
+        mainThreadQueue.remove(0).run();
+        verify(otherObserver).onChanged("a");
+    }
+
+    @Test
+    public void postValue_handedOverToNewDelegate() {
+        queueMainThreadTasks();
+        mRegistry.handleLifecycleEvent(ON_START);
+        MutableLiveData<String> liveData = new MutableLiveData<>();
+        Observer<String> observer = (Observer<String>) mock(Observer.class);
+        liveData.observe(mOwner, observer);
+        liveData.postValue("a");
+
+        // the old delegate never runs its queue
+        List<Runnable> newQueue = queueMainThreadTasks();
+        assertThat(newQueue.size(), is(1));
+        newQueue.remove(0).run();
+        verify(observer).onChanged("a");
+    }
+
+    /**
+     * Sets an ArchTaskExecutor delegate which queues main thread tasks in the returned list,
+     * instead of running them.
+     */
+    private static List<Runnable> queueMainThreadTasks() {
+        final List<Runnable> mainThreadQueue = new ArrayList<>();
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void postToMainThread(@NonNull Runnable runnable) {
+                mainThreadQueue.add(runnable);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return true;
+            }
+        });
+        return mainThreadQueue;
+    }
+
     private LifecycleEventObserver getLiveDataInternalObserver(Lifecycle lifecycle) {
         ArgumentCaptor<LifecycleEventObserver> captor =
                 ArgumentCaptor.forClass(LifecycleEventObserver.class);
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.localbroadcastmanager.content;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@SuppressWarnings("deprecation")
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class LocalBroadcastManagerTest {
+    // Tests delivering to main thread receivers run on the main thread, so that the pending
+    // broadcasts are only run by sendBroadcastSync.
+    private static final String ACTION = "androidx.localbroadcastmanager.test.ACTION";
+    private static final String OTHER_ACTION = "androidx.localbroadcastmanager.test.OTHER";
+    private static final String CATEGORY = "androidx.localbroadcastmanager.test.CATEGORY";
+
+    private LocalBroadcastManager mManager;
+    // Names of the receivers in the order they got broadcasts
+    private final List<String> mReceived = Collections.synchronizedList(new ArrayList<String>());
+    private final List<BroadcastReceiver> mRegistered = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mManager = LocalBroadcastManager.getInstance(InstrumentationRegistry.getContext());
+    }
+
+    @After
+    public void tearDown() {
+        for (BroadcastReceiver receiver : mRegistered) {
+            mManager.unregisterReceiver(receiver);
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    public void sendBroadcastSync_matchesActions() {
+        register("first", new IntentFilter(ACTION));
+        register("other", new IntentFilter(OTHER_ACTION));
+        IntentFilter bothFilter = new IntentFilter(ACTION);
+        bothFilter.addAction(OTHER_ACTION);
+        register("both", bothFilter);
+
+        mManager.sendBroadcastSync(new Intent(ACTION));
+        assertReceived("first", "both");
+        mManager.sendBroadcastSync(new Intent(OTHER_ACTION));
+        assertReceived("other", "both");
+    }
+
+    @Test
+    public void sendBroadcast_noReceivers() {
+        assertFalse(mManager.sendBroadcast(new Intent(ACTION)));
+        // an intent without action never matches
+        register("first", new IntentFilter(ACTION));
+        assertFalse(mManager.sendBroadcast(new Intent()));
+    }
+
+    @Test
+    @UiThreadTest
+    public void sendBroadcastSync_matchesSchemesInRegistrationOrder() {
+        register("noScheme", new IntentFilter(ACTION));
+        register("http", filterWithScheme("http"));
+        register("https", filterWithScheme("https"));
+        register("noScheme2", new IntentFilter(ACTION));
+        IntentFilter bothSchemes = filterWithScheme("http");
+        bothSchemes.addDataScheme("https");
+        register("bothSchemes", bothSchemes);
+
+        mManager.sendBroadcastSync(new Intent(ACTION));
+        assertReceived("noScheme", "noScheme2");
+        mManager.sendBroadcastSync(new Intent(ACTION, Uri.parse("http://example.com")));
+        assertReceived("http", "bothSchemes");
+        mManager.sendBroadcastSync(new Intent(ACTION, Uri.parse("https://example.com")));
+        assertReceived("https", "bothSchemes");
+        assertFalse(mManager.sendBroadcast(new Intent(ACTION, Uri.parse("ftp://example.com"))));
+    }
+
+    @Test
+    @UiThreadTest
+    public void sendBroadcastSync_matchesCategories() {
+        register("none", new IntentFilter(ACTION));
+        IntentFilter categoryFilter = new IntentFilter(ACTION);
+        categoryFilter.addCategory(CATEGORY);
+        register("category", categoryFilter);
+
+        mManager.sendBroadcastSync(new Intent(ACTION));
+        assertReceived("none", "category");
+        Intent intent = new Intent(ACTION);
+        intent.addCategory(CATEGORY);
+        mManager.sendBroadcastSync(intent);
+        assertReceived("category");
+    }
+
+    @Test
+    @UiThreadTest
+    public void unregisterReceiver_removesFromActionIndex() {
+        BroadcastReceiver first = register("first", new IntentFilter(ACTION));
+        IntentFilter bothFilter = new IntentFilter(ACTION);
+        bothFilter.addAction(OTHER_ACTION);
+        BroadcastReceiver both = register("both", bothFilter);
+
+        mManager.unregisterReceiver(first);
+        mManager.sendBroadcastSync(new Intent(ACTION));
+        assertReceived("both");
+
+        mManager.unregisterReceiver(both);
+        assertFalse(mManager.sendBroadcast(new Intent(ACTION)));
+        assertFalse(mManager.sendBroadcast(new Intent(OTHER_ACTION)));
+    }
+
+    @Test
+    @UiThreadTest
+    public void unregisterReceiver_duringSend() {
+        final BroadcastReceiver second = createReceiver("second");
+        register(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                mReceived.add("first");
+                mManager.unregisterReceiver(second);
+            }
+        }, new IntentFilter(ACTION));
+        register(second, new IntentFilter(ACTION));
+
+        mManager.sendBroadcastSync(new Intent(ACTION));
+        assertReceived("first");
+    }
+
+    @Test
+    @UiThreadTest
+    public void unregisterReceiver_beforeDelivery() {
+        BroadcastReceiver first = register("first", new IntentFilter(ACTION));
+        register("second", new IntentFilter(ACTION));
+        register("other", new IntentFilter(OTHER_ACTION));
+
+        // the main thread is busy with the test, so the broadcast stays pending
+        assertTrue(mManager.sendBroadcast(new Intent(ACTION)));
+        mManager.unregisterReceiver(first);
+        mManager.sendBroadcastSync(new Intent(OTHER_ACTION));
+        assertReceived("second", "other");
+    }
+
+    @Test
+    @UiThreadTest
+    public void registerReceiver_executor() {
+        QueueExecutor executor = new QueueExecutor();
+        register("main", new IntentFilter(ACTION));
+        register("executor", new IntentFilter(ACTION), executor);
+        register("executor2", new IntentFilter(ACTION), executor);
+
+        assertTrue(mManager.sendBroadcast(new Intent(ACTION)));
+        // a single task for all the receivers using the executor, handed over right away
+        assertEquals(1, executor.mTasks.size());
+        executor.runAll();
+        assertReceived("executor", "executor2");
+        // while the main thread receivers wait for the main thread
+        register("other", new IntentFilter(OTHER_ACTION));
+        mManager.sendBroadcastSync(new Intent(OTHER_ACTION));
+        assertReceived("main", "other");
+    }
+
+    @Test
+    public void registerReceiver_executorOnly() {
+        QueueExecutor executor = new QueueExecutor();
+        register("executor", new IntentFilter(ACTION), executor);
+
+        mManager.sendBroadcastSync(new Intent(ACTION));
+        assertEquals(1, executor.mTasks.size());
+        assertReceived();
+        executor.runAll();
+        assertReceived("executor");
+    }
+
+    @Test
+    public void registerReceiver_separateExecutors() {
+        QueueExecutor executor = new QueueExecutor();
+        QueueExecutor otherExecutor = new QueueExecutor();
+        register("executor", new IntentFilter(ACTION), executor);
+        register("other", new IntentFilter(ACTION), otherExecutor);
+
+        mManager.sendBroadcast(new Intent(ACTION));
+        assertEquals(1, executor.mTasks.size());
+        assertEquals(1, otherExecutor.mTasks.size());
+        otherExecutor.runAll();
+        assertReceived("other");
+        executor.runAll();
+        assertReceived("executor");
+    }
+
+    @Test
+    public void registerReceiver_executorUnregisteredBeforeRun() {
+        QueueExecutor executor = new QueueExecutor();
+        BroadcastReceiver receiver = register("executor", new IntentFilter(ACTION), executor);
+
+        mManager.sendBroadcast(new Intent(ACTION));
+        mManager.unregisterReceiver(receiver);
+        executor.runAll();
+        assertReceived();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void registerReceiver_nullExecutor() {
+        mManager.registerReceiver(createReceiver("receiver"), new IntentFilter(ACTION), null);
+    }
+
+    private static IntentFilter filterWithScheme(String scheme) {
+        IntentFilter filter = new IntentFilter(ACTION);
+        filter.addDataScheme(scheme);
+        return filter;
+    }
+
+    private BroadcastReceiver createReceiver(final String name) {
+        return new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                mReceived.add(name);
+            }
+        };
+    }
+
+    private BroadcastReceiver register(String name, IntentFilter filter) {
+        return register(createReceiver(name), filter);
+    }
+
+    private BroadcastReceiver register(BroadcastReceiver receiver, IntentFilter filter) {
+        mManager.registerReceiver(receiver, filter);
+        mRegistered.add(receiver);
+        return receiver;
+    }
+
+    private BroadcastReceiver register(String name, IntentFilter filter, Executor executor) {
+        BroadcastReceiver receiver = createReceiver(name);
+        mManager.registerReceiver(receiver, filter, executor);
+        mRegistered.add(receiver);
+        return receiver;
+    }
+
+    private void assertReceived(String... names) {
+        assertEquals(Arrays.asList(names), new ArrayList<>(mReceived));
+        mReceived.clear();
+    }
+
+    private static class QueueExecutor implements Executor {
+        final List<Runnable> mTasks = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mTasks.add(command);
+        }
+
+        void runAll() {
+            while (!mTasks.isEmpty()) {
+                mTasks.remove(0).run();
+            }
+        }
+    }
+}
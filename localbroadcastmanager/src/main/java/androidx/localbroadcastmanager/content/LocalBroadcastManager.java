@@ -28,8 +28,13 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Helper to register for and send broadcasts of Intents to local objects
@@ -55,12 +60,24 @@ public final class LocalBroadcastManager {
     private static final class ReceiverRecord {
         final IntentFilter filter;
         final BroadcastReceiver receiver;
-        boolean broadcasting;
-        boolean dead;
+        // Null to deliver broadcasts on the main thread.
+        final Executor executor;
+        // Receivers get a broadcast in the order they were registered.
+        final long order;
+        final long categoryMask;
+        volatile boolean dead;
 
-        ReceiverRecord(IntentFilter _filter, BroadcastReceiver _receiver) {
+        ReceiverRecord(IntentFilter _filter, BroadcastReceiver _receiver, Executor _executor,
+                long _order) {
             filter = _filter;
             receiver = _receiver;
+            executor = _executor;
+            order = _order;
+            long mask = 0;
+            for (int i=0; i<_filter.countCategories(); i++) {
+                mask |= categoryBit(_filter.getCategory(i));
+            }
+            categoryMask = mask;
         }
 
         @Override
@@ -78,14 +95,74 @@ public final class LocalBroadcastManager {
         }
     }
 
-    private static final class BroadcastRecord {
+    private static final class BroadcastRecord implements Runnable {
+        final Context context;
         final Intent intent;
         final ArrayList<ReceiverRecord> receivers;
 
-        BroadcastRecord(Intent _intent, ArrayList<ReceiverRecord> _receivers) {
+        BroadcastRecord(Context _context, Intent _intent, ArrayList<ReceiverRecord> _receivers) {
+            context = _context;
             intent = _intent;
             receivers = _receivers;
         }
+
+        @Override
+        public void run() {
+            final int nbr = receivers.size();
+            for (int j=0; j<nbr; j++) {
+                final ReceiverRecord rec = receivers.get(j);
+                if (!rec.dead) {
+                    rec.receiver.onReceive(context, intent);
+                }
+            }
+        }
+    }
+
+    /**
+     * The receivers of an action, split by the data schemes of their filters so a broadcast is
+     * only matched against the filters which can accept its scheme. Never modified once built.
+     */
+    private static final class ActionRecords {
+        private static final ReceiverRecord[] EMPTY = new ReceiverRecord[0];
+
+        // Filters without schemes can still match intents with or without data.
+        final ReceiverRecord[] noScheme;
+        final HashMap<String, ReceiverRecord[]> byScheme = new HashMap<>();
+
+        ActionRecords(ArrayList<ReceiverRecord> records) {
+            ArrayList<ReceiverRecord> noSchemeList = new ArrayList<>();
+            HashMap<String, ArrayList<ReceiverRecord>> bySchemeLists = new HashMap<>();
+            for (int i=0; i<records.size(); i++) {
+                ReceiverRecord record = records.get(i);
+                int schemes = record.filter.countDataSchemes();
+                if (schemes == 0) {
+                    addOnce(noSchemeList, record);
+                }
+                for (int j=0; j<schemes; j++) {
+                    String scheme = record.filter.getDataScheme(j);
+                    ArrayList<ReceiverRecord> list = bySchemeLists.get(scheme);
+                    if (list == null) {
+                        list = new ArrayList<>(1);
+                        bySchemeLists.put(scheme, list);
+                    }
+                    addOnce(list, record);
+                }
+            }
+            noScheme = noSchemeList.toArray(EMPTY);
+            for (String scheme : bySchemeLists.keySet()) {
+                byScheme.put(scheme, bySchemeLists.get(scheme).toArray(EMPTY));
+            }
+        }
+
+        /**
+         * Adds the record unless it was just added, for filters listing an action or a scheme
+         * more than once.
+         */
+        private static void addOnce(ArrayList<ReceiverRecord> list, ReceiverRecord record) {
+            if (list.isEmpty() || list.get(list.size() - 1) != record) {
+                list.add(record);
+            }
+        }
     }
 
     private static final String TAG = "LocalBroadcastManager";
@@ -93,11 +170,20 @@ public final class LocalBroadcastManager {
 
     private final Context mAppContext;
 
+    // Guards the registrations. Broadcasts are sent without it, from mActionRecords.
     private final HashMap<BroadcastReceiver, ArrayList<ReceiverRecord>> mReceivers
             = new HashMap<>();
     private final HashMap<String, ArrayList<ReceiverRecord>> mActions = new HashMap<>();
+    private long mNextOrder;
+
+    // The ActionRecords of an action are replaced rather than modified when its receivers are
+    // registered and unregistered, leaving those of other actions alone.
+    private final ConcurrentHashMap<String, ActionRecords> mActionRecords =
+            new ConcurrentHashMap<>();
 
-    private final ArrayList<BroadcastRecord> mPendingBroadcasts = new ArrayList<>();
+    private final ConcurrentLinkedQueue<BroadcastRecord> mPendingBroadcasts =
+            new ConcurrentLinkedQueue<>();
+    final AtomicBoolean mPendingBroadcastsScheduled = new AtomicBoolean();
 
     static final int MSG_EXEC_PENDING_BROADCASTS = 1;
 
@@ -124,6 +210,7 @@ public final class LocalBroadcastManager {
             public void handleMessage(Message msg) {
                 switch (msg.what) {
                     case MSG_EXEC_PENDING_BROADCASTS:
+                        mPendingBroadcastsScheduled.set(false);
                         executePendingBroadcasts();
                         break;
                     default:
@@ -143,14 +230,39 @@ public final class LocalBroadcastManager {
      */
     public void registerReceiver(@NonNull BroadcastReceiver receiver,
             @NonNull IntentFilter filter) {
+        register(receiver, filter, null);
+    }
+
+    /**
+     * Register a receive for any local broadcasts that match the given IntentFilter, to be
+     * delivered on the given Executor rather than on the main thread. Broadcasts are delivered
+     * to the executor as soon as they are sent, including by {@link #sendBroadcastSync}, with a
+     * single task for all the receivers of a broadcast registered with the same executor.
+     *
+     * @param receiver The BroadcastReceiver to handle the broadcast.
+     * @param filter Selects the Intent broadcasts to be received.
+     * @param executor The Executor to call the receiver on.
+     *
+     * @see #unregisterReceiver
+     */
+    public void registerReceiver(@NonNull BroadcastReceiver receiver,
+            @NonNull IntentFilter filter, @NonNull Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor cannot be null");
+        }
+        register(receiver, filter, executor);
+    }
+
+    private void register(BroadcastReceiver receiver, IntentFilter filter, Executor executor) {
         synchronized (mReceivers) {
-            ReceiverRecord entry = new ReceiverRecord(filter, receiver);
+            ReceiverRecord entry = new ReceiverRecord(filter, receiver, executor, mNextOrder++);
             ArrayList<ReceiverRecord> filters = mReceivers.get(receiver);
             if (filters == null) {
                 filters = new ArrayList<>(1);
                 mReceivers.put(receiver, filters);
             }
             filters.add(entry);
+            ArrayList<String> actions = new ArrayList<>(filter.countActions());
             for (int i=0; i<filter.countActions(); i++) {
                 String action = filter.getAction(i);
                 ArrayList<ReceiverRecord> entries = mActions.get(action);
@@ -159,7 +271,9 @@ public final class LocalBroadcastManager {
                     mActions.put(action, entries);
                 }
                 entries.add(entry);
+                actions.add(action);
             }
+            updateActionRecords(actions);
         }
     }
 
@@ -178,6 +292,7 @@ public final class LocalBroadcastManager {
             if (filters == null) {
                 return;
             }
+            final ArrayList<String> actions = new ArrayList<>();
             for (int i=filters.size()-1; i>=0; i--) {
                 final ReceiverRecord filter = filters.get(i);
                 filter.dead = true;
@@ -195,9 +310,30 @@ public final class LocalBroadcastManager {
                         if (receivers.size() <= 0) {
                             mActions.remove(action);
                         }
+                        actions.add(action);
                     }
                 }
             }
+            updateActionRecords(actions);
+        }
+    }
+
+    /**
+     * Publishes the receivers of the given actions to senders. Called with mReceivers held.
+     */
+    private void updateActionRecords(ArrayList<String> actions) {
+        for (int i=0; i<actions.size(); i++) {
+            final String action = actions.get(i);
+            if (actions.indexOf(action) < i) {
+                // already updated
+                continue;
+            }
+            final ArrayList<ReceiverRecord> entries = mActions.get(action);
+            if (entries != null) {
+                mActionRecords.put(action, new ActionRecords(entries));
+            } else {
+                mActionRecords.remove(action);
+            }
         }
     }
 
@@ -216,74 +352,146 @@ public final class LocalBroadcastManager {
      * receivers is unregistered before it is dispatched.)
      */
     public boolean sendBroadcast(@NonNull Intent intent) {
-        synchronized (mReceivers) {
-            final String action = intent.getAction();
-            final String type = intent.resolveTypeIfNeeded(
-                    mAppContext.getContentResolver());
-            final Uri data = intent.getData();
-            final String scheme = intent.getScheme();
-            final Set<String> categories = intent.getCategories();
-
-            final boolean debug = DEBUG ||
-                    ((intent.getFlags() & Intent.FLAG_DEBUG_LOG_RESOLUTION) != 0);
-            if (debug) Log.v(
-                    TAG, "Resolving type " + type + " scheme " + scheme
+        final String action = intent.getAction();
+        final Uri data = intent.getData();
+        final String scheme = intent.getScheme();
+        final Set<String> categories = intent.getCategories();
+
+        final boolean debug = DEBUG ||
+                ((intent.getFlags() & Intent.FLAG_DEBUG_LOG_RESOLUTION) != 0);
+        String type = null;
+        boolean typeResolved = false;
+        if (debug) {
+            type = intent.resolveTypeIfNeeded(mAppContext.getContentResolver());
+            typeResolved = true;
+            Log.v(TAG, "Resolving type " + type + " scheme " + scheme
                     + " of intent " + intent);
+        }
 
-            ArrayList<ReceiverRecord> entries = mActions.get(intent.getAction());
-            if (entries != null) {
-                if (debug) Log.v(TAG, "Action list: " + entries);
+        // Filters always have actions, so an intent without one matches none of them.
+        final ActionRecords entries = action != null ? mActionRecords.get(action) : null;
+        if (entries == null) {
+            return false;
+        }
+        // Only filters without schemes and filters with the scheme of the intent can match.
+        final ReceiverRecord[] noScheme = entries.noScheme;
+        ReceiverRecord[] withScheme = entries.byScheme.get(scheme != null ? scheme : "");
+        if (withScheme == null) {
+            withScheme = ActionRecords.EMPTY;
+        }
+        if (debug) {
+            Log.v(TAG, "Action list: " + Arrays.toString(noScheme)
+                    + " scheme list: " + Arrays.toString(withScheme));
+        }
 
-                ArrayList<ReceiverRecord> receivers = null;
-                for (int i=0; i<entries.size(); i++) {
-                    ReceiverRecord receiver = entries.get(i);
-                    if (debug) Log.v(TAG, "Matching against filter " + receiver.filter);
+        long categoryMask = 0;
+        if (categories != null) {
+            for (String category : categories) {
+                categoryMask |= categoryBit(category);
+            }
+        }
 
-                    if (receiver.broadcasting) {
-                        if (debug) {
-                            Log.v(TAG, "  Filter's target already added");
-                        }
-                        continue;
-                    }
+        ArrayList<ReceiverRecord> receivers = null;
+        int i = 0;
+        int j = 0;
+        while (i < noScheme.length || j < withScheme.length) {
+            // Merge both lists in registration order
+            final ReceiverRecord receiver;
+            if (j >= withScheme.length
+                    || (i < noScheme.length && noScheme[i].order < withScheme[j].order)) {
+                receiver = noScheme[i++];
+            } else {
+                receiver = withScheme[j++];
+            }
+            if (debug) Log.v(TAG, "Matching against filter " + receiver.filter);
 
-                    int match = receiver.filter.match(action, type, scheme, data,
-                            categories, "LocalBroadcastManager");
-                    if (match >= 0) {
-                        if (debug) Log.v(TAG, "  Filter matched!  match=0x" +
-                                Integer.toHexString(match));
-                        if (receivers == null) {
-                            receivers = new ArrayList<ReceiverRecord>();
-                        }
-                        receivers.add(receiver);
-                        receiver.broadcasting = true;
-                    } else {
-                        if (debug) {
-                            String reason;
-                            switch (match) {
-                                case IntentFilter.NO_MATCH_ACTION: reason = "action"; break;
-                                case IntentFilter.NO_MATCH_CATEGORY: reason = "category"; break;
-                                case IntentFilter.NO_MATCH_DATA: reason = "data"; break;
-                                case IntentFilter.NO_MATCH_TYPE: reason = "type"; break;
-                                default: reason = "unknown reason"; break;
-                            }
-                            Log.v(TAG, "  Filter did not match: " + reason);
-                        }
+            if ((categoryMask & ~receiver.categoryMask) != 0) {
+                // The filter lacks at least one of the categories of the intent
+                if (debug) Log.v(TAG, "  Filter did not match: category");
+                continue;
+            }
+            if (!typeResolved) {
+                type = intent.resolveTypeIfNeeded(mAppContext.getContentResolver());
+                typeResolved = true;
+            }
+
+            int match = receiver.filter.match(action, type, scheme, data,
+                    categories, "LocalBroadcastManager");
+            if (match >= 0) {
+                if (debug) Log.v(TAG, "  Filter matched!  match=0x" +
+                        Integer.toHexString(match));
+                if (receivers == null) {
+                    receivers = new ArrayList<ReceiverRecord>();
+                }
+                receivers.add(receiver);
+            } else {
+                if (debug) {
+                    String reason;
+                    switch (match) {
+                        case IntentFilter.NO_MATCH_ACTION: reason = "action"; break;
+                        case IntentFilter.NO_MATCH_CATEGORY: reason = "category"; break;
+                        case IntentFilter.NO_MATCH_DATA: reason = "data"; break;
+                        case IntentFilter.NO_MATCH_TYPE: reason = "type"; break;
+                        default: reason = "unknown reason"; break;
                     }
+                    Log.v(TAG, "  Filter did not match: " + reason);
                 }
+            }
+        }
 
-                if (receivers != null) {
-                    for (int i=0; i<receivers.size(); i++) {
-                        receivers.get(i).broadcasting = false;
-                    }
-                    mPendingBroadcasts.add(new BroadcastRecord(intent, receivers));
-                    if (!mHandler.hasMessages(MSG_EXEC_PENDING_BROADCASTS)) {
-                        mHandler.sendEmptyMessage(MSG_EXEC_PENDING_BROADCASTS);
+        if (receivers != null) {
+            scheduleBroadcast(intent, receivers);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Queues the broadcast for the receivers on the main thread and hands it to the executors of
+     * the other receivers, one task per executor.
+     */
+    private void scheduleBroadcast(Intent intent, ArrayList<ReceiverRecord> receivers) {
+        ArrayList<ReceiverRecord> mainReceivers = null;
+        ArrayList<ReceiverRecord> executorReceivers = null;
+        for (int i=0; i<receivers.size(); i++) {
+            final ReceiverRecord receiver = receivers.get(i);
+            if (receiver.executor == null) {
+                if (mainReceivers == null) {
+                    mainReceivers = new ArrayList<>(receivers.size());
+                }
+                mainReceivers.add(receiver);
+            } else {
+                if (executorReceivers == null) {
+                    executorReceivers = new ArrayList<>();
+                }
+                executorReceivers.add(receiver);
+            }
+        }
+
+        if (mainReceivers != null) {
+            mPendingBroadcasts.add(new BroadcastRecord(mAppContext, intent, mainReceivers));
+            if (mPendingBroadcastsScheduled.compareAndSet(false, true)) {
+                mHandler.sendEmptyMessage(MSG_EXEC_PENDING_BROADCASTS);
+            }
+        }
+        while (executorReceivers != null) {
+            final Executor executor = executorReceivers.get(0).executor;
+            final ArrayList<ReceiverRecord> batch = new ArrayList<>();
+            ArrayList<ReceiverRecord> others = null;
+            for (int i=0; i<executorReceivers.size(); i++) {
+                final ReceiverRecord receiver = executorReceivers.get(i);
+                if (receiver.executor == executor) {
+                    batch.add(receiver);
+                } else {
+                    if (others == null) {
+                        others = new ArrayList<>();
                     }
-                    return true;
+                    others.add(receiver);
                 }
             }
+            executor.execute(new BroadcastRecord(mAppContext, intent, batch));
+            executorReceivers = others;
         }
-        return false;
     }
 
     /**
@@ -299,27 +507,17 @@ public final class LocalBroadcastManager {
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     void executePendingBroadcasts() {
-        while (true) {
-            final BroadcastRecord[] brs;
-            synchronized (mReceivers) {
-                final int N = mPendingBroadcasts.size();
-                if (N <= 0) {
-                    return;
-                }
-                brs = new BroadcastRecord[N];
-                mPendingBroadcasts.toArray(brs);
-                mPendingBroadcasts.clear();
-            }
-            for (int i=0; i<brs.length; i++) {
-                final BroadcastRecord br = brs[i];
-                final int nbr = br.receivers.size();
-                for (int j=0; j<nbr; j++) {
-                    final ReceiverRecord rec = br.receivers.get(j);
-                    if (!rec.dead) {
-                        rec.receiver.onReceive(mAppContext, br.intent);
-                    }
-                }
-            }
+        BroadcastRecord br;
+        while ((br = mPendingBroadcasts.poll()) != null) {
+            br.run();
         }
     }
+
+    /**
+     * Returns the bit standing for the category in the masks of categories, which tell that a
+     * filter doesn't match an intent without calling {@link IntentFilter#match}.
+     */
+    static long categoryBit(String category) {
+        return 1L << (category.hashCode() & 63);
+    }
 }
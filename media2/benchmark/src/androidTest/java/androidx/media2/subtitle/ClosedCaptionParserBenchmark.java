@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2.subtitle;
+
+import android.text.SpannableStringBuilder;
+import android.view.accessibility.CaptioningManager.CaptionStyle;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays roll-up CEA-608 and CEA-708 caption streams through their parsers, one frame of caption
+ * data per update at 60Hz.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class ClosedCaptionParserBenchmark {
+    private static final String[] LINES = new String[] {
+            "THE QUICK BROWN FOX JUMPS OVER", "THE LAZY DOG, AGAIN AND AGAIN,",
+            "WHILE THE CAPTIONS ROLL UP ONE", "LINE AT A TIME, 30 CHARACTERS."};
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void cea608At60Hz() {
+        final List<byte[]> frames = createCea608Frames();
+        final Cea608CCParser parser = new Cea608CCParser(new Cea608CCParser.DisplayListener() {
+            @Override
+            public void onDisplayChanged(SpannableStringBuilder[] styledTexts) {
+            }
+
+            @Override
+            public CaptionStyle getCaptionStyle() {
+                return CaptionStyle.DEFAULT;
+            }
+        });
+        final BenchmarkState state = mBenchmarkRule.getState();
+        int frame = 0;
+        while (state.keepRunning()) {
+            parser.parse(frames.get(frame));
+            frame = (frame + 1) % frames.size();
+        }
+    }
+
+    @Test
+    public void cea708At60Hz() {
+        final List<byte[]> frames = createCea708Frames();
+        final Cea708CCParser parser = new Cea708CCParser(new Cea708CCParser.DisplayListener() {
+            @Override
+            public void emitEvent(Cea708CCParser.CaptionEvent event) {
+            }
+        });
+        final BenchmarkState state = mBenchmarkRule.getState();
+        int frame = 0;
+        while (state.keepRunning()) {
+            parser.parse(frames.get(frame));
+            frame = (frame + 1) % frames.size();
+        }
+    }
+
+    // Each frame carries one CEA-608 byte pair, with control codes sent twice
+    private static List<byte[]> createCea608Frames() {
+        List<byte[]> frames = new ArrayList<>();
+        for (String line : LINES) {
+            // Roll-up of 3 rows, carriage return, and PAC to row 15
+            addCea608Frame(frames, 0x14, 0x26);
+            addCea608Frame(frames, 0x14, 0x26);
+            addCea608Frame(frames, 0x14, 0x2d);
+            addCea608Frame(frames, 0x14, 0x2d);
+            addCea608Frame(frames, 0x14, 0x60);
+            addCea608Frame(frames, 0x14, 0x60);
+            // Italics mid-row code
+            addCea608Frame(frames, 0x11, 0x2e);
+            for (int i = 0; i < line.length(); i += 2) {
+                addCea608Frame(frames, line.charAt(i), line.charAt(i + 1));
+            }
+        }
+        return frames;
+    }
+
+    private static void addCea608Frame(List<byte[]> frames, int data1, int data2) {
+        frames.add(new byte[] {(byte) 0xfc, (byte) data1, (byte) data2});
+    }
+
+    // Each frame carries a command or two characters of a CEA-708 service block
+    private static List<byte[]> createCea708Frames() {
+        List<byte[]> frames = new ArrayList<>();
+        int row = 0;
+        for (String line : LINES) {
+            // SetPenLocation and SetPenColor
+            frames.add(new byte[] {(byte) 0x92, (byte) row, 0x00});
+            frames.add(new byte[] {(byte) 0x91, 0x3f, 0x00, 0x00});
+            for (int i = 0; i < line.length(); i += 2) {
+                frames.add(new byte[] {(byte) line.charAt(i), (byte) line.charAt(i + 1)});
+            }
+            // Carriage return and end of text
+            frames.add(new byte[] {0x0d, 0x03});
+            row = (row + 1) % 15;
+        }
+        return frames;
+    }
+}
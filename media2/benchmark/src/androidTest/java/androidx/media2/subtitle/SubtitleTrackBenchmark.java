@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2.subtitle;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+/**
+ * Measures updating the active cues of a {@link SubtitleTrack} holding two hours of dense cues,
+ * at the 60Hz rate of the display, while playing and while seeking on every update.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class SubtitleTrackBenchmark {
+    // A cue starts every half second and lasts two seconds, for two hours
+    private static final int CUE_COUNT = 2 * 60 * 60 * 2;
+    private static final long CUE_INTERVAL_MS = 500;
+    private static final long CUE_DURATION_MS = 2000;
+    private static final long DURATION_MS = CUE_COUNT * CUE_INTERVAL_MS;
+    // The time between two updates at 60Hz
+    private static final long FRAME_TIME_MS = 16;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    TestSubtitleTrack mTrack;
+
+    @Before
+    public void setUp() {
+        // SubtitleTrack creates a Handler, so it must be created on a Looper thread
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mTrack = new TestSubtitleTrack();
+            }
+        });
+        for (int i = 0; i < CUE_COUNT; i++) {
+            SubtitleTrack.Cue cue = new SubtitleTrack.Cue();
+            cue.mStartTimeMs = i * CUE_INTERVAL_MS;
+            cue.mEndTimeMs = cue.mStartTimeMs + CUE_DURATION_MS;
+            // Keep the cues until the track is released, so that every pass finds them
+            cue.mRunID = ~0;
+            mTrack.addCue(cue);
+        }
+    }
+
+    @Test
+    public void playAt60Hz() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        long timeMs = 0;
+        while (state.keepRunning()) {
+            timeMs = (timeMs + FRAME_TIME_MS) % DURATION_MS;
+            mTrack.updateActiveCues(false, timeMs);
+        }
+    }
+
+    @Test
+    public void seekAt60Hz() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        long timeMs = 0;
+        while (state.keepRunning()) {
+            // Scrub back and forth through the whole track
+            timeMs = (timeMs + DURATION_MS / 2 + FRAME_TIME_MS) % DURATION_MS;
+            mTrack.updateActiveCues(true, timeMs);
+        }
+    }
+
+    static class TestSubtitleTrack extends SubtitleTrack {
+        TestSubtitleTrack() {
+            super(null);
+        }
+
+        @Override
+        protected void onData(byte[] data, boolean eos, long runID) {
+        }
+
+        @Override
+        public RenderingWidget getRenderingWidget() {
+            return null;
+        }
+
+        @Override
+        public void updateView(ArrayList<Cue> activeCues) {
+        }
+    }
+}
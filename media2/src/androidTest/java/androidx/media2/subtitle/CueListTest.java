@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.media2.subtitle;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link SubtitleTrack.CueList} against a plain list of the cues it should hold.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class CueListTest {
+    private static final int OPERATION_COUNT = 5000;
+    private static final long MAX_TIME_MS = 10000;
+
+    private final SubtitleTrack.CueList mCueList = new SubtitleTrack.CueList();
+    // The cues in the order they were added, which is also their order for equal start times
+    private final List<SubtitleTrack.Cue> mExpectedCues = new ArrayList<>();
+
+    @Test
+    public void testFindCuesAt() {
+        SubtitleTrack.Cue first = addCue(100, 300, 0);
+        SubtitleTrack.Cue second = addCue(200, 400, 1);
+        SubtitleTrack.Cue third = addCue(100, 200, 0);
+
+        assertCuesAt(99);
+        assertCuesAt(100, first, third);
+        assertCuesAt(200, first, second);
+        assertCuesAt(300, second);
+        assertCuesAt(400);
+    }
+
+    @Test
+    public void testRemoveCuesEndedBy() {
+        addCue(100, 300, 0);
+        SubtitleTrack.Cue inRun = addCue(100, 200, 1);
+        SubtitleTrack.Cue later = addCue(200, 400, 0);
+
+        mCueList.removeCuesEndedBy(300);
+        mExpectedCues.remove(0);
+        assertEquals(2, mCueList.checkTree());
+        assertCuesAt(150, inRun);
+        assertCuesAt(300, later);
+    }
+
+    @Test
+    public void testAddTwice() {
+        SubtitleTrack.Cue cue = addCue(100, 200, 0);
+        // a cue which is in the list already is not added again
+        mCueList.add(cue);
+
+        assertEquals(1, mCueList.checkTree());
+        assertCuesAt(100, cue);
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(0);
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 5 || mExpectedCues.isEmpty()) {
+                long startTimeMs = random.nextInt((int) MAX_TIME_MS);
+                long durationMs = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(1000);
+                addCue(startTimeMs, startTimeMs + durationMs, random.nextInt(3));
+            } else if (operation < 7) {
+                SubtitleTrack.Cue cue = mExpectedCues.remove(random.nextInt(mExpectedCues.size()));
+                mCueList.remove(cue);
+            } else if (operation < 8) {
+                long timeMs = random.nextInt((int) MAX_TIME_MS);
+                mCueList.removeCuesEndedBy(timeMs);
+                Iterator<SubtitleTrack.Cue> iterator = mExpectedCues.iterator();
+                while (iterator.hasNext()) {
+                    SubtitleTrack.Cue cue = iterator.next();
+                    if (cue.mRunID == 0 && cue.mEndTimeMs <= timeMs) {
+                        iterator.remove();
+                    }
+                }
+            } else {
+                // seek
+                assertCuesAt(random.nextInt((int) MAX_TIME_MS));
+            }
+            assertEquals(mExpectedCues.size(), mCueList.checkTree());
+        }
+    }
+
+    @Test
+    public void testSequentialCuesStayBalanced() {
+        // cues of a track arrive in start order, the worst case of an unbalanced tree
+        for (int i = 0; i < 1000; i++) {
+            addCue(i * 10, i * 10 + 25, 0);
+            assertEquals(i + 1, mCueList.checkTree());
+        }
+        for (long timeMs = 0; timeMs < 10000; timeMs += 7) {
+            assertCuesAt(timeMs);
+        }
+        mCueList.removeCuesEndedBy(5000);
+        for (int i = mExpectedCues.size() - 1; i >= 0; i--) {
+            if (mExpectedCues.get(i).mEndTimeMs <= 5000) {
+                mExpectedCues.remove(i);
+            }
+        }
+        assertEquals(mExpectedCues.size(), mCueList.checkTree());
+        assertCuesAt(5000);
+    }
+
+    private SubtitleTrack.Cue addCue(long startTimeMs, long endTimeMs, long runId) {
+        SubtitleTrack.Cue cue = new SubtitleTrack.Cue();
+        cue.mStartTimeMs = startTimeMs;
+        cue.mEndTimeMs = endTimeMs;
+        cue.mRunID = runId;
+        mCueList.add(cue);
+        // cues without a duration are ignored
+        if (startTimeMs < endTimeMs) {
+            mExpectedCues.add(cue);
+        }
+        return cue;
+    }
+
+    private void assertCuesAt(long timeMs, SubtitleTrack.Cue... cues) {
+        List<SubtitleTrack.Cue> expected = new ArrayList<>();
+        for (SubtitleTrack.Cue cue : cues) {
+            expected.add(cue);
+        }
+        assertEquals(expected, findCuesAt(timeMs));
+        assertCuesAt(timeMs);
+    }
+
+    private void assertCuesAt(long timeMs) {
+        List<SubtitleTrack.Cue> expected = new ArrayList<>();
+        for (SubtitleTrack.Cue cue : mExpectedCues) {
+            if (cue.mStartTimeMs <= timeMs && cue.mEndTimeMs > timeMs) {
+                expected.add(cue);
+            }
+        }
+        // the sort is stable, so cues starting at the same time stay in the order they were added
+        Collections.sort(expected, new Comparator<SubtitleTrack.Cue>() {
+            @Override
+            public int compare(SubtitleTrack.Cue cue1, SubtitleTrack.Cue cue2) {
+                return Long.compare(cue1.mStartTimeMs, cue2.mStartTimeMs);
+            }
+        });
+        assertEquals(expected, findCuesAt(timeMs));
+    }
+
+    private List<SubtitleTrack.Cue> findCuesAt(long timeMs) {
+        ArrayList<SubtitleTrack.Cue> cues = new ArrayList<>();
+        mCueList.findCuesAt(timeMs, cues);
+        return cues;
+    }
+}
@@ -83,26 +83,31 @@ class Cea608CCParser {
     private CCMemory mNonDisplay = new CCMemory();
     private CCMemory mTextMem = new CCMemory();
 
+    // reused for every byte pair, as neither is kept once the pair is handled
+    private final CCData mCCData = new CCData();
+    private final StringBuilder mDisplayText = new StringBuilder(2);
+
     Cea608CCParser(DisplayListener listener) {
         mListener = listener;
     }
 
     public void parse(byte[] data) {
-        CCData[] ccData = CCData.fromByteArray(data);
+        CCData ccData = mCCData;
 
-        for (int i = 0; i < ccData.length; i++) {
+        for (int i = 0; i + 2 < data.length; i += 3) {
+            ccData.set(data[i], data[i + 1], data[i + 2]);
             if (DEBUG) {
-                Log.d(TAG, ccData[i].toString());
+                Log.d(TAG, ccData.toString());
             }
 
-            if (handleCtrlCode(ccData[i])
-                    || handleTabOffsets(ccData[i])
-                    || handlePACCode(ccData[i])
-                    || handleMidRowCode(ccData[i])) {
+            if (handleCtrlCode(ccData)
+                    || handleTabOffsets(ccData)
+                    || handlePACCode(ccData)
+                    || handleMidRowCode(ccData)) {
                 continue;
             }
 
-            handleDisplayableChars(ccData[i]);
+            handleDisplayableChars(ccData);
         }
     }
 
@@ -139,7 +144,9 @@ class Cea608CCParser {
             getMemory().bs();
         }
 
-        getMemory().writeText(ccData.getDisplayText());
+        mDisplayText.setLength(0);
+        ccData.appendDisplayText(mDisplayText);
+        getMemory().writeText(mDisplayText);
 
         if (mMode == MODE_PAINT_ON || mMode == MODE_ROLL_UP) {
             updateDisplay();
@@ -296,10 +303,23 @@ class Cea608CCParser {
             "WHITE", "GREEN", "BLUE", "CYAN", "RED", "YELLOW", "MAGENTA", "INVALID"
         };
 
+        // the mid-row codes, indexed by the low 4 bits of their second byte
+        private static final StyleCode[] sMidRowCodes = new StyleCode[16];
+
         final int mStyle;
         final int mColor;
 
         static StyleCode fromByte(byte data2) {
+            // style codes are immutable, so each mid-row code is only created once
+            StyleCode styleCode = sMidRowCodes[data2 & 0xf];
+            if (styleCode == null) {
+                styleCode = create(data2);
+                sMidRowCodes[data2 & 0xf] = styleCode;
+            }
+            return styleCode;
+        }
+
+        private static StyleCode create(byte data2) {
             int style = 0;
             int color = (data2 >> 1) & 0x7;
 
@@ -351,12 +371,25 @@ class Cea608CCParser {
     }
 
     private static class PAC extends StyleCode {
+        private static final int[] sRowTable = {11, 1, 3, 12, 14, 5, 7, 9};
+        // the PACs, indexed by the low 3 bits of their first byte and 6 bits of their second
+        private static final PAC[] sPACs = new PAC[8 * 64];
+
         final int mRow;
         final int mCol;
 
         static PAC fromBytes(byte data1, byte data2) {
-            int[] rowTable = {11, 1, 3, 12, 14, 5, 7, 9};
-            int row = rowTable[data1 & 0x07] + ((data2 & 0x20) >> 5);
+            int index = ((data1 & 0x07) << 6) | (data2 & 0x3f);
+            PAC pac = sPACs[index];
+            if (pac == null) {
+                pac = create(data1, data2);
+                sPACs[index] = pac;
+            }
+            return pac;
+        }
+
+        private static PAC create(byte data1, byte data2) {
+            int row = sRowTable[data1 & 0x07] + ((data2 & 0x20) >> 5);
             int style = 0;
             if ((data2 & 1) != 0) {
                 style |= STYLE_UNDERLINE;
@@ -431,12 +464,22 @@ class Cea608CCParser {
     /* CCLineBuilder keeps track of displayable chars, as well as
      * MidRow styles and PACs, for a single line of CC memory.
      *
-     * It generates styled text via getStyledText() method.
+     * It generates styled text via getStyledText() method, which is
+     * only rebuilt after the line changes, reusing the spans of the
+     * previous styled text.
      */
     private static class CCLineBuilder {
+        private static final int SPAN_ITALICS = 0;
+        private static final int SPAN_UNDERLINE = 1;
+        private static final int SPAN_BACKGROUND = 2;
+
         private final StringBuilder mDisplayChars;
         private final StyleCode[] mMidRowStyles;
         private final StyleCode[] mPACStyles;
+        private SpannableStringBuilder mStyledText;
+        private int mStyledTextBackgroundColor;
+        private final ArrayList<CharacterStyle> mSpans = new ArrayList<>();
+        private int mSpanCount;
 
         CCLineBuilder(String str) {
             mDisplayChars = new StringBuilder(str);
@@ -447,15 +490,18 @@ class Cea608CCParser {
         void setCharAt(int index, char ch) {
             mDisplayChars.setCharAt(index, ch);
             mMidRowStyles[index] = null;
+            mStyledText = null;
         }
 
         void setMidRowAt(int index, StyleCode m) {
             mDisplayChars.setCharAt(index, ' ');
             mMidRowStyles[index] = m;
+            mStyledText = null;
         }
 
         void setPACAt(int index, PAC pac) {
             mPACStyles[index] = pac;
+            mStyledText = null;
         }
 
         char charAt(int index) {
@@ -471,18 +517,66 @@ class Cea608CCParser {
                 StyleCode s, int start, int end) {
             if (s.isItalics()) {
                 styledText.setSpan(
-                        new StyleSpan(android.graphics.Typeface.ITALIC),
+                        obtainSpan(SPAN_ITALICS, 0),
                         start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
             }
             if (s.isUnderline()) {
                 styledText.setSpan(
-                        new UnderlineSpan(),
+                        obtainSpan(SPAN_UNDERLINE, 0),
                         start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
             }
         }
 
+        /*
+         * Returns the span set at the same position in the previous styled text if it
+         * is of the given type, and has the given color for a background span, as a
+         * span can be set in several Spannables, or a new span otherwise.
+         */
+        private CharacterStyle obtainSpan(int type, int backgroundColor) {
+            CharacterStyle span = mSpanCount < mSpans.size() ? mSpans.get(mSpanCount) : null;
+            boolean reusable;
+            switch (type) {
+                case SPAN_ITALICS:
+                    reusable = span instanceof StyleSpan;
+                    break;
+                case SPAN_UNDERLINE:
+                    reusable = span instanceof UnderlineSpan;
+                    break;
+                default:
+                    reusable = span instanceof MutableBackgroundColorSpan
+                            && ((MutableBackgroundColorSpan) span).getBackgroundColor()
+                                    == backgroundColor;
+                    break;
+            }
+            if (!reusable) {
+                switch (type) {
+                    case SPAN_ITALICS:
+                        span = new StyleSpan(android.graphics.Typeface.ITALIC);
+                        break;
+                    case SPAN_UNDERLINE:
+                        span = new UnderlineSpan();
+                        break;
+                    default:
+                        span = new MutableBackgroundColorSpan(backgroundColor);
+                        break;
+                }
+                if (mSpanCount < mSpans.size()) {
+                    mSpans.set(mSpanCount, span);
+                } else {
+                    mSpans.add(span);
+                }
+            }
+            mSpanCount++;
+            return span;
+        }
+
         SpannableStringBuilder getStyledText(CaptionStyle captionStyle) {
+            if (mStyledText != null
+                    && mStyledTextBackgroundColor == captionStyle.backgroundColor) {
+                return mStyledText;
+            }
             SpannableStringBuilder styledText = new SpannableStringBuilder(mDisplayChars);
+            mSpanCount = 0;
             int start = -1, next = 0;
             int styleStart = -1;
             StyleCode curStyle = null;
@@ -513,7 +607,7 @@ class Cea608CCParser {
                     int expandedStart = mDisplayChars.charAt(start) == ' ' ? start : start - 1;
                     int expandedEnd = mDisplayChars.charAt(next - 1) == ' ' ? next : next + 1;
                     styledText.setSpan(
-                            new MutableBackgroundColorSpan(captionStyle.backgroundColor),
+                            obtainSpan(SPAN_BACKGROUND, captionStyle.backgroundColor),
                             expandedStart, expandedEnd,
                             Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
                     if (styleStart >= 0) {
@@ -524,6 +618,8 @@ class Cea608CCParser {
                 next++;
             }
 
+            mStyledText = styledText;
+            mStyledTextBackgroundColor = captionStyle.backgroundColor;
             return styledText;
         }
     }
@@ -607,7 +703,7 @@ class Cea608CCParser {
             mCol = 1;
         }
 
-        void writeText(String text) {
+        void writeText(CharSequence text) {
             for (int i = 0; i < text.length(); i++) {
                 getLineBuffer(mRow).setCharAt(mCol, text.charAt(i));
                 moveCursorByCol(1);
@@ -629,11 +725,11 @@ class Cea608CCParser {
         }
 
         SpannableStringBuilder[] getStyledText(CaptionStyle captionStyle) {
-            ArrayList<SpannableStringBuilder> rows = new ArrayList<>(MAX_ROWS);
+            SpannableStringBuilder[] rows = new SpannableStringBuilder[MAX_ROWS];
             for (int i = 1; i <= MAX_ROWS; i++) {
-                rows.add(mLines[i] != null ? mLines[i].getStyledText(captionStyle) : null);
+                rows[i - 1] = mLines[i] != null ? mLines[i].getStyledText(captionStyle) : null;
             }
-            return rows.toArray(new SpannableStringBuilder[MAX_ROWS]);
+            return rows;
         }
 
         private static int clamp(int x, int min, int max) {
@@ -699,9 +795,9 @@ class Cea608CCParser {
      * misc control codes, Mid-Row or Preamble Address Codes.
      */
     private static class CCData {
-        private final byte mType;
-        private final byte mData1;
-        private final byte mData2;
+        private byte mType;
+        private byte mData1;
+        private byte mData2;
 
         private static final String[] sCtrlCodeMap = {
             "RCL", "BS" , "AOF", "AON",
@@ -803,20 +899,7 @@ class Cea608CCParser {
             "\u2518", // lower-right corner
         };
 
-        static CCData[] fromByteArray(byte[] data) {
-            CCData[] ccData = new CCData[data.length / 3];
-
-            for (int i = 0; i < ccData.length; i++) {
-                ccData[i] = new CCData(
-                        data[i * 3],
-                        data[i * 3 + 1],
-                        data[i * 3 + 2]);
-            }
-
-            return ccData;
-        }
-
-        CCData(byte type, byte data1, byte data2) {
+        void set(byte type, byte data1, byte data2) {
             mType = type;
             mData1 = data1;
             mData2 = data2;
@@ -875,6 +958,19 @@ class Cea608CCParser {
             return str;
         }
 
+        void appendDisplayText(StringBuilder builder) {
+            if (isBasicChar()) {
+                builder.append(getBasicChar(mData1));
+                if (mData2 >= 0x20 && mData2 <= 0x7f) {
+                    builder.append(getBasicChar(mData2));
+                }
+            } else if (isSpecialChar()) {
+                builder.append(getSpecialChar());
+            } else if (isExtendedChar()) {
+                builder.append(getExtendedChar());
+            }
+        }
+
         private String ctrlCodeToString(int ctrlCode) {
             return sCtrlCodeMap[ctrlCode - 0x20];
         }
@@ -148,6 +148,17 @@ class Cea708CCParser {
     public static final int CAPTION_EMIT_TYPE_COMMAND_SWA = 15;
     public static final int CAPTION_EMIT_TYPE_COMMAND_DFX = 16;
 
+    // Caption events and the values they carry are immutable, so the ones of the control codes
+    // are shared, as are the colors and pen locations, of which there are few.
+    private static final CaptionEvent CONTROL_EVENT_ETX =
+            new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) Const.CODE_C0_ETX);
+    private static final CaptionEvent CONTROL_EVENT_BS =
+            new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) Const.CODE_C0_BS);
+    private static final CaptionEvent CONTROL_EVENT_FF =
+            new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) Const.CODE_C0_FF);
+    private static final CaptionEvent CONTROL_EVENT_HCR =
+            new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) Const.CODE_C0_HCR);
+
     Cea708CCParser(DisplayListener listener) {
         if (listener != null) {
             mListener = listener;
@@ -255,19 +266,19 @@ class Cea708CCParser {
                 case Const.CODE_C0_NUL:
                     break;
                 case Const.CODE_C0_ETX:
-                    emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) mCommand));
+                    emitCaptionEvent(CONTROL_EVENT_ETX);
                     break;
                 case Const.CODE_C0_BS:
-                    emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) mCommand));
+                    emitCaptionEvent(CONTROL_EVENT_BS);
                     break;
                 case Const.CODE_C0_FF:
-                    emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) mCommand));
+                    emitCaptionEvent(CONTROL_EVENT_FF);
                     break;
                 case Const.CODE_C0_CR:
                     mBuilder.append('\n');
                     break;
                 case Const.CODE_C0_HCR:
-                    emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_CONTROL, (char) mCommand));
+                    emitCaptionEvent(CONTROL_EVENT_HCR);
                     break;
                 default:
                     break;
@@ -409,18 +420,18 @@ class Cea708CCParser {
                 int red = (data[pos] & 0x30) >> 4;
                 int green = (data[pos] & 0x0c) >> 2;
                 int blue = data[pos] & 0x03;
-                CaptionColor foregroundColor = new CaptionColor(opacity, red, green, blue);
+                CaptionColor foregroundColor = CaptionColor.valueOf(opacity, red, green, blue);
                 ++pos;
                 opacity = (data[pos] & 0xc0) >> 6;
                 red = (data[pos] & 0x30) >> 4;
                 green = (data[pos] & 0x0c) >> 2;
                 blue = data[pos] & 0x03;
-                CaptionColor backgroundColor = new CaptionColor(opacity, red, green, blue);
+                CaptionColor backgroundColor = CaptionColor.valueOf(opacity, red, green, blue);
                 ++pos;
                 red = (data[pos] & 0x30) >> 4;
                 green = (data[pos] & 0x0c) >> 2;
                 blue = data[pos] & 0x03;
-                CaptionColor edgeColor = new CaptionColor(
+                CaptionColor edgeColor = CaptionColor.valueOf(
                         CaptionColor.OPACITY_SOLID, red, green, blue);
                 ++pos;
                 emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_SPC,
@@ -440,7 +451,7 @@ class Cea708CCParser {
                 int column = data[pos + 1] & 0x3f;
                 pos += 2;
                 emitCaptionEvent(new CaptionEvent(CAPTION_EMIT_TYPE_COMMAND_SPL,
-                        new CaptionPenLocation(row, column)));
+                        CaptionPenLocation.valueOf(row, column)));
                 if (DEBUG) {
                     Log.d(TAG, String.format("CaptionCommand SPL row: %d, column: %d",
                             row, column));
@@ -454,12 +465,12 @@ class Cea708CCParser {
                 int red = (data[pos] & 0x30) >> 4;
                 int green = (data[pos] & 0x0c) >> 2;
                 int blue = data[pos] & 0x03;
-                CaptionColor fillColor = new CaptionColor(opacity, red, green, blue);
+                CaptionColor fillColor = CaptionColor.valueOf(opacity, red, green, blue);
                 int borderType = (data[pos + 1] & 0xc0) >> 6 | (data[pos + 2] & 0x80) >> 5;
                 red = (data[pos + 1] & 0x30) >> 4;
                 green = (data[pos + 1] & 0x0c) >> 2;
                 blue = data[pos + 1] & 0x03;
-                CaptionColor borderColor = new CaptionColor(
+                CaptionColor borderColor = CaptionColor.valueOf(
                         CaptionColor.OPACITY_SOLID, red, green, blue);
                 boolean wordWrap = (data[pos + 2] & 0x40) != 0;
                 int printDirection = (data[pos + 2] & 0x30) >> 4;
@@ -745,6 +756,9 @@ class Cea708CCParser {
         private static final int[] COLOR_MAP = new int[] { 0x00, 0x0f, 0xf0, 0xff };
         private static final int[] OPACITY_MAP = new int[] { 0xff, 0xfe, 0x80, 0x00 };
 
+        // the colors, indexed by their opacity and components of 2 bits each
+        private static final CaptionColor[] sColors = new CaptionColor[256];
+
         public final int opacity;
         public final int red;
         public final int green;
@@ -757,6 +771,16 @@ class Cea708CCParser {
             this.blue = blue;
         }
 
+        static CaptionColor valueOf(int opacity, int red, int green, int blue) {
+            int index = opacity << 6 | red << 4 | green << 2 | blue;
+            CaptionColor color = sColors[index];
+            if (color == null) {
+                color = new CaptionColor(opacity, red, green, blue);
+                sColors[index] = color;
+            }
+            return color;
+        }
+
         public int getArgbValue() {
             return Color.argb(
                     OPACITY_MAP[opacity], COLOR_MAP[red], COLOR_MAP[green], COLOR_MAP[blue]);
@@ -831,6 +855,9 @@ class Cea708CCParser {
      * Location information of a pen.
      */
     public static class CaptionPenLocation {
+        // the locations, indexed by their row of 4 bits and column of 6 bits
+        private static final CaptionPenLocation[] sLocations = new CaptionPenLocation[16 * 64];
+
         public final int row;
         public final int column;
 
@@ -838,6 +865,16 @@ class Cea708CCParser {
             this.row = row;
             this.column = column;
         }
+
+        static CaptionPenLocation valueOf(int row, int column) {
+            int index = row << 6 | column;
+            CaptionPenLocation location = sLocations[index];
+            if (location == null) {
+                location = new CaptionPenLocation(row, column);
+                sLocations[index] = location;
+            }
+            return location;
+        }
     }
 
     /**
@@ -28,6 +28,7 @@ import android.util.Pair;
 
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
 import androidx.media2.SubtitleData;
 
 import java.util.ArrayList;
@@ -136,6 +137,21 @@ public abstract class SubtitleTrack implements MediaTimeProvider.OnMediaTimeList
             clearActiveCues();
         }
 
+        if (mLastUpdateTimeMs < 0) {
+            // look the active cues up instead of replaying every event up to timeMs
+            mCues.removeCuesEndedBy(timeMs);
+            mCues.findCuesAt(timeMs, mActiveCues);
+            for (int i = 0; i < mActiveCues.size(); i++) {
+                Cue cue = mActiveCues.get(i);
+                if (DEBUG) Log.v(TAG, "Adding " + cue);
+                if (cue.mInnerTimesMs != null) {
+                    cue.onTime(timeMs);
+                }
+            }
+            completeRuns(timeMs);
+            return;
+        }
+
         for (Iterator<Pair<Long, Cue>> it =
                 mCues.entriesBetween(mLastUpdateTimeMs, timeMs).iterator(); it.hasNext(); ) {
             Pair<Long, Cue> event = it.next();
@@ -162,6 +178,10 @@ public abstract class SubtitleTrack implements MediaTimeProvider.OnMediaTimeList
             }
         }
 
+        completeRuns(timeMs);
+    }
+
+    private void completeRuns(long timeMs) {
         /* complete any runs */
         while (mRunsByEndTime.size() > 0 && mRunsByEndTime.keyAt(0) <= timeMs) {
             removeRunsByEndTimeIndex(0); // removes element
@@ -383,12 +403,21 @@ public abstract class SubtitleTrack implements MediaTimeProvider.OnMediaTimeList
     }
 
 
+    /*
+     * CueList keeps the start, inner and end times of the cues in a sorted map, which is walked
+     * between two updates, and the cues themselves in an interval tree ordered by start time, which
+     * finds the cues active at a given time without replaying the events before it.
+     */
     static class CueList {
         private static final String TAG = "CueList";
-        // simplistic, inefficient implementation
         SortedMap<Long, ArrayList<Cue>> mCues;
         public boolean DEBUG = false;
 
+        private Node mRoot;
+        // the order of the next cue added to the tree, 0 meaning that a cue is not in the tree
+        private long mNextOrder = 1;
+        private final ArrayList<Cue> mEndedCues = new ArrayList<Cue>();
+
         private boolean addEvent(Cue cue, long timeMs) {
             ArrayList<Cue> cues = mCues.get(timeMs);
             if (cues == null) {
@@ -432,6 +461,9 @@ public abstract class SubtitleTrack implements MediaTimeProvider.OnMediaTimeList
             }
 
             addEvent(cue, cue.mEndTimeMs);
+
+            cue.mOrder = mNextOrder++;
+            mRoot = insert(mRoot, new Node(cue));
         }
 
         public void remove(Cue cue) {
@@ -442,6 +474,226 @@ public abstract class SubtitleTrack implements MediaTimeProvider.OnMediaTimeList
                 }
             }
             removeEvent(cue, cue.mEndTimeMs);
+            removeFromTree(cue);
+        }
+
+        /**
+         * Adds the cues active at timeMs, which started at or before it and end after it, to
+         * the given list in start order.
+         */
+        public void findCuesAt(long timeMs, ArrayList<Cue> cues) {
+            findCuesAt(mRoot, timeMs, cues);
+        }
+
+        /**
+         * Removes the cues with a run ID of 0 that ended at or before timeMs.
+         */
+        public void removeCuesEndedBy(long timeMs) {
+            findCuesEndedBy(mRoot, timeMs, mEndedCues);
+            for (int i = 0; i < mEndedCues.size(); i++) {
+                Cue cue = mEndedCues.get(i);
+                if (DEBUG) Log.v(TAG, "Removing " + cue);
+                remove(cue);
+            }
+            mEndedCues.clear();
+        }
+
+        private static void findCuesAt(Node node, long timeMs, ArrayList<Cue> cues) {
+            while (node != null && node.mMaxEndTimeMs > timeMs) {
+                findCuesAt(node.mLeft, timeMs, cues);
+                if (node.mCue.mStartTimeMs > timeMs) {
+                    return;
+                }
+                if (node.mCue.mEndTimeMs > timeMs) {
+                    cues.add(node.mCue);
+                }
+                node = node.mRight;
+            }
+        }
+
+        private static void findCuesEndedBy(Node node, long timeMs, ArrayList<Cue> cues) {
+            while (node != null && node.mMinDiscardTimeMs <= timeMs) {
+                findCuesEndedBy(node.mLeft, timeMs, cues);
+                if (node.mCue.mRunID == 0 && node.mCue.mEndTimeMs <= timeMs) {
+                    cues.add(node.mCue);
+                }
+                node = node.mRight;
+            }
+        }
+
+        private void removeFromTree(Cue cue) {
+            if (cue.mOrder != 0) {
+                mRoot = remove(mRoot, cue);
+                cue.mOrder = 0;
+            }
+        }
+
+        private static int compare(Cue cue1, Cue cue2) {
+            if (cue1.mStartTimeMs != cue2.mStartTimeMs) {
+                return cue1.mStartTimeMs < cue2.mStartTimeMs ? -1 : 1;
+            }
+            return cue1.mOrder < cue2.mOrder ? -1 : (cue1.mOrder == cue2.mOrder ? 0 : 1);
+        }
+
+        private static Node insert(Node node, Node newNode) {
+            if (node == null) {
+                return newNode;
+            }
+            if (compare(newNode.mCue, node.mCue) < 0) {
+                node.mLeft = insert(node.mLeft, newNode);
+            } else {
+                node.mRight = insert(node.mRight, newNode);
+            }
+            return balance(node);
+        }
+
+        private static Node remove(Node node, Cue cue) {
+            if (node == null) {
+                return null;
+            }
+            int result = compare(cue, node.mCue);
+            if (result < 0) {
+                node.mLeft = remove(node.mLeft, cue);
+            } else if (result > 0) {
+                node.mRight = remove(node.mRight, cue);
+            } else if (node.mLeft == null) {
+                return node.mRight;
+            } else if (node.mRight == null) {
+                return node.mLeft;
+            } else {
+                // replace the node with the first node of its right subtree
+                Node next = node.mRight;
+                while (next.mLeft != null) {
+                    next = next.mLeft;
+                }
+                next.mRight = removeFirst(node.mRight);
+                next.mLeft = node.mLeft;
+                node = next;
+            }
+            return balance(node);
+        }
+
+        private static Node removeFirst(Node node) {
+            if (node.mLeft == null) {
+                return node.mRight;
+            }
+            node.mLeft = removeFirst(node.mLeft);
+            return balance(node);
+        }
+
+        private static int height(Node node) {
+            return node != null ? node.mHeight : 0;
+        }
+
+        /**
+         * Checks that the tree is ordered and balanced, and that every node keeps the right
+         * height and end times, and returns the number of cues in the tree.
+         *
+         * @throws IllegalStateException if the tree is broken.
+         */
+        @VisibleForTesting
+        int checkTree() {
+            return checkTree(mRoot, null, null);
+        }
+
+        private static int checkTree(Node node, Cue lowerBound, Cue upperBound) {
+            if (node == null) {
+                return 0;
+            }
+            if ((lowerBound != null && compare(lowerBound, node.mCue) >= 0)
+                    || (upperBound != null && compare(node.mCue, upperBound) >= 0)) {
+                throw new IllegalStateException("Cue out of order: " + node.mCue);
+            }
+            int count = 1 + checkTree(node.mLeft, lowerBound, node.mCue)
+                    + checkTree(node.mRight, node.mCue, upperBound);
+            int leftHeight = height(node.mLeft);
+            int rightHeight = height(node.mRight);
+            if (Math.abs(leftHeight - rightHeight) > 1
+                    || node.mHeight != 1 + Math.max(leftHeight, rightHeight)) {
+                throw new IllegalStateException("Unbalanced node: " + node.mCue);
+            }
+            long maxEndTimeMs = node.mCue.mEndTimeMs;
+            long minDiscardTimeMs = node.mCue.mRunID == 0 ? node.mCue.mEndTimeMs : Long.MAX_VALUE;
+            if (node.mLeft != null) {
+                maxEndTimeMs = Math.max(maxEndTimeMs, node.mLeft.mMaxEndTimeMs);
+                minDiscardTimeMs = Math.min(minDiscardTimeMs, node.mLeft.mMinDiscardTimeMs);
+            }
+            if (node.mRight != null) {
+                maxEndTimeMs = Math.max(maxEndTimeMs, node.mRight.mMaxEndTimeMs);
+                minDiscardTimeMs = Math.min(minDiscardTimeMs, node.mRight.mMinDiscardTimeMs);
+            }
+            if (node.mMaxEndTimeMs != maxEndTimeMs || node.mMinDiscardTimeMs != minDiscardTimeMs) {
+                throw new IllegalStateException("Wrong end times at node: " + node.mCue);
+            }
+            return count;
+        }
+
+        private static Node balance(Node node) {
+            int difference = height(node.mLeft) - height(node.mRight);
+            if (difference > 1) {
+                if (height(node.mLeft.mLeft) < height(node.mLeft.mRight)) {
+                    node.mLeft = rotateLeft(node.mLeft);
+                }
+                return rotateRight(node);
+            } else if (difference < -1) {
+                if (height(node.mRight.mRight) < height(node.mRight.mLeft)) {
+                    node.mRight = rotateRight(node.mRight);
+                }
+                return rotateLeft(node);
+            }
+            node.update();
+            return node;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.mRight;
+            node.mRight = right.mLeft;
+            node.update();
+            right.mLeft = node;
+            right.update();
+            return right;
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.mLeft;
+            node.mLeft = left.mRight;
+            node.update();
+            left.mRight = node;
+            left.update();
+            return left;
+        }
+
+        /*
+         * A node of the AVL tree of cues, which also keeps the latest end time of the cues in its
+         * subtree, to skip the subtrees that ended before a given time, and the earliest end
+         * time of the cues to discard once they end.
+         */
+        private static class Node {
+            final Cue mCue;
+            Node mLeft;
+            Node mRight;
+            int mHeight;
+            long mMaxEndTimeMs;
+            long mMinDiscardTimeMs;
+
+            Node(Cue cue) {
+                mCue = cue;
+                update();
+            }
+
+            void update() {
+                mHeight = 1 + Math.max(height(mLeft), height(mRight));
+                mMaxEndTimeMs = mCue.mEndTimeMs;
+                mMinDiscardTimeMs = mCue.mRunID == 0 ? mCue.mEndTimeMs : Long.MAX_VALUE;
+                if (mLeft != null) {
+                    mMaxEndTimeMs = Math.max(mMaxEndTimeMs, mLeft.mMaxEndTimeMs);
+                    mMinDiscardTimeMs = Math.min(mMinDiscardTimeMs, mLeft.mMinDiscardTimeMs);
+                }
+                if (mRight != null) {
+                    mMaxEndTimeMs = Math.max(mMaxEndTimeMs, mRight.mMaxEndTimeMs);
+                    mMinDiscardTimeMs = Math.min(mMinDiscardTimeMs, mRight.mMinDiscardTimeMs);
+                }
+            }
         }
 
         public Iterable<Pair<Long, Cue>> entriesBetween(
@@ -519,6 +771,7 @@ public abstract class SubtitleTrack implements MediaTimeProvider.OnMediaTimeList
                         removeEvent(cue, timeMs);
                     }
                 }
+                removeFromTree(cue);
             }
 
             EntryIterator(SortedMap<Long, ArrayList<Cue>> cues) {
@@ -574,6 +827,9 @@ public abstract class SubtitleTrack implements MediaTimeProvider.OnMediaTimeList
 
         public Cue mNextInRun;
 
+        // the order in which the cue was added to its CueList, if it is in one
+        long mOrder;
+
         /**
          * Called to inform current timeMs to the cue
          */
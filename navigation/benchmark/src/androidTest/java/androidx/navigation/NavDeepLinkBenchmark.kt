@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation
+
+import android.net.Uri
+import androidx.benchmark.BenchmarkRule
+import androidx.navigation.testing.TestNavigator
+import androidx.navigation.testing.TestNavigatorProvider
+import androidx.test.filters.MediumTest
+import androidx.test.runner.AndroidJUnit4
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+@MediumTest
+class NavDeepLinkBenchmark {
+
+    companion object {
+        private const val GRAPH_COUNT = 10
+        private const val DESTINATIONS_PER_GRAPH = 30
+    }
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val navigatorProvider = TestNavigatorProvider()
+
+    // A graph of nested graphs with 300 destinations, each with its own deep link
+    private val graph = createGraph().apply {
+        var destinationId = GRAPH_COUNT + 1
+        for (graphId in 1..GRAPH_COUNT) {
+            addDestination(createGraph().apply {
+                id = graphId
+                for (index in 1..DESTINATIONS_PER_GRAPH) {
+                    addDestination(createDestination().apply {
+                        id = destinationId
+                        addDeepLink("www.example.com/section$graphId/item$index/{id}")
+                        destinationId++
+                    })
+                }
+            })
+        }
+    }
+
+    private val lastDeepLink =
+        Uri.parse("https://www.example.com/section$GRAPH_COUNT/item$DESTINATIONS_PER_GRAPH/42")
+
+    private fun createGraph() = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+        .createDestination()
+
+    private fun createDestination() = navigatorProvider.getNavigator(TestNavigator::class.java)
+        .createDestination()
+
+    @Test
+    fun matchDeepLink() {
+        // The first match builds the deep link index, which buildIndexAndMatchDeepLink measures
+        var result = graph.matchDeepLink(lastDeepLink)
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            result = graph.matchDeepLink(lastDeepLink)
+        }
+        assertEquals("42", result?.second?.getString("id"))
+    }
+
+    @Test
+    fun buildIndexAndMatchDeepLink() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            graph.invalidateDeepLinkIndex()
+            graph.matchDeepLink(lastDeepLink)
+        }
+    }
+
+    @Test
+    fun matchDeepLinkNoMatch() {
+        val noMatch = Uri.parse("https://www.example.com/unknown/42")
+        graph.matchDeepLink(noMatch)
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            graph.matchDeepLink(noMatch)
+        }
+    }
+}
@@ -51,4 +51,13 @@ class NavInflaterBenchmark {
             navInflater.inflate(androidx.navigation.benchmark.test.R.navigation.nav_deep_link)
         }
     }
+
+    @Test
+    fun inflateDeepLinkLazySubgraphs() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            navInflater.inflate(androidx.navigation.benchmark.test.R.navigation.nav_deep_link,
+                true)
+        }
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation
+
+import android.net.Uri
+import androidx.test.filters.SmallTest
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+
+@SmallTest
+class NavGraphAndroidTest {
+
+    companion object {
+        private const val DESTINATION_ID = 1
+        private const val NESTED_GRAPH_ID = 2
+        private const val NESTED_DESTINATION_ID = 3
+    }
+
+    private val navigatorProvider = NavigatorProvider().apply {
+        addNavigator(NoOpNavigator())
+        addNavigator(NavGraphNavigator(this))
+    }
+
+    private fun createGraph() = navigatorProvider.getNavigator(NavGraphNavigator::class.java)
+        .createDestination()
+
+    private fun createDestination(destinationId: Int) =
+        navigatorProvider.getNavigator(NoOpNavigator::class.java).createDestination().apply {
+            id = destinationId
+        }
+
+    @Test
+    fun matchDeepLinkGraphFirst() {
+        val graph = createGraph().apply {
+            addDeepLink("www.example.com/users/{id}")
+            addDestination(createDestination(DESTINATION_ID).apply {
+                addDeepLink("www.example.com/users/{id}")
+            })
+        }
+
+        val result = graph.matchDeepLink(Uri.parse("https://www.example.com/users/2"))
+        assertThat(result?.first).isSameAs(graph)
+        assertThat(result?.second?.getString("id")).isEqualTo("2")
+    }
+
+    @Test
+    fun matchDeepLinkChildrenInOrder() {
+        val nestedDestination = createDestination(NESTED_DESTINATION_ID).apply {
+            addDeepLink("www.example.com/users/.*")
+        }
+        val graph = createGraph().apply {
+            addDestination(createGraph().apply {
+                id = NESTED_GRAPH_ID
+                addDestination(nestedDestination)
+            })
+            addDestination(createDestination(DESTINATION_ID).apply {
+                addDeepLink("www.example.com/users/{id}/posts")
+            })
+        }
+
+        assertThat(graph.matchDeepLink(Uri.parse("https://www.example.com/users/2/posts"))?.first)
+            .isSameAs(graph.findNode(DESTINATION_ID))
+        assertThat(graph.matchDeepLink(Uri.parse("https://www.example.com/users/2"))?.first)
+            .isSameAs(nestedDestination)
+        assertThat(graph.matchDeepLink(Uri.parse("https://www.example.com/posts/2")))
+            .isNull()
+    }
+
+    @Test
+    fun matchDeepLinkAfterChanges() {
+        val nestedGraph = createGraph().apply {
+            id = NESTED_GRAPH_ID
+        }
+        val graph = createGraph().apply {
+            addDestination(nestedGraph)
+        }
+        val uri = Uri.parse("android-app://androidx.navigation.test/posts/2")
+        assertThat(graph.matchDeepLink(uri)).isNull()
+
+        val nestedDestination = createDestination(NESTED_DESTINATION_ID)
+        nestedGraph.addDestination(nestedDestination)
+        nestedDestination.addDeepLink("android-app://androidx.navigation.test/posts/{id}")
+        val result = graph.matchDeepLink(uri)
+        assertThat(result?.first).isSameAs(nestedDestination)
+        assertThat(result?.second?.getString("id")).isEqualTo("2")
+
+        graph.remove(nestedGraph)
+        assertThat(graph.matchDeepLink(uri)).isNull()
+    }
+}
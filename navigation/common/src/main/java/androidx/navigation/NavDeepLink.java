@@ -33,6 +33,7 @@ class NavDeepLink {
 
     private final ArrayList<String> mArguments = new ArrayList<>();
     private final Pattern mPattern;
+    private final String[] mUriPrefixes;
 
     /**
      * NavDestinations should be created via {@link Navigator#createDestination}.
@@ -40,8 +41,22 @@ class NavDeepLink {
     NavDeepLink(@NonNull String uri) {
         StringBuilder uriRegex = new StringBuilder("^");
 
+        // The text before the first placeholder or wildcard is matched literally
+        int literalEnd = uri.length();
+        int placeholderStart = uri.indexOf('{');
+        if (placeholderStart >= 0) {
+            literalEnd = placeholderStart;
+        }
+        int wildcardStart = uri.indexOf(".*");
+        if (wildcardStart >= 0 && wildcardStart < literalEnd) {
+            literalEnd = wildcardStart;
+        }
+        String literalPrefix = uri.substring(0, literalEnd);
         if (!SCHEME_PATTERN.matcher(uri).find()) {
             uriRegex.append("http[s]?://");
+            mUriPrefixes = new String[] {"http://" + literalPrefix, "https://" + literalPrefix};
+        } else {
+            mUriPrefixes = new String[] {literalPrefix};
         }
         Pattern fillInPattern = Pattern.compile("\\{(.+?)\\}");
         Matcher matcher = fillInPattern.matcher(uri);
@@ -65,6 +80,15 @@ class NavDeepLink {
         mPattern = Pattern.compile(finalRegex);
     }
 
+    /**
+     * Returns the literal text that all the Uris matching this deep link start with, one per
+     * scheme when the pattern doesn't specify one.
+     */
+    @NonNull
+    String[] getUriPrefixes() {
+        return mUriPrefixes;
+    }
+
     boolean matches(@NonNull Uri deepLink) {
         return mPattern.matcher(deepLink.toString()).matches();
     }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.navigation;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * NavDeepLinkIndex finds the deep link of a {@link NavGraph} or of its descendants matching a Uri.
+ * <p>
+ * The literal text at the start of each deep link pattern, up to its first placeholder or
+ * wildcard, is added to a trie. Matching a Uri walks the trie along the Uri once, and only the
+ * deep links whose literal text the Uri starts with are matched against their pattern, in the
+ * order in which a recursive search of the graph would try them.
+ * <p>
+ * The destinations of a graph whose inflation was deferred are not loaded to build the index.
+ * The deep links of its descendants are indexed for the graph itself instead, and the graph is
+ * only loaded when one of them matches a Uri, to find the destination the deep link belongs to.
+ */
+class NavDeepLinkIndex {
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry entry1, Entry entry2) {
+            return entry1.mOrder - entry2.mOrder;
+        }
+    };
+
+    private final Node mRoot = new Node();
+    private int mSize;
+
+    NavDeepLinkIndex(@NonNull NavGraph graph) {
+        add(graph);
+    }
+
+    private void add(NavDestination destination) {
+        List<NavDeepLink> deepLinks = destination.getDeepLinks();
+        if (deepLinks != null) {
+            for (NavDeepLink deepLink : deepLinks) {
+                add(new Entry(mSize++, destination, deepLink, false));
+            }
+        }
+        if (destination instanceof NavGraph) {
+            NavGraph graph = (NavGraph) destination;
+            NavGraph.DestinationLoader loader = graph.getDestinationLoader();
+            if (loader == null) {
+                for (NavDestination child : graph) {
+                    add(child);
+                }
+                return;
+            }
+            // The deep links of the destinations yet to be loaded come after those of the graph
+            // in a recursive search, in an order which is only known once they are loaded
+            List<String> nestedDeepLinks = loader.getNestedDeepLinks();
+            if (nestedDeepLinks == null) {
+                mRoot.addEntry(new Entry(mSize++, graph, null, true));
+            } else {
+                for (String uriPattern : nestedDeepLinks) {
+                    add(new Entry(mSize++, graph, new NavDeepLink(uriPattern), true));
+                }
+            }
+        }
+    }
+
+    private void add(Entry entry) {
+        for (String prefix : entry.mDeepLink.getUriPrefixes()) {
+            Node node = mRoot;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.getOrAddChild(prefix.charAt(i));
+            }
+            node.addEntry(entry);
+        }
+    }
+
+    /**
+     * Returns the first destination with a deep link matching the given Uri, and the arguments
+     * extracted from the Uri, or null if no deep link matches.
+     */
+    @Nullable
+    Pair<NavDestination, Bundle> match(@NonNull Uri uri) {
+        if (mSize == 0) {
+            return null;
+        }
+        String uriString = uri.toString();
+        ArrayList<Entry> candidates = new ArrayList<>();
+        Node node = mRoot;
+        int nodesWithEntries = 0;
+        for (int i = 0; node != null; i++) {
+            if (node.mEntries != null) {
+                candidates.addAll(node.mEntries);
+                nodesWithEntries++;
+            }
+            node = i < uriString.length() ? node.getChild(uriString.charAt(i)) : null;
+        }
+        if (nodesWithEntries > 1) {
+            Collections.sort(candidates, ORDER);
+        }
+        NavGraph loadedGraph = null;
+        for (Entry candidate : candidates) {
+            if (candidate.mDestination == loadedGraph) {
+                continue;
+            }
+            Bundle matchingArguments = candidate.mDeepLink != null
+                    ? candidate.mDeepLink.getMatchingArguments(uri) : null;
+            if (!candidate.mNested) {
+                if (matchingArguments != null) {
+                    return Pair.create(candidate.mDestination, matchingArguments);
+                }
+            } else if (matchingArguments != null || candidate.mDeepLink == null) {
+                // The match is one of the descendants of the graph, unless the deep links of
+                // its destinations weren't known, in which case the search goes on after them.
+                // The deep links of the graph itself didn't match, as they come first.
+                loadedGraph = (NavGraph) candidate.mDestination;
+                loadedGraph.loadDestinations();
+                Pair<NavDestination, Bundle> match = loadedGraph.matchDeepLink(uri);
+                if (match != null) {
+                    return match;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static class Entry {
+        // The position of the deep link in a recursive search of the graph
+        final int mOrder;
+        final NavDestination mDestination;
+        // Null for the unknown deep links of a graph yet to be loaded, which match every Uri
+        @Nullable
+        final NavDeepLink mDeepLink;
+        // Whether the deep link belongs to a descendant of mDestination, a graph yet to be loaded
+        final boolean mNested;
+
+        Entry(int order, NavDestination destination, @Nullable NavDeepLink deepLink,
+                boolean nested) {
+            mOrder = order;
+            mDestination = destination;
+            mDeepLink = deepLink;
+            mNested = nested;
+        }
+    }
+
+    private static class Node {
+        private char[] mKeys;
+        private Node[] mChildren;
+        private int mChildCount;
+        // The deep links whose literal text ends at this node, in order
+        @Nullable
+        ArrayList<Entry> mEntries;
+
+        @Nullable
+        Node getChild(char key) {
+            for (int i = 0; i < mChildCount; i++) {
+                if (mKeys[i] == key) {
+                    return mChildren[i];
+                }
+            }
+            return null;
+        }
+
+        Node getOrAddChild(char key) {
+            Node child = getChild(key);
+            if (child == null) {
+                if (mKeys == null) {
+                    mKeys = new char[1];
+                    mChildren = new Node[1];
+                } else if (mChildCount == mKeys.length) {
+                    char[] keys = new char[mChildCount * 2];
+                    System.arraycopy(mKeys, 0, keys, 0, mChildCount);
+                    mKeys = keys;
+                    Node[] children = new Node[mChildCount * 2];
+                    System.arraycopy(mChildren, 0, children, 0, mChildCount);
+                    mChildren = children;
+                }
+                child = new Node();
+                mKeys[mChildCount] = key;
+                mChildren[mChildCount] = child;
+                mChildCount++;
+            }
+            return child;
+        }
+
+        void addEntry(Entry entry) {
+            if (mEntries == null) {
+                mEntries = new ArrayList<>(1);
+            }
+            mEntries.add(entry);
+        }
+    }
+}
@@ -41,6 +41,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -189,7 +190,13 @@ public class NavDestination {
     }
 
     final void setParent(NavGraph parent) {
+        if (mParent != null) {
+            mParent.invalidateDeepLinkIndex();
+        }
         mParent = parent;
+        if (parent != null) {
+            parent.invalidateDeepLinkIndex();
+        }
     }
 
     /**
@@ -291,6 +298,25 @@ public class NavDestination {
             mDeepLinks = new ArrayList<>();
         }
         mDeepLinks.add(new NavDeepLink(uriPattern));
+        invalidateDeepLinkIndex();
+    }
+
+    /**
+     * Returns the deep links added in {@link #addDeepLink(String)}, or null if there are none.
+     */
+    @Nullable
+    List<NavDeepLink> getDeepLinks() {
+        return mDeepLinks;
+    }
+
+    /**
+     * Discards the deep link indexes of the graphs containing this destination, after its deep
+     * links or its children changed.
+     */
+    void invalidateDeepLinkIndex() {
+        if (mParent != null) {
+            mParent.invalidateDeepLinkIndex();
+        }
     }
 
     /**
@@ -31,6 +31,7 @@ import androidx.navigation.common.R;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -45,6 +46,10 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
     final SparseArrayCompat<NavDestination> mNodes = new SparseArrayCompat<>();
     private int mStartDestId;
     private String mStartDestIdName;
+    @Nullable
+    private NavDeepLinkIndex mDeepLinkIndex;
+    @Nullable
+    private DestinationLoader mDestinationLoader;
 
     /**
      * Construct a new NavGraph. This NavGraph is not valid until you
@@ -74,19 +79,43 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
     @Override
     @Nullable
     Pair<NavDestination, Bundle> matchDeepLink(@NonNull Uri uri) {
-        // First search through any deep links directly added to this NavGraph
-        Pair<NavDestination, Bundle> result = super.matchDeepLink(uri);
-        if (result != null) {
-            return result;
+        // Deep links directly added to this NavGraph take precedence over those of the child
+        // destinations, which the index checks in the same order as a recursive search
+        if (mDeepLinkIndex == null) {
+            mDeepLinkIndex = new NavDeepLinkIndex(this);
         }
-        // Then search through all child destinations for a matching deep link
-        for (NavDestination child : this) {
-            Pair<NavDestination, Bundle> childResult = child.matchDeepLink(uri);
-            if (childResult != null) {
-                return childResult;
-            }
+        return mDeepLinkIndex.match(uri);
+    }
+
+    @Override
+    void invalidateDeepLinkIndex() {
+        mDeepLinkIndex = null;
+        super.invalidateDeepLinkIndex();
+    }
+
+    /**
+     * Defers adding the destinations of this graph until they are first needed, when the given
+     * loader is called to add them.
+     */
+    void setDestinationLoader(@Nullable DestinationLoader destinationLoader) {
+        mDestinationLoader = destinationLoader;
+    }
+
+    /**
+     * Returns the loader which will add the destinations of this graph, or null if they were
+     * added already.
+     */
+    @Nullable
+    DestinationLoader getDestinationLoader() {
+        return mDestinationLoader;
+    }
+
+    void loadDestinations() {
+        DestinationLoader destinationLoader = mDestinationLoader;
+        if (destinationLoader != null) {
+            mDestinationLoader = null;
+            destinationLoader.loadDestinations(this);
         }
-        return null;
     }
 
     /**
@@ -104,6 +133,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
             throw new IllegalArgumentException("Destinations must have an id."
                     + " Call setId() or include an android:id in your navigation XML.");
         }
+        loadDestinations();
         NavDestination existingDestination = mNodes.get(node.getId());
         if (existingDestination == node) {
             return;
@@ -172,6 +202,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
 
     @Nullable
     final NavDestination findNode(@IdRes int resid, boolean searchParents) {
+        loadDestinations();
         NavDestination destination = mNodes.get(resid);
         // Search the parent for the NavDestination if it is not a child of this navigation graph
         // and searchParents is true
@@ -183,6 +214,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
     @NonNull
     @Override
     public final Iterator<NavDestination> iterator() {
+        loadDestinations();
         return new Iterator<NavDestination>() {
             private int mIndex = -1;
             private boolean mWentToNext = false;
@@ -237,6 +269,7 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
      * @param node the destination to remove.
      */
     public final void remove(@NonNull NavDestination node) {
+        loadDestinations();
         int index = mNodes.indexOfKey(node.getId());
         if (index >= 0) {
             mNodes.valueAt(index).setParent(null);
@@ -288,4 +321,21 @@ public class NavGraph extends NavDestination implements Iterable<NavDestination>
         }
         return mStartDestIdName;
     }
+
+    /**
+     * Adds the destinations of a {@link NavGraph} whose inflation was deferred.
+     */
+    interface DestinationLoader {
+        /**
+         * Adds the destinations of the given graph.
+         */
+        void loadDestinations(@NonNull NavGraph graph);
+
+        /**
+         * Returns the uri patterns of the deep links of the destinations this loader adds and of
+         * their descendants, or null if they can't be known without loading the destinations.
+         */
+        @Nullable
+        List<String> getNestedDeepLinks();
+    }
 }
@@ -27,6 +27,7 @@ import androidx.test.filters.SmallTest
 import androidx.test.runner.AndroidJUnit4
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 
 import org.junit.Before
@@ -68,6 +69,45 @@ class NavInflaterTest {
         assertEquals(R.id.second_test, result?.first?.id ?: 0)
     }
 
+    @Test
+    fun testInflateNestedGraphLazily() {
+        val context = InstrumentationRegistry.getTargetContext()
+        val navInflater = NavInflater(context, TestNavigatorProvider())
+        val graph = navInflater.inflate(R.navigation.nav_nested_start_destination, true)
+
+        val nestedGraph = graph.findNode(R.id.nested) as NavGraph
+        assertEquals(R.id.nested_test, nestedGraph.startDestination)
+        val nestedDestination = nestedGraph.findNode(R.id.nested_test)
+        assertNotNull(nestedDestination)
+        assertEquals(R.id.nested_second_test,
+                nestedDestination?.getAction(R.id.pop_forward)?.destinationId ?: 0)
+        assertNotNull(nestedGraph.findNode(R.id.nested_second_test))
+        assertNotNull(graph.findNode(R.id.second_test))
+    }
+
+    @Test
+    fun testMatchDeepLinkOfLazyGraph() {
+        val context = InstrumentationRegistry.getTargetContext()
+        val navInflater = NavInflater(context, TestNavigatorProvider())
+        val graph = navInflater.inflate(R.navigation.nav_lazy_deep_links, true)
+        val noDeepLinkGraph = graph.findNode(R.id.no_deep_link_graph) as NavGraph
+        val deepLinkGraph = graph.findNode(R.id.deep_link_graph) as NavGraph
+
+        val otherUri = Uri.parse("android-app://androidx.navigation.test/other")
+        assertNull(graph.matchDeepLink(otherUri))
+        // matching a Uri doesn't load graphs without a matching deep link
+        assertNotNull(noDeepLinkGraph.destinationLoader)
+        assertNotNull(deepLinkGraph.destinationLoader)
+
+        val uri = Uri.parse("android-app://androidx.navigation.test/lazy/7")
+        val result = graph.matchDeepLink(uri)
+        assertNotNull(result)
+        assertEquals(R.id.deep_link_test, result?.first?.id ?: 0)
+        assertEquals("7", result?.second?.getString("id"))
+        assertNull(deepLinkGraph.destinationLoader)
+        assertNotNull(noDeepLinkGraph.destinationLoader)
+    }
+
     @Test
     fun testDefaultArgumentsInteger() {
         val defaultArguments = inflateDefaultArgumentsFromGraph()
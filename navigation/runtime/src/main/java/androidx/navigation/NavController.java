@@ -412,6 +412,11 @@ public class NavController {
      *
      * <p>The inflated graph can be retrieved via {@link #getGraph()}.</p>
      *
+     * <p>The destinations of nested graphs, including graphs added with
+     * <code>&lt;include&gt;</code>, are only inflated the first time each graph is used, e.g.
+     * when navigating to it or matching a deep link. Errors in such graphs are thrown at that
+     * time rather than by this method.</p>
+     *
      * @param graphResId resource id of the navigation graph to inflate
      * @param startDestinationArgs arguments to send to the start destination of the graph
      *
@@ -421,7 +426,7 @@ public class NavController {
      */
     @CallSuper
     public void setGraph(@NavigationRes int graphResId, @Nullable Bundle startDestinationArgs) {
-        mGraph = getNavInflater().inflate(graphResId);
+        mGraph = getNavInflater().inflate(graphResId, true);
         onGraphCreated(startDestinationArgs);
     }
 
@@ -24,6 +24,7 @@ import android.content.res.XmlResourceParser;
 import android.os.Bundle;
 import android.support.annotation.NavigationRes;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.TypedValue;
@@ -33,6 +34,9 @@ import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Class which translates a navigation XML file into a {@link NavGraph}
@@ -43,6 +47,14 @@ public final class NavInflater {
     private static final String TAG_ACTION = "action";
     private static final String TAG_INCLUDE = "include";
     private static final String APPLICATION_ID_PLACEHOLDER = "${applicationId}";
+    private static final String ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android";
+    private static final int[] ROOT_PATH = new int[0];
+
+    // What inflateChildren() inflates: the arguments, deep links and actions of the destination,
+    // and the destinations nested in it.
+    private static final int INFLATE_DETAILS = 1;
+    private static final int INFLATE_DESTINATIONS = 1 << 1;
+    private static final int INFLATE_ALL = INFLATE_DETAILS | INFLATE_DESTINATIONS;
 
     private static final ThreadLocal<TypedValue> sTmpValue = new ThreadLocal<>();
 
@@ -60,28 +72,68 @@ public final class NavInflater {
      * @param graphResId
      * @return
      */
-    @SuppressLint("ResourceType")
     @NonNull
     public NavGraph inflate(@NavigationRes int graphResId) {
+        return inflate(graphResId, false);
+    }
+
+    /**
+     * Inflate a NavGraph from the given XML resource id, optionally leaving the destinations of
+     * nested and included graphs to be inflated the first time each of those graphs is used.
+     * Errors in a deferred graph are then thrown when it is first used.
+     *
+     * @param graphResId the navigation resource to inflate
+     * @param lazySubgraphs whether to defer inflating the destinations of nested graphs
+     */
+    @SuppressLint("ResourceType")
+    @NonNull
+    NavGraph inflate(@NavigationRes int graphResId, boolean lazySubgraphs) {
         Resources res = mContext.getResources();
         XmlResourceParser parser = res.getXml(graphResId);
         final AttributeSet attrs = Xml.asAttributeSet(parser);
         try {
-            int type;
-            while ((type = parser.next()) != XmlPullParser.START_TAG
-                    && type != XmlPullParser.END_DOCUMENT) {
-                // Empty loop
-            }
-            if (type != XmlPullParser.START_TAG) {
-                throw new XmlPullParserException("No start tag found");
+            moveToRootElement(parser);
+            String rootElement = parser.getName();
+            NavDestination destination = createDestination(parser, attrs);
+            inflateChildren(res, parser, attrs, graphResId, destination,
+                    lazySubgraphs ? ROOT_PATH : null, INFLATE_ALL, null);
+            if (!(destination instanceof NavGraph)) {
+                throw new IllegalArgumentException("Root element <" + rootElement + ">"
+                        + " did not inflate into a NavGraph");
             }
+            return (NavGraph) destination;
+        } catch (Exception e) {
+            throw new RuntimeException("Exception inflating "
+                    + res.getResourceName(graphResId) + " line "
+                    + parser.getLineNumber(), e);
+        } finally {
+            parser.close();
+        }
+    }
 
+    /**
+     * Inflates the graph of an included resource without its destinations, which are inflated
+     * the first time the graph is used. Its arguments, deep links and actions are inflated right
+     * away.
+     */
+    @SuppressLint("ResourceType")
+    @NonNull
+    private NavGraph inflateLazily(@NavigationRes int graphResId) {
+        Resources res = mContext.getResources();
+        XmlResourceParser parser = res.getXml(graphResId);
+        final AttributeSet attrs = Xml.asAttributeSet(parser);
+        try {
+            moveToRootElement(parser);
             String rootElement = parser.getName();
-            NavDestination destination = inflate(res, parser, attrs, graphResId);
+            NavDestination destination = createDestination(parser, attrs);
             if (!(destination instanceof NavGraph)) {
                 throw new IllegalArgumentException("Root element <" + rootElement + ">"
                         + " did not inflate into a NavGraph");
             }
+            SubgraphLoader loader = new SubgraphLoader(res, graphResId, ROOT_PATH);
+            inflateChildren(res, parser, attrs, graphResId, destination, ROOT_PATH,
+                    INFLATE_DETAILS, loader);
+            ((NavGraph) destination).setDestinationLoader(loader);
             return (NavGraph) destination;
         } catch (Exception e) {
             throw new RuntimeException("Exception inflating "
@@ -92,15 +144,66 @@ public final class NavInflater {
         }
     }
 
-    @NonNull
-    private NavDestination inflate(@NonNull Resources res, @NonNull XmlResourceParser parser,
-            @NonNull AttributeSet attrs, int graphResId)
+    private static void moveToRootElement(@NonNull XmlResourceParser parser)
             throws XmlPullParserException, IOException {
+        int type;
+        while ((type = parser.next()) != XmlPullParser.START_TAG
+                && type != XmlPullParser.END_DOCUMENT) {
+            // Empty loop
+        }
+        if (type != XmlPullParser.START_TAG) {
+            throw new XmlPullParserException("No start tag found");
+        }
+    }
+
+    @NonNull
+    private NavDestination createDestination(@NonNull XmlResourceParser parser,
+            @NonNull AttributeSet attrs) {
         Navigator navigator = mNavigatorProvider.getNavigator(parser.getName());
         final NavDestination dest = navigator.createDestination();
 
         dest.onInflate(mContext, attrs);
+        return dest;
+    }
+
+    /**
+     * Inflates the destination of the current element. When {@code parentPath} isn't null and
+     * the destination is a graph, its own destinations are inflated lazily, while its arguments,
+     * deep links and actions are inflated right away.
+     */
+    @NonNull
+    private NavDestination inflate(@NonNull Resources res, @NonNull XmlResourceParser parser,
+            @NonNull AttributeSet attrs, int graphResId, @Nullable int[] parentPath)
+            throws XmlPullParserException, IOException {
+        final NavDestination dest = createDestination(parser, attrs);
+        if (parentPath != null && dest instanceof NavGraph) {
+            int[] path = Arrays.copyOf(parentPath, parentPath.length + 1);
+            path[parentPath.length] = dest.getId();
+            SubgraphLoader loader = new SubgraphLoader(res, graphResId, path);
+            inflateChildren(res, parser, attrs, graphResId, dest, path, INFLATE_DETAILS, loader);
+            ((NavGraph) dest).setDestinationLoader(loader);
+        } else {
+            inflateChildren(res, parser, attrs, graphResId, dest, parentPath, INFLATE_ALL, null);
+        }
+        return dest;
+    }
 
+    /**
+     * Inflates the child elements of the current element into the given destination. When
+     * {@code path} isn't null, the nested graphs of the destination are inflated lazily, and it
+     * holds the IDs of the nested graphs leading from the root of the resource to the
+     * destination.
+     *
+     * @param inflate which child elements to inflate, the others are skipped
+     * @param loader the loader of the skipped destinations, which gets their deep links and
+     *               those of their descendants
+     */
+    private void inflateChildren(@NonNull Resources res, @NonNull XmlResourceParser parser,
+            @NonNull AttributeSet attrs, int graphResId, @NonNull NavDestination dest,
+            @Nullable int[] path, int inflate, @Nullable SubgraphLoader loader)
+            throws XmlPullParserException, IOException {
+        final boolean inflateDetails = (inflate & INFLATE_DETAILS) != 0;
+        final boolean inflateDestinations = (inflate & INFLATE_DESTINATIONS) != 0;
         final int innerDepth = parser.getDepth() + 1;
         int type;
         int depth;
@@ -112,27 +215,39 @@ public final class NavInflater {
             }
 
             if (depth > innerDepth) {
+                if (loader != null) {
+                    loader.addNestedElement(attrs, parser.getName());
+                }
                 continue;
             }
 
             final String name = parser.getName();
             if (TAG_ARGUMENT.equals(name)) {
-                inflateArgumentForDestination(res, dest, attrs, graphResId);
+                if (inflateDetails) {
+                    inflateArgumentForDestination(res, dest, attrs, graphResId);
+                }
             } else if (TAG_DEEP_LINK.equals(name)) {
-                inflateDeepLink(res, dest, attrs);
+                if (inflateDetails) {
+                    inflateDeepLink(res, dest, attrs);
+                }
             } else if (TAG_ACTION.equals(name)) {
-                inflateAction(res, dest, attrs, parser, graphResId);
+                if (inflateDetails) {
+                    inflateAction(res, dest, attrs, parser, graphResId);
+                }
+            } else if (!inflateDestinations) {
+                // The destinations of this graph are inflated later
+                if (loader != null) {
+                    loader.addNestedElement(attrs, name);
+                }
             } else if (TAG_INCLUDE.equals(name) && dest instanceof NavGraph) {
                 final TypedArray a = res.obtainAttributes(attrs, R.styleable.NavInclude);
                 final int id = a.getResourceId(R.styleable.NavInclude_graph, 0);
-                ((NavGraph) dest).addDestination(inflate(id));
+                ((NavGraph) dest).addDestination(path != null ? inflateLazily(id) : inflate(id));
                 a.recycle();
             } else if (dest instanceof NavGraph) {
-                ((NavGraph) dest).addDestination(inflate(res, parser, attrs, graphResId));
+                ((NavGraph) dest).addDestination(inflate(res, parser, attrs, graphResId, path));
             }
         }
-
-        return dest;
     }
 
     private void inflateArgumentForDestination(@NonNull Resources res, @NonNull NavDestination dest,
@@ -257,15 +372,19 @@ public final class NavInflater {
 
     private void inflateDeepLink(@NonNull Resources res, @NonNull NavDestination dest,
             @NonNull AttributeSet attrs) {
+        dest.addDeepLink(inflateDeepLinkUri(res, attrs));
+    }
+
+    @NonNull
+    private String inflateDeepLinkUri(@NonNull Resources res, @NonNull AttributeSet attrs) {
         final TypedArray a = res.obtainAttributes(attrs, R.styleable.NavDeepLink);
         String uri = a.getString(R.styleable.NavDeepLink_uri);
+        a.recycle();
         if (TextUtils.isEmpty(uri)) {
             throw new IllegalArgumentException("Every <" + TAG_DEEP_LINK
                     + "> must include an app:uri");
         }
-        uri = uri.replace(APPLICATION_ID_PLACEHOLDER, mContext.getPackageName());
-        dest.addDeepLink(uri);
-        a.recycle();
+        return uri.replace(APPLICATION_ID_PLACEHOLDER, mContext.getPackageName());
     }
 
     private void inflateAction(@NonNull Resources res, @NonNull NavDestination dest,
@@ -311,4 +430,86 @@ public final class NavInflater {
         dest.putAction(id, action);
         a.recycle();
     }
+
+    /**
+     * Inflates the destinations of a nested graph from its element in the navigation resource,
+     * with the Resources the graph itself was inflated with.
+     */
+    private class SubgraphLoader implements NavGraph.DestinationLoader {
+        private final Resources mResources;
+        private final int mGraphResId;
+        private final int[] mPath;
+        // The deep links of the destinations nested in the graph, or null when some of them are
+        // in included resources
+        @Nullable
+        private ArrayList<String> mNestedDeepLinks = new ArrayList<>();
+
+        SubgraphLoader(@NonNull Resources res, @NavigationRes int graphResId,
+                @NonNull int[] path) {
+            mResources = res;
+            mGraphResId = graphResId;
+            mPath = path;
+        }
+
+        /**
+         * Records the deep links found in the elements of the destinations nested in the graph,
+         * while the graph is inflated without them.
+         */
+        void addNestedElement(@NonNull AttributeSet attrs, @NonNull String name) {
+            if (mNestedDeepLinks == null) {
+                return;
+            }
+            if (TAG_DEEP_LINK.equals(name)) {
+                mNestedDeepLinks.add(inflateDeepLinkUri(mResources, attrs));
+            } else if (TAG_INCLUDE.equals(name)) {
+                mNestedDeepLinks = null;
+            }
+        }
+
+        @Nullable
+        @Override
+        public List<String> getNestedDeepLinks() {
+            return mNestedDeepLinks;
+        }
+
+        @SuppressLint("ResourceType")
+        @Override
+        public void loadDestinations(@NonNull NavGraph graph) {
+            Resources res = mResources;
+            XmlResourceParser parser = res.getXml(mGraphResId);
+            final AttributeSet attrs = Xml.asAttributeSet(parser);
+            try {
+                moveToRootElement(parser);
+                for (int id : mPath) {
+                    moveToChildElement(parser, id);
+                }
+                inflateChildren(res, parser, attrs, mGraphResId, graph, mPath,
+                        INFLATE_DESTINATIONS, null);
+            } catch (Exception e) {
+                throw new RuntimeException("Exception inflating "
+                        + res.getResourceName(mGraphResId) + " line "
+                        + parser.getLineNumber(), e);
+            } finally {
+                parser.close();
+            }
+        }
+
+        private void moveToChildElement(@NonNull XmlResourceParser parser, int id)
+                throws XmlPullParserException, IOException {
+            final int innerDepth = parser.getDepth() + 1;
+            int type;
+            int depth;
+            while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
+                    && ((depth = parser.getDepth()) >= innerDepth
+                    || type != XmlPullParser.END_TAG)) {
+                if (type == XmlPullParser.START_TAG && depth == innerDepth
+                        && !TAG_ACTION.equals(parser.getName())
+                        && parser.getAttributeResourceValue(ANDROID_NAMESPACE, "id", 0) == id) {
+                    return;
+                }
+            }
+            throw new XmlPullParserException("Nested graph "
+                    + NavDestination.getDisplayName(mContext, id) + " not found");
+        }
+    }
 }
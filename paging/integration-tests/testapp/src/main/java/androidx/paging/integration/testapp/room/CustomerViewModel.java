@@ -51,7 +51,8 @@ public class CustomerViewModel extends AndroidViewModel {
         mDatabase = Room.databaseBuilder(this.getApplication(),
                 SampleDatabase.class, "customerDatabase").build();
 
-        ArchTaskExecutor.getInstance().executeOnDiskIO(() -> {
+        // nobody waits on the sample data, so don't let it hold up the list's own queries
+        ArchTaskExecutor.getBackgroundIOThreadExecutor().execute(() -> {
             // fill with some simple data
             int customerCount = mDatabase.getCustomerDao().countCustomers();
             if (customerCount == 0) {
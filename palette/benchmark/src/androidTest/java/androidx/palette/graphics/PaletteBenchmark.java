@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares generating a palette the default way, from a bitmap resized to the default area, with
+ * quantizing a whole hero image serially, in parallel, with a finer word width and with k-means
+ * refinement.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class PaletteBenchmark {
+    private static final int HERO_WIDTH = 1920;
+    private static final int HERO_HEIGHT = 1080;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Bitmap mBitmap;
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        mBitmap = createHeroBitmap();
+        mExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdown();
+        mBitmap.recycle();
+    }
+
+    @Test
+    public void resizedDefault() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Palette.from(mBitmap).generate();
+        }
+    }
+
+    @Test
+    public void fullSizeSerial() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Palette.from(mBitmap).resizeBitmapArea(0).generate();
+        }
+    }
+
+    @Test
+    public void fullSizeParallel() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Palette.from(mBitmap)
+                    .resizeBitmapArea(0)
+                    .setQuantizationExecutor(mExecutor)
+                    .generate();
+        }
+    }
+
+    @Test
+    public void fullSizeParallelWordWidth6() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Palette.from(mBitmap)
+                    .resizeBitmapArea(0)
+                    .setQuantizationWordWidth(6)
+                    .setQuantizationExecutor(mExecutor)
+                    .generate();
+        }
+    }
+
+    @Test
+    public void fullSizeParallelKMeans() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            Palette.from(mBitmap)
+                    .resizeBitmapArea(0)
+                    .setQuantizationExecutor(mExecutor)
+                    .setKMeansIterations(5)
+                    .generate();
+        }
+    }
+
+    /**
+     * Creates a bitmap of smooth gradients with some noise, so that it has many distinct colors
+     * like a photo.
+     */
+    private static Bitmap createHeroBitmap() {
+        final Random random = new Random(0);
+        final int[] pixels = new int[HERO_WIDTH * HERO_HEIGHT];
+        for (int y = 0; y < HERO_HEIGHT; y++) {
+            for (int x = 0; x < HERO_WIDTH; x++) {
+                final int red = x * 255 / HERO_WIDTH;
+                final int green = y * 255 / HERO_HEIGHT;
+                final int blue = (x + y) * 255 / (HERO_WIDTH + HERO_HEIGHT);
+                pixels[y * HERO_WIDTH + x] = Color.rgb(
+                        Math.min(255, red + random.nextInt(16)),
+                        Math.min(255, green + random.nextInt(16)),
+                        Math.min(255, blue + random.nextInt(16)));
+            }
+        }
+        return Bitmap.createBitmap(pixels, HERO_WIDTH, HERO_HEIGHT, Bitmap.Config.ARGB_8888);
+    }
+}
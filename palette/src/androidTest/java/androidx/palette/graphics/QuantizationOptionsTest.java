@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+
+import androidx.test.filters.MediumTest;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+@RunWith(AndroidJUnit4.class)
+public class QuantizationOptionsTest {
+
+    @Test
+    @MediumTest
+    public void testParallelQuantizationMatchesSerial() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int wordWidth = ColorCutQuantizer.MIN_QUANTIZE_WORD_WIDTH;
+                    wordWidth <= ColorCutQuantizer.MAX_QUANTIZE_WORD_WIDTH; wordWidth++) {
+                // Don't resize, so that the bitmap is large enough to be split
+                Palette serial = Palette.from(bitmap)
+                        .resizeBitmapArea(0)
+                        .setQuantizationWordWidth(wordWidth)
+                        .generate();
+                Palette parallel = Palette.from(bitmap)
+                        .resizeBitmapArea(0)
+                        .setQuantizationWordWidth(wordWidth)
+                        .setQuantizationExecutor(executor)
+                        .generate();
+                assertEquals(serial.getSwatches(), parallel.getSwatches());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @MediumTest
+    public void testParallelQuantizationWithRejectingExecutor() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        Palette serial = Palette.from(bitmap)
+                .resizeBitmapArea(0)
+                .generate();
+        // The slices rejected by the executor are quantized on the calling thread
+        Palette parallel = Palette.from(bitmap)
+                .resizeBitmapArea(0)
+                .setQuantizationExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        throw new RejectedExecutionException();
+                    }
+                })
+                .generate();
+        assertEquals(serial.getSwatches(), parallel.getSwatches());
+    }
+
+    @Test
+    @MediumTest
+    public void testKMeansRefinement() {
+        final int maxColors = 16;
+        final List<Palette.Swatch> swatches = Palette.from(TestUtils.loadSampleBitmap())
+                .maximumColorCount(maxColors)
+                .setKMeansIterations(10)
+                .generate()
+                .getSwatches();
+        assertFalse(swatches.isEmpty());
+        assertTrue(swatches.size() <= maxColors);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SmallTest
+    public void testWordWidthTooLarge() {
+        Palette.from(TestUtils.loadSampleBitmap())
+                .setQuantizationWordWidth(ColorCutQuantizer.MAX_QUANTIZE_WORD_WIDTH + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SmallTest
+    public void testNegativeKMeansIterations() {
+        Palette.from(TestUtils.loadSampleBitmap()).setKMeansIterations(-1);
+    }
+}
@@ -28,6 +28,7 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
 
 /**
  * An color quantizer based on the Median-cut algorithm, but optimized for picking out distinct
@@ -41,6 +42,9 @@ import java.util.PriorityQueue;
  * have roughly the same population, where this quantizer divides boxes based on their color volume.
  * This means that the color space is divided into distinct colors, rather than representative
  * colors.
+ *
+ * The boxes can optionally be refined with a few iterations of k-means, which moves each color to
+ * the box whose average color is the closest, and so evens out colors split by an unlucky cut.
  */
 final class ColorCutQuantizer {
 
@@ -51,9 +55,15 @@ final class ColorCutQuantizer {
     static final int COMPONENT_GREEN = -2;
     static final int COMPONENT_BLUE = -1;
 
-    private static final int QUANTIZE_WORD_WIDTH = 5;
-    private static final int QUANTIZE_WORD_MASK = (1 << QUANTIZE_WORD_WIDTH) - 1;
+    static final int DEFAULT_QUANTIZE_WORD_WIDTH = 5;
+    static final int MIN_QUANTIZE_WORD_WIDTH = 4;
+    static final int MAX_QUANTIZE_WORD_WIDTH = 7;
+
+    // Below this, handing the histogram over to other threads costs more than it saves
+    private static final int MIN_PIXELS_PER_SLICE = 16 * 1024;
 
+    final int mWordWidth;
+    final int mWordMask;
     final int[] mColors;
     final int[] mHistogram;
     final List<Palette.Swatch> mQuantizedColors;
@@ -69,19 +79,32 @@ final class ColorCutQuantizer {
      * @param maxColors The maximum number of colors that should be in the result palette.
      * @param filters Set of filters to use in the quantization stage
      */
-    @SuppressWarnings("NullAway") // mTimingLogger initialization and access guarded by LOG_TIMINGS.
     ColorCutQuantizer(final int[] pixels, final int maxColors, final Palette.Filter[] filters) {
+        this(pixels, maxColors, filters, DEFAULT_QUANTIZE_WORD_WIDTH, null, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pixels histogram representing an image's pixel data
+     * @param maxColors The maximum number of colors that should be in the result palette.
+     * @param filters Set of filters to use in the quantization stage
+     * @param wordWidth The number of bits each color component is quantized to, between
+     *                  {@link #MIN_QUANTIZE_WORD_WIDTH} and {@link #MAX_QUANTIZE_WORD_WIDTH}
+     * @param executor Executor to build the histogram of large images in parallel on, or null to
+     *                 build it on the calling thread
+     * @param kMeansIterations The maximum number of k-means iterations to refine the median-cut
+     *                         boxes with, or 0 to not refine them
+     */
+    @SuppressWarnings("NullAway") // mTimingLogger initialization and access guarded by LOG_TIMINGS.
+    ColorCutQuantizer(final int[] pixels, final int maxColors, final Palette.Filter[] filters,
+            final int wordWidth, @Nullable final Executor executor, final int kMeansIterations) {
         mTimingLogger = LOG_TIMINGS ? new TimingLogger(LOG_TAG, "Creation") : null;
         mFilters = filters;
+        mWordWidth = wordWidth;
+        mWordMask = (1 << wordWidth) - 1;
 
-        final int[] hist = mHistogram = new int[1 << (QUANTIZE_WORD_WIDTH * 3)];
-        for (int i = 0; i < pixels.length; i++) {
-            final int quantizedColor = quantizeFromRgb888(pixels[i]);
-            // Now update the pixel value to the quantized value
-            pixels[i] = quantizedColor;
-            // And update the histogram
-            hist[quantizedColor]++;
-        }
+        final int[] hist = mHistogram = buildHistogram(pixels, executor);
 
         if (LOG_TIMINGS) {
             mTimingLogger.addSplit("Histogram created");
@@ -130,7 +153,7 @@ final class ColorCutQuantizer {
             }
         } else {
             // We need use quantization to reduce the number of colors
-            mQuantizedColors = quantizePixels(maxColors);
+            mQuantizedColors = quantizePixels(maxColors, kMeansIterations);
 
             if (LOG_TIMINGS) {
                 mTimingLogger.addSplit("Quantized colors computed");
@@ -146,7 +169,57 @@ final class ColorCutQuantizer {
         return mQuantizedColors;
     }
 
-    private List<Palette.Swatch> quantizePixels(int maxColors) {
+    /**
+     * Quantizes the pixels in place and returns their histogram. Large images are split into
+     * slices, each counted into its own histogram by the executor's threads and the calling thread,
+     * and the histograms are then summed.
+     */
+    private int[] buildHistogram(final int[] pixels, @Nullable final Executor executor) {
+        final int histogramSize = 1 << (mWordWidth * 3);
+        // Every slice needs its own histogram, so a slice should at least have as many pixels
+        // as the histogram has entries for the merge to not cost more than the counting
+        final int sliceCount = Math.min(Runtime.getRuntime().availableProcessors(),
+                pixels.length / Math.max(MIN_PIXELS_PER_SLICE, histogramSize));
+        if (executor == null || sliceCount <= 1) {
+            final int[] hist = new int[histogramSize];
+            quantizeSlice(pixels, 0, pixels.length, hist);
+            return hist;
+        }
+
+        final int[][] histograms = new int[sliceCount][];
+        ParallelWorkers.runIndexed(executor, sliceCount, sliceCount,
+                new ParallelWorkers.IndexedTask() {
+                    @Override
+                    public void run(int slice) {
+                        final int[] hist = new int[histogramSize];
+                        quantizeSlice(pixels, (int) ((long) pixels.length * slice / sliceCount),
+                                (int) ((long) pixels.length * (slice + 1) / sliceCount), hist);
+                        histograms[slice] = hist;
+                    }
+                });
+
+        final int[] hist = histograms[0];
+        for (int slice = 1; slice < sliceCount; slice++) {
+            final int[] sliceHist = histograms[slice];
+            for (int color = 0; color < histogramSize; color++) {
+                hist[color] += sliceHist[color];
+            }
+        }
+        return hist;
+    }
+
+    private void quantizeSlice(final int[] pixels, final int start, final int end,
+            final int[] hist) {
+        for (int i = start; i < end; i++) {
+            final int quantizedColor = quantizeFromRgb888(pixels[i]);
+            // Now update the pixel value to the quantized value
+            pixels[i] = quantizedColor;
+            // And update the histogram
+            hist[quantizedColor]++;
+        }
+    }
+
+    private List<Palette.Swatch> quantizePixels(int maxColors, int kMeansIterations) {
         // Create the priority queue which is sorted by volume descending. This means we always
         // split the largest box in the queue
         final PriorityQueue<Vbox> pq = new PriorityQueue<>(maxColors, VBOX_COMPARATOR_VOLUME);
@@ -158,6 +231,10 @@ final class ColorCutQuantizer {
         // more boxes to split
         splitBoxes(pq, maxColors);
 
+        if (kMeansIterations > 0) {
+            return refineBoxes(pq, kMeansIterations);
+        }
+
         // Finally, return the average colors of the color boxes
         return generateAverageColors(pq);
     }
@@ -208,6 +285,104 @@ final class ColorCutQuantizer {
         return colors;
     }
 
+    /**
+     * Refines the boxes with k-means: each color is assigned to the cluster whose mean is the
+     * closest, starting from the boxes, until no color changes cluster or the iterations run out.
+     *
+     * @return the mean colors of the clusters
+     */
+    @SuppressWarnings("NullAway") // mTimingLogger initialization and access guarded by LOG_TIMINGS.
+    private List<Palette.Swatch> refineBoxes(Collection<Vbox> vboxes, int maxIterations) {
+        final int[] colors = mColors;
+        final int clusterCount = vboxes.size();
+
+        final int[] assignments = new int[colors.length];
+        int cluster = 0;
+        for (Vbox vbox : vboxes) {
+            Arrays.fill(assignments, vbox.mLowerIndex, vbox.mUpperIndex + 1, cluster++);
+        }
+
+        final float[] means = new float[clusterCount * 3];
+        final int[] populations = new int[clusterCount];
+        computeClusterMeans(assignments, means, populations);
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            boolean changed = false;
+            for (int i = 0; i < colors.length; i++) {
+                final int color = colors[i];
+                final float r = quantizedRed(color);
+                final float g = quantizedGreen(color);
+                final float b = quantizedBlue(color);
+
+                int nearest = assignments[i];
+                float nearestDistance = Float.MAX_VALUE;
+                for (int c = 0; c < clusterCount; c++) {
+                    if (populations[c] == 0) {
+                        continue;
+                    }
+                    final float dr = r - means[c * 3];
+                    final float dg = g - means[c * 3 + 1];
+                    final float db = b - means[c * 3 + 2];
+                    final float distance = dr * dr + dg * dg + db * db;
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = c;
+                    }
+                }
+                if (nearest != assignments[i]) {
+                    assignments[i] = nearest;
+                    changed = true;
+                }
+            }
+            if (LOG_TIMINGS) {
+                mTimingLogger.addSplit("K-means iteration");
+            }
+            if (!changed) {
+                break;
+            }
+            computeClusterMeans(assignments, means, populations);
+        }
+
+        final ArrayList<Palette.Swatch> swatches = new ArrayList<>(clusterCount);
+        for (int c = 0; c < clusterCount; c++) {
+            if (populations[c] == 0) {
+                continue;
+            }
+            final Palette.Swatch swatch = new Palette.Swatch(
+                    approximateToRgb888(Math.round(means[c * 3]), Math.round(means[c * 3 + 1]),
+                            Math.round(means[c * 3 + 2])), populations[c]);
+            if (!shouldIgnoreColor(swatch)) {
+                swatches.add(swatch);
+            }
+        }
+        return swatches;
+    }
+
+    private void computeClusterMeans(final int[] assignments, final float[] means,
+            final int[] populations) {
+        final int[] colors = mColors;
+        final int[] hist = mHistogram;
+        final long[] sums = new long[means.length];
+        Arrays.fill(populations, 0);
+
+        for (int i = 0; i < colors.length; i++) {
+            final int color = colors[i];
+            final int colorPopulation = hist[color];
+            final int cluster = assignments[i];
+            populations[cluster] += colorPopulation;
+            sums[cluster * 3] += (long) colorPopulation * quantizedRed(color);
+            sums[cluster * 3 + 1] += (long) colorPopulation * quantizedGreen(color);
+            sums[cluster * 3 + 2] += (long) colorPopulation * quantizedBlue(color);
+        }
+        for (int cluster = 0; cluster < populations.length; cluster++) {
+            if (populations[cluster] > 0) {
+                means[cluster * 3] = sums[cluster * 3] / (float) populations[cluster];
+                means[cluster * 3 + 1] = sums[cluster * 3 + 1] / (float) populations[cluster];
+                means[cluster * 3 + 2] = sums[cluster * 3 + 2] / (float) populations[cluster];
+            }
+        }
+    }
+
     /**
      * Represents a tightly fitting box around a color space.
      */
@@ -374,9 +549,9 @@ final class ColorCutQuantizer {
         final Palette.Swatch getAverageColor() {
             final int[] colors = mColors;
             final int[] hist = mHistogram;
-            int redSum = 0;
-            int greenSum = 0;
-            int blueSum = 0;
+            long redSum = 0;
+            long greenSum = 0;
+            long blueSum = 0;
             int totalPopulation = 0;
 
             for (int i = mLowerIndex; i <= mUpperIndex; i++) {
@@ -384,9 +559,9 @@ final class ColorCutQuantizer {
                 final int colorPopulation = hist[color];
 
                 totalPopulation += colorPopulation;
-                redSum += colorPopulation * quantizedRed(color);
-                greenSum += colorPopulation * quantizedGreen(color);
-                blueSum += colorPopulation * quantizedBlue(color);
+                redSum += (long) colorPopulation * quantizedRed(color);
+                greenSum += (long) colorPopulation * quantizedGreen(color);
+                blueSum += (long) colorPopulation * quantizedBlue(color);
             }
 
             final int redMean = Math.round(redSum / (float) totalPopulation);
@@ -403,7 +578,7 @@ final class ColorCutQuantizer {
      *
      * @see Vbox#findSplitPoint()
      */
-    static void modifySignificantOctet(final int[] a, final int dimension,
+    void modifySignificantOctet(final int[] a, final int dimension,
             final int lower, final int upper) {
         switch (dimension) {
             case COMPONENT_RED:
@@ -413,8 +588,8 @@ final class ColorCutQuantizer {
                 // We need to do a RGB to GRB swap, or vice-versa
                 for (int i = lower; i <= upper; i++) {
                     final int color = a[i];
-                    a[i] = quantizedGreen(color) << (QUANTIZE_WORD_WIDTH + QUANTIZE_WORD_WIDTH)
-                            | quantizedRed(color) << QUANTIZE_WORD_WIDTH
+                    a[i] = quantizedGreen(color) << (mWordWidth + mWordWidth)
+                            | quantizedRed(color) << mWordWidth
                             | quantizedBlue(color);
                 }
                 break;
@@ -422,8 +597,8 @@ final class ColorCutQuantizer {
                 // We need to do a RGB to BGR swap, or vice-versa
                 for (int i = lower; i <= upper; i++) {
                     final int color = a[i];
-                    a[i] = quantizedBlue(color) << (QUANTIZE_WORD_WIDTH + QUANTIZE_WORD_WIDTH)
-                            | quantizedGreen(color) << QUANTIZE_WORD_WIDTH
+                    a[i] = quantizedBlue(color) << (mWordWidth + mWordWidth)
+                            | quantizedGreen(color) << mWordWidth
                             | quantizedRed(color);
                 }
                 break;
@@ -462,47 +637,47 @@ final class ColorCutQuantizer {
     };
 
     /**
-     * Quantized a RGB888 value to have a word width of {@value #QUANTIZE_WORD_WIDTH}.
+     * Quantized a RGB888 value to have the quantizer's word width.
      */
-    private static int quantizeFromRgb888(int color) {
-        int r = modifyWordWidth(Color.red(color), 8, QUANTIZE_WORD_WIDTH);
-        int g = modifyWordWidth(Color.green(color), 8, QUANTIZE_WORD_WIDTH);
-        int b = modifyWordWidth(Color.blue(color), 8, QUANTIZE_WORD_WIDTH);
-        return r << (QUANTIZE_WORD_WIDTH + QUANTIZE_WORD_WIDTH) | g << QUANTIZE_WORD_WIDTH | b;
+    private int quantizeFromRgb888(int color) {
+        int r = modifyWordWidth(Color.red(color), 8, mWordWidth);
+        int g = modifyWordWidth(Color.green(color), 8, mWordWidth);
+        int b = modifyWordWidth(Color.blue(color), 8, mWordWidth);
+        return r << (mWordWidth + mWordWidth) | g << mWordWidth | b;
     }
 
     /**
-     * Quantized RGB888 values to have a word width of {@value #QUANTIZE_WORD_WIDTH}.
+     * Quantized RGB888 values to have the quantizer's word width.
      */
-    static int approximateToRgb888(int r, int g, int b) {
-        return Color.rgb(modifyWordWidth(r, QUANTIZE_WORD_WIDTH, 8),
-                modifyWordWidth(g, QUANTIZE_WORD_WIDTH, 8),
-                modifyWordWidth(b, QUANTIZE_WORD_WIDTH, 8));
+    int approximateToRgb888(int r, int g, int b) {
+        return Color.rgb(modifyWordWidth(r, mWordWidth, 8),
+                modifyWordWidth(g, mWordWidth, 8),
+                modifyWordWidth(b, mWordWidth, 8));
     }
 
-    private static int approximateToRgb888(int color) {
+    private int approximateToRgb888(int color) {
         return approximateToRgb888(quantizedRed(color), quantizedGreen(color), quantizedBlue(color));
     }
 
     /**
      * @return red component of the quantized color
      */
-    static int quantizedRed(int color) {
-        return (color >> (QUANTIZE_WORD_WIDTH + QUANTIZE_WORD_WIDTH)) & QUANTIZE_WORD_MASK;
+    int quantizedRed(int color) {
+        return (color >> (mWordWidth + mWordWidth)) & mWordMask;
     }
 
     /**
      * @return green component of a quantized color
      */
-    static int quantizedGreen(int color) {
-        return (color >> QUANTIZE_WORD_WIDTH) & QUANTIZE_WORD_MASK;
+    int quantizedGreen(int color) {
+        return (color >> mWordWidth) & mWordMask;
     }
 
     /**
      * @return blue component of a quantized color
      */
-    static int quantizedBlue(int color) {
-        return color & QUANTIZE_WORD_MASK;
+    int quantizedBlue(int color) {
+        return color & mWordMask;
     }
 
     private static int modifyWordWidth(int value, int currentWidth, int targetWidth) {
@@ -25,6 +25,7 @@ import android.util.SparseBooleanArray;
 import android.util.TimingLogger;
 
 import androidx.annotation.ColorInt;
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.Px;
@@ -36,6 +37,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * A helper class to extract prominent colors from an image.
@@ -599,6 +601,9 @@ public final class Palette {
         private int mMaxColors = DEFAULT_CALCULATE_NUMBER_COLORS;
         private int mResizeArea = DEFAULT_RESIZE_BITMAP_AREA;
         private int mResizeMaxDimension = -1;
+        private int mQuantizationWordWidth = ColorCutQuantizer.DEFAULT_QUANTIZE_WORD_WIDTH;
+        @Nullable private Executor mQuantizationExecutor;
+        private int mKMeansIterations;
 
         private final List<Filter> mFilters = new ArrayList<>();
         @Nullable private Rect mRegion;
@@ -690,6 +695,61 @@ public final class Palette {
             return this;
         }
 
+        /**
+         * Set the number of bits each color component is reduced to in the quantization step
+         * when using a {@link android.graphics.Bitmap} as the source. The default is 5.
+         * <p>
+         * Higher values distinguish closer colors, which is useful with a larger
+         * {@link #resizeBitmapArea(int) resize area}, but make quantization slower and use more
+         * memory: a value of 7 quantizes into 2M colors instead of the default 32K.
+         *
+         * @param wordWidth the number of bits per color component, from 4 to 7.
+         */
+        @NonNull
+        public Builder setQuantizationWordWidth(@IntRange(from = 4, to = 7) int wordWidth) {
+            if (wordWidth < ColorCutQuantizer.MIN_QUANTIZE_WORD_WIDTH
+                    || wordWidth > ColorCutQuantizer.MAX_QUANTIZE_WORD_WIDTH) {
+                throw new IllegalArgumentException("wordWidth must be between "
+                        + ColorCutQuantizer.MIN_QUANTIZE_WORD_WIDTH + " and "
+                        + ColorCutQuantizer.MAX_QUANTIZE_WORD_WIDTH);
+            }
+            mQuantizationWordWidth = wordWidth;
+            return this;
+        }
+
+        /**
+         * Set an {@link Executor} to quantize large bitmaps on in parallel. The pixels are split
+         * into slices which are counted on the executor's threads and on the thread generating the
+         * palette, so the executor should have a few threads. Small bitmaps, such as the ones
+         * resized to the default area, are always quantized on the generating thread.
+         *
+         * @param executor the executor to use, or null to quantize on the generating thread.
+         */
+        @NonNull
+        public Builder setQuantizationExecutor(@Nullable Executor executor) {
+            mQuantizationExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of k-means iterations used to refine the colors found by the
+         * quantization step when using a {@link android.graphics.Bitmap} as the source. Each
+         * iteration moves every color of the image to the closest of the found colors and then
+         * recomputes them, which makes them more representative of the image at the cost of
+         * processing time. Refinement stops early once no color moves. The default is 0, which
+         * disables refinement.
+         *
+         * @param iterations the maximum number of iterations, or 0 to disable refinement.
+         */
+        @NonNull
+        public Builder setKMeansIterations(@IntRange(from = 0) int iterations) {
+            if (iterations < 0) {
+                throw new IllegalArgumentException("iterations must not be negative");
+            }
+            mKMeansIterations = iterations;
+            return this;
+        }
+
         /**
          * Clear all added filters. This includes any default filters added automatically by
          * {@link Palette}.
@@ -810,7 +870,10 @@ public final class Palette {
                 final ColorCutQuantizer quantizer = new ColorCutQuantizer(
                         getPixelsFromBitmap(bitmap),
                         mMaxColors,
-                        mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]));
+                        mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]),
+                        mQuantizationWordWidth,
+                        mQuantizationExecutor,
+                        mKMeansIterations);
 
                 // If created a new bitmap, recycle it
                 if (bitmap != mBitmap) {
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs work on the calling thread and on threads of an executor.
+ * <p>
+ * The calling thread takes part in the work, so the work not claimed by the executor's threads,
+ * e.g. while the executor is busy or if it runs its tasks on the calling thread, is done on the
+ * calling thread and never waited for. Work rejected by the executor is done on the calling thread
+ * too.
+ */
+final class ParallelWorkers {
+
+    /**
+     * A task run for each index of a range.
+     */
+    interface IndexedTask {
+        /**
+         * Runs the task for the given index.
+         */
+        void run(int index);
+    }
+
+    /**
+     * Runs {@code worker} on the calling thread and on {@code parallelism - 1} threads of the
+     * executor. The worker claims the work left each time it runs, and returns once none is left.
+     */
+    static void runWorkers(@NonNull Executor executor, int parallelism, @NonNull Runnable worker) {
+        for (int i = 1; i < parallelism; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // The calling thread claims the work the rejected workers would have done
+                break;
+            }
+        }
+        worker.run();
+    }
+
+    /**
+     * Runs {@code task} for every index from 0 to {@code count - 1}, on up to {@code parallelism}
+     * threads at a time, and returns once it has run for all of them. If the calling thread is
+     * interrupted while waiting for the other threads, it is interrupted again on return.
+     * <p>
+     * If {@code task} throws, it isn't run for the indices not claimed yet, and the first
+     * exception thrown is rethrown on the calling thread once the other runs have finished.
+     */
+    static void runIndexed(@NonNull Executor executor, int parallelism, final int count,
+            @NonNull final IndexedTask task) {
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(count);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        runWorkers(executor, Math.min(parallelism, count), new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while ((index = nextIndex.getAndIncrement()) < count) {
+                    try {
+                        if (failure.get() == null) {
+                            task.run(index);
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        });
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        final Throwable thrown = failure.get();
+        if (thrown instanceof RuntimeException) {
+            throw (RuntimeException) thrown;
+        } else if (thrown != null) {
+            throw (Error) thrown;
+        }
+    }
+
+    private ParallelWorkers() {
+    }
+}
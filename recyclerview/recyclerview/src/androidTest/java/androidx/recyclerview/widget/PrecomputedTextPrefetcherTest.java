@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextPaint;
+import android.text.style.StyleSpan;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PrecomputedTextPrefetcherTest {
+    private static final int PREFETCH_COUNT = 3;
+
+    private RecyclerView mRecyclerView;
+    private LinearLayoutManager mLayoutManager;
+    private final List<Integer> mRequestedPositions = new ArrayList<>();
+    private PrecomputedTextPrefetcher mPrefetcher;
+
+    @Before
+    public void setUp() {
+        mRecyclerView = new RecyclerView(InstrumentationRegistry.getTargetContext());
+        mLayoutManager = new LinearLayoutManager(mRecyclerView.getContext());
+        mRecyclerView.setLayoutManager(mLayoutManager);
+        mRecyclerView.setAdapter(new RecyclerViewBasicTest.MockAdapter(100));
+        mRecyclerView.measure(View.MeasureSpec.EXACTLY | 320, View.MeasureSpec.EXACTLY | 320);
+        mRecyclerView.layout(0, 0, 320, 320);
+
+        mPrefetcher = new PrecomputedTextPrefetcher(
+                new PrecomputedTextCompat.Params.Builder(new TextPaint()).build(),
+                new PrecomputedTextPrefetcher.TextProvider() {
+                    @Nullable
+                    @Override
+                    public CharSequence getText(int position) {
+                        mRequestedPositions.add(position);
+                        return "Item " + position;
+                    }
+                }, PREFETCH_COUNT, null);
+    }
+
+    @Test
+    public void prefetchInScrollDirection() {
+        int last = mLayoutManager.findLastVisibleItemPosition();
+        assertTrue(last + PREFETCH_COUNT < 100);
+
+        mPrefetcher.onScrolled(mRecyclerView, 0, 10);
+        assertEquals(PREFETCH_COUNT, mRequestedPositions.size());
+        for (int i = 0; i < PREFETCH_COUNT; i++) {
+            assertEquals(last + 1 + i, (int) mRequestedPositions.get(i));
+        }
+
+        // Already prefetched
+        mPrefetcher.onScrolled(mRecyclerView, 0, 10);
+        assertEquals(PREFETCH_COUNT, mRequestedPositions.size());
+
+        // Nothing before the first item
+        mPrefetcher.onScrolled(mRecyclerView, 0, -10);
+        assertEquals(PREFETCH_COUNT, mRequestedPositions.size());
+    }
+
+    @Test
+    public void bindReusesPrefetchedSpannedText() throws Exception {
+        PrecomputedTextCompat.clearCache();
+        final StyleSpan span = new StyleSpan(Typeface.BOLD);
+        final List<Runnable> executed = new ArrayList<>();
+        final PrecomputedTextPrefetcher prefetcher = new PrecomputedTextPrefetcher(
+                new PrecomputedTextCompat.Params.Builder(new TextPaint()).build(),
+                new PrecomputedTextPrefetcher.TextProvider() {
+                    @Nullable
+                    @Override
+                    public CharSequence getText(int position) {
+                        // A new text on each call, with the same span object
+                        SpannableStringBuilder text =
+                                new SpannableStringBuilder("Item " + position);
+                        text.setSpan(span, 0, 4, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                        return text;
+                    }
+                }, PREFETCH_COUNT, new Executor() {
+                    @Override
+                    public void execute(@NonNull Runnable command) {
+                        executed.add(command);
+                        command.run();
+                    }
+                });
+
+        prefetcher.onScrolled(mRecyclerView, 0, 10);
+        assertEquals(PREFETCH_COUNT, executed.size());
+
+        final int position = mLayoutManager.findLastVisibleItemPosition() + 1;
+        assertNotNull(prefetcher.getTextFuture(position).get());
+        // Bound from the prefetched computation, without computing the text again
+        assertEquals(PREFETCH_COUNT, executed.size());
+    }
+
+    @Test
+    public void noPrefetchWhenItemPrefetchDisabled() {
+        mLayoutManager.setItemPrefetchEnabled(false);
+        mPrefetcher.onScrolled(mRecyclerView, 0, 10);
+        assertEquals(0, mRequestedPositions.size());
+    }
+}
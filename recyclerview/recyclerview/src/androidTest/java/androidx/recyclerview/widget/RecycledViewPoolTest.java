@@ -21,6 +21,7 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
 import android.content.Context;
@@ -35,6 +36,10 @@ import androidx.test.runner.AndroidJUnit4;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 @SmallTest
 @RunWith(AndroidJUnit4.class)
 public class RecycledViewPoolTest {
@@ -137,6 +142,285 @@ public class RecycledViewPoolTest {
         assertThat(pool.getRecycledViewCount(1), is(equalTo(clears ? 0 : 1)));
     }
 
+    @Test
+    public void stats() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        RecyclerView.ViewHolder first = makeHolder(1);
+        RecyclerView.ViewHolder second = makeHolder(1);
+        pool.onViewHolderCreated(first);
+        pool.onViewHolderCreated(second);
+        pool.putRecycledView(first);
+        pool.putRecycledView(second);
+        assertNotNull(pool.getRecycledView(1));
+        assertNotNull(pool.getRecycledView(1));
+        assertNull(pool.getRecycledView(1));
+
+        RecyclerView.RecycledViewPool.Stats stats = pool.getStats(1);
+        assertEquals(2, stats.getCreateCount());
+        assertEquals(2, stats.getReuseCount());
+        assertEquals(0, stats.getDiscardCount());
+        assertEquals(2, stats.getPeakInUseCount());
+        assertEquals(5, stats.getMaxRecycledViews());
+    }
+
+    @Test
+    public void stats_discard() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setMaxRecycledViews(1, 1);
+        pool.putRecycledView(makeHolder(1));
+        pool.putRecycledView(makeHolder(1));
+
+        assertEquals(1, pool.getStats(1).getDiscardCount());
+        assertEquals(1, pool.getRecycledViewCount(1));
+    }
+
+    /**
+     * Acquires {@code count} holders of the given type the way the Recycler does, creating them
+     * when the pool is empty, then returns them all to the pool.
+     */
+    private void churn(RecyclerView.RecycledViewPool pool, int viewType, int count) {
+        List<RecyclerView.ViewHolder> holders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            RecyclerView.ViewHolder holder = pool.getRecycledView(viewType);
+            if (holder == null) {
+                holder = makeHolder(viewType);
+                pool.onViewHolderCreated(holder);
+            }
+            holders.add(holder);
+        }
+        for (RecyclerView.ViewHolder holder : holders) {
+            pool.putRecycledView(holder);
+        }
+    }
+
+    @Test
+    public void stats_inUseReleasedOnce() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        RecyclerView.ViewHolder first = makeHolder(1);
+        pool.onViewHolderCreated(first);
+        pool.onViewHolderCreated(makeHolder(1));
+        // a holder which wasn't handed out by the pool doesn't release another one
+        pool.putRecycledView(makeHolder(1));
+        pool.onViewHolderCreated(makeHolder(1));
+        assertEquals(3, pool.getStats(1).getPeakInUseCount());
+
+        // nor does a holder which was released already
+        pool.putRecycledView(first);
+        RecyclerView.RecycledViewPool.releaseInUse(first);
+        pool.onViewHolderCreated(makeHolder(1));
+        pool.onViewHolderCreated(makeHolder(1));
+        assertEquals(4, pool.getStats(1).getPeakInUseCount());
+    }
+
+    @Test
+    public void stats_droppedHolderNotInUse() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        RecyclerView.ViewHolder dropped = makeHolder(1);
+        pool.onViewHolderCreated(dropped);
+        RecyclerView.RecycledViewPool.releaseInUse(dropped);
+        pool.onViewHolderCreated(makeHolder(1));
+
+        assertEquals(1, pool.getStats(1).getPeakInUseCount());
+    }
+
+    @Test
+    public void stats_inUseReleasedToOriginalPool() {
+        RecyclerView.RecycledViewPool oldPool = new RecyclerView.RecycledViewPool();
+        RecyclerView.RecycledViewPool newPool = new RecyclerView.RecycledViewPool();
+        RecyclerView.ViewHolder holder = makeHolder(1);
+        oldPool.onViewHolderCreated(holder);
+        // as after RecyclerView#setRecycledViewPool, the holder goes back to the new pool
+        newPool.putRecycledView(holder);
+        oldPool.onViewHolderCreated(makeHolder(1));
+
+        assertEquals(1, oldPool.getStats(1).getPeakInUseCount());
+        assertEquals(0, newPool.getStats(1).getPeakInUseCount());
+    }
+
+    @Test
+    public void getRecycledView_unknownType() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        assertNull(pool.getRecycledView(1));
+        assertEquals(0, pool.mScrap.size());
+    }
+
+    @Test
+    public void adaptiveSizing_disabled_doesntGrow() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        churn(pool, 1, 8);
+        churn(pool, 1, 8);
+        assertEquals(5, pool.getMaxRecycledViews(1));
+    }
+
+    @Test
+    public void adaptiveSizing_growsOnThrash() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.enableAdaptiveSizing(100);
+        churn(pool, 1, 8);
+        assertEquals(5, pool.getMaxRecycledViews(1));
+        churn(pool, 1, 8);
+        assertEquals(6, pool.getMaxRecycledViews(1));
+        churn(pool, 1, 8);
+        assertEquals(7, pool.getMaxRecycledViews(1));
+        assertEquals(8, pool.getStats(1).getPeakInUseCount());
+    }
+
+    @Test
+    public void adaptiveSizing_cappedByPeakInUse() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.enableAdaptiveSizing(100);
+        for (int i = 0; i < 10; i++) {
+            churn(pool, 1, 6);
+        }
+        assertEquals(6, pool.getMaxRecycledViews(1));
+    }
+
+    @Test
+    public void adaptiveSizing_reclaimsFromLeastRecentlyReused() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.enableAdaptiveSizing(15);
+        churn(pool, 2, 1);
+        churn(pool, 3, 1);
+        churn(pool, 3, 1);
+        churn(pool, 1, 8);
+        churn(pool, 1, 8);
+
+        assertEquals(6, pool.getMaxRecycledViews(1));
+        assertEquals(4, pool.getMaxRecycledViews(2));
+        assertEquals(5, pool.getMaxRecycledViews(3));
+    }
+
+    @Test
+    public void adaptiveSizing_pinnedTypeUnchanged() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.enableAdaptiveSizing(100);
+        pool.setMaxRecycledViews(1, 5);
+        churn(pool, 1, 8);
+        churn(pool, 1, 8);
+        assertEquals(5, pool.getMaxRecycledViews(1));
+    }
+
+    @Test
+    public void warmUp_createsUpToTarget() {
+        final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        final RecyclerView recyclerView = makeWarmUpRecyclerView(pool);
+        pool.setWarmUpTarget(1, 3);
+        pool.putRecycledView(makeHolder(1));
+
+        warmUpAndWait(pool, recyclerView, new DirectExecutor());
+
+        assertEquals(3, pool.getRecycledViewCount(1));
+        assertEquals(0, pool.getWarmUpPendingCount(1));
+    }
+
+    @Test
+    public void warmUp_cappedByMaxRecycledViews() {
+        final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        final RecyclerView recyclerView = makeWarmUpRecyclerView(pool);
+        pool.setMaxRecycledViews(2, 2);
+        pool.setWarmUpTarget(2, 10);
+
+        warmUpAndWait(pool, recyclerView, new DirectExecutor());
+
+        assertEquals(2, pool.getRecycledViewCount(2));
+    }
+
+    @Test
+    public void warmUp_onlyEnqueuesMissing() {
+        final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        final RecyclerView recyclerView = makeWarmUpRecyclerView(pool);
+        final QueueExecutor executor = new QueueExecutor();
+        pool.setWarmUpTarget(1, 2);
+
+        warmUpAndWait(pool, recyclerView, executor);
+        warmUpAndWait(pool, recyclerView, executor);
+        assertEquals(2, executor.mQueue.size());
+        assertEquals(2, pool.getWarmUpPendingCount(1));
+
+        executor.runAll();
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertEquals(2, pool.getRecycledViewCount(1));
+    }
+
+    @Test
+    public void clear_dropsPendingWarmUp() {
+        final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        final RecyclerView recyclerView = makeWarmUpRecyclerView(pool);
+        final QueueExecutor executor = new QueueExecutor();
+        pool.setWarmUpTarget(1, 2);
+
+        warmUpAndWait(pool, recyclerView, executor);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                pool.clear();
+            }
+        });
+        executor.runAll();
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        assertEquals(0, pool.getRecycledViewCount(1));
+        assertEquals(0, pool.getWarmUpPendingCount(1));
+    }
+
+    private RecyclerView makeWarmUpRecyclerView(RecyclerView.RecycledViewPool pool) {
+        final RecyclerView recyclerView = new RecyclerView(InstrumentationRegistry.getContext());
+        recyclerView.setRecycledViewPool(pool);
+        recyclerView.setAdapter(new WarmUpAdapter());
+        return recyclerView;
+    }
+
+    private void warmUpAndWait(final RecyclerView.RecycledViewPool pool,
+            final RecyclerView recyclerView, final Executor executor) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                pool.warmUp(recyclerView, executor);
+            }
+        });
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+    }
+
+    private static class DirectExecutor implements Executor {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            command.run();
+        }
+    }
+
+    private static class QueueExecutor implements Executor {
+        final List<Runnable> mQueue = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mQueue.add(command);
+        }
+
+        void runAll() {
+            for (Runnable runnable : mQueue) {
+                runnable.run();
+            }
+            mQueue.clear();
+        }
+    }
+
+    private static class WarmUpAdapter extends RecyclerView.Adapter<MockViewHolder> {
+        @NonNull
+        @Override
+        public MockViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            return new MockViewHolder(parent.getContext());
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull MockViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+    }
+
     private static class MockViewHolder extends RecyclerView.ViewHolder {
         MockViewHolder(Context context) {
             super(new View(context));
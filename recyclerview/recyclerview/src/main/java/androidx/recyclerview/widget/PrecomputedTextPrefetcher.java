@@ -0,0 +1,219 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.text.PrecomputedTextCompat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Precomputes the text of the items a {@link RecyclerView} is about to scroll to, so that text
+ * measurement happens on background threads instead of during bind and layout.
+ * <p>
+ * While the RecyclerView scrolls, the texts of the next items in the scroll direction are
+ * precomputed in a batch with {@link PrecomputedTextCompat#getTextFutures}. When the items are
+ * bound, {@link #getTextFuture(int)} returns the already running or finished computation from
+ * the cache of {@link PrecomputedTextCompat#getTextFutures}, so prefetching has no effect if
+ * that cache is disabled:
+ * <pre>
+ *     void onBindViewHolder(ViewHolder vh, int position) {
+ *         vh.textView.setTextFuture(mPrefetcher.getTextFuture(position));
+ *     }
+ * </pre>
+ * All the texts share the same Params, so this is meant for lists whose text views are styled
+ * the same way. Prefetching is skipped if the LayoutManager has
+ * {@link RecyclerView.LayoutManager#setItemPrefetchEnabled item prefetch} disabled.
+ */
+public class PrecomputedTextPrefetcher extends RecyclerView.OnScrollListener {
+    private static final int DEFAULT_PREFETCH_COUNT = 10;
+
+    /**
+     * Provides the text of the item at a given adapter position.
+     * <p>
+     * The text prefetched for a position is only reused when the item is bound if both texts
+     * have the same characters and the same spans. Spans are compared with {@code equals}, which
+     * for most spans means the same instance, so a provider building its texts with spans again
+     * on each call should reuse its span objects.
+     */
+    public interface TextProvider {
+        /**
+         * Returns the text to be displayed by the item at the given position. Called on the UI
+         * thread.
+         *
+         * @param position the adapter position of the item
+         * @return the text, or null if the item has no text to precompute
+         */
+        @Nullable
+        CharSequence getText(int position);
+    }
+
+    private final PrecomputedTextCompat.Params mParams;
+    private final TextProvider mTextProvider;
+    private final int mPrefetchCount;
+    private final Executor mExecutor;
+
+    private RecyclerView mRecyclerView;
+
+    // The adapter positions [mPrefetchedStart, mPrefetchedEnd) which have already been requested
+    private int mPrefetchedStart = RecyclerView.NO_POSITION;
+    private int mPrefetchedEnd = RecyclerView.NO_POSITION;
+
+    /**
+     * Creates a prefetcher which precomputes the texts of the next 10 items, on the default
+     * batch pool of {@link PrecomputedTextCompat#getTextFutures}.
+     *
+     * @param params the parameters to be used for displaying all of the texts
+     * @param textProvider provides the text of the items
+     */
+    public PrecomputedTextPrefetcher(@NonNull PrecomputedTextCompat.Params params,
+            @NonNull TextProvider textProvider) {
+        this(params, textProvider, DEFAULT_PREFETCH_COUNT, null);
+    }
+
+    /**
+     * Creates a prefetcher.
+     *
+     * @param params the parameters to be used for displaying all of the texts
+     * @param textProvider provides the text of the items
+     * @param prefetchCount the number of items ahead of the scroll to precompute
+     * @param executor the executor to precompute the texts on, or null for the default batch
+     *                 pool of {@link PrecomputedTextCompat#getTextFutures}
+     */
+    public PrecomputedTextPrefetcher(@NonNull PrecomputedTextCompat.Params params,
+            @NonNull TextProvider textProvider, int prefetchCount, @Nullable Executor executor) {
+        if (prefetchCount < 1) {
+            throw new IllegalArgumentException("prefetchCount must be positive");
+        }
+        mParams = params;
+        mTextProvider = textProvider;
+        mPrefetchCount = prefetchCount;
+        mExecutor = executor;
+    }
+
+    /**
+     * Attaches the prefetcher to the provided RecyclerView. If it is already attached to a
+     * RecyclerView, it is first detached from it.
+     *
+     * @param recyclerView The RecyclerView instance to which you want to attach this prefetcher
+     *                     or {@code null} if you want to detach it from the current RecyclerView.
+     */
+    public void attachToRecyclerView(@Nullable RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) {
+            return; // nothing to do
+        }
+        if (mRecyclerView != null) {
+            mRecyclerView.removeOnScrollListener(this);
+        }
+        mRecyclerView = recyclerView;
+        clear();
+        if (mRecyclerView != null) {
+            mRecyclerView.addOnScrollListener(this);
+        }
+    }
+
+    /**
+     * Returns the precomputation of the text of the item at the given position, starting it if
+     * it hasn't been prefetched.
+     *
+     * @param position the adapter position of the item
+     * @return a future of the precomputed text, or null if the item has no text
+     */
+    @Nullable
+    public Future<PrecomputedTextCompat> getTextFuture(int position) {
+        CharSequence text = mTextProvider.getText(position);
+        if (text == null) {
+            return null;
+        }
+        return PrecomputedTextCompat.getTextFutures(Collections.singletonList(text), mParams,
+                mExecutor).get(0);
+    }
+
+    /**
+     * Forgets which positions have been prefetched. Call this when the adapter's data changes,
+     * so that the items at the new positions get prefetched.
+     */
+    public void clear() {
+        mPrefetchedStart = RecyclerView.NO_POSITION;
+        mPrefetchedEnd = RecyclerView.NO_POSITION;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        final RecyclerView.Adapter adapter = recyclerView.getAdapter();
+        if (layoutManager == null || adapter == null || !layoutManager.isItemPrefetchEnabled()) {
+            return;
+        }
+        final int delta = layoutManager.canScrollVertically() ? dy : dx;
+        if (delta == 0) {
+            return;
+        }
+
+        // Adapter positions of the laid out children, which may be in any order
+        int first = Integer.MAX_VALUE;
+        int last = RecyclerView.NO_POSITION;
+        final int childCount = recyclerView.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View child = recyclerView.getChildAt(i);
+            int position = recyclerView.getChildAdapterPosition(child);
+            if (position != RecyclerView.NO_POSITION) {
+                first = Math.min(first, position);
+                last = Math.max(last, position);
+            }
+        }
+        if (last == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        final int start;
+        final int end;
+        if (delta > 0) {
+            start = last + 1;
+            end = Math.min(last + 1 + mPrefetchCount, adapter.getItemCount());
+        } else {
+            start = Math.max(first - mPrefetchCount, 0);
+            end = first;
+        }
+        if (start >= end) {
+            return;
+        }
+
+        final List<CharSequence> texts = new ArrayList<>(end - start);
+        for (int position = start; position < end; position++) {
+            if (position >= mPrefetchedStart && position < mPrefetchedEnd) {
+                continue;
+            }
+            CharSequence text = mTextProvider.getText(position);
+            if (text != null) {
+                texts.add(text);
+            }
+        }
+        mPrefetchedStart = start;
+        mPrefetchedEnd = end;
+        if (!texts.isEmpty()) {
+            PrecomputedTextCompat.getTextFutures(texts, mParams, mExecutor);
+        }
+    }
+}
@@ -60,6 +60,7 @@ import android.widget.OverScroller;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.IntDef;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.Px;
@@ -90,6 +91,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * A flexible view for providing a limited window into a large data set.
@@ -5523,25 +5525,115 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          * 2) If {@link #willBindInTime(int, long, long)} returns false for one view, it will return
          * false for all other views of its type for the same deadline. This prevents items
          * constructed by {@link GapWorker} prefetch from being bound to a lower priority prefetch.
+         *
+         * It also counts creates, reuses and discards per type, which drive adaptive sizing of
+         * {@link #mMaxScrap} (see {@link RecycledViewPool#enableAdaptiveSizing(int)}) and are
+         * exposed through {@link RecycledViewPool#getStats(int)}.
          */
         static class ScrapData {
             final ArrayList<ViewHolder> mScrapHeap = new ArrayList<>();
             int mMaxScrap = DEFAULT_MAX_SCRAP;
             long mCreateRunningAverageNs = 0;
             long mBindRunningAverageNs = 0;
+            int mWarmUpTarget = 0;
+            int mWarmUpPending = 0;
+
+            // True once the app called setMaxRecycledViews, adaptive sizing leaves it alone.
+            boolean mMaxScrapPinned = false;
+            long mCreateCount = 0;
+            long mReuseCount = 0;
+            long mDiscardCount = 0;
+            // Number of holders handed out by the pool (created or reused) which were neither
+            // returned to a pool nor given up since.
+            int mInUseCount = 0;
+            int mPeakInUseCount = 0;
+            // Set when a holder was discarded for lack of room, cleared on the next miss.
+            boolean mDiscardedSinceLastMiss = false;
+            // Value of mOpSequence when a holder of this type was last reused.
+            long mLastReuseSequence = 0;
+        }
+
+        /**
+         * Counters kept by a {@link RecycledViewPool} for a single view type.
+         *
+         * @see RecycledViewPool#getStats(int)
+         */
+        public static final class Stats {
+            private final long mCreateCount;
+            private final long mReuseCount;
+            private final long mDiscardCount;
+            private final int mPeakInUseCount;
+            private final int mMaxRecycledViews;
+
+            Stats(long createCount, long reuseCount, long discardCount, int peakInUseCount,
+                    int maxRecycledViews) {
+                mCreateCount = createCount;
+                mReuseCount = reuseCount;
+                mDiscardCount = discardCount;
+                mPeakInUseCount = peakInUseCount;
+                mMaxRecycledViews = maxRecycledViews;
+            }
+
+            /**
+             * Returns the number of ViewHolders of this type created because none were available
+             * in the pool.
+             */
+            public long getCreateCount() {
+                return mCreateCount;
+            }
+
+            /**
+             * Returns the number of ViewHolders of this type acquired from the pool.
+             */
+            public long getReuseCount() {
+                return mReuseCount;
+            }
+
+            /**
+             * Returns the number of ViewHolders of this type dropped because the pool was full.
+             */
+            public long getDiscardCount() {
+                return mDiscardCount;
+            }
+
+            /**
+             * Returns the highest number of ViewHolders of this type that were handed out by the
+             * pool or created, and not returned to the pool, at the same time.
+             */
+            public int getPeakInUseCount() {
+                return mPeakInUseCount;
+            }
+
+            /**
+             * Returns the maximum number of ViewHolders of this type the pool holds.
+             */
+            public int getMaxRecycledViews() {
+                return mMaxRecycledViews;
+            }
         }
+
         SparseArray<ScrapData> mScrap = new SparseArray<>();
 
         private int mAttachCount = 0;
 
+        private int mAdaptiveMaxTotalScrap = 0;
+        private long mOpSequence = 0;
+
+        @Nullable
+        private ViewHolderWarmUpWorker mWarmUpWorker;
+
         /**
          * Discard all ViewHolders.
+         * <p>
+         * This also cancels any ViewHolder creation started by {@link #warmUp(RecyclerView)} that
+         * hasn't completed yet.
          */
         public void clear() {
             for (int i = 0; i < mScrap.size(); i++) {
                 ScrapData data = mScrap.valueAt(i);
                 data.mScrapHeap.clear();
             }
+            cancelWarmUp();
         }
 
         /**
@@ -5552,6 +5644,11 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          */
         public void setMaxRecycledViews(int viewType, int max) {
             ScrapData scrapData = getScrapDataForType(viewType);
+            scrapData.mMaxScrapPinned = true;
+            setMaxScrap(scrapData, max);
+        }
+
+        private void setMaxScrap(ScrapData scrapData, int max) {
             scrapData.mMaxScrap = max;
             final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
             while (scrapHeap.size() > max) {
@@ -5559,6 +5656,71 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             }
         }
 
+        /**
+         * Returns the maximum number of ViewHolders of the given type held by the pool before
+         * discarding.
+         * <p>
+         * This is the value passed to {@link #setMaxRecycledViews(int, int)}, or the current
+         * limit chosen by the pool if {@link #enableAdaptiveSizing(int) adaptive sizing} is
+         * enabled.
+         *
+         * @param viewType ViewHolder Type
+         * @return Maximum number of ViewHolders of the given type held by the pool.
+         */
+        public int getMaxRecycledViews(int viewType) {
+            return getScrapDataForType(viewType).mMaxScrap;
+        }
+
+        /**
+         * Lets the pool grow and shrink the maximum number of ViewHolders held per view type,
+         * based on how ViewHolders of each type are created and reused.
+         * <p>
+         * Whenever the pool has to discard a ViewHolder of a type because it is full, and later
+         * has no ViewHolder of that type to hand out, the maximum for that type grows by one, up
+         * to the peak number of ViewHolders of that type concurrently in use. When growing would
+         * exceed {@code maxTotalRecycledViews} across all types, a slot is reclaimed from the type
+         * that has gone the longest without a reuse instead.
+         * <p>
+         * View types whose maximum was set with {@link #setMaxRecycledViews(int, int)} are not
+         * resized.
+         *
+         * @param maxTotalRecycledViews Maximum number of ViewHolders the pool may hold across all
+         *                              view types.
+         *
+         * @see #disableAdaptiveSizing()
+         * @see #getStats(int)
+         */
+        public void enableAdaptiveSizing(int maxTotalRecycledViews) {
+            if (maxTotalRecycledViews <= 0) {
+                throw new IllegalArgumentException("Adaptive sizing budget must be positive");
+            }
+            mAdaptiveMaxTotalScrap = maxTotalRecycledViews;
+        }
+
+        /**
+         * Stops adaptive sizing of the pool. The per type maximums that were chosen so far are
+         * kept.
+         *
+         * @see #enableAdaptiveSizing(int)
+         */
+        public void disableAdaptiveSizing() {
+            mAdaptiveMaxTotalScrap = 0;
+        }
+
+        /**
+         * Returns a snapshot of the create, reuse and discard counters the pool keeps for the
+         * given view type.
+         *
+         * @param viewType ViewHolder Type
+         * @return Counters for the given view type.
+         */
+        @NonNull
+        public Stats getStats(int viewType) {
+            ScrapData scrapData = getScrapDataForType(viewType);
+            return new Stats(scrapData.mCreateCount, scrapData.mReuseCount,
+                    scrapData.mDiscardCount, scrapData.mPeakInUseCount, scrapData.mMaxScrap);
+        }
+
         /**
          * Returns the current number of Views held by the RecycledViewPool of the given view type.
          */
@@ -5577,14 +5739,24 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
         @Nullable
         public ViewHolder getRecycledView(int viewType) {
             final ScrapData scrapData = mScrap.get(viewType);
-            if (scrapData != null && !scrapData.mScrapHeap.isEmpty()) {
+            mOpSequence++;
+            if (scrapData == null) {
+                // nothing was ever put or discarded for this type, so there is nothing to adapt
+                return null;
+            }
+            if (!scrapData.mScrapHeap.isEmpty()) {
                 final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
                 for (int i = scrapHeap.size() - 1; i >= 0; i--) {
                     if (!scrapHeap.get(i).isAttachedToTransitionOverlay()) {
-                        return scrapHeap.remove(i);
+                        scrapData.mReuseCount++;
+                        scrapData.mLastReuseSequence = mOpSequence;
+                        final ViewHolder scrap = scrapHeap.remove(i);
+                        onViewHolderHandedOut(scrapData, scrap);
+                        return scrap;
                     }
                 }
             }
+            onMiss(scrapData);
             return null;
         }
 
@@ -5612,9 +5784,23 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          * @param scrap ViewHolder to be added to the pool.
          */
         public void putRecycledView(ViewHolder scrap) {
-            final int viewType = scrap.getItemViewType();
-            final ArrayList<ViewHolder> scrapHeap = getScrapDataForType(viewType).mScrapHeap;
-            if (mScrap.get(viewType).mMaxScrap <= scrapHeap.size()) {
+            releaseInUse(scrap);
+            addScrap(getScrapDataForType(scrap.getItemViewType()), scrap);
+        }
+
+        /**
+         * Adds a holder that was never handed out by the pool, such as one created by
+         * {@link #warmUp(RecyclerView)}.
+         */
+        void putNewRecycledView(ViewHolder scrap) {
+            addScrap(getScrapDataForType(scrap.getItemViewType()), scrap);
+        }
+
+        private void addScrap(ScrapData scrapData, ViewHolder scrap) {
+            final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
+            if (scrapData.mMaxScrap <= scrapHeap.size()) {
+                scrapData.mDiscardCount++;
+                scrapData.mDiscardedSinceLastMiss = true;
                 return;
             }
             if (DEBUG && scrapHeap.contains(scrap)) {
@@ -5624,6 +5810,182 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             scrapHeap.add(scrap);
         }
 
+        private void onViewHolderHandedOut(ScrapData scrapData, ViewHolder holder) {
+            // a holder that was given up without being released still counts for its old pool
+            releaseInUse(holder);
+            holder.mInUseCountedBy = this;
+            scrapData.mInUseCount++;
+            if (scrapData.mInUseCount > scrapData.mPeakInUseCount) {
+                scrapData.mPeakInUseCount = scrapData.mInUseCount;
+            }
+        }
+
+        /**
+         * Stops counting the given holder as in use by the pool that handed it out, if any. Called
+         * when the holder is returned to a pool, or when the Recycler gives up on it.
+         */
+        static void releaseInUse(ViewHolder holder) {
+            final RecycledViewPool pool = holder.mInUseCountedBy;
+            if (pool == null) {
+                return;
+            }
+            holder.mInUseCountedBy = null;
+            final ScrapData scrapData = pool.mScrap.get(holder.getItemViewType());
+            if (scrapData != null && scrapData.mInUseCount > 0) {
+                scrapData.mInUseCount--;
+            }
+        }
+
+        private void onMiss(ScrapData scrapData) {
+            final boolean thrashing = scrapData.mDiscardedSinceLastMiss;
+            scrapData.mDiscardedSinceLastMiss = false;
+            if (mAdaptiveMaxTotalScrap <= 0 || !thrashing || scrapData.mMaxScrapPinned
+                    || scrapData.mMaxScrap >= scrapData.mPeakInUseCount) {
+                return;
+            }
+            int totalMaxScrap = 0;
+            for (int i = 0; i < mScrap.size(); i++) {
+                totalMaxScrap += mScrap.valueAt(i).mMaxScrap;
+            }
+            if (totalMaxScrap >= mAdaptiveMaxTotalScrap) {
+                ScrapData victim = findLeastRecentlyReused(scrapData);
+                if (victim == null) {
+                    return;
+                }
+                setMaxScrap(victim, victim.mMaxScrap - 1);
+            }
+            scrapData.mMaxScrap++;
+        }
+
+        /**
+         * Returns the resizable type, other than the given one, whose holders were reused the
+         * longest time ago, or null if no type has a slot to give up.
+         */
+        @Nullable
+        private ScrapData findLeastRecentlyReused(ScrapData exclude) {
+            ScrapData victim = null;
+            for (int i = 0; i < mScrap.size(); i++) {
+                ScrapData candidate = mScrap.valueAt(i);
+                if (candidate == exclude || candidate.mMaxScrapPinned
+                        || candidate.mMaxScrap <= 1) {
+                    continue;
+                }
+                if (victim == null || candidate.mLastReuseSequence < victim.mLastReuseSequence) {
+                    victim = candidate;
+                }
+            }
+            return victim;
+        }
+
+        /**
+         * Sets the number of ViewHolders of the given type that {@link #warmUp(RecyclerView)}
+         * should make available in the pool ahead of time.
+         * <p>
+         * The target is capped at the value set by {@link #setMaxRecycledViews(int, int)}. Pass
+         * {@code 0} to stop warming up the given type.
+         *
+         * @param viewType ViewHolder Type
+         * @param target Number of ViewHolders to pre-create
+         *
+         * @see #warmUp(RecyclerView)
+         */
+        public void setWarmUpTarget(int viewType, int target) {
+            if (target < 0) {
+                throw new IllegalArgumentException("Warm up target must be non-negative");
+            }
+            getScrapDataForType(viewType).mWarmUpTarget = target;
+        }
+
+        /**
+         * Pre-creates ViewHolders on a background thread for every view type that has a warm up
+         * target set by {@link #setWarmUpTarget(int, int)}, using the Adapter currently set on
+         * the given RecyclerView.
+         * <p>
+         * ViewHolders are created with {@link Adapter#createViewHolder(ViewGroup, int)} off of the
+         * UI thread, and are added to this pool on the main thread once created, so they can be
+         * bound by the next layout or prefetch without paying inflation cost on
+         * the frame. Your Adapter's {@link Adapter#onCreateViewHolder(ViewGroup, int)} must be
+         * safe to call from a background thread. If creation throws, that ViewHolder is simply
+         * created on the UI thread when needed, as it would be without warm up.
+         * <p>
+         * Calling this method again while a previous warm up is in progress only enqueues the
+         * ViewHolders that are still missing.
+         *
+         * @param recyclerView RecyclerView whose Adapter creates the ViewHolders, and which is
+         *                     passed as the parent to {@link Adapter#createViewHolder(ViewGroup,
+         *                     int)}.
+         *
+         * @see #warmUp(RecyclerView, Executor)
+         * @see #cancelWarmUp()
+         */
+        @MainThread
+        public void warmUp(@NonNull RecyclerView recyclerView) {
+            warmUp(recyclerView, ViewHolderWarmUpWorker.getDefaultExecutor());
+        }
+
+        /**
+         * Pre-creates ViewHolders on the given Executor for every view type that has a warm up
+         * target set by {@link #setWarmUpTarget(int, int)}.
+         *
+         * @param recyclerView RecyclerView whose Adapter creates the ViewHolders.
+         * @param backgroundExecutor Executor on which ViewHolders are created.
+         *
+         * @see #warmUp(RecyclerView)
+         */
+        @MainThread
+        public void warmUp(@NonNull RecyclerView recyclerView,
+                @NonNull Executor backgroundExecutor) {
+            final Adapter adapter = recyclerView.getAdapter();
+            if (adapter == null) {
+                Log.w(TAG, "Cannot warm up RecycledViewPool without an Adapter");
+                return;
+            }
+            if (mWarmUpWorker == null) {
+                mWarmUpWorker = new ViewHolderWarmUpWorker(this);
+            }
+            for (int i = 0; i < mScrap.size(); i++) {
+                final int viewType = mScrap.keyAt(i);
+                final ScrapData scrapData = mScrap.valueAt(i);
+                final int target = Math.min(scrapData.mWarmUpTarget, scrapData.mMaxScrap);
+                final int missing = target - scrapData.mScrapHeap.size()
+                        - scrapData.mWarmUpPending;
+                for (int j = 0; j < missing; j++) {
+                    scrapData.mWarmUpPending++;
+                    mWarmUpWorker.enqueue(recyclerView, adapter, viewType, backgroundExecutor);
+                }
+            }
+        }
+
+        /**
+         * Cancels ViewHolder creation started by {@link #warmUp(RecyclerView)}. ViewHolders that
+         * have already been added to the pool are kept.
+         */
+        @MainThread
+        public void cancelWarmUp() {
+            if (mWarmUpWorker == null) {
+                return;
+            }
+            mWarmUpWorker.cancel();
+            for (int i = 0; i < mScrap.size(); i++) {
+                mScrap.valueAt(i).mWarmUpPending = 0;
+            }
+        }
+
+        /**
+         * Returns the number of ViewHolders of the given type that are currently being created
+         * by {@link #warmUp(RecyclerView)}.
+         */
+        int getWarmUpPendingCount(int viewType) {
+            return getScrapDataForType(viewType).mWarmUpPending;
+        }
+
+        void onWarmUpFinished(int viewType) {
+            ScrapData scrapData = getScrapDataForType(viewType);
+            if (scrapData.mWarmUpPending > 0) {
+                scrapData.mWarmUpPending--;
+            }
+        }
+
         long runningAverage(long oldAverage, long newValue) {
             if (oldAverage == 0) {
                 return newValue;
@@ -5637,6 +5999,15 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
                     scrapData.mCreateRunningAverageNs, createTimeNs);
         }
 
+        /**
+         * Called by the Recycler when it had to create a new ViewHolder because the pool had none.
+         */
+        void onViewHolderCreated(ViewHolder holder) {
+            ScrapData scrapData = getScrapDataForType(holder.getItemViewType());
+            scrapData.mCreateCount++;
+            onViewHolderHandedOut(scrapData, holder);
+        }
+
         void factorInBindTime(int viewType, long bindTimeNs) {
             ScrapData scrapData = getScrapDataForType(viewType);
             scrapData.mBindRunningAverageNs = runningAverage(
@@ -6117,6 +6488,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
 
                     long end = getNanoTime();
                     mRecyclerPool.factorInCreateTime(type, end - start);
+                    mRecyclerPool.onViewHolderCreated(holder);
                     if (DEBUG) {
                         Log.d(TAG, "tryGetViewHolderForPositionByDeadline created new ViewHolder");
                     }
@@ -6377,6 +6749,8 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
             mViewInfoStore.removeViewHolder(holder);
             if (!cached && !recycled && transientStatePreventsRecycling) {
                 holder.mOwnerRecyclerView = null;
+                // the holder is dropped, it no longer counts as in use for the pool
+                RecycledViewPool.releaseInUse(holder);
             }
         }
 
@@ -10946,6 +11320,13 @@ public class RecyclerView extends ViewGroup implements ScrollingView,
          */
         RecyclerView mOwnerRecyclerView;
 
+        /**
+         * Pool which handed out this VH and counts it as in use, cleared once the VH goes back to
+         * a {@link RecycledViewPool} or is dropped.
+         */
+        @Nullable
+        RecycledViewPool mInUseCountedBy;
+
         public ViewHolder(@NonNull View itemView) {
             if (itemView == null) {
                 throw new IllegalArgumentException("itemView may not be null");
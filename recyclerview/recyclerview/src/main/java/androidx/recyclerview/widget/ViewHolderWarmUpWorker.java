@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates ViewHolders for a {@link RecyclerView.RecycledViewPool} on a background thread, and
+ * hands them off to the pool on the main thread.
+ * <p>
+ * Like {@code AsyncLayoutInflater}, item views are inflated off of the UI thread with attachToRoot
+ * set to false. Only the creation runs in the background - the scrap heaps are only ever touched
+ * from the main thread, so no locking is needed on the pool itself. If creation fails in the
+ * background (most commonly because a View requires a Looper), the request is dropped, and the
+ * ViewHolder will be created on demand as usual.
+ */
+final class ViewHolderWarmUpWorker {
+    private static final String TAG = "RV WarmUp";
+
+    private static final Object sExecutorLock = new Object();
+    private static Executor sWarmUpExecutor = null;
+
+    private final RecyclerView.RecycledViewPool mPool;
+    private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Incremented every time outstanding requests should be dropped, e.g. when the pool is
+     * cleared. Requests created under a previous generation are discarded on handoff.
+     */
+    int mGeneration = 0;
+
+    ViewHolderWarmUpWorker(@NonNull RecyclerView.RecycledViewPool pool) {
+        mPool = pool;
+    }
+
+    /**
+     * Lazily creates the default background executor shared by all pools.
+     */
+    @NonNull
+    static Executor getDefaultExecutor() {
+        synchronized (sExecutorLock) {
+            if (sWarmUpExecutor == null) {
+                sWarmUpExecutor = Executors.newSingleThreadExecutor();
+            }
+            return sWarmUpExecutor;
+        }
+    }
+
+    /**
+     * Drops all requests which haven't been handed off to the pool yet.
+     */
+    void cancel() {
+        mGeneration++;
+    }
+
+    /**
+     * Enqueues creation of a single ViewHolder of the given type. Must be called on the main
+     * thread.
+     */
+    void enqueue(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.Adapter adapter,
+            int viewType, @NonNull Executor executor) {
+        executor.execute(new WarmUpTask(recyclerView, adapter, viewType, mGeneration));
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void handOff(@NonNull WarmUpTask task, @Nullable RecyclerView.ViewHolder holder,
+            long createTimeNs) {
+        if (task.mGeneration != mGeneration) {
+            // cancelled, or pool was cleared - drop the result
+            return;
+        }
+        mPool.onWarmUpFinished(task.mViewType);
+        if (holder == null || task.mRecyclerView.getAdapter() != task.mAdapter) {
+            // failed, or adapter changed while we were creating
+            return;
+        }
+        if (RecyclerView.ALLOW_THREAD_GAP_WORK) {
+            RecyclerView innerView = RecyclerView.findNestedRecyclerView(holder.itemView);
+            if (innerView != null) {
+                holder.mNestedRecyclerView = new WeakReference<>(innerView);
+            }
+        }
+        mPool.factorInCreateTime(task.mViewType, createTimeNs);
+        mPool.putNewRecycledView(holder);
+    }
+
+    final class WarmUpTask implements Runnable {
+        final RecyclerView mRecyclerView;
+        final RecyclerView.Adapter mAdapter;
+        final int mViewType;
+        final int mGeneration;
+
+        WarmUpTask(RecyclerView recyclerView, RecyclerView.Adapter adapter, int viewType,
+                int generation) {
+            mRecyclerView = recyclerView;
+            mAdapter = adapter;
+            mViewType = viewType;
+            mGeneration = generation;
+        }
+
+        @Override
+        public void run() {
+            RecyclerView.ViewHolder holder = null;
+            long start = System.nanoTime();
+            try {
+                holder = mAdapter.createViewHolder(mRecyclerView, mViewType);
+            } catch (RuntimeException ex) {
+                // Probably a Looper failure, leave creation to the UI thread
+                Log.w(TAG, "Failed to create ViewHolder of type " + mViewType
+                        + " in the background! It will be created on the UI thread", ex);
+            }
+            final RecyclerView.ViewHolder result = holder;
+            final long createTimeNs = System.nanoTime() - start;
+            mMainThreadHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    handOff(WarmUpTask.this, result, createTimeNs);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.selection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class LongRangeSetTest {
+
+    private LongRangeSet mSet;
+
+    @Before
+    public void setUp() {
+        mSet = new LongRangeSet();
+    }
+
+    @Test
+    public void testAdd_MergesAdjacentKeys() {
+        assertTrue(mSet.add(1L));
+        assertTrue(mSet.add(3L));
+        assertTrue(mSet.add(2L));
+        assertFalse(mSet.add(2L));
+
+        assertEquals(3, mSet.size());
+        assertEquals(1, mSet.getRangeCount());
+        assertArrayEquals(new long[] {1, 3}, mSet.toRangeArray());
+    }
+
+    @Test
+    public void testAddRange_MergesOverlappingRanges() {
+        mSet.addRange(10, 20);
+        mSet.addRange(30, 40);
+        assertEquals(2, mSet.getRangeCount());
+
+        assertEquals(9, mSet.addRange(15, 35));
+        assertEquals(1, mSet.getRangeCount());
+        assertEquals(31, mSet.size());
+        assertArrayEquals(new long[] {10, 40}, mSet.toRangeArray());
+    }
+
+    @Test
+    public void testAddRange_LargeSelection() {
+        mSet.addRange(0, 199999);
+        assertEquals(200000, mSet.size());
+        assertEquals(1, mSet.getRangeCount());
+        assertTrue(mSet.contains(123456L));
+        assertFalse(mSet.contains(200000L));
+    }
+
+    @Test
+    public void testRemove_SplitsRange() {
+        mSet.addRange(1, 10);
+        assertTrue(mSet.remove(5L));
+        assertFalse(mSet.remove(5L));
+
+        assertEquals(9, mSet.size());
+        assertArrayEquals(new long[] {1, 4, 6, 10}, mSet.toRangeArray());
+    }
+
+    @Test
+    public void testRemoveRange_AcrossRanges() {
+        mSet.addRange(1, 5);
+        mSet.addRange(10, 15);
+        mSet.addRange(20, 25);
+
+        assertEquals(8, mSet.removeRange(4, 12));
+        assertArrayEquals(new long[] {1, 3, 13, 15, 20, 25}, mSet.toRangeArray());
+        assertEquals(12, mSet.size());
+    }
+
+    @Test
+    public void testContains() {
+        mSet.addRange(5, 7);
+        assertFalse(mSet.contains(4L));
+        assertTrue(mSet.contains(5L));
+        assertTrue(mSet.contains(7L));
+        assertFalse(mSet.contains(8L));
+        assertFalse(mSet.contains("5"));
+    }
+
+    @Test
+    public void testIterator() {
+        mSet.addRange(1, 3);
+        mSet.add(7L);
+        List<Long> keys = new ArrayList<>(mSet);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 7L), keys);
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        mSet.addRange(1, 6);
+        Iterator<Long> it = mSet.iterator();
+        List<Long> seen = new ArrayList<>();
+        while (it.hasNext()) {
+            long key = it.next();
+            seen.add(key);
+            if (key % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L), seen);
+        assertArrayEquals(new long[] {1, 1, 3, 3, 5, 5}, mSet.toRangeArray());
+    }
+
+    @Test
+    public void testRetainAll_Intersection() {
+        mSet.addRange(1, 10);
+        mSet.addRange(20, 30);
+        LongRangeSet other = new LongRangeSet();
+        other.addRange(5, 25);
+
+        assertTrue(mSet.retainAll(other));
+        assertArrayEquals(new long[] {5, 10, 20, 25}, mSet.toRangeArray());
+        assertEquals(12, mSet.size());
+        assertFalse(mSet.retainAll(other));
+    }
+
+    @Test
+    public void testAddAllRemoveAll_Ranges() {
+        mSet.addRange(1, 10);
+        LongRangeSet other = new LongRangeSet();
+        other.addRange(5, 15);
+
+        LongRangeSet union = new LongRangeSet(mSet);
+        union.addAll(other);
+        assertArrayEquals(new long[] {1, 15}, union.toRangeArray());
+
+        mSet.removeAll(other);
+        assertArrayEquals(new long[] {1, 4}, mSet.toRangeArray());
+    }
+
+    @Test
+    public void testEqualsOtherSets() {
+        mSet.addRange(1, 3);
+        Set<Long> hashSet = new HashSet<>(Arrays.asList(1L, 2L, 3L));
+        assertEquals(hashSet, mSet);
+        assertEquals(mSet, hashSet);
+        assertEquals(hashSet.hashCode(), mSet.hashCode());
+    }
+
+    @Test
+    public void testRangeArrayRoundTrip() {
+        mSet.addRange(-5, -1);
+        mSet.addRange(100, 100);
+        assertEquals(mSet, LongRangeSet.fromRangeArray(mSet.toRangeArray()));
+    }
+}
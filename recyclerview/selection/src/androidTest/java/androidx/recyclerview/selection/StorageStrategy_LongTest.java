@@ -16,7 +16,9 @@
 
 package androidx.recyclerview.selection;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import android.os.Bundle;
 
@@ -51,4 +53,32 @@ public final class StorageStrategy_LongTest {
 
         assertEquals(orig, restored);
     }
+
+    @Test
+    public void testReadWrite_ContiguousKeysSavedAsRange() {
+        Selection<Long> orig = new Selection<Long>(new LongRangeSet(), new LongRangeSet());
+        for (long key = 0; key < 200000; key++) {
+            orig.add(key);
+        }
+
+        Bundle bundle = mStorage.asBundle(orig);
+        assertArrayEquals(new long[] {0, 199999},
+                bundle.getLongArray(StorageStrategy.SELECTION_RANGES));
+
+        Selection<Long> restored = mStorage.asSelection(Bundles.forceParceling(bundle));
+        assertEquals(200000, restored.size());
+        assertEquals(orig, restored);
+    }
+
+    @Test
+    public void testRead_LegacyEntries() {
+        Bundle state = new Bundle();
+        state.putString(StorageStrategy.SELECTION_KEY_TYPE, Long.class.getCanonicalName());
+        state.putLongArray(StorageStrategy.SELECTION_ENTRIES, new long[] {5L, 10L, 15L});
+
+        Selection<Long> restored = mStorage.asSelection(state);
+
+        assertEquals(3, restored.size());
+        assertTrue(restored.contains(10L));
+    }
 }
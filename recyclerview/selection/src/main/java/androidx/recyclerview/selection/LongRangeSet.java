@@ -0,0 +1,446 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.selection;
+
+import static androidx.core.util.Preconditions.checkArgument;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Set of {@link Long} keys stored as sorted, disjoint ranges of primitive longs.
+ *
+ * <p>
+ * Selections of stable ids are usually made of long runs of consecutive keys (e.g. "select all",
+ * or a band or range selection over items with sequential ids). Storing those as ranges keeps
+ * memory proportional to the number of runs rather than the number of keys, and lets
+ * union, intersection and difference with another LongRangeSet run in time proportional to the
+ * number of runs. Boxed {@link Long}s are only created while iterating.
+ */
+final class LongRangeSet extends AbstractSet<Long> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    // Range i covers [mStarts[i], mEnds[i]], inclusive. Ranges are sorted, and never overlap
+    // or touch, so every set of keys has exactly one representation.
+    private long[] mStarts;
+    private long[] mEnds;
+    private int mRangeCount;
+    private long mSize;
+    private int mModCount;
+
+    LongRangeSet() {
+        mStarts = new long[INITIAL_CAPACITY];
+        mEnds = new long[INITIAL_CAPACITY];
+    }
+
+    LongRangeSet(@NonNull LongRangeSet other) {
+        mStarts = Arrays.copyOf(other.mStarts, Math.max(other.mRangeCount, INITIAL_CAPACITY));
+        mEnds = Arrays.copyOf(other.mEnds, Math.max(other.mRangeCount, INITIAL_CAPACITY));
+        mRangeCount = other.mRangeCount;
+        mSize = other.mSize;
+    }
+
+    /**
+     * Returns a LongRangeSet containing the given keys.
+     */
+    static @NonNull LongRangeSet copyOf(@NonNull Collection<Long> keys) {
+        if (keys instanceof LongRangeSet) {
+            return new LongRangeSet((LongRangeSet) keys);
+        }
+        LongRangeSet set = new LongRangeSet();
+        for (Long key : keys) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    /**
+     * Restores a set from the value returned by {@link #toRangeArray()}.
+     */
+    static @NonNull LongRangeSet fromRangeArray(@NonNull long[] ranges) {
+        checkArgument(ranges.length % 2 == 0, "Range array must contain start/end pairs.");
+        LongRangeSet set = new LongRangeSet();
+        for (int i = 0; i < ranges.length; i += 2) {
+            set.addRange(ranges[i], ranges[i + 1]);
+        }
+        return set;
+    }
+
+    /**
+     * Returns the ranges of this set as consecutive, inclusive start/end pairs.
+     */
+    @NonNull long[] toRangeArray() {
+        long[] ranges = new long[mRangeCount * 2];
+        for (int i = 0; i < mRangeCount; i++) {
+            ranges[i * 2] = mStarts[i];
+            ranges[i * 2 + 1] = mEnds[i];
+        }
+        return ranges;
+    }
+
+    /**
+     * @return the number of disjoint ranges used to store the keys.
+     */
+    int getRangeCount() {
+        return mRangeCount;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(mSize, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mRangeCount == 0;
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+        if (!(o instanceof Long)) {
+            return false;
+        }
+        long key = (Long) o;
+        int index = lastRangeStartingAtOrBefore(key);
+        return index >= 0 && key <= mEnds[index];
+    }
+
+    @Override
+    public boolean add(@NonNull Long key) {
+        return addRange(key, key) > 0;
+    }
+
+    @Override
+    public boolean remove(@Nullable Object o) {
+        return o instanceof Long && removeRange((Long) o, (Long) o) > 0;
+    }
+
+    @Override
+    public void clear() {
+        mRangeCount = 0;
+        mSize = 0;
+        mModCount++;
+    }
+
+    /**
+     * Adds all keys in [start, end], inclusive.
+     *
+     * @return the number of keys that were not already in the set.
+     */
+    long addRange(long start, long end) {
+        checkArgument(start <= end, "Range start must not be after range end.");
+
+        // Ranges overlapping or touching [start, end] are merged into a single range.
+        int first = firstRangeEndingAtOrAfter(start == Long.MIN_VALUE ? start : start - 1);
+        int last = lastRangeStartingAtOrBefore(end == Long.MAX_VALUE ? end : end + 1);
+
+        long added;
+        if (first > last) {
+            replaceRanges(first, first, 1);
+            mStarts[first] = start;
+            mEnds[first] = end;
+            added = end - start + 1;
+        } else {
+            long newStart = Math.min(start, mStarts[first]);
+            long newEnd = Math.max(end, mEnds[last]);
+            added = newEnd - newStart + 1 - countKeys(first, last + 1);
+            replaceRanges(first, last + 1, 1);
+            mStarts[first] = newStart;
+            mEnds[first] = newEnd;
+        }
+        mSize += added;
+        return added;
+    }
+
+    /**
+     * Removes all keys in [start, end], inclusive.
+     *
+     * @return the number of keys that were removed from the set.
+     */
+    long removeRange(long start, long end) {
+        checkArgument(start <= end, "Range start must not be after range end.");
+
+        int first = firstRangeEndingAtOrAfter(start);
+        int last = lastRangeStartingAtOrBefore(end);
+        if (first > last) {
+            return 0;
+        }
+
+        long removed = countKeys(first, last + 1);
+        boolean keepHead = mStarts[first] < start;
+        boolean keepTail = mEnds[last] > end;
+        long headStart = mStarts[first];
+        long tailEnd = mEnds[last];
+
+        int kept = (keepHead ? 1 : 0) + (keepTail ? 1 : 0);
+        replaceRanges(first, last + 1, kept);
+        int index = first;
+        if (keepHead) {
+            mStarts[index] = headStart;
+            mEnds[index] = start - 1;
+            removed -= start - headStart;
+            index++;
+        }
+        if (keepTail) {
+            mStarts[index] = end + 1;
+            mEnds[index] = tailEnd;
+            removed -= tailEnd - end;
+        }
+        mSize -= removed;
+        return removed;
+    }
+
+    @Override
+    public boolean addAll(@NonNull Collection<? extends Long> c) {
+        if (!(c instanceof LongRangeSet)) {
+            return super.addAll(c);
+        }
+        LongRangeSet other = (LongRangeSet) c;
+        boolean changed = false;
+        for (int i = 0; i < other.mRangeCount; i++) {
+            changed |= addRange(other.mStarts[i], other.mEnds[i]) > 0;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeAll(@NonNull Collection<?> c) {
+        boolean changed = false;
+        if (c instanceof LongRangeSet) {
+            LongRangeSet other = (LongRangeSet) c;
+            for (int i = 0; i < other.mRangeCount && mRangeCount > 0; i++) {
+                changed |= removeRange(other.mStarts[i], other.mEnds[i]) > 0;
+            }
+        } else {
+            for (Object o : c) {
+                changed |= remove(o);
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(@NonNull Collection<?> c) {
+        if (!(c instanceof LongRangeSet)) {
+            return super.retainAll(c);
+        }
+
+        // Intersection of two sorted range lists, in a single merge pass.
+        LongRangeSet other = (LongRangeSet) c;
+        long[] starts = new long[Math.max(mRangeCount + other.mRangeCount, INITIAL_CAPACITY)];
+        long[] ends = new long[starts.length];
+        int count = 0;
+        long size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < mRangeCount && j < other.mRangeCount) {
+            long start = Math.max(mStarts[i], other.mStarts[j]);
+            long end = Math.min(mEnds[i], other.mEnds[j]);
+            if (start <= end) {
+                starts[count] = start;
+                ends[count] = end;
+                size += end - start + 1;
+                count++;
+            }
+            if (mEnds[i] < other.mEnds[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        if (size == mSize) {
+            return false;
+        }
+        mStarts = starts;
+        mEnds = ends;
+        mRangeCount = count;
+        mSize = size;
+        mModCount++;
+        return true;
+    }
+
+    @Override
+    public @NonNull Iterator<Long> iterator() {
+        return new RangeIterator();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LongRangeSet)) {
+            return o instanceof Set && super.equals(o);
+        }
+        LongRangeSet other = (LongRangeSet) o;
+        if (mRangeCount != other.mRangeCount || mSize != other.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mRangeCount; i++) {
+            if (mStarts[i] != other.mStarts[i] || mEnds[i] != other.mEnds[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Must match the hashCode of any other Set holding the same keys.
+        return super.hashCode();
+    }
+
+    @Override
+    public @NonNull String toString() {
+        StringBuilder buffer = new StringBuilder(mRangeCount * 16 + 2);
+        buffer.append('[');
+        for (int i = 0; i < mRangeCount; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mStarts[i]);
+            if (mEnds[i] != mStarts[i]) {
+                buffer.append("..").append(mEnds[i]);
+            }
+        }
+        return buffer.append(']').toString();
+    }
+
+    /**
+     * @return index of the first range whose end is >= key, or mRangeCount if there is none.
+     */
+    private int firstRangeEndingAtOrAfter(long key) {
+        int low = 0;
+        int high = mRangeCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mEnds[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the last range whose start is <= key, or -1 if there is none.
+     */
+    private int lastRangeStartingAtOrBefore(long key) {
+        int low = 0;
+        int high = mRangeCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mStarts[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    private long countKeys(int from, int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            count += mEnds[i] - mStarts[i] + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Replaces ranges [from, to) with {@code count} ranges whose values are left for the caller
+     * to fill in.
+     */
+    private void replaceRanges(int from, int to, int count) {
+        int newRangeCount = mRangeCount - (to - from) + count;
+        if (newRangeCount > mStarts.length) {
+            int capacity = Math.max(newRangeCount, mStarts.length * 2);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mEnds = Arrays.copyOf(mEnds, capacity);
+        }
+        System.arraycopy(mStarts, to, mStarts, from + count, mRangeCount - to);
+        System.arraycopy(mEnds, to, mEnds, from + count, mRangeCount - to);
+        mRangeCount = newRangeCount;
+        mModCount++;
+    }
+
+    private final class RangeIterator implements Iterator<Long> {
+        private int mRange = 0;
+        private long mNext = mRangeCount > 0 ? mStarts[0] : 0;
+        private long mLast;
+        private boolean mCanRemove;
+        private int mExpectedModCount = mModCount;
+
+        RangeIterator() {
+        }
+
+        @Override
+        public boolean hasNext() {
+            return mRange < mRangeCount;
+        }
+
+        @Override
+        public Long next() {
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            mLast = mNext;
+            mCanRemove = true;
+            if (mNext == mEnds[mRange]) {
+                mRange++;
+                if (mRange < mRangeCount) {
+                    mNext = mStarts[mRange];
+                }
+            } else {
+                mNext++;
+            }
+            return mLast;
+        }
+
+        @Override
+        public void remove() {
+            checkForComodification();
+            if (!mCanRemove) {
+                throw new IllegalStateException();
+            }
+            mCanRemove = false;
+            removeRange(mLast, mLast);
+            mExpectedModCount = mModCount;
+            // Removal may have split or dropped a range, so find where mNext lives now. When
+            // mLast was the final key, nothing ends at or after it anymore and iteration is done.
+            mRange = firstRangeEndingAtOrAfter(mNext);
+        }
+
+        private void checkForComodification() {
+            if (mModCount != mExpectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -77,6 +77,15 @@ public class Selection<K> implements Iterable<K> {
         mProvisionalSelection = new HashSet<>();
     }
 
+    /**
+     * Used by {@link DefaultSelectionTracker} to back the selection with sets created by
+     * its {@link StorageStrategy}.
+     */
+    Selection(@NonNull Set<K> selection, @NonNull Set<K> provisionalSelection) {
+        mSelection = selection;
+        mProvisionalSelection = provisionalSelection;
+    }
+
     /**
      * @param key
      * @return true if the position is currently selected.
@@ -117,6 +126,11 @@ public class Selection<K> implements Iterable<K> {
      * @return Map of ids added or removed. Added ids have a value of true, removed are false.
      */
     Map<K, Boolean> setProvisionalSelection(@NonNull Set<K> newSelection) {
+        if (mSelection instanceof LongRangeSet
+                && mProvisionalSelection instanceof LongRangeSet) {
+            return setProvisionalRanges(newSelection);
+        }
+
         Map<K, Boolean> delta = new HashMap<>();
 
         for (K key: mProvisionalSelection) {
@@ -158,6 +172,50 @@ public class Selection<K> implements Iterable<K> {
         return delta;
     }
 
+    /**
+     * Range based equivalent of {@link #setProvisionalSelection(Set)}, used when keys are
+     * stored in {@link LongRangeSet}s. Each step is a range difference, so the cost is
+     * proportional to the number of ranges plus the number of changed keys, rather than to the
+     * size of the primary selection.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<K, Boolean> setProvisionalRanges(@NonNull Set<K> newSelection) {
+        LongRangeSet selection = (LongRangeSet) mSelection;
+        LongRangeSet provisional = (LongRangeSet) mProvisionalSelection;
+        LongRangeSet next = LongRangeSet.copyOf((Set<Long>) newSelection);
+
+        // Items that used to be in the provisional selection but are not in the new one.
+        LongRangeSet dropped = new LongRangeSet(provisional);
+        dropped.removeAll(next);
+        dropped.removeAll(selection);
+
+        // Items in the selection that are unsaved and not in the new provisional selection.
+        LongRangeSet hidden = new LongRangeSet(selection);
+        hidden.removeAll(next);
+
+        // Items that were not previously selected but are in the new provisional selection.
+        LongRangeSet added = new LongRangeSet(next);
+        added.removeAll(selection);
+        added.removeAll(provisional);
+
+        Map<Long, Boolean> delta = new HashMap<>();
+        for (Long key : dropped) {
+            delta.put(key, false);
+        }
+        for (Long key : hidden) {
+            delta.put(key, false);
+        }
+        for (Long key : added) {
+            delta.put(key, true);
+        }
+
+        provisional.removeAll(dropped);
+        provisional.removeAll(hidden);
+        provisional.addAll(added);
+
+        return (Map<K, Boolean>) (Map<?, ?>) delta;
+    }
+
     /**
      * Saves the existing provisional selection. Once the provisional selection is saved,
      * subsequent provisional selections which are different from this existing one cannot
@@ -26,6 +26,8 @@ import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Strategy for storing keys in saved state. Extend this class when using custom
@@ -53,6 +55,9 @@ public abstract class StorageStrategy<K> {
     @VisibleForTesting
     static final String SELECTION_KEY_TYPE = "androidx.recyclerview.selection.type";
 
+    @VisibleForTesting
+    static final String SELECTION_RANGES = "androidx.recyclerview.selection.ranges";
+
     private final Class<K> mType;
 
     /**
@@ -85,6 +90,13 @@ public abstract class StorageStrategy<K> {
         return mType.getCanonicalName();
     }
 
+    /**
+     * Creates the set used to hold selected keys of this strategy's type.
+     */
+    @NonNull Set<K> createKeySet() {
+        return new HashSet<>();
+    }
+
     /**
      * @return StorageStrategy suitable for use with {@link Parcelable} keys
      * (like {@link android.net.Uri}).
@@ -159,12 +171,19 @@ public abstract class StorageStrategy<K> {
                 return null;
             }
 
+            @Nullable long[] ranges = state.getLongArray(SELECTION_RANGES);
+            if (ranges != null) {
+                return new Selection<Long>(
+                        LongRangeSet.fromRangeArray(ranges), new LongRangeSet());
+            }
+
+            // Selection saved as individual entries by an earlier version of the library.
             @Nullable long[] stored = state.getLongArray(SELECTION_ENTRIES);
             if (stored == null) {
                 return null;
             }
 
-            Selection<Long> selection = new Selection<>();
+            Selection<Long> selection = new Selection<Long>(createKeySet(), createKeySet());
             for (long key : stored) {
                 selection.mSelection.add(key);
             }
@@ -177,15 +196,18 @@ public abstract class StorageStrategy<K> {
             Bundle bundle = new Bundle();
             bundle.putString(SELECTION_KEY_TYPE, getKeyTypeName());
 
-            long[] value = new long[selection.size()];
-            int i = 0;
-            for (Long key : selection) {
-                value[i++] = key;
-            }
-            bundle.putLongArray(SELECTION_ENTRIES, value);
+            // Keys are saved as start/end pairs of consecutive runs, so large contiguous
+            // selections (e.g. "select all") stay small in saved state.
+            LongRangeSet ranges = LongRangeSet.copyOf(selection.mSelection);
+            bundle.putLongArray(SELECTION_RANGES, ranges.toRangeArray());
 
             return bundle;
         }
+
+        @Override
+        @NonNull Set<Long> createKeySet() {
+            return new LongRangeSet();
+        }
     }
 
     private static class ParcelableStorageStrategy<K extends Parcelable>
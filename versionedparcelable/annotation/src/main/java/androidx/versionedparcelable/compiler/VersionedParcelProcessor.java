@@ -17,9 +17,11 @@ package androidx.versionedparcelable.compiler;
 
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
@@ -71,6 +73,9 @@ public class VersionedParcelProcessor extends AbstractProcessor {
     private static final ClassName RESTRICT_TO_SCOPE = RESTRICT_TO.nestedClass("Scope");
     private static final ClassName VERSIONED_PARCEL =
             ClassName.get("androidx.versionedparcelable", "VersionedParcel");
+    private static final ClassName PARCELIZER_REGISTRY =
+            ClassName.get("androidx.versionedparcelable", "ParcelizerRegistry");
+    private static final ClassName PARCELIZER = PARCELIZER_REGISTRY.nestedClass("Parcelizer");
 
     private static final String GEN_SUFFIX = "Parcelizer";
     private static final String READ = "read";
@@ -301,9 +306,16 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         readBuilder.addStatement("return obj");
         genClass.addMethod(readBuilder.build());
         genClass.addMethod(writeBuilder.build());
+        String pkg = getPkg(versionedParcelable);
+        ClassName genName = ClassName.get(pkg, versionedParcelable.getSimpleName() + GEN_SUFFIX);
+        // Modules compiled against a runtime without the registry keep using reflection.
+        boolean register = mEnv.getElementUtils().getTypeElement(
+                PARCELIZER_REGISTRY.reflectionName()) != null;
+        if (register) {
+            genClass.addStaticBlock(generateRegistration(genName, type));
+        }
         try {
             TypeSpec typeSpec = genClass.build();
-            String pkg = getPkg(versionedParcelable);
             JavaFile.builder(pkg,
                     typeSpec).build().writeTo(mEnv.getFiler());
             if (jetifyAs != null && jetifyAs.length() > 0) {
@@ -319,6 +331,12 @@ public class VersionedParcelProcessor extends AbstractProcessor {
                         // The empty package here is a hack to avoid an import,
                         // since the classes have the same name.
                         .superclass(ClassName.get("", superCls));
+                if (register) {
+                    // Parcels written by the jetified library use this name.
+                    jetifyClass.addStaticBlock(CodeBlock.of("$T.registerAlias($S, $S);\n",
+                            PARCELIZER_REGISTRY, jetifyAs.substring(1, jetifyAs.length() - 1)
+                                    + GEN_SUFFIX, superCls));
+                }
                 jetifyClass.addMethod(MethodSpec
                         .methodBuilder(READ)
                         .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
@@ -341,6 +359,34 @@ public class VersionedParcelProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Generates the registration of a Parcelizer calling the static read and write methods of the
+     * generated class directly, so that VersionedParcel doesn't call them through reflection.
+     */
+    private CodeBlock generateRegistration(ClassName genName, TypeName type) {
+        TypeSpec parcelizer = TypeSpec.anonymousClassBuilder("")
+                .addSuperinterface(ParameterizedTypeName.get(PARCELIZER, type))
+                .addMethod(MethodSpec
+                        .methodBuilder(READ)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(type)
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("return $T.read(parcel)", genName)
+                        .build())
+                .addMethod(MethodSpec
+                        .methodBuilder(WRITE)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(type, "obj")
+                        .addParameter(VERSIONED_PARCEL, "parcel")
+                        .addStatement("$T.write(obj, parcel)", genName)
+                        .build())
+                .build();
+        return CodeBlock.of("$T.register($S, $T.class, $L);\n", PARCELIZER_REGISTRY,
+                genName.reflectionName(), type, parcelizer);
+    }
+
     private String strip(String s) {
         if (!s.startsWith("\"")) return s;
         return s.substring(1, s.length() - 1);
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static androidx.versionedparcelable.ParcelUtils.fromInputStream;
+import static androidx.versionedparcelable.ParcelUtils.fromParcelable;
+import static androidx.versionedparcelable.ParcelUtils.toOutputStream;
+import static androidx.versionedparcelable.ParcelUtils.toParcelable;
+
+import static org.junit.Assert.assertEquals;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.benchmark.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.filters.LargeTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Measures copying a tree of VersionedParcelables, shaped like a slice with nested sub-slices,
+ * through a {@link Parcel} as for IPC and through a stream as for persisting. Every copy uses new
+ * {@link VersionedParcel}s, which is where looking up the generated Parcelizers is costly.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class VersionedParcelBenchmark {
+    private static final int WIDTH = 4;
+    private static final int DEPTH = 4;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Node mTree = createTree(WIDTH, DEPTH);
+
+    @Test
+    public void parcel() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        Node copy = null;
+        while (state.keepRunning()) {
+            final Parcel parcel = Parcel.obtain();
+            try {
+                parcel.writeParcelable(toParcelable(mTree), 0);
+                parcel.setDataPosition(0);
+                final Parcelable parcelable =
+                        parcel.readParcelable(VersionedParcelBenchmark.class.getClassLoader());
+                copy = fromParcelable(parcelable);
+            } finally {
+                parcel.recycle();
+            }
+        }
+        assertEquals(mTree.mText, copy.mText);
+        assertEquals(WIDTH, copy.mChildren.length);
+    }
+
+    @Test
+    public void stream() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        Node copy = null;
+        while (state.keepRunning()) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            toOutputStream(mTree, outputStream);
+            copy = fromInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        }
+        assertEquals(mTree.mText, copy.mText);
+        assertEquals(WIDTH, copy.mChildren.length);
+    }
+
+    private static Node createTree(int width, int depth) {
+        final Node node = new Node();
+        node.mText = "Node " + width + "/" + depth;
+        node.mValue = depth;
+        node.mHints = new String[] {"hint_1", "hint_2"};
+        node.mChildren = new Node[depth > 0 ? width : 0];
+        for (int i = 0; i < node.mChildren.length; i++) {
+            node.mChildren[i] = createTree(width, depth - 1);
+        }
+        return node;
+    }
+
+    /**
+     * A node of the tree being copied.
+     */
+    @VersionedParcelize
+    public static class Node implements VersionedParcelable {
+        @ParcelField(1)
+        public String mText;
+        @ParcelField(2)
+        public int mValue;
+        @ParcelField(3)
+        public String[] mHints = new String[0];
+        @ParcelField(4)
+        public Node[] mChildren = new Node[0];
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import androidx.versionedparcelable.VersionedParcelIntegTest.LegacyParcelizable;
+
+/**
+ * A Parcelizer in the form generated by older versions of the annotation processor, which
+ * doesn't register itself with {@link ParcelizerRegistry}.
+ */
+public final class LegacyParcelizableParcelizer {
+    /**
+     * Reads the object.
+     */
+    public static LegacyParcelizable read(VersionedParcel parcel) {
+        LegacyParcelizable obj = new LegacyParcelizable();
+        obj.mInt = parcel.readInt(obj.mInt, 1);
+        return obj;
+    }
+
+    /**
+     * Writes the object.
+     */
+    public static void write(LegacyParcelizable obj, VersionedParcel parcel) {
+        parcel.writeInt(obj.mInt, 1);
+    }
+
+    private LegacyParcelizableParcelizer() {
+    }
+}
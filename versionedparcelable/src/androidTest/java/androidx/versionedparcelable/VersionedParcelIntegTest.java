@@ -71,7 +71,7 @@ public class VersionedParcelIntegTest {
         mUseStream = useStream;
     }
 
-    private ParcelizableImpl parcelCopy(ParcelizableImpl obj) {
+    private <T extends VersionedParcelable> T parcelCopy(T obj) {
         if (mUseStream) {
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             toOutputStream(obj, outputStream);
@@ -97,6 +97,31 @@ public class VersionedParcelIntegTest {
         assertTrue(other.mPostParcelled);
     }
 
+    @Test
+    public void testParcelizerRegistered() {
+        ParcelizableImpl obj = new ParcelizableImpl();
+        obj.mInt = 42;
+        ParcelizableImpl other = parcelCopy(obj);
+        assertEquals(obj.mInt, other.mInt);
+        String name = ParcelizerRegistry.getParcelizerName(ParcelizableImpl.class);
+        assertEquals(ParcelizableImplParcelizer.class.getName(), name);
+        assertNotNull(ParcelizerRegistry.getParcelizer(name));
+    }
+
+    @Test
+    public void testUnregisteredParcelizer() {
+        LegacyParcelizable obj = new LegacyParcelizable();
+        obj.mInt = 42;
+        String name = LegacyParcelizableParcelizer.class.getName();
+        // Read through reflection each time, after the class is known not to register itself
+        for (int i = 0; i < 2; i++) {
+            LegacyParcelizable other = parcelCopy(obj);
+            assertEquals(obj.mInt, other.mInt);
+            assertTrue(ParcelizerRegistry.isUnregistered(name));
+        }
+        assertNull(ParcelizerRegistry.getParcelizer(name));
+    }
+
     @Test
     public void testInts() {
         ParcelizableImpl obj = new ParcelizableImpl();
@@ -559,4 +584,12 @@ public class VersionedParcelIntegTest {
             mValue = value.toString();
         }
     }
+
+    /**
+     * A type whose Parcelizer is written like the ones generated by older versions of the
+     * annotation processor, see {@link LegacyParcelizableParcelizer}.
+     */
+    public static class LegacyParcelizable implements VersionedParcelable {
+        public int mInt;
+    }
 }
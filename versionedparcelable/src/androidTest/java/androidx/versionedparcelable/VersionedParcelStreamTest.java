@@ -16,6 +16,7 @@
 
 package androidx.versionedparcelable;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -63,6 +64,19 @@ public class VersionedParcelStreamTest {
         assertEquals("My string", createInputParcel().readString(null, 0));
     }
 
+    @Test
+    public void testLargeField() {
+        byte[] bytes = new byte[0x20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        mOutputParcel.writeByteArray(bytes, 1);
+        mOutputParcel.writeInt(42, 2);
+        VersionedParcelStream inputParcel = createInputParcel();
+        assertArrayEquals(bytes, inputParcel.readByteArray(null, 1));
+        assertEquals(42, inputParcel.readInt(0, 2));
+    }
+
     @Test
     public void testNoException() {
         mOutputParcel.writeException(null, 0);
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.versionedparcelable;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of the Parcelizers generated for {@link VersionedParcelize} classes.
+ * <p>
+ * Each generated Parcelizer registers itself when its class is initialized, so a
+ * {@link VersionedParcel} only loads a Parcelizer class the first time the process reads or writes
+ * an object of that type, and then calls its read and write methods directly rather than through
+ * reflection. Parcelizers generated by older versions of the annotation processor don't register
+ * themselves and are still called through reflection.
+ *
+ * @hide
+ */
+@RestrictTo(LIBRARY_GROUP)
+public final class ParcelizerRegistry {
+
+    private static final ConcurrentHashMap<String, Parcelizer<?>> sParcelizers =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, String> sParcelizerNames =
+            new ConcurrentHashMap<>();
+    // The names of the initialized Parcelizer classes which didn't register themselves
+    private static final Set<String> sUnregisteredNames =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private ParcelizerRegistry() {
+    }
+
+    /**
+     * Reads and writes the fields of a {@link VersionedParcelable} type.
+     *
+     * @param <T> the type of the objects.
+     */
+    public interface Parcelizer<T extends VersionedParcelable> {
+        /**
+         * Creates an object from the fields read from the parcel.
+         */
+        T read(VersionedParcel parcel);
+
+        /**
+         * Writes the fields of the object to the parcel.
+         */
+        void write(T obj, VersionedParcel parcel);
+    }
+
+    /**
+     * Registers the Parcelizer of a type, called from the static initializer of the generated
+     * Parcelizer class.
+     *
+     * @param parcelizerName the name of the generated class, which is written to parcels.
+     * @param cls the type the Parcelizer reads and writes.
+     * @param parcelizer the Parcelizer calling the generated class.
+     */
+    public static <T extends VersionedParcelable> void register(@NonNull String parcelizerName,
+            @NonNull Class<T> cls, @NonNull Parcelizer<T> parcelizer) {
+        sParcelizers.put(parcelizerName, parcelizer);
+        sParcelizerNames.put(cls, parcelizerName);
+    }
+
+    /**
+     * Registers another name for an already registered Parcelizer, so that parcels written with
+     * the name of a jetified Parcelizer class can be read. Objects are still written with the
+     * original name.
+     */
+    public static void registerAlias(@NonNull String alias, @NonNull String parcelizerName) {
+        Parcelizer<?> parcelizer = sParcelizers.get(parcelizerName);
+        if (parcelizer != null) {
+            sParcelizers.put(alias, parcelizer);
+        }
+    }
+
+    /**
+     * Returns the Parcelizer registered under the given class name, or null if that class wasn't
+     * initialized yet or doesn't register itself.
+     */
+    @Nullable
+    static Parcelizer<?> getParcelizer(@NonNull String parcelizerName) {
+        return sParcelizers.get(parcelizerName);
+    }
+
+    /**
+     * Records that the Parcelizer class with the given name was initialized without registering
+     * itself, as it was generated by an older version of the annotation processor.
+     */
+    static void markUnregistered(@NonNull String parcelizerName) {
+        sUnregisteredNames.add(parcelizerName);
+    }
+
+    /**
+     * Returns whether the Parcelizer class with the given name is known not to register itself,
+     * so that it doesn't need to be initialized to look for its Parcelizer.
+     */
+    static boolean isUnregistered(@NonNull String parcelizerName) {
+        return sUnregisteredNames.contains(parcelizerName);
+    }
+
+    /**
+     * Returns the name of the Parcelizer class registered for the given type, or null if that
+     * class wasn't initialized yet or doesn't register itself.
+     */
+    @Nullable
+    static String getParcelizerName(@NonNull Class<?> cls) {
+        return sParcelizerNames.get(cls);
+    }
+}
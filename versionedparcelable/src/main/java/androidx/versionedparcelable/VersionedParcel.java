@@ -1037,14 +1037,17 @@ public abstract class VersionedParcel {
     }
 
     private void writeVersionedParcelableCreator(VersionedParcelable p) {
-        Class name = null;
-        try {
-            name = findParcelClass(p.getClass());
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(p.getClass().getSimpleName() + " does not have a Parcelizer",
-                    e);
+        String name = ParcelizerRegistry.getParcelizerName(p.getClass());
+        if (name == null) {
+            try {
+                // Loading the class registers its Parcelizer, for writeToParcel.
+                name = findParcelClass(p.getClass()).getName();
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(p.getClass().getSimpleName()
+                        + " does not have a Parcelizer", e);
+            }
         }
-        writeString(name.getName());
+        writeString(name);
     }
 
     /**
@@ -1561,6 +1564,25 @@ public abstract class VersionedParcel {
     @SuppressWarnings({"unchecked", "TypeParameterUnusedInFormals"})
     protected <T extends VersionedParcelable> T readFromParcel(
             String parcelCls, VersionedParcel versionedParcel) {
+        ParcelizerRegistry.Parcelizer<?> parcelizer = ParcelizerRegistry.getParcelizer(parcelCls);
+        if (parcelizer == null && !ParcelizerRegistry.isUnregistered(parcelCls)) {
+            try {
+                // Initializing the class registers its Parcelizer, unless it was generated by an
+                // older version of the annotation processor.
+                Class.forName(parcelCls, true, VersionedParcel.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException("VersionedParcel encountered ClassNotFoundException",
+                        e);
+            }
+            parcelizer = ParcelizerRegistry.getParcelizer(parcelCls);
+            if (parcelizer == null) {
+                // Go straight to the reflective read for this class from now on
+                ParcelizerRegistry.markUnregistered(parcelCls);
+            }
+        }
+        if (parcelizer != null) {
+            return (T) parcelizer.read(versionedParcel);
+        }
         try {
             Method m = getReadMethod(parcelCls);
             return (T) m.invoke(null, versionedParcel);
@@ -1580,8 +1602,15 @@ public abstract class VersionedParcel {
 
     /**
      */
+    @SuppressWarnings("unchecked")
     protected <T extends VersionedParcelable> void writeToParcel(T val,
             VersionedParcel versionedParcel) {
+        String name = ParcelizerRegistry.getParcelizerName(val.getClass());
+        if (name != null) {
+            ((ParcelizerRegistry.Parcelizer<T>) ParcelizerRegistry.getParcelizer(name))
+                    .write(val, versionedParcel);
+            return;
+        }
         try {
             Method m = getWriteMethod(val.getClass());
             m.invoke(null, val, versionedParcel);
@@ -1629,7 +1658,7 @@ public abstract class VersionedParcel {
         if (ret == null) {
             String pkg = cls.getPackage().getName();
             String c = String.format("%s.%sParcelizer", pkg, cls.getSimpleName());
-            ret = Class.forName(c, false, cls.getClassLoader());
+            ret = Class.forName(c, true, cls.getClassLoader());
             mParcelizerCache.put(cls.getName(), ret);
         }
         return ret;
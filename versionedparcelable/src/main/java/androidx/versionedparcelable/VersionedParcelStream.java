@@ -24,14 +24,12 @@ import android.os.Parcelable;
 import androidx.annotation.RestrictTo;
 import androidx.collection.ArrayMap;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.FilterInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Set;
 
@@ -60,66 +58,49 @@ class VersionedParcelStream extends VersionedParcel {
     private static final int TYPE_FLOAT = 13;
     private static final int TYPE_FLOAT_ARRAY = 14;
 
-    private final DataInputStream mMasterInput;
-    private final DataOutputStream mMasterOutput;
+    // Fields are written as an int holding the id and the size of the field, followed by the
+    // size in a second int for fields of LARGE_FIELD_SIZE bytes or more.
+    private static final int FIELD_HEADER_SIZE = 4;
+    private static final int LARGE_FIELD_SIZE = 0xffff;
 
-    private DataInputStream mCurrentInput;
-    private DataOutputStream mCurrentOutput;
-    private FieldBuffer mFieldBuffer;
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    // Larger buffers are left to the garbage collector rather than kept for the next stream.
+    private static final int MAX_POOLED_BUFFER_SIZE = 256 * 1024;
+
+    private static final Object sBufferLock = new Object();
+    private static ByteBuffer sPooledBuffer;
+
+    // Shared by a parcel and all its sub parcels.
+    private final Input mInput;
+    private final Output mOutput;
+    private final boolean mIsRoot;
+    // The end of the field of the parent parcel this parcel is read from.
+    private final long mParentLimit;
     private boolean mIgnoreParcelables;
 
-    int mCount = 0;
     private int mFieldId = -1;
-    int mFieldSize = -1;
+    // The end of the field being read, or -1 while reading the header of the next field.
+    private long mFieldEnd = -1;
+
+    private int mOutputFieldId;
+    // The position of the header of the field being written, or -1.
+    private int mOutputFieldStart = -1;
 
     public VersionedParcelStream(InputStream input, OutputStream output) {
-        this(input, output, new ArrayMap<String, Method>(), new ArrayMap<String, Method>(),
-                new ArrayMap<String, Class>());
+        this(input != null ? new Input(input) : null, output != null ? new Output(output) : null,
+                true, Long.MAX_VALUE, new ArrayMap<String, Method>(),
+                new ArrayMap<String, Method>(), new ArrayMap<String, Class>());
     }
 
-    private VersionedParcelStream(InputStream input, OutputStream output,
+    private VersionedParcelStream(Input input, Output output, boolean isRoot, long parentLimit,
             ArrayMap<String, Method> readCache,
             ArrayMap<String, Method> writeCache,
             ArrayMap<String, Class> parcelizerCache) {
         super(readCache, writeCache, parcelizerCache);
-        mMasterInput = input != null ? new DataInputStream(new FilterInputStream(input) {
-            @Override
-            public int read() throws IOException {
-                if (mFieldSize != -1 && mCount >= mFieldSize) {
-                    throw new IOException();
-                }
-                int read = super.read();
-                mCount += 1;
-                return read;
-            }
-
-            @Override
-            public int read(byte[] b, int off, int len) throws IOException {
-                if (mFieldSize != -1 && mCount >= mFieldSize) {
-                    throw new IOException();
-                }
-                int read = super.read(b, off, len);
-                if (read > 0) {
-                    mCount += read;
-                }
-                return read;
-            }
-
-            @Override
-            public long skip(long n) throws IOException {
-                if (mFieldSize != -1 && mCount >= mFieldSize) {
-                    throw new IOException();
-                }
-                long skip = super.skip(n);
-                if (skip > 0) {
-                    mCount += (int) skip;
-                }
-                return skip;
-            }
-        }) : null;
-        mMasterOutput = output != null ? new DataOutputStream(output) : null;
-        mCurrentInput = mMasterInput;
-        mCurrentOutput = mMasterOutput;
+        mInput = input;
+        mOutput = output;
+        mIsRoot = isRoot;
+        mParentLimit = parentLimit;
     }
 
     @Override
@@ -139,22 +120,27 @@ class VersionedParcelStream extends VersionedParcel {
 
     @Override
     public void closeField() {
-        if (mFieldBuffer != null) {
+        if (mOutput == null) {
+            return;
+        }
+        if (mOutputFieldStart != -1) {
+            mOutput.closeField(mOutputFieldId, mOutputFieldStart);
+            mOutputFieldStart = -1;
+        }
+        if (mIsRoot) {
+            // Sub parcels write into the buffer of the root, which writes everything at once.
             try {
-                if (mFieldBuffer.mOutput.size() != 0) {
-                    mFieldBuffer.flushField();
-                }
+                mOutput.flush();
             } catch (IOException e) {
                 throw new ParcelException(e);
             }
-            mFieldBuffer = null;
         }
     }
 
     @Override
     protected VersionedParcel createSubParcel() {
-        return new VersionedParcelStream(mCurrentInput, mCurrentOutput, mReadCache, mWriteCache,
-                mParcelizerCache);
+        return new VersionedParcelStream(mInput, mOutput, false, getLimit(), mReadCache,
+                mWriteCache, mParcelizerCache);
     }
 
     @Override
@@ -167,19 +153,17 @@ class VersionedParcelStream extends VersionedParcel {
                 if (String.valueOf(mFieldId).compareTo(String.valueOf(fieldId)) > 0) {
                     return false;
                 }
-                if (mCount < mFieldSize) {
-                    mMasterInput.skip(mFieldSize - mCount);
+                if (mInput.mPosition < mFieldEnd) {
+                    mInput.skip(mFieldEnd - mInput.mPosition, mParentLimit);
                 }
-                mFieldSize = -1;
-                int fieldInfo = mMasterInput.readInt();
-                mCount = 0;
+                mFieldEnd = -1;
+                int fieldInfo = mInput.read(FIELD_HEADER_SIZE, mParentLimit).getInt(0);
                 int size = fieldInfo & 0xffff;
-                if (size == 0xffff) {
-                    size = mMasterInput.readInt();
+                if (size == LARGE_FIELD_SIZE) {
+                    size = mInput.read(4, mParentLimit).getInt(0);
                 }
-                int id = (fieldInfo >> 16) & 0xffff;
-                mFieldId = id;
-                mFieldSize = size;
+                mFieldId = (fieldInfo >> 16) & 0xffff;
+                mFieldEnd = mInput.mPosition + size;
             }
         } catch (IOException e) {
         }
@@ -189,35 +173,32 @@ class VersionedParcelStream extends VersionedParcel {
     @Override
     public void setOutputField(int fieldId) {
         closeField();
-        mFieldBuffer = new FieldBuffer(fieldId, mMasterOutput);
-        mCurrentOutput = mFieldBuffer.mDataStream;
+        mOutputFieldId = fieldId;
+        mOutputFieldStart = mOutput.startField();
+    }
+
+    /**
+     * Returns the position reads of this parcel can't go past.
+     */
+    private long getLimit() {
+        return mFieldEnd != -1 && mFieldEnd < mParentLimit ? mFieldEnd : mParentLimit;
     }
 
     @Override
     public void writeByteArray(byte[] b) {
-        try {
-            if (b != null) {
-                mCurrentOutput.writeInt(b.length);
-                mCurrentOutput.write(b);
-            } else {
-                mCurrentOutput.writeInt(-1);
-            }
-        } catch (IOException e) {
-            throw new ParcelException(e);
+        if (b != null) {
+            writeByteArray(b, 0, b.length);
+        } else {
+            writeInt(-1);
         }
     }
 
     @Override
     public void writeByteArray(byte[] b, int offset, int len) {
-        try {
-            if (b != null) {
-                mCurrentOutput.writeInt(len);
-                mCurrentOutput.write(b, offset, len);
-            } else {
-                mCurrentOutput.writeInt(-1);
-            }
-        } catch (IOException e) {
-            throw new ParcelException(e);
+        if (b != null) {
+            mOutput.ensureCapacity(4 + len).putInt(len).put(b, offset, len);
+        } else {
+            writeInt(-1);
         }
     }
 
@@ -230,65 +211,57 @@ class VersionedParcelStream extends VersionedParcel {
 
     @Override
     public void writeInt(int val) {
-        try {
-            mCurrentOutput.writeInt(val);
-        } catch (IOException e) {
-            throw new ParcelException(e);
-        }
+        mOutput.ensureCapacity(4).putInt(val);
     }
 
     @Override
     public void writeLong(long val) {
-        try {
-            mCurrentOutput.writeLong(val);
-        } catch (IOException e) {
-            throw new ParcelException(e);
-        }
-
+        mOutput.ensureCapacity(8).putLong(val);
     }
 
     @Override
     public void writeFloat(float val) {
-        try {
-            mCurrentOutput.writeFloat(val);
-        } catch (IOException e) {
-            throw new ParcelException(e);
-        }
-
+        // Same canonical NaN as DataOutputStream
+        mOutput.ensureCapacity(4).putInt(Float.floatToIntBits(val));
     }
 
     @Override
     public void writeDouble(double val) {
-        try {
-            mCurrentOutput.writeDouble(val);
-        } catch (IOException e) {
-            throw new ParcelException(e);
-        }
-
+        mOutput.ensureCapacity(8).putLong(Double.doubleToLongBits(val));
     }
 
     @Override
     public void writeString(String val) {
-        try {
-            if (val != null) {
-                byte[] bytes = val.getBytes(UTF_16);
-                mCurrentOutput.writeInt(bytes.length);
-                mCurrentOutput.write(bytes);
-            } else {
-                mCurrentOutput.writeInt(-1);
+        if (val == null) {
+            writeInt(-1);
+            return;
+        }
+        final int length = val.length();
+        for (int i = 0; i < length; i++) {
+            char c = val.charAt(i);
+            if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // Leave the replacement of unpaired surrogates to the encoder
+                writeByteArray(val.getBytes(UTF_16));
+                return;
             }
-        } catch (IOException e) {
-            throw new ParcelException(e);
+        }
+        if (length == 0) {
+            writeInt(0);
+            return;
+        }
+        // The big endian chars after a byte order mark, as encoded by the UTF-16 charset
+        final int size = 2 + 2 * length;
+        ByteBuffer buffer = mOutput.ensureCapacity(4 + size);
+        buffer.putInt(size);
+        buffer.putChar('\ufeff');
+        for (int i = 0; i < length; i++) {
+            buffer.putChar(val.charAt(i));
         }
     }
 
     @Override
     public void writeBoolean(boolean val) {
-        try {
-            mCurrentOutput.writeBoolean(val);
-        } catch (IOException e) {
-            throw new ParcelException(e);
-        }
+        mOutput.ensureCapacity(1).put((byte) (val ? 1 : 0));
     }
 
     @Override
@@ -325,69 +298,48 @@ class VersionedParcelStream extends VersionedParcel {
 
     @Override
     public int readInt() {
-        try {
-            return mCurrentInput.readInt();
-        } catch (IOException e) {
-            throw new ParcelException(e);
-        }
+        return read(4).getInt(0);
     }
 
     @Override
     public long readLong() {
-        try {
-            return mCurrentInput.readLong();
-        } catch (IOException e) {
-            throw new ParcelException(e);
-        }
+        return read(8).getLong(0);
     }
 
     @Override
     public float readFloat() {
-        try {
-            return mCurrentInput.readFloat();
-        } catch (IOException e) {
-            throw new ParcelException(e);
-        }
+        return read(4).getFloat(0);
     }
 
     @Override
     public double readDouble() {
-        try {
-            return mCurrentInput.readDouble();
-        } catch (IOException e) {
-            throw new ParcelException(e);
-        }
+        return read(8).getDouble(0);
     }
 
     @Override
     public String readString() {
-        try {
-            int len = mCurrentInput.readInt();
-            if (len > 0) {
-                byte[] bytes = new byte[len];
-                mCurrentInput.readFully(bytes);
-                return new String(bytes, UTF_16);
-            } else {
-                return null;
-            }
-        } catch (IOException e) {
-            throw new ParcelException(e);
+        int len = readInt();
+        if (len > 0) {
+            // Decoded from the read buffer rather than from a copy of the bytes
+            return new String(read(len).array(), 0, len, UTF_16);
+        } else {
+            return null;
         }
     }
 
     @Override
     public byte[] readByteArray() {
-        try {
-            int len = mCurrentInput.readInt();
-            if (len > 0) {
-                byte[] bytes = new byte[len];
-                mCurrentInput.readFully(bytes);
-                return bytes;
-            } else {
-                return null;
+        int len = readInt();
+        if (len > 0) {
+            byte[] bytes = new byte[len];
+            try {
+                mInput.readFully(bytes, len, getLimit());
+            } catch (IOException e) {
+                throw new ParcelException(e);
             }
-        } catch (IOException e) {
-            throw new ParcelException(e);
+            return bytes;
+        } else {
+            return null;
         }
     }
 
@@ -398,8 +350,15 @@ class VersionedParcelStream extends VersionedParcel {
 
     @Override
     public boolean readBoolean() {
+        return read(1).get(0) != 0;
+    }
+
+    /**
+     * Reads the given number of bytes of the current field into the read buffer.
+     */
+    private ByteBuffer read(int size) {
         try {
-            return mCurrentInput.readBoolean();
+            return mInput.read(size, getLimit());
         } catch (IOException e) {
             throw new ParcelException(e);
         }
@@ -407,20 +366,16 @@ class VersionedParcelStream extends VersionedParcel {
 
     @Override
     public void writeBundle(Bundle val) {
-        try {
-            if (val != null) {
-                Set<String> keys = val.keySet();
-                mCurrentOutput.writeInt(keys.size());
-                for (String key : keys) {
-                    writeString(key);
-                    Object o = val.get(key);
-                    writeObject(o);
-                }
-            } else {
-                mCurrentOutput.writeInt(-1);
+        if (val != null) {
+            Set<String> keys = val.keySet();
+            writeInt(keys.size());
+            for (String key : keys) {
+                writeString(key);
+                Object o = val.get(key);
+                writeObject(o);
             }
-        } catch (IOException e) {
-            throw new ParcelException(e);
+        } else {
+            writeInt(-1);
         }
     }
 
@@ -537,30 +492,157 @@ class VersionedParcelStream extends VersionedParcel {
         }
     }
 
-    // This uses extra buffers at the moment, but makes the code really clean.
-    // TODO: Use less buffers
-    private static class FieldBuffer {
+    static ByteBuffer obtainBuffer(int minCapacity) {
+        synchronized (sBufferLock) {
+            ByteBuffer buffer = sPooledBuffer;
+            if (buffer != null && buffer.capacity() >= minCapacity) {
+                sPooledBuffer = null;
+                buffer.clear();
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocate(Math.max(INITIAL_BUFFER_SIZE, minCapacity));
+    }
+
+    static void recycleBuffer(ByteBuffer buffer) {
+        if (buffer.capacity() > MAX_POOLED_BUFFER_SIZE) {
+            return;
+        }
+        synchronized (sBufferLock) {
+            if (sPooledBuffer == null || sPooledBuffer.capacity() < buffer.capacity()) {
+                sPooledBuffer = buffer;
+            }
+        }
+    }
+
+    /**
+     * The input shared by a parcel and its sub parcels. Sub parcels read the fields of their parent
+     * in place and only the bytes which are needed are read from the stream.
+     */
+    private static class Input {
+        private final InputStream mStream;
+        private ByteBuffer mBuffer = ByteBuffer.allocate(64);
+        long mPosition;
+
+        Input(InputStream stream) {
+            mStream = stream;
+        }
 
-        final ByteArrayOutputStream mOutput = new ByteArrayOutputStream();
-        final DataOutputStream mDataStream = new DataOutputStream(mOutput);
-        private final int mFieldId;
-        private final DataOutputStream mTarget;
+        /**
+         * Reads the given number of bytes into the start of the read buffer.
+         */
+        ByteBuffer read(int size, long limit) throws IOException {
+            if (mBuffer.capacity() < size) {
+                mBuffer = ByteBuffer.allocate(Math.max(size, mBuffer.capacity() * 2));
+            }
+            readFully(mBuffer.array(), size, limit);
+            return mBuffer;
+        }
 
-        FieldBuffer(int fieldId, DataOutputStream target) {
-            mFieldId = fieldId;
-            mTarget = target;
+        void readFully(byte[] b, int size, long limit) throws IOException {
+            if (mPosition + size > limit) {
+                throw new EOFException("Read past the end of the field");
+            }
+            int offset = 0;
+            while (offset < size) {
+                int count = mStream.read(b, offset, size - offset);
+                if (count < 0) {
+                    throw new EOFException();
+                }
+                offset += count;
+                mPosition += count;
+            }
         }
 
-        void flushField() throws IOException {
-            mDataStream.flush();
-            int size = mOutput.size();
-            int fieldInfo = (mFieldId << 16) | (size >= 0xffff ? 0xffff : size);
-            mTarget.writeInt(fieldInfo);
-            if (size >= 0xffff) {
-                mTarget.writeInt(size);
+        void skip(long size, long limit) throws IOException {
+            if (mPosition + size > limit) {
+                throw new EOFException("Skipped past the end of the field");
+            }
+            while (size > 0) {
+                long count = mStream.skip(size);
+                if (count <= 0) {
+                    if (mStream.read() < 0) {
+                        throw new EOFException();
+                    }
+                    count = 1;
+                }
+                size -= count;
+                mPosition += count;
             }
-            mOutput.writeTo(mTarget);
         }
     }
 
+    /**
+     * The output shared by a parcel and its sub parcels, which write their fields in place in a
+     * single buffer. The size of a field is written in its header once the field is closed.
+     */
+    private static class Output {
+        private final OutputStream mStream;
+        private ByteBuffer mBuffer;
+
+        Output(OutputStream stream) {
+            mStream = stream;
+        }
+
+        /**
+         * Returns the buffer, with room for at least the given number of bytes.
+         */
+        ByteBuffer ensureCapacity(int size) {
+            ByteBuffer buffer = mBuffer;
+            if (buffer == null) {
+                buffer = obtainBuffer(size);
+                mBuffer = buffer;
+            } else if (buffer.remaining() < size) {
+                ByteBuffer larger = ByteBuffer.allocate(
+                        Math.max(buffer.capacity() * 2, buffer.position() + size));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+                mBuffer = buffer;
+            }
+            return buffer;
+        }
+
+        /**
+         * Reserves the header of a field and returns its position.
+         */
+        int startField() {
+            ByteBuffer buffer = ensureCapacity(FIELD_HEADER_SIZE);
+            int start = buffer.position();
+            buffer.position(start + FIELD_HEADER_SIZE);
+            return start;
+        }
+
+        void closeField(int fieldId, int start) {
+            ByteBuffer buffer = mBuffer;
+            int size = buffer.position() - start - FIELD_HEADER_SIZE;
+            if (size == 0) {
+                // Empty fields are left out.
+                buffer.position(start);
+            } else if (size < LARGE_FIELD_SIZE) {
+                buffer.putInt(start, (fieldId << 16) | size);
+            } else {
+                // Move the field to make room for its size after the header.
+                buffer = ensureCapacity(4);
+                byte[] array = buffer.array();
+                System.arraycopy(array, start + FIELD_HEADER_SIZE, array,
+                        start + FIELD_HEADER_SIZE + 4, size);
+                buffer.position(buffer.position() + 4);
+                buffer.putInt(start, (fieldId << 16) | LARGE_FIELD_SIZE);
+                buffer.putInt(start + FIELD_HEADER_SIZE, size);
+            }
+        }
+
+        /**
+         * Writes the buffer to the stream and recycles it.
+         */
+        void flush() throws IOException {
+            ByteBuffer buffer = mBuffer;
+            if (buffer != null) {
+                mBuffer = null;
+                mStream.write(buffer.array(), 0, buffer.position());
+                recycleBuffer(buffer);
+            }
+        }
+    }
 }